@@ -1,7 +1,9 @@
 package edu.stanford.bmir.protege.web.client.dispatch;
 
 import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
 import com.google.gwt.core.client.GWT;
+import com.google.gwt.core.client.Scheduler;
 import com.google.gwt.user.client.rpc.AsyncCallback;
 import com.google.gwt.user.client.rpc.InvocationException;
 import com.google.web.bindery.event.shared.Event;
@@ -11,16 +13,14 @@ import edu.stanford.bmir.protege.web.client.ui.library.msgbox.MessageBox;
 import edu.stanford.bmir.protege.web.shared.BrowserTextMap;
 import edu.stanford.bmir.protege.web.shared.HasBrowserTextMap;
 import edu.stanford.bmir.protege.web.shared.HasProjectId;
-import edu.stanford.bmir.protege.web.shared.dispatch.Action;
-import edu.stanford.bmir.protege.web.shared.dispatch.DispatchServiceResultContainer;
-import edu.stanford.bmir.protege.web.shared.dispatch.InvocationExceptionTolerantAction;
-import edu.stanford.bmir.protege.web.shared.dispatch.Result;
+import edu.stanford.bmir.protege.web.shared.dispatch.*;
 import edu.stanford.bmir.protege.web.shared.event.EventBusManager;
 import edu.stanford.bmir.protege.web.shared.event.HasEventList;
 import edu.stanford.bmir.protege.web.shared.event.SerializableEvent;
 import edu.stanford.bmir.protege.web.shared.events.EventList;
 import edu.stanford.bmir.protege.web.shared.project.ProjectId;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -30,9 +30,16 @@ import java.util.Map;
  * Stanford University<br>
  * Bio-Medical Informatics Research Group<br>
  * Date: 20/01/2013
+ * <p>
+ *     {@link ReadOnlyAction}s that are executed in the same turn of the browser event loop are sent to the server
+ *     together, in {@link BatchAction}s.  A read only action that is equal to one that is already in flight is not
+ *     sent again.  Instead, its callback is called with the result of the in flight action.
+ * </p>
  */
 public class DispatchServiceManager {
 
+    private static final int MAX_BATCH_SIZE = 50;
+
     private static DispatchServiceManager instance;
 
 
@@ -55,6 +62,10 @@ public class DispatchServiceManager {
 
     private Map<ProjectId, ResultCache> resultCacheMap = new HashMap<ProjectId, ResultCache>();
 
+    private Map<Action<?>, InFlightAction> inFlightActions = new HashMap<Action<?>, InFlightAction>();
+
+    private List<InFlightAction> pendingActions = new ArrayList<InFlightAction>();
+
     private ResultCache getResultCache(ProjectId projectId) {
         ResultCache resultCache = resultCacheMap.get(projectId);
         if(resultCache == null) {
@@ -77,11 +88,131 @@ public class DispatchServiceManager {
                 return;
             }
         }
+        if(action instanceof ReadOnlyAction) {
+            executeReadOnlyAction(action, new AsyncCallbackProxy(action, callback));
+            return;
+        }
         GWT.log("[DISPATCH] Making request to server.  Request " + requestCount + ". (" + action + ")");
         requestCount++;
         async.executeAction(action, new AsyncCallbackProxy(action, callback));
     }
 
+    private void executeReadOnlyAction(Action<?> action, AsyncCallback<DispatchServiceResultContainer> callback) {
+        InFlightAction inFlightAction = inFlightActions.get(action);
+        if(inFlightAction != null) {
+            GWT.log("[DISPATCH] Sharing the result of an in flight request (" + action + ")");
+            inFlightAction.addCallback(callback);
+            return;
+        }
+        inFlightAction = new InFlightAction(action);
+        inFlightAction.addCallback(callback);
+        inFlightActions.put(action, inFlightAction);
+        if(pendingActions.isEmpty()) {
+            Scheduler.get().scheduleFinally(new Scheduler.ScheduledCommand() {
+                @Override
+                public void execute() {
+                    sendPendingActions();
+                }
+            });
+        }
+        pendingActions.add(inFlightAction);
+    }
+
+    private void sendPendingActions() {
+        List<InFlightAction> actionsToSend = pendingActions;
+        pendingActions = new ArrayList<InFlightAction>();
+        for(int start = 0; start < actionsToSend.size(); start += MAX_BATCH_SIZE) {
+            List<InFlightAction> batch = actionsToSend.subList(start, Math.min(start + MAX_BATCH_SIZE, actionsToSend.size()));
+            if(batch.size() == 1) {
+                InFlightAction inFlightAction = batch.get(0);
+                GWT.log("[DISPATCH] Making request to server.  Request " + requestCount + ". (" + inFlightAction.getAction() + ")");
+                requestCount++;
+                async.executeAction(inFlightAction.getAction(), inFlightAction);
+            }
+            else {
+                ImmutableList.Builder<Action<?>> batchedActions = ImmutableList.builder();
+                for(InFlightAction inFlightAction : batch) {
+                    batchedActions.add(inFlightAction.getAction());
+                }
+                GWT.log("[DISPATCH] Making batched request to server.  Request " + requestCount + ". (" + batch.size() + " actions)");
+                requestCount++;
+                async.executeAction(new BatchAction(batchedActions.build()), new BatchCallback(new ArrayList<InFlightAction>(batch)));
+            }
+        }
+    }
+
+    /**
+     * A read only action that has been sent, or is about to be sent, to the server, along with the callbacks
+     * that are waiting for its result.
+     */
+    private class InFlightAction implements AsyncCallback<DispatchServiceResultContainer> {
+
+        private final Action<?> action;
+
+        private final List<AsyncCallback<DispatchServiceResultContainer>> callbacks = new ArrayList<AsyncCallback<DispatchServiceResultContainer>>();
+
+        public InFlightAction(Action<?> action) {
+            this.action = action;
+        }
+
+        public Action<?> getAction() {
+            return action;
+        }
+
+        public void addCallback(AsyncCallback<DispatchServiceResultContainer> callback) {
+            callbacks.add(callback);
+        }
+
+        @Override
+        public void onFailure(Throwable caught) {
+            inFlightActions.remove(action);
+            for(AsyncCallback<DispatchServiceResultContainer> callback : callbacks) {
+                callback.onFailure(caught);
+            }
+        }
+
+        @Override
+        public void onSuccess(DispatchServiceResultContainer result) {
+            inFlightActions.remove(action);
+            for(AsyncCallback<DispatchServiceResultContainer> callback : callbacks) {
+                callback.onSuccess(result);
+            }
+        }
+    }
+
+    /**
+     * Hands out the results of the sub-actions of a {@link BatchAction} to the actions that were batched.
+     */
+    private class BatchCallback implements AsyncCallback<DispatchServiceResultContainer> {
+
+        private final List<InFlightAction> batch;
+
+        public BatchCallback(List<InFlightAction> batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public void onFailure(Throwable caught) {
+            for(InFlightAction inFlightAction : batch) {
+                inFlightAction.onFailure(caught);
+            }
+        }
+
+        @Override
+        public void onSuccess(DispatchServiceResultContainer result) {
+            BatchResult batchResult = (BatchResult) result.getResult();
+            for(int i = 0; i < batch.size(); i++) {
+                InFlightAction inFlightAction = batch.get(i);
+                if(batchResult.isSuccess(i)) {
+                    inFlightAction.onSuccess(batchResult.getResult(i));
+                }
+                else {
+                    inFlightAction.onFailure(batchResult.getException(i));
+                }
+            }
+        }
+    }
+
 
     private class AsyncCallbackProxy<R extends Result> implements AsyncCallback<DispatchServiceResultContainer> {
 
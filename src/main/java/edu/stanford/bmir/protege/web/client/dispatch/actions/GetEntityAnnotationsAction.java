@@ -2,6 +2,7 @@ package edu.stanford.bmir.protege.web.client.dispatch.actions;
 
 import edu.stanford.bmir.protege.web.client.dispatch.RenderableGetObjectResult;
 import edu.stanford.bmir.protege.web.shared.dispatch.Action;
+import edu.stanford.bmir.protege.web.shared.dispatch.ReadOnlyAction;
 import edu.stanford.bmir.protege.web.shared.project.ProjectId;
 import org.semanticweb.owlapi.model.IRI;
 import org.semanticweb.owlapi.model.OWLAnnotation;
@@ -14,7 +15,7 @@ import java.util.Set;
  * Bio-Medical Informatics Research Group<br>
  * Date: 21/02/2013
  */
-public class GetEntityAnnotationsAction extends AbstractHasProjectIdAndSubject<IRI> implements Action<RenderableGetObjectResult<Set<OWLAnnotation>>> {
+public class GetEntityAnnotationsAction extends AbstractHasProjectIdAndSubject<IRI> implements Action<RenderableGetObjectResult<Set<OWLAnnotation>>>, ReadOnlyAction {
 
     /**
      * For serialization purposes only
@@ -24,6 +24,21 @@ import static com.google.common.base.Preconditions.checkNotNull;
  */
 public class EventPollingManager {
 
+    /**
+     * The time that a long polling request asks the server to wait for events.
+     */
+    private static final int LONG_POLL_WAIT_TIME_IN_MS = 20 * 1000;
+
+    /**
+     * The delay before a long polling request is re-issued after a response.  This allows events that are posted
+     * in quick succession to be collected by a single request.
+     */
+    private static final int LONG_POLL_RE_ARM_DELAY_IN_MS = 100;
+
+    private final boolean longPolling;
+
+    private boolean running = false;
+
     private int pollingPeriodInMS;
 
     private Timer pollingTimer;
@@ -33,15 +48,31 @@ public class EventPollingManager {
     private ProjectId projectId;
 
 
+    /**
+     * Gets a polling manager that polls for events at a fixed interval.
+     * @param pollingPeriodInMS The polling interval.
+     * @param projectId The project to poll events for.
+     */
     public static EventPollingManager get(int pollingPeriodInMS, ProjectId projectId) {
-        return new EventPollingManager(pollingPeriodInMS, projectId);
+        return new EventPollingManager(pollingPeriodInMS, projectId, false);
     }
 
-    private EventPollingManager(int pollingPeriodInMS, ProjectId projectId) {
+    /**
+     * Gets a polling manager that uses long polling.  A request for events is held open by the server until events
+     * are available (or a time out elapses), and the next request is only issued once a response has been received.
+     * @param retryPeriodInMS The time to wait before polling again if a request fails.
+     * @param projectId The project to poll events for.
+     */
+    public static EventPollingManager getLongPollingManager(int retryPeriodInMS, ProjectId projectId) {
+        return new EventPollingManager(retryPeriodInMS, projectId, true);
+    }
+
+    private EventPollingManager(int pollingPeriodInMS, ProjectId projectId, boolean longPolling) {
         if(pollingPeriodInMS < 1) {
             throw new IllegalArgumentException("pollingPeriodInMS must be greater than 0");
         }
         this.pollingPeriodInMS = pollingPeriodInMS;
+        this.longPolling = longPolling;
         this.projectId = checkNotNull(projectId, "projectId must not be null");
 //        this.dispatchManager = checkNotNull(dispatchManager, "dispatchManager must not be null");
         pollingTimer = new Timer() {
@@ -53,10 +84,17 @@ public class EventPollingManager {
     }
 
     public void start() {
-        pollingTimer.scheduleRepeating(pollingPeriodInMS);
+        running = true;
+        if (longPolling) {
+            pollForProjectEvents();
+        }
+        else {
+            pollingTimer.scheduleRepeating(pollingPeriodInMS);
+        }
     }
 
     public void stop() {
+        running = false;
         pollingTimer.cancel();
     }
 
@@ -64,15 +102,32 @@ public class EventPollingManager {
     public void pollForProjectEvents() {
         GWT.log("[Event Polling Manager] Polling for project events for " + projectId + " from " + nextTag);
         UserId userId = Application.get().getUserId();
-        DispatchServiceManager.get().execute(new GetProjectEventsAction(nextTag, projectId, userId), new DispatchServiceCallback<GetProjectEventsResult>() {
+        int maxWaitTime = longPolling ? LONG_POLL_WAIT_TIME_IN_MS : 0;
+        DispatchServiceManager.get().execute(new GetProjectEventsAction(nextTag, projectId, userId, maxWaitTime), new DispatchServiceCallback<GetProjectEventsResult>() {
 
             @Override
             public void handleSuccess(GetProjectEventsResult result) {
                 dispatchEvents(result.getEvents());
+                reArm(LONG_POLL_RE_ARM_DELAY_IN_MS);
+            }
+
+            @Override
+            public void handleErrorFinally(Throwable throwable) {
+                reArm(pollingPeriodInMS);
             }
         });
     }
 
+    /**
+     * In long polling mode, schedules the next request for events.
+     * @param delayInMS The delay before the next request.
+     */
+    private void reArm(int delayInMS) {
+        if (longPolling && running) {
+            pollingTimer.schedule(delayInMS);
+        }
+    }
+
 
     public void dispatchEvents(EventList<?> eventList) {
         if(eventList.isEmpty()) {
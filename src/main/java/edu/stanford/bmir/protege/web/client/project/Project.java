@@ -48,7 +48,7 @@ public class Project implements HasProjectId, HasDispose {
         this.permissionManager = new ProjectPermissionManager(getProjectId());
         this.permissionManager.setUserPermissions(Application.get().getUserId(), checkNotNull(permissionsForCurrentUser));
         this.layoutManager = new LayoutManager(this);
-        this.eventPollingManager = EventPollingManager.get(10 * 1000, projectDetails.getProjectId());
+        this.eventPollingManager = EventPollingManager.getLongPollingManager(10 * 1000, projectDetails.getProjectId());
         eventPollingManager.start();
     }
 
@@ -62,6 +62,9 @@ import edu.stanford.bmir.protege.web.shared.hierarchy.ClassHierarchyParentAddedE
 import edu.stanford.bmir.protege.web.shared.hierarchy.ClassHierarchyParentAddedHandler;
 import edu.stanford.bmir.protege.web.shared.hierarchy.ClassHierarchyParentRemovedEvent;
 import edu.stanford.bmir.protege.web.shared.hierarchy.ClassHierarchyParentRemovedHandler;
+import edu.stanford.bmir.protege.web.shared.hierarchy.EntityHierarchyNode;
+import edu.stanford.bmir.protege.web.shared.hierarchy.GetHierarchyChildrenAction;
+import edu.stanford.bmir.protege.web.shared.hierarchy.GetHierarchyChildrenResult;
 import edu.stanford.bmir.protege.web.shared.renderer.GetEntityDataAction;
 import edu.stanford.bmir.protege.web.shared.renderer.GetEntityDataResult;
 import edu.stanford.bmir.protege.web.shared.selection.SelectionModel;
@@ -110,6 +113,12 @@ public class ClassTreePortlet extends AbstractOWLEntityPortlet {
 
     private boolean expandDisabled = false;
 
+    /**
+     * The subclasses of the classes on the path that is being selected, keyed by class name.  These are fetched
+     * in one round trip when a path is selected.
+     */
+    private final Map<String, List<SubclassEntityData>> pathSubclasses = new HashMap<String, List<SubclassEntityData>>();
+
     private boolean showToolbar = true;
 
     private boolean showTitle = true;
@@ -1082,7 +1091,60 @@ public class ClassTreePortlet extends AbstractOWLEntityPortlet {
     }
 
     protected void invokeGetSubclassesRemoteCall(final String parentClsName, AsyncCallback<List<SubclassEntityData>> callback) {
-        OntologyServiceManager.getInstance().getSubclasses(getProjectId(), parentClsName, callback);
+        invokeGetSubclassesRemoteCall(parentClsName, Collections.<String>emptyList(), callback);
+    }
+
+    /**
+     * Gets the subclasses of a class, and the subclasses of some other classes, in one round trip.  The subclasses
+     * of the other classes are put into {@link #pathSubclasses}.
+     */
+    private void invokeGetSubclassesRemoteCall(final String parentClsName,
+                                               final List<String> otherParentClsNames,
+                                               final AsyncCallback<List<SubclassEntityData>> callback) {
+        if (parentClsName == null) {
+            callback.onSuccess(Collections.<SubclassEntityData>emptyList());
+            return;
+        }
+        final OWLClass parentCls = DataFactory.getOWLClass(parentClsName);
+        ImmutableSet.Builder<OWLEntity> parents = ImmutableSet.builder();
+        parents.add(parentCls);
+        for (String otherParentClsName : otherParentClsNames) {
+            parents.add(DataFactory.getOWLClass(otherParentClsName));
+        }
+        DispatchServiceManager.get().execute(new GetHierarchyChildrenAction(getProjectId(), parents.build()), new DispatchServiceCallback<GetHierarchyChildrenResult>() {
+            @Override
+            public void handleSuccess(GetHierarchyChildrenResult result) {
+                for (String otherParentClsName : otherParentClsNames) {
+                    OWLClass otherParentCls = DataFactory.getOWLClass(otherParentClsName);
+                    pathSubclasses.put(otherParentClsName, toSubclassEntityData(result.getChildren(otherParentCls)));
+                }
+                callback.onSuccess(toSubclassEntityData(result.getChildren(parentCls)));
+            }
+
+            @Override
+            public void handleErrorFinally(Throwable throwable) {
+                callback.onFailure(throwable);
+            }
+        });
+    }
+
+    private static List<SubclassEntityData> toSubclassEntityData(List<EntityHierarchyNode> nodes) {
+        List<SubclassEntityData> result = new ArrayList<SubclassEntityData>();
+        for (EntityHierarchyNode node : nodes) {
+            OWLEntityData entityData = node.getEntityData();
+            SubclassEntityData data = new SubclassEntityData(entityData.getEntity().getIRI().toString(),
+                    entityData.getBrowserText(),
+                    new HashSet<EntityData>(0),
+                    node.getChildCount());
+            data.setDeprecated(node.isDeprecated());
+            data.setLocalAnnotationsCount(node.getNotesCount());
+            if (!node.getWatches().isEmpty()) {
+                data.setWatches(new HashSet<Watch<?>>(node.getWatches()));
+            }
+            data.setValueType(ValueType.Cls);
+            result.add(data);
+        }
+        return result;
     }
 
     protected AsyncCallback<List<SubclassEntityData>> getSubclassesCallback(final String parentClsName, final TreeNode parentNode) {
@@ -1256,6 +1318,7 @@ public class ClassTreePortlet extends AbstractOWLEntityPortlet {
             }
         }
 
+        pathSubclasses.clear();
         selectPathInTree(path, treePanel.getRootNode(), 0);
     }
 
@@ -1273,7 +1336,17 @@ public class ClassTreePortlet extends AbstractOWLEntityPortlet {
             final TreeNode node = findTreeNode(clsName);
             if (node == null) {
                 final EntityData parentEntityData = (EntityData) parentNode.getUserObject();
-                invokeGetSubclassesRemoteCall(parentEntityData.getName(), getSelectInTreeCallback(parentNode, path, i));
+                List<SubclassEntityData> subclasses = pathSubclasses.remove(parentEntityData.getName());
+                if (subclasses != null) {
+                    getSelectInTreeCallback(parentNode, path, i).onSuccess(subclasses);
+                    return;
+                }
+                // Get the subclasses of the remaining classes on the path in the same round trip
+                List<String> remainingPathClsNames = new ArrayList<String>();
+                for (int j = i; j < path.size() - 1; j++) {
+                    remainingPathClsNames.add(path.get(j).getName());
+                }
+                invokeGetSubclassesRemoteCall(parentEntityData.getName(), remainingPathClsNames, getSelectInTreeCallback(parentNode, path, i));
                 return;
             }
             else {
@@ -26,12 +26,14 @@ import edu.stanford.bmir.protege.web.client.rpc.*;
 import edu.stanford.bmir.protege.web.client.rpc.data.EntityData;
 import edu.stanford.bmir.protege.web.client.rpc.data.PropertyEntityData;
 import edu.stanford.bmir.protege.web.client.rpc.data.PropertyType;
+import edu.stanford.bmir.protege.web.client.rpc.data.ValueType;
 import edu.stanford.bmir.protege.web.client.ui.library.dlg.WebProtegeDialog;
 import edu.stanford.bmir.protege.web.client.ui.ontology.entity.CreateEntityDialogController;
 import edu.stanford.bmir.protege.web.client.ui.ontology.entity.CreateEntityInfo;
 import edu.stanford.bmir.protege.web.client.ui.portlet.AbstractOWLEntityPortlet;
 import edu.stanford.bmir.protege.web.client.ui.portlet.LegacyCompatUtil;
 import edu.stanford.bmir.protege.web.resources.WebProtegeClientBundle;
+import edu.stanford.bmir.protege.web.shared.DataFactory;
 import edu.stanford.bmir.protege.web.shared.entity.OWLEntityData;
 import edu.stanford.bmir.protege.web.shared.entity.OWLPropertyData;
 import edu.stanford.bmir.protege.web.shared.event.BrowserTextChangedEvent;
@@ -676,6 +678,80 @@ public class PropertiesTreePortlet extends AbstractOWLEntityPortlet {
         OntologyServiceManager.getInstance().getSubproperties(getProjectId(), propName, new GetSubproperties(propName, getSubpropertiesOfSubproperties));
     }
 
+    /**
+     * Gets the subproperties of the children of a node, that have not already been fetched, in one round trip.
+     * Children that are not properties, such as the annotation properties root, are fetched individually.
+     */
+    private void getSubPropertiesOfChildren(final TreeNode parentNode) {
+        ImmutableSet.Builder<OWLEntity> parents = ImmutableSet.builder();
+        for (Node child : parentNode.getChildNodes()) {
+            if (child.getFirstChild() != null) {
+                continue;
+            }
+            Optional<OWLEntity> childProperty = toProperty((EntityData) child.getUserObject());
+            if (childProperty.isPresent()) {
+                parents.add(childProperty.get());
+            }
+            else {
+                getSubProperties(child.getId(), false);
+            }
+        }
+        final ImmutableSet<OWLEntity> parentProperties = parents.build();
+        if (parentProperties.isEmpty()) {
+            return;
+        }
+        DispatchServiceManager.get().execute(new GetHierarchyChildrenAction(getProjectId(), parentProperties), new DispatchServiceCallback<GetHierarchyChildrenResult>() {
+            @Override
+            public void handleSuccess(GetHierarchyChildrenResult result) {
+                for (OWLEntity parentProperty : parentProperties) {
+                    TreeNode childNode = treePanel.getNodeById(parentProperty.getIRI().toString());
+                    if (childNode == null || childNode.getFirstChild() != null) {
+                        continue;
+                    }
+                    for (EntityHierarchyNode node : result.getChildren(parentProperty)) {
+                        childNode.appendChild(createTreeNode(toPropertyEntityData(node)));
+                    }
+                }
+            }
+        });
+    }
+
+    private static Optional<OWLEntity> toProperty(EntityData entityData) {
+        if (!(entityData instanceof PropertyEntityData)) {
+            return Optional.absent();
+        }
+        PropertyType propertyType = ((PropertyEntityData) entityData).getPropertyType();
+        if (propertyType == PropertyType.OBJECT) {
+            return Optional.<OWLEntity>of(DataFactory.getOWLObjectProperty(entityData.getName()));
+        }
+        else if (propertyType == PropertyType.DATATYPE) {
+            return Optional.<OWLEntity>of(DataFactory.getOWLDataProperty(entityData.getName()));
+        }
+        else if (propertyType == PropertyType.ANNOTATION) {
+            return Optional.<OWLEntity>of(DataFactory.getOWLAnnotationProperty(entityData.getName()));
+        }
+        return Optional.absent();
+    }
+
+    private static PropertyEntityData toPropertyEntityData(EntityHierarchyNode node) {
+        OWLEntity entity = node.getEntityData().getEntity();
+        PropertyEntityData entityData = new PropertyEntityData(entity.getIRI().toString(), node.getEntityData().getBrowserText(), null);
+        if (entity.isOWLObjectProperty()) {
+            entityData.setPropertyType(PropertyType.OBJECT);
+            entityData.setValueType(ValueType.Instance);
+        }
+        else if (entity.isOWLDataProperty()) {
+            entityData.setPropertyType(PropertyType.DATATYPE);
+            entityData.setValueType(ValueType.Literal);
+        }
+        else {
+            entityData.setPropertyType(PropertyType.ANNOTATION);
+            entityData.setValueType(ValueType.Any);
+        }
+        entityData.setLocalAnnotationsCount(node.getNotesCount());
+        return entityData;
+    }
+
 //    public List<EntityData> getSelection() {
 //        if (currentSelection == null) {
 //            return Collections.emptyList();
@@ -754,10 +830,7 @@ public class PropertiesTreePortlet extends AbstractOWLEntityPortlet {
                 // TODO: think about this situation
 
                 if (getSubpropertiesOfSubproperties) {
-                    for (Object element2 : children) {
-                        EntityData child = (EntityData) element2;
-                        getSubProperties(child.getName(), false);
-                    }
+                    getSubPropertiesOfChildren(parentNode);
                 }
                 return;
             }
@@ -771,10 +844,7 @@ public class PropertiesTreePortlet extends AbstractOWLEntityPortlet {
             }
 
             if (getSubpropertiesOfSubproperties) {
-                for (Object element2 : children) {
-                    EntityData childName = (EntityData) element2;
-                    getSubProperties(childName.getName(), false);
-                }
+                getSubPropertiesOfChildren(parentNode);
             }
         }
 
@@ -5,7 +5,6 @@ import com.google.common.base.Optional;
 import edu.stanford.bmir.protege.web.client.rpc.OBOTextEditorService;
 import edu.stanford.bmir.protege.web.client.rpc.data.NotSignedInException;
 import edu.stanford.bmir.protege.web.server.inject.WebProtegeInjector;
-import edu.stanford.bmir.protege.web.server.obo.OBONamespaceCache;
 import edu.stanford.bmir.protege.web.server.owlapi.OWLAPIProject;
 import edu.stanford.bmir.protege.web.server.owlapi.OWLAPIProjectManager;
 import edu.stanford.bmir.protege.web.shared.entity.OWLClassData;
@@ -38,12 +37,9 @@ public class OBOTextEditorServiceImpl extends WebProtegeRemoteServiceServlet imp
         projectManager = WebProtegeInjector.get().getInstance(OWLAPIProjectManager.class);
     }
 
-    public synchronized Set<OBONamespace> getNamespaces(ProjectId projectId) {
-//        if (cache == null) {
+    public Set<OBONamespace> getNamespaces(ProjectId projectId) {
         OWLAPIProject project = getProject(projectId);
-        OBONamespaceCache cache = OBONamespaceCache.createCache(project);
-//        }
-        return cache.getNamespaces();
+        return project.getOBONamespaceCache().getNamespaces();
     }
 
     public OBOTermId getTermId(ProjectId projectId, OWLEntity entity) {
@@ -10,7 +10,10 @@ import javax.inject.Inject;
 import javax.inject.Named;
 import java.io.File;
 import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Properties;
+import java.util.Set;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static edu.stanford.bmir.protege.web.shared.app.WebProtegePropertyName.*;
@@ -134,6 +137,83 @@ public class WebProtegeProperties implements Serializable {
         return getOptionalString(MONGO_DB_HOST);
     }
 
+    /**
+     * Gets the percentage of the maximum heap size that loaded projects may occupy.
+     * @return The percentage.
+     * @throws WebProtegeConfigurationException if the value is not an integer between 1 and 100.
+     */
+    public int getProjectCacheMaxMemoryPercentage() {
+        return getIntegerInRange(PROJECT_CACHE_MAX_MEMORY_PERCENTAGE, 1, 100);
+    }
+
+    /**
+     * Gets the number of recently active projects that should be loaded when WebProtege starts.
+     * @return The number of projects.  Zero if no projects should be loaded.
+     * @throws WebProtegeConfigurationException if the value is not a non-negative integer.
+     */
+    public int getProjectWarmUpCount() {
+        return getIntegerInRange(PROJECT_WARMUP_COUNT, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Gets the number of threads that are used to load recently active projects when WebProtege starts.
+     * @return The number of threads.
+     * @throws WebProtegeConfigurationException if the value is not a positive integer.
+     */
+    public int getProjectWarmUpThreadCount() {
+        return getIntegerInRange(PROJECT_WARMUP_THREADS, 1, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Gets the number of seconds over which the changes to the entities that a user watches are collected into one
+     * notification email.
+     * @return The number of seconds.
+     * @throws WebProtegeConfigurationException if the value is not a positive integer.
+     */
+    public int getWatchNotificationWindowSeconds() {
+        return getIntegerInRange(WATCH_NOTIFICATION_WINDOW_SECONDS, 1, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Gets the number of CSV rows that are imported in each revision when a CSV file is imported.
+     * @return The number of rows.
+     * @throws WebProtegeConfigurationException if the value is not a positive integer.
+     */
+    public int getCSVImportChunkSize() {
+        return getIntegerInRange(CSV_IMPORT_CHUNK_SIZE, 1, Integer.MAX_VALUE);
+    }
+
+    private int getIntegerInRange(WebProtegePropertyName propertyName, int min, int max) {
+        String value = getRequiredString(propertyName);
+        try {
+            int result = Integer.parseInt(value.trim());
+            if (result < min || result > max) {
+                throw new WebProtegeConfigurationException("Property " + propertyName.getPropertyName() + " must be between " + min + " and " + max);
+            }
+            return result;
+        } catch (NumberFormatException e) {
+            throw new WebProtegeConfigurationException("Property " + propertyName.getPropertyName() + " must be an integer");
+        }
+    }
+
+    /**
+     * Gets the ids of the projects that should never be evicted from memory.
+     * @return The (possibly empty) set of project ids, as strings.  Not {@code null}.
+     */
+    public Set<String> getProjectCachePinnedProjects() {
+        Optional<String> value = getOptionalString(PROJECT_CACHE_PINNED_PROJECTS);
+        if (!value.isPresent()) {
+            return Collections.emptySet();
+        }
+        Set<String> result = new HashSet<>();
+        for (String projectId : value.get().split(",")) {
+            if (!projectId.trim().isEmpty()) {
+                result.add(projectId.trim());
+            }
+        }
+        return result;
+    }
+
 
 
 
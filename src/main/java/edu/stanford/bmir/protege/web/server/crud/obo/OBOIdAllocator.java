@@ -0,0 +1,147 @@
+package edu.stanford.bmir.protege.web.server.crud.obo;
+
+import com.google.common.collect.ImmutableMap;
+import edu.stanford.bmir.protege.web.shared.crud.oboid.UserIdRange;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.model.OWLOntology;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Allocates OBO id numbers.  Each user that has an id range allocates ids from the highest id that has been used
+ * in that range, and other users allocate ids from the highest id that has been used outside of all ranges.  The
+ * highest used ids are found from the signature of the ontology when the allocator is created, and ids are then
+ * allocated by atomically incrementing them, so allocating an id does not look at the ontology and does not lock.
+ * Ids are never handed out twice, even if the changes that they were allocated for are not applied.
+ */
+public class OBOIdAllocator {
+
+    /**
+     * The maximum number of digits that is parsed as an id.  Longer numbers may not fit into a long.
+     */
+    private static final int MAX_PARSED_DIGITS = 18;
+
+    private final String iriPrefix;
+
+    private final int totalDigits;
+
+    private final ImmutableMap<UserId, UserIdRange> rangesByUser;
+
+    private final ImmutableMap<UserId, AtomicLong> highestIdByUser;
+
+    private final AtomicLong highestId;
+
+    /**
+     * Creates an allocator that allocates ids above the ids that are used in the specified ontology.
+     * @param iriPrefix The prefix of the IRIs that contain ids.  Not {@code null}.
+     * @param totalDigits The number of digits that ids are padded to.
+     * @param userIdRanges The ranges of ids that are allocated to specific users.  Not {@code null}.
+     * @param rootOntology The ontology whose imports closure contains the used ids.  Not {@code null}.
+     */
+    public OBOIdAllocator(String iriPrefix, int totalDigits, List<UserIdRange> userIdRanges, OWLOntology rootOntology) {
+        this.iriPrefix = checkNotNull(iriPrefix);
+        this.totalDigits = totalDigits;
+        ImmutableMap.Builder<UserId, UserIdRange> rangesBuilder = ImmutableMap.builder();
+        ImmutableMap.Builder<UserId, AtomicLong> highestIdBuilder = ImmutableMap.builder();
+        for(UserIdRange range : userIdRanges) {
+            rangesBuilder.put(range.getUserId(), range);
+            highestIdBuilder.put(range.getUserId(), new AtomicLong(range.getStart()));
+        }
+        rangesByUser = rangesBuilder.build();
+        highestIdByUser = highestIdBuilder.build();
+        highestId = new AtomicLong(0);
+        for(OWLEntity entity : rootOntology.getSignature(true)) {
+            long id = parseId(entity.getIRI());
+            if(id != -1) {
+                markAsUsed(id);
+            }
+        }
+    }
+
+    /**
+     * Parses the id in the specified IRI.
+     * @param iri The IRI.
+     * @return The id, or -1 if the IRI does not consist of the IRI prefix followed by an id.
+     */
+    private long parseId(IRI iri) {
+        String iriString = iri.toString();
+        if(!iriString.startsWith(iriPrefix)) {
+            return -1;
+        }
+        int length = iriString.length() - iriPrefix.length();
+        if(length == 0 || length > MAX_PARSED_DIGITS) {
+            return -1;
+        }
+        long id = 0;
+        for(int i = iriPrefix.length(); i < iriString.length(); i++) {
+            char ch = iriString.charAt(i);
+            if(ch < '0' || ch > '9') {
+                return -1;
+            }
+            id = id * 10 + (ch - '0');
+        }
+        return id;
+    }
+
+    private void markAsUsed(long id) {
+        for(UserIdRange range : rangesByUser.values()) {
+            if(range.getStart() <= id && id <= range.getEnd()) {
+                raiseTo(highestIdByUser.get(range.getUserId()), id);
+                return;
+            }
+        }
+        raiseTo(highestId, id);
+    }
+
+    private static void raiseTo(AtomicLong highestId, long id) {
+        long current = highestId.get();
+        while(current < id && !highestId.compareAndSet(current, id)) {
+            current = highestId.get();
+        }
+    }
+
+    /**
+     * Allocates a fresh id for the specified user.
+     * @param userId The user.  Not {@code null}.
+     * @return The id.
+     * @throws CannotGenerateFreshEntityIdForUserException if the user has an id range and all of the ids in it have
+     * been allocated.
+     */
+    public long allocateId(UserId userId) {
+        UserIdRange range = rangesByUser.get(userId);
+        if(range == null) {
+            return highestId.incrementAndGet();
+        }
+        AtomicLong highestIdForUser = highestIdByUser.get(userId);
+        while(true) {
+            long current = highestIdForUser.get();
+            if(current >= range.getEnd()) {
+                throw new CannotGenerateFreshEntityIdForUserException(range);
+            }
+            if(highestIdForUser.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    /**
+     * Gets the IRI for the specified id.  The id is padded with leading zeros to the total number of digits.
+     * @param id The id.
+     * @return The IRI.  Not {@code null}.
+     */
+    public IRI getIRI(long id) {
+        String digits = Long.toString(id);
+        StringBuilder sb = new StringBuilder(iriPrefix.length() + Math.max(totalDigits, digits.length()));
+        sb.append(iriPrefix);
+        for(int i = digits.length(); i < totalDigits; i++) {
+            sb.append('0');
+        }
+        sb.append(digits);
+        return IRI.create(sb.toString());
+    }
+}
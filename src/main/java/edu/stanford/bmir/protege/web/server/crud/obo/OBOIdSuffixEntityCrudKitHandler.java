@@ -1,7 +1,5 @@
 package edu.stanford.bmir.protege.web.server.crud.obo;
 
-import com.beust.jcommander.internal.Maps;
-import com.google.common.collect.ImmutableMap;
 import edu.stanford.bmir.protege.web.server.change.OntologyChangeList;
 import edu.stanford.bmir.protege.web.server.crud.EntityCrudContext;
 import edu.stanford.bmir.protege.web.server.crud.EntityCrudKitHandler;
@@ -11,14 +9,9 @@ import edu.stanford.bmir.protege.web.shared.crud.EntityCrudKitSettings;
 import edu.stanford.bmir.protege.web.shared.crud.EntityShortForm;
 import edu.stanford.bmir.protege.web.shared.crud.oboid.OBOIdSuffixKit;
 import edu.stanford.bmir.protege.web.shared.crud.oboid.OBOIdSuffixSettings;
-import edu.stanford.bmir.protege.web.shared.crud.oboid.UserIdRange;
 import edu.stanford.bmir.protege.web.shared.user.UserId;
-import edu.stanford.smi.protege.server.Session;
 import org.semanticweb.owlapi.model.*;
 
-import java.text.DecimalFormat;
-import java.text.NumberFormat;
-import java.util.Map;
 
 /**
  * Author: Matthew Horridge<br>
@@ -28,27 +21,19 @@ import java.util.Map;
  */
 public class OBOIdSuffixEntityCrudKitHandler implements EntityCrudKitHandler<OBOIdSuffixSettings, OBOIdSession> {
 
-
-    private long currentId = 0;
-
     private EntityCrudKitPrefixSettings prefixSettings;
 
     private OBOIdSuffixSettings suffixSettings;
 
-    private final Map<UserId, Long> userId2CurrentIdMap = Maps.newHashMap();
-
-    private final Map<UserId, UserIdRange> userId2RangeEndMap;
+    /**
+     * Handlers are created for the settings of a project, so the allocator is created from the root ontology of the
+     * project the first time an entity is created.
+     */
+    private volatile OBOIdAllocator idAllocator;
 
     public OBOIdSuffixEntityCrudKitHandler(EntityCrudKitPrefixSettings prefixSettings, OBOIdSuffixSettings suffixSettings) {
         this.prefixSettings = prefixSettings;
         this.suffixSettings = suffixSettings;
-
-        ImmutableMap.Builder<UserId, UserIdRange> builder = ImmutableMap.builder();
-        for(UserIdRange range : suffixSettings.getUserIdRanges()) {
-            userId2CurrentIdMap.put(range.getUserId(), range.getStart());
-            builder.put(range.getUserId(), range);
-        }
-        userId2RangeEndMap = builder.build();
     }
 
     @Override
@@ -92,49 +77,35 @@ public class OBOIdSuffixEntityCrudKitHandler implements EntityCrudKitHandler<OBO
 
 
 
-    private synchronized IRI getNextIRI(OBOIdSession session, OWLOntology rootOntology, UserId userId) {
-        StringBuilder formatStringBuilder = new StringBuilder();
-        for (int i = 0; i < suffixSettings.getTotalDigits(); i++) {
-            formatStringBuilder.append("0");
-        }
-        NumberFormat numberFormat = new DecimalFormat(formatStringBuilder.toString());
-        long currentId = getCurrentId(userId);
+    private IRI getNextIRI(OBOIdSession session, OWLOntology rootOntology, UserId userId) {
+        OBOIdAllocator allocator = getIdAllocator(rootOntology);
         while (true) {
-            currentId++;
-            if(!session.isSessionId(currentId)) {
-                String shortName = numberFormat.format(currentId);
-                IRI iri = IRI.create(prefixSettings.getIRIPrefix() + shortName);
-                if (!rootOntology.containsEntityInSignature(iri, true)) {
-                    session.addSessionId(currentId);
-                    setCurrentId(userId, currentId);
-                    return iri;
-                }
+            long id = allocator.allocateId(userId);
+            IRI iri = allocator.getIRI(id);
+            // Entities with ids above the highest used ids may have been added since the allocator was created,
+            // for example by adding an import
+            if (!rootOntology.containsEntityInSignature(iri, true)) {
+                session.addSessionId(id);
+                return iri;
             }
         }
     }
 
-    private long getCurrentId(UserId userId) {
-        Long currentIdForUser = userId2CurrentIdMap.get(userId);
-        if(currentIdForUser != null) {
-            return currentIdForUser;
-        }
-        else {
-            return currentId;
-        }
-    }
-
-    private void setCurrentId(UserId userId, long currentId) {
-        if (userId2CurrentIdMap.containsKey(userId)) {
-            UserIdRange userIdRange = userId2RangeEndMap.get(userId);
-            long limitForUser = userIdRange.getEnd();
-            if(currentId > limitForUser) {
-                throw new CannotGenerateFreshEntityIdForUserException(userIdRange);
+    private OBOIdAllocator getIdAllocator(OWLOntology rootOntology) {
+        OBOIdAllocator allocator = idAllocator;
+        if (allocator == null) {
+            synchronized (this) {
+                allocator = idAllocator;
+                if (allocator == null) {
+                    allocator = new OBOIdAllocator(prefixSettings.getIRIPrefix(),
+                                                   suffixSettings.getTotalDigits(),
+                                                   suffixSettings.getUserIdRanges(),
+                                                   rootOntology);
+                    idAllocator = allocator;
+                }
             }
-            userId2CurrentIdMap.put(userId, currentId);
-        }
-        else {
-            this.currentId = currentId;
         }
+        return allocator;
     }
 
     @Override
@@ -1,9 +1,11 @@
 package edu.stanford.bmir.protege.web.server.csv;
 
 import edu.stanford.bmir.protege.web.shared.csv.CSVGrid;
+import edu.stanford.bmir.protege.web.shared.csv.CSVRow;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.util.Arrays;
 
 /**
  * Author: Matthew Horridge<br>
@@ -46,4 +48,22 @@ public class CSVGridParser {
         return builder.build();
     }
 
+    /**
+     * Reads the rows of a csv file one at a time, so that the complete file is never held in memory.
+     * @param reader The reader that reads the file.
+     * @param handler The handler that each row is passed to, in the order that the rows appear in the file.
+     * @return The number of rows that were read.
+     * @throws IOException If there was a problem reading from the specified reader.
+     */
+    public int readRows(Reader reader, CSVReaderHandler handler) throws IOException {
+        au.com.bytecode.opencsv.CSVReader r = new au.com.bytecode.opencsv.CSVReader(reader);
+        int rowCount = 0;
+        String [] row;
+        while((row = r.readNext()) != null) {
+            handler.handleRow(new CSVRow(Arrays.asList(row)));
+            rowCount++;
+        }
+        return rowCount;
+    }
+
 }
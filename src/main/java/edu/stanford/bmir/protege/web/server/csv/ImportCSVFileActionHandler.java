@@ -1,10 +1,8 @@
 package edu.stanford.bmir.protege.web.server.csv;
 
-import edu.stanford.bmir.protege.web.server.change.ChangeApplicationResult;
-import edu.stanford.bmir.protege.web.server.change.ChangeDescriptionGenerator;
-import edu.stanford.bmir.protege.web.server.change.ChangeListGenerator;
+import edu.stanford.bmir.protege.web.server.app.WebProtegeProperties;
 import edu.stanford.bmir.protege.web.server.change.FixedMessageChangeDescriptionGenerator;
-import edu.stanford.bmir.protege.web.server.dispatch.AbstractProjectChangeHandler;
+import edu.stanford.bmir.protege.web.server.dispatch.AbstractHasProjectActionHandler;
 import edu.stanford.bmir.protege.web.server.dispatch.ExecutionContext;
 import edu.stanford.bmir.protege.web.server.dispatch.RequestContext;
 import edu.stanford.bmir.protege.web.server.dispatch.RequestValidator;
@@ -13,6 +11,8 @@ import edu.stanford.bmir.protege.web.server.inject.UploadsDirectory;
 import edu.stanford.bmir.protege.web.server.owlapi.OWLAPIProject;
 import edu.stanford.bmir.protege.web.server.owlapi.OWLAPIProjectManager;
 import edu.stanford.bmir.protege.web.shared.csv.CSVGrid;
+import edu.stanford.bmir.protege.web.shared.csv.CSVImportProgressEvent;
+import edu.stanford.bmir.protege.web.shared.csv.CSVRow;
 import edu.stanford.bmir.protege.web.shared.csv.ImportCSVFileAction;
 import edu.stanford.bmir.protege.web.shared.csv.ImportCSVFileResult;
 import edu.stanford.bmir.protege.web.shared.event.ProjectEvent;
@@ -22,6 +22,7 @@ import edu.stanford.bmir.protege.web.shared.events.EventTag;
 import javax.inject.Inject;
 import java.io.*;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
@@ -29,15 +30,32 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * Stanford University<br>
  * Bio-Medical Informatics Research Group<br>
  * Date: 31/05/2013
+ * <p>
+ *     The CSV file is read a row at a time and imported in chunks of rows, each chunk as its own revision.  Only one
+ *     chunk of rows is held in memory at a time, and the project write lock is only held while a chunk is applied.
+ *     A {@link CSVImportProgressEvent} is posted after each chunk has been imported.
+ * </p>
  */
-public class ImportCSVFileActionHandler extends AbstractProjectChangeHandler<Integer,ImportCSVFileAction, ImportCSVFileResult> {
+public class ImportCSVFileActionHandler extends AbstractHasProjectActionHandler<ImportCSVFileAction, ImportCSVFileResult> {
+
+    private static final String CHANGE_DESCRIPTION = "Imported CSV File";
 
     private final File uploadsDirectory;
 
+    private final int chunkSize;
+
     @Inject
-    public ImportCSVFileActionHandler(@UploadsDirectory File uploadsDirectory, OWLAPIProjectManager projectManager) {
+    public ImportCSVFileActionHandler(@UploadsDirectory File uploadsDirectory,
+                                      OWLAPIProjectManager projectManager,
+                                      WebProtegeProperties properties) {
+        this(uploadsDirectory, projectManager, properties.getCSVImportChunkSize());
+    }
+
+    ImportCSVFileActionHandler(File uploadsDirectory, OWLAPIProjectManager projectManager, int chunkSize) {
         super(projectManager);
+        checkArgument(chunkSize > 0, "The chunk size must be positive");
         this.uploadsDirectory = checkNotNull(uploadsDirectory);
+        this.chunkSize = chunkSize;
     }
 
     @Override
@@ -46,37 +64,85 @@ public class ImportCSVFileActionHandler extends AbstractProjectChangeHandler<Int
     }
 
     @Override
-    protected ChangeListGenerator<Integer> getChangeListGenerator(ImportCSVFileAction action, OWLAPIProject project, ExecutionContext executionContext) {
-        CSVGrid csvGrid = parseCSVGrid(action);
-        return new ImportCSVFileChangeListGenerator(action.getImportRootClass(), csvGrid, action.getDescriptor());
-    }
-
-    private CSVGrid parseCSVGrid(ImportCSVFileAction action) {
-        try {
-            CSVGridParser parser = new CSVGridParser();
-            final File file = new File(uploadsDirectory, action.getDocumentId().getDocumentId());
-            final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "utf-8"));
-            CSVGrid grid = parser.readAll(reader);
-            reader.close();
-            return grid;
+    protected ImportCSVFileResult execute(ImportCSVFileAction action, OWLAPIProject project, ExecutionContext executionContext) {
+        ChunkedRowImporter importer = new ChunkedRowImporter(action, project, executionContext);
+        File file = new File(uploadsDirectory, action.getDocumentId().getDocumentId());
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "utf-8"))) {
+            new CSVGridParser().readRows(reader, importer);
         }
         catch (IOException e) {
             throw new RuntimeException(e);
         }
+        importer.finish();
+        return new ImportCSVFileResult(new EventList<ProjectEvent<?>>(EventTag.get(0), EventTag.get(1)), importer.getImportedRowCount());
     }
 
     @Override
-    protected ChangeDescriptionGenerator<Integer> getChangeDescription(ImportCSVFileAction action, OWLAPIProject project, ExecutionContext executionContext) {
-        return new FixedMessageChangeDescriptionGenerator<>("Imported CSV File");
+    protected RequestValidator<ImportCSVFileAction> getAdditionalRequestValidator(ImportCSVFileAction action, RequestContext requestContext) {
+        return new UserHasProjectWritePermissionValidator<>();
     }
 
-    @Override
-    protected ImportCSVFileResult createActionResult(ChangeApplicationResult<Integer> changeApplicationResult, ImportCSVFileAction action, OWLAPIProject project, ExecutionContext executionContext, EventList<ProjectEvent<?>> eventList) {
-        return new ImportCSVFileResult(new EventList<ProjectEvent<?>>(EventTag.get(0), EventTag.get(1)), changeApplicationResult.getSubject().get());
-    }
+    /**
+     * Collects rows into chunks and imports each full chunk.  A full chunk is only imported once the next row has
+     * been read, so that a file that fits into one chunk is imported with the usual change description.
+     */
+    private class ChunkedRowImporter implements CSVReaderHandler {
 
-    @Override
-    protected RequestValidator<ImportCSVFileAction> getAdditionalRequestValidator(ImportCSVFileAction action, RequestContext requestContext) {
-        return new UserHasProjectWritePermissionValidator<>();
+        private final ImportCSVFileAction action;
+
+        private final OWLAPIProject project;
+
+        private final ExecutionContext executionContext;
+
+        private CSVGrid.Builder chunk = CSVGrid.builder();
+
+        private int chunkRowCount = 0;
+
+        private int importedRowCount = 0;
+
+        private ChunkedRowImporter(ImportCSVFileAction action, OWLAPIProject project, ExecutionContext executionContext) {
+            this.action = action;
+            this.project = project;
+            this.executionContext = executionContext;
+        }
+
+        @Override
+        public void handleRow(CSVRow csvRow) {
+            if(chunkRowCount == chunkSize) {
+                importChunk(false);
+            }
+            chunk.addRow(csvRow);
+            chunkRowCount++;
+        }
+
+        public void finish() {
+            if(chunkRowCount > 0) {
+                importChunk(true);
+            }
+        }
+
+        public int getImportedRowCount() {
+            return importedRowCount;
+        }
+
+        private void importChunk(boolean lastChunk) {
+            String description;
+            if(importedRowCount == 0 && lastChunk) {
+                description = CHANGE_DESCRIPTION;
+            }
+            else {
+                description = CHANGE_DESCRIPTION + " (rows " + (importedRowCount + 1) + " to " + (importedRowCount + chunkRowCount) + ")";
+            }
+            ImportCSVFileChangeListGenerator changeListGenerator = new ImportCSVFileChangeListGenerator(
+                    action.getImportRootClass(), chunk.build(), action.getDescriptor());
+            project.applyChanges(executionContext.getUserId(),
+                    changeListGenerator,
+                    new FixedMessageChangeDescriptionGenerator<Integer>(description));
+            importedRowCount += chunkRowCount;
+            chunk = CSVGrid.builder();
+            chunkRowCount = 0;
+            project.getEventManager().postEvent(
+                    new CSVImportProgressEvent(project.getProjectId(), action.getDocumentId(), importedRowCount));
+        }
     }
 }
@@ -19,6 +19,7 @@ import edu.stanford.bmir.protege.web.server.dispatch.handlers.*;
 import edu.stanford.bmir.protege.web.server.entities.LookupEntitiesActionHandler;
 import edu.stanford.bmir.protege.web.server.events.GetProjectEventsActionHandler;
 import edu.stanford.bmir.protege.web.server.frame.*;
+import edu.stanford.bmir.protege.web.server.hierarchy.GetHierarchyChildrenActionHandler;
 import edu.stanford.bmir.protege.web.server.individuals.CreateNamedIndividualsActionHandler;
 import edu.stanford.bmir.protege.web.server.individuals.GetIndividualsActionHandler;
 import edu.stanford.bmir.protege.web.server.itemlist.GetPersonIdCompletionsActionHandler;
@@ -132,6 +133,8 @@ public class ActionHandlersModule extends AbstractModule {
 
         multibinder.addBinding().to(GetUsageActionHandler.class);
 
+        multibinder.addBinding().to(GetHierarchyChildrenActionHandler.class);
+
         multibinder.addBinding().to(GetIndividualsActionHandler.class);
 
         multibinder.addBinding().to(GetEntityRenderingActionHandler.class);
@@ -14,6 +14,6 @@ public class DispatchModule extends AbstractModule {
     @Override
     protected void configure() {
         bind(ActionHandlerRegistry.class).to(ActionHandlerRegistryImpl.class).asEagerSingleton();
-        bind(DispatchServiceExecutor.class).to(DispatchServiceExecutorImpl.class);
+        bind(DispatchServiceExecutor.class).to(DispatchServiceExecutorImpl.class).asEagerSingleton();
     }
 }
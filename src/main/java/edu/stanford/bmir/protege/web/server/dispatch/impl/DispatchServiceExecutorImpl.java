@@ -1,39 +1,101 @@
 package edu.stanford.bmir.protege.web.server.dispatch.impl;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import edu.stanford.bmir.protege.web.client.dispatch.ActionExecutionException;
 import edu.stanford.bmir.protege.web.server.dispatch.*;
 import edu.stanford.bmir.protege.web.server.dispatch.validators.UserHasProjectWritePermissionValidator;
-import edu.stanford.bmir.protege.web.shared.dispatch.Action;
-import edu.stanford.bmir.protege.web.shared.dispatch.DispatchServiceResultContainer;
-import edu.stanford.bmir.protege.web.shared.dispatch.Result;
+import edu.stanford.bmir.protege.web.shared.dispatch.*;
 import edu.stanford.bmir.protege.web.shared.permissions.PermissionDeniedException;
 
 import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Author: Matthew Horridge<br>
  * Stanford University<br>
  * Bio-Medical Informatics Research Group<br>
  * Date: 19/02/2013
+ * <p>
+ *     The sub-actions of a {@link BatchAction} are all validated before any of them are executed, and they are then
+ *     executed in parallel on a bounded pool of threads.  The pool only queues a few sub-actions.  When it is busy,
+ *     further sub-actions run on the request thread, so a burst of batches cannot build up a backlog of work (such as
+ *     project loads) behind the pool.  Only {@link ReadOnlyAction}s may be batched.
+ * </p>
  */
 public class DispatchServiceExecutorImpl implements DispatchServiceExecutor {
 
+    private static final int MAX_BATCH_THREADS = 8;
+
+    private static final int MAX_QUEUED_BATCH_ACTIONS = 16;
+
     private final ActionHandlerRegistry handlerRegistry;
 
+    private final ExecutorService batchExecutor;
+
     @Inject
     public DispatchServiceExecutorImpl(ActionHandlerRegistry handlerRegistry) {
-        this.handlerRegistry = handlerRegistry;
+        this(handlerRegistry, createBatchExecutor(
+                Math.min(MAX_BATCH_THREADS, Math.max(1, Runtime.getRuntime().availableProcessors())),
+                MAX_QUEUED_BATCH_ACTIONS));
+    }
+
+    DispatchServiceExecutorImpl(ActionHandlerRegistry handlerRegistry, ExecutorService batchExecutor) {
+        this.handlerRegistry = checkNotNull(handlerRegistry);
+        this.batchExecutor = checkNotNull(batchExecutor);
+    }
+
+    /**
+     * Creates an executor for batched sub-actions.  Sub-actions that cannot be queued because all of the threads are
+     * busy and the queue is full are run by the thread that submits them.
+     * @param threadCount The number of threads.
+     * @param queueCapacity The maximum number of sub-actions that can wait for a thread.  May be zero, in which case
+     *                      sub-actions are only handed to idle threads.
+     */
+    static ExecutorService createBatchExecutor(int threadCount, int queueCapacity) {
+        BlockingQueue<Runnable> queue;
+        if(queueCapacity > 0) {
+            queue = new ArrayBlockingQueue<>(queueCapacity);
+        }
+        else {
+            queue = new SynchronousQueue<>();
+        }
+        return new ThreadPoolExecutor(threadCount,
+                threadCount,
+                0L,
+                TimeUnit.MILLISECONDS,
+                queue,
+                new ThreadFactoryBuilder()
+                        .setNameFormat("batch-action-executor-%d")
+                        .setDaemon(true)
+                        .build(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
     }
 
     @Override
     public <A extends Action<R>, R extends Result> DispatchServiceResultContainer execute(A action, RequestContext requestContext, ExecutionContext executionContext) throws ActionExecutionException, PermissionDeniedException {
+        if(action instanceof BatchAction) {
+            return executeBatch((BatchAction) action, requestContext, executionContext);
+        }
+        ActionHandler<A, R> actionHandler = getValidatedActionHandler(action, requestContext);
+        return executeValidatedAction(action, actionHandler, executionContext);
+    }
+
+    private <A extends Action<R>, R extends Result> ActionHandler<A, R> getValidatedActionHandler(A action, RequestContext requestContext) {
         ActionHandler<A, R> actionHandler = handlerRegistry.getActionHandler(action);
         RequestValidator<A> validator = actionHandler.getRequestValidator(action, requestContext);
         RequestValidationResult validationResult = validator.validateAction(action, requestContext);
         if(!validationResult.isValid()) {
             throw new PermissionDeniedException(validationResult.getInvalidMessage());
         }
+        return actionHandler;
+    }
 
+    private <A extends Action<R>, R extends Result> DispatchServiceResultContainer executeValidatedAction(A action, ActionHandler<A, R> actionHandler, ExecutionContext executionContext) {
         try {
             R result = actionHandler.execute(action, executionContext);
             return new DispatchServiceResultContainer(result);
@@ -41,4 +103,73 @@ public class DispatchServiceExecutorImpl implements DispatchServiceExecutor {
             throw new ActionExecutionException(e);
         }
     }
+
+    private DispatchServiceResultContainer executeBatch(BatchAction batchAction, RequestContext requestContext, ExecutionContext executionContext) {
+        List<Action<?>> actions = batchAction.getActions();
+        DispatchServiceResultContainer[] results = new DispatchServiceResultContainer[actions.size()];
+        Throwable[] exceptions = new Throwable[actions.size()];
+        List<Callable<DispatchServiceResultContainer>> tasks = new ArrayList<>(actions.size());
+        for(int i = 0; i < actions.size(); i++) {
+            try {
+                tasks.add(createValidatedTask(actions.get(i), requestContext, executionContext));
+            } catch (PermissionDeniedException | ActionExecutionException e) {
+                tasks.add(null);
+                exceptions[i] = e;
+            } catch (Exception e) {
+                tasks.add(null);
+                exceptions[i] = new ActionExecutionException(e);
+            }
+        }
+        int lastTaskIndex = -1;
+        for(int i = 0; i < tasks.size(); i++) {
+            if(tasks.get(i) != null) {
+                lastTaskIndex = i;
+            }
+        }
+        List<Future<DispatchServiceResultContainer>> futures = new ArrayList<>(tasks.size());
+        for(int i = 0; i < tasks.size(); i++) {
+            Callable<DispatchServiceResultContainer> task = tasks.get(i);
+            if(task != null && i != lastTaskIndex) {
+                futures.add(batchExecutor.submit(task));
+            }
+            else {
+                futures.add(null);
+            }
+        }
+        // The request thread would otherwise be idle, so it executes one of the sub-actions itself
+        if(lastTaskIndex != -1) {
+            try {
+                results[lastTaskIndex] = tasks.get(lastTaskIndex).call();
+            } catch (Exception e) {
+                exceptions[lastTaskIndex] = e;
+            }
+        }
+        for(int i = 0; i < futures.size(); i++) {
+            Future<DispatchServiceResultContainer> future = futures.get(i);
+            if(future != null) {
+                try {
+                    results[i] = future.get();
+                } catch (ExecutionException e) {
+                    exceptions[i] = e.getCause();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ActionExecutionException(e);
+                }
+            }
+        }
+        return new DispatchServiceResultContainer(new BatchResult(Arrays.asList(results), Arrays.asList(exceptions)));
+    }
+
+    private <A extends Action<R>, R extends Result> Callable<DispatchServiceResultContainer> createValidatedTask(final A action, RequestContext requestContext, final ExecutionContext executionContext) {
+        if(!(action instanceof ReadOnlyAction)) {
+            throw new ActionExecutionException(new IllegalArgumentException("Only read only actions can be batched: " + action));
+        }
+        final ActionHandler<A, R> actionHandler = getValidatedActionHandler(action, requestContext);
+        return new Callable<DispatchServiceResultContainer>() {
+            @Override
+            public DispatchServiceResultContainer call() {
+                return executeValidatedAction(action, actionHandler, executionContext);
+            }
+        };
+    }
 }
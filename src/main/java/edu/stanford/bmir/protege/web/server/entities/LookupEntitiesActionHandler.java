@@ -9,17 +9,15 @@ import edu.stanford.bmir.protege.web.server.dispatch.validators.UserHasProjectRe
 import edu.stanford.bmir.protege.web.server.owlapi.OWLAPIProject;
 import edu.stanford.bmir.protege.web.server.owlapi.OWLAPIProjectManager;
 import edu.stanford.bmir.protege.web.server.owlapi.RenderingManager;
+import edu.stanford.bmir.protege.web.server.shortform.ShortFormMatch;
 import edu.stanford.bmir.protege.web.shared.entity.*;
 import edu.stanford.bmir.protege.web.shared.search.EntityNameMatchResult;
-import edu.stanford.bmir.protege.web.shared.search.EntityNameMatcher;
 import edu.stanford.bmir.protege.web.shared.search.SearchType;
 import org.semanticweb.owlapi.model.*;
 import org.semanticweb.owlapi.util.BidirectionalShortFormProvider;
 
 import javax.inject.Inject;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Author: Matthew Horridge<br>
@@ -55,26 +53,24 @@ public class LookupEntitiesActionHandler extends AbstractHasProjectActionHandler
         final RenderingManager rm = project.getRenderingManager();
         BidirectionalShortFormProvider sfp = rm.getShortFormProvider();
         Set<OWLEntityDataMatch> matches = new TreeSet<OWLEntityDataMatch>();
-        EntityNameMatcher matcher = new EntityNameMatcher(entityLookupRequest.getSearchString());
-        for(String shortForm : sfp.getShortForms()) {
-            Optional<EntityNameMatchResult> result = matcher.findIn(shortForm);
-            if(result.isPresent()) {
-                Set<OWLEntity> entities = sfp.getEntities(shortForm);
-                for(OWLEntity matchingEntity : entities) {
-                    Optional<OWLEntityData> match = toOWLEntityData(matchingEntity, entityLookupRequest, rm);
-                    if(match.isPresent()) {
-                        EntityNameMatchResult resultValue = result.get();
-                        matches.add(new OWLEntityDataMatch(match.get(), resultValue));
-                    }
-                    // BAD
-                    if(matches.size() >= 1000) {
-                        break;
-                    }
+        int searchLimit = entityLookupRequest.getSearchLimit();
+        EntityNameMatchResult cutOff = null;
+        for(ShortFormMatch shortFormMatch : project.getSearchManager().getShortFormMatches(entityLookupRequest.getSearchString(), searchLimit)) {
+            EntityNameMatchResult resultValue = shortFormMatch.getMatchResult();
+            // Matches arrive best first.  Once we have enough, we only need the matches that are as good as the
+            // worst one that we have so that ties are ordered correctly.
+            if(cutOff != null && resultValue.compareTo(cutOff) > 0) {
+                break;
+            }
+            Set<OWLEntity> entities = sfp.getEntities(shortFormMatch.getShortForm());
+            for(OWLEntity matchingEntity : entities) {
+                Optional<OWLEntityData> match = toOWLEntityData(matchingEntity, entityLookupRequest, rm);
+                if(match.isPresent()) {
+                    matches.add(new OWLEntityDataMatch(match.get(), resultValue));
                 }
             }
-            // BAD
-            if(matches.size() >= 1000) {
-                break;
+            if(cutOff == null && matches.size() >= searchLimit) {
+                cutOff = resultValue;
             }
         }
         List<EntityLookupResult> result = new ArrayList<EntityLookupResult>();
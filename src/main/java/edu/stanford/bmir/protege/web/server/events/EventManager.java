@@ -12,12 +12,13 @@ import edu.stanford.bmir.protege.web.shared.events.EventTag;
 
 import javax.inject.Inject;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -26,39 +27,55 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * Stanford University<br>
  * Bio-Medical Informatics Research Group<br>
  * Date: 20/03/2013
+ * <p>
+ *     Posted events are held in a bounded {@link EventRingBuffer}, which allows the events after a tag to be
+ *     retrieved without locking and without scanning older events.  The event list for a given tag is computed once
+ *     and then shared between all requests for that tag until more events are posted.
+ * </p>
  */
 public class EventManager<E extends SerializableEvent<?>> implements HasDispose, HasPostEvents<E> {
 
-
+    /**
+     * The maximum number of events in a single bucket.  Larger lists of events are split over several buckets.
+     */
     private static final int EVENT_LIST_SIZE_LIMIT = 200;
 
-    private final ReadWriteLock lock = new ReentrantReadWriteLock();
-
-    private final Lock readLock = lock.readLock();
-
-    private final Lock writeLock = lock.writeLock();
+    /**
+     * The maximum number of buckets that are held.
+     */
+    private static final int EVENT_BUCKET_CAPACITY = 1024;
 
+    private final Lock writeLock = new ReentrantLock();
 
+    private final EventRingBuffer<E> eventBuffer = new EventRingBuffer<>(EVENT_BUCKET_CAPACITY);
 
-    private final Queue<EventBucket> eventQueue = new LinkedList<>();
+    /**
+     * Caches the event lists that have been computed for tags since events were last posted or purged.
+     */
+    private final ConcurrentMap<EventTag, EventList<E>> eventListCache = new ConcurrentHashMap<>();
 
     private final EventLifeTime eventLifeTime;
 
     private EventBus eventBus = new SimpleEventBus();
 
-
-    private EventTag currentTag = EventTag.getFirst();
-
     private ScheduledExecutorService purgeSweepService = Executors.newSingleThreadScheduledExecutor();
 
     private List<HandlerRegistration> registeredHandlers = new ArrayList<>();
 
+    /**
+     * Monitor that is notified whenever events are posted, so that requests that are waiting for events can be
+     * woken up.
+     */
+    private final Object postedEventsMonitor = new Object();
+
+    private volatile boolean disposed = false;
+
 
     @Inject
     public EventManager(EventLifeTime eventLifeTime) {
         this.eventLifeTime = checkNotNull(eventLifeTime);
         final long eventLifeTimeInMilliseconds = eventLifeTime.getEventLifeTimeInMilliseconds();
-        purgeSweepService.scheduleAtFixedRate(new PurgeExpiredEventsTask(writeLock, eventQueue),
+        purgeSweepService.scheduleAtFixedRate(new PurgeExpiredEventsTask(),
                 eventLifeTimeInMilliseconds,
                 eventLifeTimeInMilliseconds,
                 TimeUnit.MILLISECONDS);
@@ -89,23 +106,29 @@ public class EventManager<E extends SerializableEvent<?>> implements HasDispose,
      * @throws NullPointerException if {@code events} is {@code null}.
      */
     public EventTag postEvents(List<E> events) {
-        if(events.size() > EVENT_LIST_SIZE_LIMIT) {
-            // Just don't bother
-            return currentTag;
-        }
+        checkNotNull(events, "events must not be null");
+        final EventTag tag;
         try {
             writeLock.lock();
-            currentTag = currentTag.next();
-            EventBucket<E> e = new EventBucket<>(System.currentTimeMillis(), checkNotNull(events, "events must not be null"), currentTag, eventLifeTime);
-            eventQueue.add(e);
+            long timestamp = System.currentTimeMillis();
+            // Large lists of events are split into several buckets (each with its own tag)
+            for(int from = 0; from < events.size() || from == 0; from += EVENT_LIST_SIZE_LIMIT) {
+                int to = Math.min(from + EVENT_LIST_SIZE_LIMIT, events.size());
+                eventBuffer.append(timestamp, events.subList(from, to));
+            }
+            tag = getCurrentTag();
+            eventListCache.clear();
         }
         finally {
             writeLock.unlock();
         }
+        synchronized (postedEventsMonitor) {
+            postedEventsMonitor.notifyAll();
+        }
         for(E event : new LinkedHashSet<>(events)) {
             eventBus.fireEvent(event);
         }
-        return currentTag;
+        return tag;
     }
 
     /**
@@ -118,140 +141,73 @@ public class EventManager<E extends SerializableEvent<?>> implements HasDispose,
      */
     public EventList<E> getEventsFromTag(EventTag fromTag) {
         checkNotNull(fromTag, "tag must not be null");
-        List<E> resultList = new ArrayList<E>();
-        final EventTag curTag;
-        try {
-            readLock.lock();
-            curTag = currentTag;
-            for (EventBucket bucket : eventQueue) {
-                if(bucket.getTag().isGreaterOrEqualTo(fromTag)) {
-                    resultList.addAll(bucket.getEvents());
-                }
-            }
-        }
-        finally {
-            readLock.unlock();
-        }
+        final EventTag curTag = getCurrentTag();
         final EventTag toTag = curTag.next();
+        EventList<E> cachedEventList = eventListCache.get(fromTag);
+        if(cachedEventList != null && cachedEventList.getEndTag().equals(toTag)) {
+            return cachedEventList;
+        }
+        List<E> resultList = eventBuffer.getEventsFrom(fromTag.getOrdinal(), curTag.getOrdinal());
+        final EventList<E> eventList;
         if(resultList.isEmpty()) {
-            return new EventList<E>(fromTag, toTag);
+            eventList = new EventList<E>(fromTag, toTag);
         }
-        // Prune duplicates
-        LinkedHashSet<E> events = new LinkedHashSet<E>(resultList);
-        return new EventList<E>(fromTag, events, toTag);
-    }
-
-    public EventTag getCurrentTag() {
-        try {
-            readLock.lock();
-            return currentTag;
+        else {
+            // Prune duplicates
+            LinkedHashSet<E> events = new LinkedHashSet<E>(resultList);
+            eventList = new EventList<E>(fromTag, events, toTag);
         }
-        finally {
-            readLock.unlock();
+        if(getCurrentTag().equals(curTag)) {
+            eventListCache.put(fromTag, eventList);
         }
+        return eventList;
     }
 
-
-    public <T extends EventHandler> HandlerRegistration addHandler(Event.Type<T> type, T handler) {
-        final HandlerRegistration handlerRegistration = eventBus.addHandler(type, handler);
-        registeredHandlers.add(handlerRegistration);
-        return handlerRegistration;
-    }
-
-    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
-    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
-    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
-    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
-    ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
-
     /**
-     * Instances of this class bind together a timestamp, event list and event list tag.
+     * Gets the live events posted to this manager which have a tag greater or equal to the specified tag, waiting
+     * for events to be posted if there are no such events.
+     * @param fromTag The tag that denotes the point after which events will be retrieved.  Not {@code null}.
+     * @param maxWaitTime The maximum amount of time to wait for events.
+     * @param timeUnit The unit of {@code maxWaitTime}.  Not {@code null}.
+     * @return The list of live events that happened since the specified tag.  This will be empty if no events were
+     * posted within the wait time.  Not {@code null}.
+     * @throws InterruptedException if the waiting thread is interrupted.
+     * @see #getEventsFromTag(EventTag)
      */
-    private static class EventBucket<E> {
-
-        private final long timestamp;
-
-        private final List<E> events;
-
-        private final EventTag tag;
-
-        private final EventLifeTime eventLifeTime;
-
-        /**
-         * Constructs an EventBucket.
-         * @param timestamp The timestamp of the bucket
-         * @param events The list of events in the bucket. Not {@code null}.  A copy of the specified list will be taken.
-         * @param tag The tag of the bucket.  Not {@code null}.
-         * @throws NullPointerException if any parameters are {@code null}.
-         */
-        private EventBucket(long timestamp, List<E> events, EventTag tag, EventLifeTime eventLifeTime) {
-            this.timestamp = timestamp;
-            this.events = new ArrayList<E>(checkNotNull(events));
-            this.tag = checkNotNull(tag);
-            this.eventLifeTime = checkNotNull(eventLifeTime);
-        }
-
-        /**
-         * Gets the timestamp of this bucket
-         * @return The timestamp of this bucket
-         */
-        public long getTimestamp() {
-            return timestamp;
-        }
-
-        /**
-         * Gets the events in this bucket.
-         * @return A {@link List} of events in this bucket. Not {@code null}.
-         */
-        public List<E> getEvents() {
-            return events;
+    public EventList<E> getEventsFromTag(EventTag fromTag, long maxWaitTime, TimeUnit timeUnit) throws InterruptedException {
+        checkNotNull(fromTag, "tag must not be null");
+        long deadline = System.nanoTime() + timeUnit.toNanos(maxWaitTime);
+        synchronized (postedEventsMonitor) {
+            // Events are available once the current tag has reached the requested tag
+            while (!getCurrentTag().isGreaterOrEqualTo(fromTag) && !disposed) {
+                long remainingTime = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingTime <= 0) {
+                    break;
+                }
+                postedEventsMonitor.wait(remainingTime);
+            }
         }
+        return getEventsFromTag(fromTag);
+    }
 
-        /**
-         * Gets the {@link edu.stanford.bmir.protege.web.shared.events.EventTag} for this bucket.
-         * @return The {@link edu.stanford.bmir.protege.web.shared.events.EventTag} of this bucket.  Not {@code null}.
-         */
-        public EventTag getTag() {
-            return tag;
-        }
+    public EventTag getCurrentTag() {
+        return EventTag.get(eventBuffer.getLastOrdinal());
+    }
 
-        public boolean isExpired() {
-            final long elapsedTime = System.currentTimeMillis() - timestamp;
-            return elapsedTime > eventLifeTime.getEventLifeTimeInMilliseconds();
-        }
 
-        @Override
-        public String toString() {
-            StringBuilder sb = new StringBuilder();
-            sb.append("EventManager$EventListBucket");
-            sb.append("(");
-            sb.append(tag);
-            sb.append(" ");
-            sb.append(timestamp);
-            sb.append(" ");
-            sb.append(events);
-            sb.append(")");
-            return sb.toString();
-        }
+    public <T extends EventHandler> HandlerRegistration addHandler(Event.Type<T> type, T handler) {
+        final HandlerRegistration handlerRegistration = eventBus.addHandler(type, handler);
+        registeredHandlers.add(handlerRegistration);
+        return handlerRegistration;
     }
 
-
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
 
-    private static class PurgeExpiredEventsTask extends TimerTask {
-
-        private final Lock writeLock;
-
-        private final Queue<EventBucket> queue;
-
-        public PurgeExpiredEventsTask(Lock writeLock, Queue<EventBucket> queue) {
-            this.writeLock = writeLock;
-            this.queue = queue;
-        }
+    private class PurgeExpiredEventsTask implements Runnable {
 
         @Override
         public void run() {
@@ -261,18 +217,8 @@ public class EventManager<E extends SerializableEvent<?>> implements HasDispose,
         private void removeExpiredEvents() {
             try {
                 writeLock.lock();
-                while (true) {
-                    if (queue.isEmpty()) {
-                        break;
-                    }
-                    EventBucket bucket = queue.peek();
-                    if (bucket.isExpired()) {
-                        queue.poll();
-                    }
-                    else {
-                        break;
-                    }
-                }
+                eventBuffer.purge(System.currentTimeMillis() - eventLifeTime.getEventLifeTimeInMilliseconds());
+                eventListCache.clear();
             }
             finally {
                 writeLock.unlock();
@@ -286,6 +232,11 @@ public class EventManager<E extends SerializableEvent<?>> implements HasDispose,
             purgeSweepService.shutdown();
             purgeSweepService = null;
         }
+        // Release any requests that are waiting for events
+        disposed = true;
+        synchronized (postedEventsMonitor) {
+            postedEventsMonitor.notifyAll();
+        }
         removeRegisteredHandlersFromEventBus();
     }
 
@@ -0,0 +1,129 @@
+package edu.stanford.bmir.protege.web.server.events;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A bounded buffer of event buckets.  Each bucket that is appended is given the next ordinal (starting at one),
+ * and is stored in the slot given by its ordinal modulo the capacity of the buffer, so the buckets from a given
+ * ordinal onwards can be located without searching.  Once the buffer is full, appending a bucket overwrites
+ * the oldest bucket.
+ * <p>
+ *     Appending and purging must be externally synchronized.  Reading does not require any locking.  A reader first
+ *     reads the ordinal of the last published bucket and then reads the slots up to that ordinal, checking the
+ *     ordinal of each bucket that it reads so that slots that have been purged or overwritten in the meantime are
+ *     skipped.
+ * </p>
+ */
+public class EventRingBuffer<E> {
+
+    private final AtomicReferenceArray<Bucket<E>> slots;
+
+    private final int capacity;
+
+    private volatile int lastOrdinal = 0;
+
+    private int oldestOrdinal = 1;
+
+    public EventRingBuffer(int capacity) {
+        checkArgument(capacity > 0, "capacity must be greater than zero");
+        this.capacity = capacity;
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * Gets the ordinal of the last bucket that was appended.
+     * @return The ordinal, or zero if no buckets have been appended.
+     */
+    public int getLastOrdinal() {
+        return lastOrdinal;
+    }
+
+    /**
+     * Appends a bucket of events to this buffer.
+     * @param timestamp The timestamp of the events.
+     * @param events The events.  Not {@code null}.
+     * @return The ordinal of the bucket.
+     */
+    public int append(long timestamp, List<E> events) {
+        int ordinal = lastOrdinal + 1;
+        slots.set(getSlotIndex(ordinal), new Bucket<>(ordinal, timestamp, ImmutableList.copyOf(events)));
+        if (ordinal - oldestOrdinal >= capacity) {
+            oldestOrdinal = ordinal - capacity + 1;
+        }
+        // Publish
+        lastOrdinal = ordinal;
+        return ordinal;
+    }
+
+    /**
+     * Removes the buckets that have a timestamp that is before the specified timestamp.
+     * @param oldestTimestamp The timestamp of the oldest bucket that should be kept.
+     */
+    public void purge(long oldestTimestamp) {
+        int last = lastOrdinal;
+        while (oldestOrdinal <= last) {
+            int slotIndex = getSlotIndex(oldestOrdinal);
+            Bucket<E> bucket = slots.get(slotIndex);
+            if (bucket != null && bucket.ordinal == oldestOrdinal && bucket.timestamp >= oldestTimestamp) {
+                break;
+            }
+            slots.compareAndSet(slotIndex, bucket, null);
+            oldestOrdinal++;
+        }
+    }
+
+    /**
+     * Gets the events in the buckets that have an ordinal greater than or equal to the specified ordinal.
+     * @param fromOrdinal The ordinal.
+     * @return The events, in the order that they were appended.  Not {@code null}.
+     */
+    public List<E> getEventsFrom(int fromOrdinal) {
+        return getEventsFrom(fromOrdinal, lastOrdinal);
+    }
+
+    /**
+     * Gets the events in the buckets whose ordinals are in the specified range.
+     * @param fromOrdinal The first ordinal (inclusive).
+     * @param toOrdinal The last ordinal (inclusive).
+     * @return The events, in the order that they were appended.  Not {@code null}.
+     */
+    public List<E> getEventsFrom(int fromOrdinal, int toOrdinal) {
+        int last = Math.min(toOrdinal, lastOrdinal);
+        // Buckets before this have been overwritten
+        int first = Math.max(Math.max(fromOrdinal, 1), last - capacity + 1);
+        List<E> result = new ArrayList<>();
+        for (int ordinal = first; ordinal <= last; ordinal++) {
+            Bucket<E> bucket = slots.get(getSlotIndex(ordinal));
+            if (bucket != null && bucket.ordinal == ordinal) {
+                result.addAll(bucket.events);
+            }
+        }
+        return result;
+    }
+
+    private int getSlotIndex(int ordinal) {
+        return ordinal % capacity;
+    }
+
+    private static class Bucket<E> {
+
+        private final int ordinal;
+
+        private final long timestamp;
+
+        private final ImmutableList<E> events;
+
+        private Bucket(int ordinal, long timestamp, ImmutableList<E> events) {
+            this.ordinal = ordinal;
+            this.timestamp = timestamp;
+            this.events = checkNotNull(events);
+        }
+    }
+}
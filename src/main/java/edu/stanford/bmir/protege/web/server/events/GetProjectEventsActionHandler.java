@@ -18,6 +18,8 @@ import edu.stanford.bmir.protege.web.shared.events.ProjectEventList;
 import edu.stanford.bmir.protege.web.shared.project.ProjectId;
 
 import javax.inject.Inject;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -29,14 +31,42 @@ import static com.google.common.base.Preconditions.checkNotNull;
  */
 public class GetProjectEventsActionHandler implements ActionHandler<GetProjectEventsAction, GetProjectEventsResult> {
 
+    /**
+     * The maximum time that a request will be held open waiting for events.  This is kept well below the time
+     * outs of typical proxies.
+     */
+    private static final long MAX_WAIT_TIME_IN_MS = 25 * 1000;
+
+    /**
+     * The maximum number of requests that may be held open waiting for events at any one time.  Each waiting
+     * request occupies a request thread, so requests beyond this limit are answered immediately and the client
+     * simply polls again.
+     */
+    private static final int MAX_WAITING_REQUESTS = 100;
+
+    private static final Semaphore WAITING_REQUEST_PERMITS = new Semaphore(MAX_WAITING_REQUESTS);
+
     public final WebProtegeLogger logger;
 
     private OWLAPIProjectManager projectManager;
 
+    private final Semaphore waitingRequestPermits;
+
     @Inject
     public GetProjectEventsActionHandler(OWLAPIProjectManager projectManager, WebProtegeLogger logger) {
+        this(projectManager, logger, WAITING_REQUEST_PERMITS);
+    }
+
+    /**
+     * Constructs a handler that holds requests open only while it can acquire a permit from the specified semaphore.
+     * Permits are shared between all handlers that are constructed with the same semaphore.
+     */
+    GetProjectEventsActionHandler(OWLAPIProjectManager projectManager,
+                                  WebProtegeLogger logger,
+                                  Semaphore waitingRequestPermits) {
         this.projectManager = checkNotNull(projectManager);
         this.logger = checkNotNull(logger);
+        this.waitingRequestPermits = checkNotNull(waitingRequestPermits);
     }
 
     @Override
@@ -63,11 +93,25 @@ public class GetProjectEventsActionHandler implements ActionHandler<GetProjectEv
         // TODO: FIX THIS.  NEEDS TO GO ELSEWHERE
 //        project.getProjectAccessManager().logAccessForUser(action.getUserId());
         EventManager<ProjectEvent<?>> eventManager = project.get().getEventManager();
-        EventList<ProjectEvent<?>> eventList = eventManager.getEventsFromTag(sinceTag);
+        EventList<ProjectEvent<?>> eventList = getEvents(eventManager, sinceTag, action.getMaxWaitTimeInMs());
         ProjectEventList projectEventList = ProjectEventList.builder(eventList.getStartTag(), projectId, eventList.getEndTag()).addEvents(eventList.getEvents()).build();
         return  new GetProjectEventsResult(projectEventList);
     }
 
+    private EventList<ProjectEvent<?>> getEvents(EventManager<ProjectEvent<?>> eventManager, EventTag sinceTag, int maxWaitTimeInMs) {
+        if(maxWaitTimeInMs <= 0 || !waitingRequestPermits.tryAcquire()) {
+            return eventManager.getEventsFromTag(sinceTag);
+        }
+        try {
+            return eventManager.getEventsFromTag(sinceTag, Math.min(maxWaitTimeInMs, MAX_WAIT_TIME_IN_MS), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return eventManager.getEventsFromTag(sinceTag);
+        } finally {
+            waitingRequestPermits.release();
+        }
+    }
+
     private static GetProjectEventsResult getEmptyResult(ProjectId projectId, EventTag sinceTag) {
         return new GetProjectEventsResult(ProjectEventList.builder(sinceTag, projectId, sinceTag).build());
     }
@@ -0,0 +1,114 @@
+package edu.stanford.bmir.protege.web.server.filedownload;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A range of bytes requested by an HTTP Range header.  Only single ranges are supported.
+ */
+public class ByteRange {
+
+    private static final Pattern RANGE_PATTERN = Pattern.compile("\\s*bytes\\s*=\\s*(\\d*)\\s*-\\s*(\\d*)\\s*");
+
+    private final long first;
+
+    private final long last;
+
+    /**
+     * Creates a byte range.
+     * @param first The position of the first byte in the range.
+     * @param last The position of the last byte in the range (inclusive).
+     */
+    public ByteRange(long first, long last) {
+        checkArgument(first >= 0 && first <= last, "Invalid range: %s-%s", first, last);
+        this.first = first;
+        this.last = last;
+    }
+
+    /**
+     * Parses the value of an HTTP Range header against content of the specified length.
+     * @param rangeHeader The value of the Range header.  Not {@code null}.
+     * @param contentLength The length of the content.
+     * @return The requested range, truncated to the length of the content, or an absent value if the header is
+     * malformed, specifies multiple ranges or is not satisfiable by content of the specified length.
+     */
+    public static Optional<ByteRange> parse(String rangeHeader, long contentLength) {
+        Matcher matcher = RANGE_PATTERN.matcher(rangeHeader);
+        if(!matcher.matches()) {
+            return Optional.absent();
+        }
+        String firstValue = matcher.group(1);
+        String lastValue = matcher.group(2);
+        try {
+            if(firstValue.isEmpty()) {
+                if(lastValue.isEmpty()) {
+                    return Optional.absent();
+                }
+                // A suffix range, which specifies the number of bytes at the end of the content
+                long suffixLength = Long.parseLong(lastValue);
+                if(suffixLength == 0 || contentLength == 0) {
+                    return Optional.absent();
+                }
+                return Optional.of(new ByteRange(Math.max(0, contentLength - suffixLength), contentLength - 1));
+            }
+            long first = Long.parseLong(firstValue);
+            long last = lastValue.isEmpty() ? contentLength - 1 : Math.min(Long.parseLong(lastValue), contentLength - 1);
+            if(first >= contentLength || first > last) {
+                return Optional.absent();
+            }
+            return Optional.of(new ByteRange(first, last));
+        } catch (NumberFormatException e) {
+            return Optional.absent();
+        }
+    }
+
+    public long getFirst() {
+        return first;
+    }
+
+    public long getLast() {
+        return last;
+    }
+
+    public long getLength() {
+        return last - first + 1;
+    }
+
+    /**
+     * Gets the value of the HTTP Content-Range header for this range.
+     * @param contentLength The length of the complete content.
+     */
+    public String toContentRange(long contentLength) {
+        return "bytes " + first + "-" + last + "/" + contentLength;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(first, last);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if(obj == this) {
+            return true;
+        }
+        if(!(obj instanceof ByteRange)) {
+            return false;
+        }
+        ByteRange other = (ByteRange) obj;
+        return this.first == other.first && this.last == other.last;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper("ByteRange")
+                .add("first", first)
+                .add("last", last)
+                .toString();
+    }
+}
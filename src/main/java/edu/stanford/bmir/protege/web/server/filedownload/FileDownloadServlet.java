@@ -1,5 +1,6 @@
 package edu.stanford.bmir.protege.web.server.filedownload;
 
+import com.google.common.base.Optional;
 import edu.stanford.bmir.protege.web.server.inject.WebProtegeInjector;
 import edu.stanford.bmir.protege.web.server.metaproject.ProjectDetailsManager;
 import edu.stanford.bmir.protege.web.server.owlapi.OWLAPIProject;
@@ -11,8 +12,12 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 
 /**
  * Author: Matthew Horridge<br>
@@ -20,12 +25,29 @@ import java.io.IOException;
  * Bio-Medical Informatics Research Group<br>
  * Date: 06/06/2012
  * <p>
- *     A servlet which allows ontologies to be downloaded from WebProtege.  See {@link OWLAPIProjectDownloader} for
- *     the piece of machinery that actually does the processing of request parameters and the downloading.
+ *     A servlet which allows ontologies to be downloaded from WebProtege.  Downloads are served from the artefacts
+ *     that are cached by the {@link ProjectDownloadCache} of the project.  See {@link OWLAPIProjectDownloader} for
+ *     the piece of machinery that actually writes the artefacts.
+ * </p>
+ * <p>
+ *     The name of an artefact identifies its content, so it is used as the entity tag of the response.  Conditional
+ *     requests (If-None-Match) and single byte range requests (Range and If-Range) are supported.
  * </p>
  */
 public class FileDownloadServlet extends HttpServlet {
 
+    private static final String ETAG_HEADER = "ETag";
+
+    private static final String IF_NONE_MATCH_HEADER = "If-None-Match";
+
+    private static final String RANGE_HEADER = "Range";
+
+    private static final String IF_RANGE_HEADER = "If-Range";
+
+    private static final String ACCEPT_RANGES_HEADER = "Accept-Ranges";
+
+    private static final String CONTENT_RANGE_HEADER = "Content-Range";
+
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
         FileDownloadParameters downloadParameters = new FileDownloadParameters(req);
@@ -37,14 +59,72 @@ public class FileDownloadServlet extends HttpServlet {
             String displayName = projectDetailsManager.getProjectDetails(projectId).getDisplayName();
             OWLAPIProjectManager projectManager = WebProtegeInjector.get().getInstance(OWLAPIProjectManager.class);
             OWLAPIProject project = projectManager.getProject(projectId);
-            OWLAPIProjectDownloader downloader = new OWLAPIProjectDownloader(displayName, project, revisionNumber, format);
-            BufferedOutputStream bufferedOutputStream = new BufferedOutputStream(resp.getOutputStream());
-            downloader.writeProject(resp, bufferedOutputStream);
-            bufferedOutputStream.flush();
+            ProjectDownloadCache downloadCache = project.getDownloadCache();
+            RevisionNumber resolvedRevisionNumber = downloadCache.resolveRevision(revisionNumber);
+            String entityTag = "\"" + downloadCache.getArtefactName(resolvedRevisionNumber, format) + "\"";
+            resp.setHeader(ETAG_HEADER, entityTag);
+            if(matchesEntityTag(req.getHeader(IF_NONE_MATCH_HEADER), entityTag)) {
+                resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+            File artefact = downloadCache.getArtefact(resolvedRevisionNumber, format);
+            resp.setContentType(OWLAPIProjectDownloader.MIME_TYPE);
+            String fileName = OWLAPIProjectDownloader.getDownloadFileName(displayName, revisionNumber, format);
+            resp.setHeader(OWLAPIProjectDownloader.CONTENT_DISPOSITION_HEADER_FIELD, "attachment; filename=\"" + fileName + "\"");
+            resp.setHeader(ACCEPT_RANGES_HEADER, "bytes");
+            writeArtefact(req, resp, artefact, entityTag);
         }
         else {
             resp.sendError(HttpServletResponse.SC_BAD_REQUEST);
         }
 
     }
+
+    private static boolean matchesEntityTag(String ifNoneMatch, String entityTag) {
+        if(ifNoneMatch == null) {
+            return false;
+        }
+        for(String tag : ifNoneMatch.split(",")) {
+            String trimmedTag = tag.trim();
+            if(trimmedTag.equals("*") || trimmedTag.equals(entityTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void writeArtefact(HttpServletRequest req, HttpServletResponse resp, File artefact, String entityTag) throws IOException {
+        try (FileInputStream inputStream = new FileInputStream(artefact)) {
+            FileChannel fileChannel = inputStream.getChannel();
+            long contentLength = fileChannel.size();
+            long position = 0;
+            long length = contentLength;
+            String rangeHeader = req.getHeader(RANGE_HEADER);
+            String ifRange = req.getHeader(IF_RANGE_HEADER);
+            // A range is ignored if it is conditional on a different version of the artefact
+            if(rangeHeader != null && (ifRange == null || ifRange.equals(entityTag))) {
+                Optional<ByteRange> range = ByteRange.parse(rangeHeader, contentLength);
+                if(!range.isPresent()) {
+                    resp.setHeader(CONTENT_RANGE_HEADER, "bytes */" + contentLength);
+                    resp.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                position = range.get().getFirst();
+                length = range.get().getLength();
+                resp.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                resp.setHeader(CONTENT_RANGE_HEADER, range.get().toContentRange(contentLength));
+            }
+            resp.setHeader("Content-Length", Long.toString(length));
+            WritableByteChannel outputChannel = Channels.newChannel(resp.getOutputStream());
+            long end = position + length;
+            while(position < end) {
+                long transferred = fileChannel.transferTo(position, end - position, outputChannel);
+                if(transferred <= 0) {
+                    throw new IOException("Could not write download artefact " + artefact.getName());
+                }
+                position += transferred;
+            }
+            resp.flushBuffer();
+        }
+    }
 }
@@ -6,19 +6,23 @@ import edu.stanford.bmir.protege.web.server.inject.WebProtegeInjector;
 import edu.stanford.bmir.protege.web.server.owlapi.OWLAPIProject;
 import edu.stanford.bmir.protege.web.server.owlapi.change.RevisionManager;
 import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
-import edu.stanford.bmir.protege.web.server.owlapi.OWLAPIProjectDocumentStore;
-import edu.stanford.bmir.protege.web.shared.project.ProjectId;
 import org.semanticweb.owlapi.model.OWLOntology;
 import org.semanticweb.owlapi.model.OWLOntologyID;
 import org.semanticweb.owlapi.model.OWLOntologyManager;
 import org.semanticweb.owlapi.model.OWLOntologyStorageException;
 
-import javax.servlet.http.HttpServletResponse;
-import java.io.IOException;
-import java.io.OutputStream;
+import java.io.*;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
@@ -26,6 +30,12 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * Stanford University<br>
  * Bio-Medical Informatics Research Group<br>
  * Date: 06/06/2012
+ * <p>
+ *     Writes a revision of a project as a zip file that contains one entry for the root ontology and one entry for
+ *     each imported ontology.  The revision is rebuilt from the change history, so no project lock is held while
+ *     it is written.  The ontologies are serialised in parallel, each one to its own temporary file, and the
+ *     temporary files are then copied into the zip file in order.
+ * </p>
  */
 public class OWLAPIProjectDownloader {
 
@@ -33,51 +43,52 @@ public class OWLAPIProjectDownloader {
 
     public static final String CONTENT_DISPOSITION_HEADER_FIELD = "Content-Disposition";
 
-    private RevisionNumber revision;
+    private final RevisionNumber revision;
 
-    private DownloadFormat format;
+    private final DownloadFormat format;
 
-    private String fileName;
+    private final String fileName;
 
-    private OWLAPIProject project;
+    private final OWLAPIProject project;
+
+    private final ExecutorService serializationExecutor;
+
+    private final File tempDirectory;
 
     /**
      * Creates a project downloader that downloads the specified revision of the specified project.
-     * @param projectId The project to be downloaded.  Not <code>null</code>.
-     * @param revision The revision of the project to be downloaded.
+     * @param fileName The display name of the project, which is used to name the folder in the zip file.
+     *                 Not {@code null}.
+     * @param project The project to be downloaded.  Not {@code null}.
+     * @param revision The revision of the project to be downloaded.  This must not be the head revision number.
      * @param format The format which the project should be downloaded in.
+     * @param serializationExecutor The executor that serialises the ontologies.  Not {@code null}.
+     * @param tempDirectory A directory that the serialised ontologies are written to before they are zipped.
+     *                      Not {@code null}.
      */
-    public OWLAPIProjectDownloader(String fileName, OWLAPIProject project, RevisionNumber revision, DownloadFormat format) {
-        this.project = project;
-        this.revision = revision;
-        this.format = format;
-        this.fileName = fileName;
-    }
-    
-    public void writeProject(HttpServletResponse response, OutputStream outputStream) throws IOException {
-        try {
-            setFileType(response);
-            setFileName(response);
-//            if(revision.isHead()) {
-//                documentStore.exportProject(fileName, outputStream, format);
-//            }
-//            else {
-                exportProjectRevision(fileName, revision, outputStream, format);
-//            }
-
-        }
-        catch (OWLOntologyStorageException e) {
-            e.printStackTrace();
-            response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-        }
-
-    }
-
-    private void setFileType(HttpServletResponse response) {
-        response.setContentType(MIME_TYPE);
+    public OWLAPIProjectDownloader(String fileName,
+                                   OWLAPIProject project,
+                                   RevisionNumber revision,
+                                   DownloadFormat format,
+                                   ExecutorService serializationExecutor,
+                                   File tempDirectory) {
+        checkArgument(!revision.isHead(), "The revision to be downloaded must be resolved to a specific revision");
+        this.project = checkNotNull(project);
+        this.revision = checkNotNull(revision);
+        this.format = checkNotNull(format);
+        this.fileName = checkNotNull(fileName);
+        this.serializationExecutor = checkNotNull(serializationExecutor);
+        this.tempDirectory = checkNotNull(tempDirectory);
     }
 
-    private void setFileName(HttpServletResponse response) {
+    /**
+     * Gets the name of the file that a requested download should be saved as.
+     * @param displayName The display name of the project.  Not {@code null}.
+     * @param revision The requested revision, which may be the head revision number.  Not {@code null}.
+     * @param format The requested format.  Not {@code null}.
+     * @return The file name.  Not {@code null}.
+     */
+    public static String getDownloadFileName(String displayName, RevisionNumber revision, DownloadFormat format) {
         String revisionNumber;
         if(revision.isHead()) {
             revisionNumber = "";
@@ -85,27 +96,37 @@ public class OWLAPIProjectDownloader {
         else {
             revisionNumber = "-REVISION-" + Long.toString(revision.getValue());
         }
-        String displayName = fileName;
         String fileName = displayName.replaceAll("\\s+", "-") + revisionNumber + "-ontologies." + format.getExtension() + ".zip";
-        fileName = fileName.toLowerCase();
-        response.setHeader(CONTENT_DISPOSITION_HEADER_FIELD, "attachment; filename=\"" + fileName + "\"");
+        return fileName.toLowerCase();
     }
 
-    private void exportProjectRevision(
-            String projectDisplayName,
-            RevisionNumber revisionNumber,
-            OutputStream outputStream,
-            DownloadFormat format) throws IOException, OWLOntologyStorageException {
-        checkNotNull(revisionNumber);
+    /**
+     * Writes the zipped revision of the project to the specified output stream.
+     * @param outputStream The output stream.  Not {@code null}.
+     */
+    public void writeProject(OutputStream outputStream) throws IOException, OWLOntologyStorageException {
         checkNotNull(outputStream);
-        checkNotNull(format);
+        List<File> ontologyFiles = serializeProjectRevision();
+        try {
+            writeZipFile(ontologyFiles, outputStream);
+        } finally {
+            deleteFiles(ontologyFiles);
+        }
+    }
 
+    /**
+     * Serialises the ontologies of the revision to be downloaded.  The ontologies are rebuilt from the revision
+     * history (starting at the nearest checkpoint) into a fresh manager, rather than being serialised from the live
+     * project ontologies, so that the project lock is not held while they are serialised and changes to the
+     * project are not blocked by downloads.
+     */
+    private List<File> serializeProjectRevision() throws IOException, OWLOntologyStorageException {
         RevisionManager revisionManager = project.getChangeManager();
-        OWLOntologyManager manager = revisionManager.getOntologyManagerForRevision(revisionNumber);
+        OWLOntologyManager manager = revisionManager.getOntologyManagerForRevision(revision);
         OWLOntologyID rootOntologyId = project.getRootOntology().getOntologyID();
         Optional<OWLOntology> revisionRootOntology = getOntologyFromManager(manager, rootOntologyId);
         if (revisionRootOntology.isPresent()) {
-            saveImportsClosureToStream(projectDisplayName, revisionRootOntology.get(), format, outputStream, revisionNumber);
+            return serializeImportsClosure(revisionRootOntology.get());
         }
         else {
             // An error - no flipping ontology!
@@ -115,63 +136,91 @@ public class OWLAPIProjectDownloader {
         }
     }
 
-//    private OWLOntologyManager getOntologyManagerForRevision(RevisionNumber revision) {
-//        RevisionManager changeManager = project.getChangeManager();
-//        return changeManager.getOntologyManagerForRevision(revision);
-//    }
-
-    private void saveImportsClosureToStream(
-            String projectDisplayName,
-            OWLOntology rootOntology,
-            DownloadFormat format,
-            OutputStream outputStream,
-            RevisionNumber revisionNumber) throws
-            IOException,
-            OWLOntologyStorageException {
-        // TODO: Separate object
+    /**
+     * Serialises the root ontology and each of its imports to its own temporary file, in parallel.
+     * @return The temporary files.  The first file contains the root ontology.
+     */
+    private List<File> serializeImportsClosure(OWLOntology rootOntology) throws IOException, OWLOntologyStorageException {
+        tempDirectory.mkdirs();
+        List<OWLOntology> ontologies = new ArrayList<>();
+        ontologies.add(rootOntology);
+        ontologies.addAll(rootOntology.getImports());
+        List<Future<File>> futures = new ArrayList<>();
+        for(OWLOntology ontology : ontologies) {
+            futures.add(serializationExecutor.submit(createSerializationTask(ontology)));
+        }
+        List<File> ontologyFiles = new ArrayList<>();
+        boolean complete = false;
+        try {
+            for(Future<File> future : futures) {
+                ontologyFiles.add(future.get());
+            }
+            complete = true;
+            return ontologyFiles;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted whilst serialising ontologies");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if(cause instanceof OWLOntologyStorageException) {
+                throw (OWLOntologyStorageException) cause;
+            }
+            if(cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new RuntimeException(cause);
+        } finally {
+            if(!complete) {
+                for(Future<File> future : futures) {
+                    future.cancel(true);
+                }
+                deleteFiles(ontologyFiles);
+            }
+        }
+    }
+
+    private Callable<File> createSerializationTask(final OWLOntology ontology) {
+        return new Callable<File>() {
+            @Override
+            public File call() throws Exception {
+                File file = File.createTempFile("ontology-", "." + format.getExtension(), tempDirectory);
+                try (OutputStream os = new BufferedOutputStream(new FileOutputStream(file))) {
+                    ontology.getOWLOntologyManager().saveOntology(ontology, format.getOntologyFormat(), os);
+                } catch (IOException | OWLOntologyStorageException | RuntimeException e) {
+                    file.delete();
+                    throw e;
+                }
+                return file;
+            }
+        };
+    }
+
+    private void writeZipFile(List<File> ontologyFiles, OutputStream outputStream) throws IOException {
         ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream);
-        String baseFolder = projectDisplayName.replace(" ", "-") + "-ontologies-" + format.getExtension();
+        String baseFolder = fileName.replace(" ", "-") + "-ontologies-" + format.getExtension();
         baseFolder = baseFolder.toLowerCase();
-        baseFolder = baseFolder + "-REVISION-" + revisionNumber.getValue();
-        ZipEntry rootOntologyEntry = new ZipEntry(baseFolder + "/root-ontology." + format.getExtension());
-        zipOutputStream.putNextEntry(rootOntologyEntry);
-        rootOntology.getOWLOntologyManager().saveOntology(rootOntology, format.getOntologyFormat(), zipOutputStream);
-        zipOutputStream.closeEntry();
-        int importCount = 0;
-        for (OWLOntology ontology : rootOntology.getImports()) {
-            importCount++;
-            ZipEntry zipEntry = new ZipEntry(baseFolder + "/imported-ontology-" + importCount + "." + format
-                    .getExtension());
-            zipOutputStream.putNextEntry(zipEntry);
-            ontology.getOWLOntologyManager().saveOntology(ontology, format.getOntologyFormat(), zipOutputStream);
+        baseFolder = baseFolder + "-REVISION-" + revision.getValue();
+        for (int i = 0; i < ontologyFiles.size(); i++) {
+            String entryName;
+            if(i == 0) {
+                entryName = baseFolder + "/root-ontology." + format.getExtension();
+            }
+            else {
+                entryName = baseFolder + "/imported-ontology-" + i + "." + format.getExtension();
+            }
+            zipOutputStream.putNextEntry(new ZipEntry(entryName));
+            Files.copy(ontologyFiles.get(i).toPath(), zipOutputStream);
             zipOutputStream.closeEntry();
         }
         zipOutputStream.finish();
         zipOutputStream.flush();
     }
 
-//     private void createDownloadCacheIfNecessary(String projectDisplayName, DownloadFormat format) throws IOException, OWLOntologyStorageException {
-//        ReadWriteLock projectDownloadCacheLock = getProjectDownloadCacheLock(projectId);
-//        try {
-//            projectDownloadCacheLock.writeLock().lock();
-//            File downloadCacheDirectory = projectFileStore.getDownloadCacheDirectory();
-//            File cachedFile = getDownloadCacheFile(format);
-//            if (!cachedFile.exists()) {
-//                downloadCacheDirectory.mkdirs();
-//                // Create
-//                OWLAPIProject project = projectManager.getProject(projectId);
-//                RevisionManager changeManager = project.getChangeManager();
-//                RevisionNumber currentRevisionNumber = changeManager.getCurrentRevision();
-//
-//                BufferedOutputStream outputStream = new BufferedOutputStream(new FileOutputStream(cachedFile));
-//                exportProjectRevision(projectDisplayName, currentRevisionNumber, outputStream, format);
-//                outputStream.close();
-//            }
-//        } finally {
-//            projectDownloadCacheLock.writeLock().unlock();
-//        }
-//    }
-
+    private static void deleteFiles(List<File> files) {
+        for(File file : files) {
+            file.delete();
+        }
+    }
 
     /**
      * Gets an ontology from the manager specified manager.  This method is a workaround for
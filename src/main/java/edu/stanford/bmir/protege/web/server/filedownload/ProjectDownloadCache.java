@@ -0,0 +1,289 @@
+package edu.stanford.bmir.protege.web.server.filedownload;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import edu.stanford.bmir.protege.web.server.inject.project.DownloadCacheDirectory;
+import edu.stanford.bmir.protege.web.server.logging.WebProtegeLogger;
+import edu.stanford.bmir.protege.web.server.metaproject.ProjectDetailsManager;
+import edu.stanford.bmir.protege.web.server.owlapi.OWLAPIProject;
+import edu.stanford.bmir.protege.web.shared.HasDispose;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import org.semanticweb.owlapi.model.OWLOntologyStorageException;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Caches the zipped download artefacts of a project on disk.  An artefact is identified by the revision, the
+ * format and the display name of the project (which names the folder inside the zip file), so a cached artefact
+ * never goes out of date.  Concurrent requests for an artefact that is being built wait for the same build.
+ * <p>
+ *     Once changes to the project have gone quiet for {@link #QUIET_PERIOD_SECONDS} the artefacts for the current
+ *     revision are built in the background, in each format that has been downloaded since the project was loaded.
+ *     Nothing is built for projects that have not been downloaded.  Only the most recently used artefacts are kept.
+ * </p>
+ */
+public class ProjectDownloadCache implements HasDispose {
+
+    public static final long QUIET_PERIOD_SECONDS = 120;
+
+    public static final int MAX_CACHED_ARTEFACTS = 10;
+
+    private static final int MAX_SERIALIZATION_THREADS = 4;
+
+    private static final String ARTEFACT_FILE_SUFFIX = ".zip";
+
+    private final ProjectId projectId;
+
+    private final Provider<OWLAPIProject> projectProvider;
+
+    private final ProjectDetailsManager projectDetailsManager;
+
+    private final File cacheDirectory;
+
+    private final WebProtegeLogger logger;
+
+    private final ScheduledExecutorService buildExecutor;
+
+    private final ExecutorService serializationExecutor;
+
+    private final ConcurrentMap<String, Future<File>> inFlightBuilds = new ConcurrentHashMap<>();
+
+    private final Set<DownloadFormat> downloadedFormats = Collections.newSetFromMap(
+            new ConcurrentHashMap<DownloadFormat, Boolean>());
+
+    private final Object scheduleLock = new Object();
+
+    private ScheduledFuture<?> scheduledBuild = null;
+
+    @Inject
+    public ProjectDownloadCache(ProjectId projectId,
+                                Provider<OWLAPIProject> projectProvider,
+                                ProjectDetailsManager projectDetailsManager,
+                                @DownloadCacheDirectory File cacheDirectory,
+                                WebProtegeLogger logger) {
+        this(projectId, projectProvider, projectDetailsManager, cacheDirectory, logger,
+                Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                        .setNameFormat("download-artefact-builder-%d")
+                        .setPriority(Thread.MIN_PRIORITY)
+                        .setDaemon(true)
+                        .build()),
+                createSerializationExecutor());
+    }
+
+    ProjectDownloadCache(ProjectId projectId,
+                         Provider<OWLAPIProject> projectProvider,
+                         ProjectDetailsManager projectDetailsManager,
+                         File cacheDirectory,
+                         WebProtegeLogger logger,
+                         ScheduledExecutorService buildExecutor,
+                         ExecutorService serializationExecutor) {
+        this.projectId = checkNotNull(projectId);
+        this.projectProvider = checkNotNull(projectProvider);
+        this.projectDetailsManager = checkNotNull(projectDetailsManager);
+        this.cacheDirectory = checkNotNull(cacheDirectory);
+        this.logger = checkNotNull(logger);
+        this.buildExecutor = checkNotNull(buildExecutor);
+        this.serializationExecutor = checkNotNull(serializationExecutor);
+    }
+
+    private static ExecutorService createSerializationExecutor() {
+        int threadCount = Math.min(MAX_SERIALIZATION_THREADS, Math.max(1, Runtime.getRuntime().availableProcessors()));
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threadCount, threadCount,
+                60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactoryBuilder()
+                        .setNameFormat("download-serializer-%d")
+                        .setDaemon(true)
+                        .build());
+        // Downloads are infrequent, so don't keep threads around between them
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Resolves a requested revision number to the revision number of an existing revision.
+     * @param revision The requested revision number, which may be the head revision number.  Not {@code null}.
+     * @return The revision number.  If the requested revision number is the head revision number then this is
+     * the current revision number of the project.
+     */
+    public RevisionNumber resolveRevision(RevisionNumber revision) {
+        if(revision.isHead()) {
+            return projectProvider.get().getChangeManager().getCurrentRevision();
+        }
+        return revision;
+    }
+
+    /**
+     * Gets the name of the cached artefact for the specified revision and format.  The name uniquely identifies
+     * the content of the artefact and so can be used as an entity tag.
+     * @param revision The revision.  Must not be the head revision number.
+     * @param format The format.  Not {@code null}.
+     */
+    public String getArtefactName(RevisionNumber revision, DownloadFormat format) {
+        checkArgument(!revision.isHead());
+        String displayName = getDisplayName();
+        return "revision-" + revision.getValue()
+                + "-" + format.getExtension()
+                + "-" + Integer.toHexString(displayName.hashCode())
+                + ARTEFACT_FILE_SUFFIX;
+    }
+
+    /**
+     * Gets the artefact for the specified revision and format, building it if it is not cached.
+     * @param revision The revision.  Must not be the head revision number.
+     * @param format The format.  Not {@code null}.
+     * @return The artefact file.  Not {@code null}.
+     * @throws IOException If the artefact could not be built.
+     */
+    public File getArtefact(RevisionNumber revision, DownloadFormat format) throws IOException {
+        downloadedFormats.add(format);
+        String artefactName = getArtefactName(revision, format);
+        File artefactFile = new File(cacheDirectory, artefactName);
+        if(artefactFile.exists()) {
+            // Records the use of the artefact so that the least recently used artefacts are evicted first
+            artefactFile.setLastModified(System.currentTimeMillis());
+            return artefactFile;
+        }
+        return awaitBuild(artefactName, revision, format);
+    }
+
+    private File awaitBuild(final String artefactName, final RevisionNumber revision, final DownloadFormat format) throws IOException {
+        FutureTask<File> buildTask = new FutureTask<>(new Callable<File>() {
+            @Override
+            public File call() throws Exception {
+                return buildArtefact(artefactName, revision, format);
+            }
+        });
+        Future<File> build = inFlightBuilds.putIfAbsent(artefactName, buildTask);
+        if(build == null) {
+            build = buildTask;
+            try {
+                buildTask.run();
+            } finally {
+                inFlightBuilds.remove(artefactName, buildTask);
+            }
+        }
+        try {
+            return build.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted whilst waiting for download artefact");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if(cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Could not build download artefact " + artefactName, cause);
+        }
+    }
+
+    private File buildArtefact(String artefactName, RevisionNumber revision, DownloadFormat format) throws IOException, OWLOntologyStorageException {
+        File artefactFile = new File(cacheDirectory, artefactName);
+        if(artefactFile.exists()) {
+            return artefactFile;
+        }
+        cacheDirectory.mkdirs();
+        File tmpFile = File.createTempFile("artefact-", ".tmp", cacheDirectory);
+        try {
+            long t0 = System.currentTimeMillis();
+            try (OutputStream os = new BufferedOutputStream(new FileOutputStream(tmpFile))) {
+                OWLAPIProjectDownloader downloader = new OWLAPIProjectDownloader(
+                        getDisplayName(), projectProvider.get(), revision, format, serializationExecutor, cacheDirectory);
+                downloader.writeProject(os);
+            }
+            Files.move(tmpFile.toPath(), artefactFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            logger.info(projectId, "Built download artefact %s in %d ms", artefactName, System.currentTimeMillis() - t0);
+        } finally {
+            tmpFile.delete();
+        }
+        evictLeastRecentlyUsedArtefacts();
+        return artefactFile;
+    }
+
+    private void evictLeastRecentlyUsedArtefacts() {
+        File[] artefactFiles = cacheDirectory.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File file) {
+                return file.getName().endsWith(ARTEFACT_FILE_SUFFIX);
+            }
+        });
+        if(artefactFiles == null || artefactFiles.length <= MAX_CACHED_ARTEFACTS) {
+            return;
+        }
+        Arrays.sort(artefactFiles, new Comparator<File>() {
+            @Override
+            public int compare(File file1, File file2) {
+                return Long.compare(file2.lastModified(), file1.lastModified());
+            }
+        });
+        // An artefact that is being streamed stays readable after it is deleted on POSIX file systems
+        for(int i = MAX_CACHED_ARTEFACTS; i < artefactFiles.length; i++) {
+            artefactFiles[i].delete();
+        }
+    }
+
+    /**
+     * Notes that a revision has been committed.  If the project has been downloaded, the artefacts for the current
+     * revision will be built once no further revisions have been committed for the quiet period.
+     */
+    public void handleRevisionCommitted() {
+        if(downloadedFormats.isEmpty()) {
+            return;
+        }
+        synchronized (scheduleLock) {
+            if(scheduledBuild != null) {
+                scheduledBuild.cancel(false);
+            }
+            try {
+                scheduledBuild = buildExecutor.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        buildCurrentRevisionArtefacts();
+                    }
+                }, QUIET_PERIOD_SECONDS, TimeUnit.SECONDS);
+            } catch (RejectedExecutionException e) {
+                // The project has been disposed of
+                scheduledBuild = null;
+            }
+        }
+    }
+
+    private void buildCurrentRevisionArtefacts() {
+        RevisionNumber currentRevision = resolveRevision(RevisionNumber.getHeadRevisionNumber());
+        for(DownloadFormat format : downloadedFormats) {
+            try {
+                String artefactName = getArtefactName(currentRevision, format);
+                if(!new File(cacheDirectory, artefactName).exists()) {
+                    awaitBuild(artefactName, currentRevision, format);
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.info(projectId, "Could not pre-build download artefact in %s format.  Cause: %s",
+                        format.getExtension(), e.getMessage());
+            }
+        }
+    }
+
+    private String getDisplayName() {
+        return projectDetailsManager.getProjectDetails(projectId).getDisplayName();
+    }
+
+    @Override
+    public void dispose() {
+        buildExecutor.shutdownNow();
+        serializationExecutor.shutdownNow();
+    }
+}
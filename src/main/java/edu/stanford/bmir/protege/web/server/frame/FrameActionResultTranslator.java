@@ -1,5 +1,6 @@
 package edu.stanford.bmir.protege.web.server.frame;
 
+import com.google.common.base.Supplier;
 import edu.stanford.bmir.protege.web.client.ui.frame.LabelledFrame;
 import edu.stanford.bmir.protege.web.server.frame.FrameTranslator;
 import edu.stanford.bmir.protege.web.server.owlapi.OWLAPIProject;
@@ -21,8 +22,11 @@ public class FrameActionResultTranslator<F extends EntityFrame<E>, E extends OWL
 
     private E subject;
 
-    public FrameActionResultTranslator(E subject, OWLAPIProject project, FrameTranslator<F, E> translator) {
+    private Class<F> frameType;
+
+    public FrameActionResultTranslator(E subject, OWLAPIProject project, FrameTranslator<F, E> translator, Class<F> frameType) {
         this.subject = subject;
+        this.frameType = frameType;
         this.project = project;
         this.translator = translator;
     }
@@ -30,7 +34,12 @@ public class FrameActionResultTranslator<F extends EntityFrame<E>, E extends OWL
     public LabelledFrame<F> doIT() {
         RenderingManager rm = project.getRenderingManager();
         String browserText = rm.getBrowserText(subject);
-        final F frame = translator.getFrame(subject, project.getRootOntology(), project);
+        final F frame = project.getFrameCache().getFrame(subject, frameType, new Supplier<F>() {
+            @Override
+            public F get() {
+                return translator.getFrame(subject, project.getRootOntology(), project);
+            }
+        });
         return new LabelledFrame<F>(browserText, frame);
 //        L labelledFrame = createLabelledFrame(browserText, frame);
 //        return new GetRenderableObjectResult<L>(labelledFrame, browserTextMap);
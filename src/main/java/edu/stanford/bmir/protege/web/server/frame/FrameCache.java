@@ -0,0 +1,212 @@
+package edu.stanford.bmir.protege.web.server.frame;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Supplier;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.SetMultimap;
+import edu.stanford.bmir.protege.web.server.hierarchy.AssertedClassHierarchyProvider;
+import edu.stanford.bmir.protege.web.server.hierarchy.OWLDataPropertyHierarchyProvider;
+import edu.stanford.bmir.protege.web.server.hierarchy.OWLObjectPropertyHierarchyProvider;
+import edu.stanford.bmir.protege.web.shared.HasGetChangeSubjects;
+import edu.stanford.bmir.protege.web.shared.frame.EntityFrame;
+import org.semanticweb.owlapi.model.*;
+
+import javax.inject.Inject;
+import java.util.*;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A cache of the entity frames of a project, keyed by the frame subject and the type of frame.  The cache is
+ * brought up to date after each revision by {@link #handleChanges(List)}, which must be called once the
+ * hierarchies of the project have been updated.
+ * <p>
+ *     A frame is invalidated if its subject, or any entity in its signature, is the subject of a change, or is a
+ *     descendant of a class or property that is the subject of a change.  The descendants are included because
+ *     frames contain values that are derived from the ancestors of their subjects, and because the values in a
+ *     frame are minimised using the class and property hierarchies.  Changes that are not axiom changes invalidate
+ *     the whole cache.
+ * </p>
+ * <p>
+ *     This class is thread safe.
+ * </p>
+ */
+public class FrameCache {
+
+    private static final int MAX_SIZE = 2000;
+
+    private final HasGetChangeSubjects changeSubjectProvider;
+
+    private final AssertedClassHierarchyProvider classHierarchyProvider;
+
+    private final OWLObjectPropertyHierarchyProvider objectPropertyHierarchyProvider;
+
+    private final OWLDataPropertyHierarchyProvider dataPropertyHierarchyProvider;
+
+    private final Map<FrameKey, EntityFrame<?>> frames = new LinkedHashMap<FrameKey, EntityFrame<?>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<FrameKey, EntityFrame<?>> eldest) {
+            if (size() > MAX_SIZE) {
+                unindex(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private final SetMultimap<OWLEntity, FrameKey> keysByEntity = HashMultimap.create();
+
+    private long generation = 0;
+
+    @Inject
+    public FrameCache(HasGetChangeSubjects changeSubjectProvider,
+                      AssertedClassHierarchyProvider classHierarchyProvider,
+                      OWLObjectPropertyHierarchyProvider objectPropertyHierarchyProvider,
+                      OWLDataPropertyHierarchyProvider dataPropertyHierarchyProvider) {
+        this.changeSubjectProvider = checkNotNull(changeSubjectProvider);
+        this.classHierarchyProvider = checkNotNull(classHierarchyProvider);
+        this.objectPropertyHierarchyProvider = checkNotNull(objectPropertyHierarchyProvider);
+        this.dataPropertyHierarchyProvider = checkNotNull(dataPropertyHierarchyProvider);
+    }
+
+    /**
+     * Gets the frame of the specified type for the specified subject.
+     * @param subject The subject of the frame.  Not {@code null}.
+     * @param frameType The type of frame.  Not {@code null}.
+     * @param frameSupplier A supplier that computes the frame if it is not in the cache.  The frame is computed
+     *                      without holding any lock on the cache.  Not {@code null}.
+     * @return The frame.  Not {@code null}.
+     */
+    public <F extends EntityFrame<E>, E extends OWLEntity> F getFrame(E subject,
+                                                                      Class<F> frameType,
+                                                                      Supplier<F> frameSupplier) {
+        FrameKey key = new FrameKey(subject, frameType);
+        long generationAtStart;
+        synchronized (this) {
+            EntityFrame<?> cachedFrame = frames.get(key);
+            if (cachedFrame != null) {
+                return frameType.cast(cachedFrame);
+            }
+            generationAtStart = generation;
+        }
+        F frame = checkNotNull(frameSupplier.get());
+        synchronized (this) {
+            // Don't cache frames that may have been computed from a state that has since been invalidated
+            if (generation == generationAtStart && !frames.containsKey(key)) {
+                frames.put(key, frame);
+                index(key, frame);
+            }
+        }
+        return frame;
+    }
+
+    /**
+     * Invalidates the frames that are affected by the specified changes.
+     * @param changes The changes that were applied to the project ontologies.  Not {@code null}.
+     */
+    public void handleChanges(List<? extends OWLOntologyChange> changes) {
+        Set<OWLEntity> affectedEntities = new HashSet<>();
+        for (OWLOntologyChange change : changes) {
+            if (!change.isAxiomChange()) {
+                invalidateAll();
+                return;
+            }
+            affectedEntities.addAll(changeSubjectProvider.getChangeSubjects(change));
+            OWLAxiom axiom = change.getAxiom();
+            if (axiom instanceof OWLNaryClassAxiom
+                    || axiom instanceof OWLNaryPropertyAxiom
+                    || axiom instanceof OWLNaryIndividualAxiom
+                    || axiom instanceof OWLInverseObjectPropertiesAxiom) {
+                // These axioms appear in the frames of all of their named operands, not just their subject
+                affectedEntities.addAll(axiom.getSignature());
+            }
+        }
+        Set<OWLEntity> affectedDescendants = new HashSet<>();
+        for (OWLEntity entity : affectedEntities) {
+            if (entity.isOWLClass()) {
+                affectedDescendants.addAll(classHierarchyProvider.getDescendants(entity.asOWLClass()));
+            }
+            else if (entity.isOWLObjectProperty()) {
+                affectedDescendants.addAll(objectPropertyHierarchyProvider.getDescendants(entity.asOWLObjectProperty()));
+            }
+            else if (entity.isOWLDataProperty()) {
+                affectedDescendants.addAll(dataPropertyHierarchyProvider.getDescendants(entity.asOWLDataProperty()));
+            }
+        }
+        affectedEntities.addAll(affectedDescendants);
+        invalidate(affectedEntities);
+    }
+
+    private synchronized void invalidate(Collection<OWLEntity> entities) {
+        generation++;
+        for (OWLEntity entity : entities) {
+            for (FrameKey key : new ArrayList<>(keysByEntity.get(entity))) {
+                EntityFrame<?> frame = frames.remove(key);
+                if (frame != null) {
+                    unindex(key, frame);
+                }
+            }
+        }
+    }
+
+    private synchronized void invalidateAll() {
+        generation++;
+        frames.clear();
+        keysByEntity.clear();
+    }
+
+    private void index(FrameKey key, EntityFrame<?> frame) {
+        keysByEntity.put(key.getSubject(), key);
+        for (OWLEntity entity : frame.getSignature()) {
+            keysByEntity.put(entity, key);
+        }
+    }
+
+    private void unindex(FrameKey key, EntityFrame<?> frame) {
+        keysByEntity.remove(key.getSubject(), key);
+        for (OWLEntity entity : frame.getSignature()) {
+            keysByEntity.remove(entity, key);
+        }
+    }
+
+    private static class FrameKey {
+
+        private final OWLEntity subject;
+
+        private final Class<?> frameType;
+
+        private FrameKey(OWLEntity subject, Class<?> frameType) {
+            this.subject = checkNotNull(subject);
+            this.frameType = checkNotNull(frameType);
+        }
+
+        public OWLEntity getSubject() {
+            return subject;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(subject, frameType);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof FrameKey)) {
+                return false;
+            }
+            FrameKey other = (FrameKey) obj;
+            return this.subject.equals(other.subject) && this.frameType.equals(other.frameType);
+        }
+
+        @Override
+        public String toString() {
+            return Objects.toStringHelper("FrameKey")
+                    .add("subject", subject)
+                    .add("frameType", frameType.getSimpleName())
+                    .toString();
+        }
+    }
+}
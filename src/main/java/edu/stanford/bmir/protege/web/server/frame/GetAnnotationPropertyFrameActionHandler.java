@@ -1,5 +1,6 @@
 package edu.stanford.bmir.protege.web.server.frame;
 
+import com.google.common.base.Supplier;
 import edu.stanford.bmir.protege.web.client.dispatch.RenderableGetObjectResult;
 import edu.stanford.bmir.protege.web.client.ui.frame.LabelledFrame;
 import edu.stanford.bmir.protege.web.server.dispatch.AbstractHasProjectActionHandler;
@@ -37,9 +38,14 @@ public class GetAnnotationPropertyFrameActionHandler extends AbstractHasProjectA
     }
 
     @Override
-    protected GetObjectResult<LabelledFrame<AnnotationPropertyFrame>> execute(GetAnnotationPropertyFrameAction action, OWLAPIProject project, ExecutionContext executionContext) {
-        AnnotationPropertyFrameTranslator translator = new AnnotationPropertyFrameTranslator();
-        AnnotationPropertyFrame frame = translator.getFrame(action.getSubject(), project.getRootOntology(), project);
+    protected GetObjectResult<LabelledFrame<AnnotationPropertyFrame>> execute(final GetAnnotationPropertyFrameAction action, final OWLAPIProject project, ExecutionContext executionContext) {
+        AnnotationPropertyFrame frame = project.getFrameCache().getFrame(action.getSubject(), AnnotationPropertyFrame.class, new Supplier<AnnotationPropertyFrame>() {
+            @Override
+            public AnnotationPropertyFrame get() {
+                AnnotationPropertyFrameTranslator translator = new AnnotationPropertyFrameTranslator();
+                return translator.getFrame(action.getSubject(), project.getRootOntology(), project);
+            }
+        });
         LabelledFrame<AnnotationPropertyFrame> labelledFrame = new LabelledFrame<AnnotationPropertyFrame>(project.getRenderingManager().getBrowserText(action.getSubject()), frame);
         return new RenderableGetObjectResult<LabelledFrame<AnnotationPropertyFrame>>(labelledFrame, BrowserTextMap.build(project.getRenderingManager(), frame.getSignature().toArray()));
     }
@@ -48,7 +48,7 @@ public class GetClassFrameActionHandler extends AbstractHasProjectActionHandler<
 
     @Override
     protected GetObjectResult<LabelledFrame<ClassFrame>> execute(GetClassFrameAction action, OWLAPIProject project, ExecutionContext executionContext) {
-        FrameActionResultTranslator<ClassFrame, OWLClass> translator = new FrameActionResultTranslator<ClassFrame, OWLClass>(action.getSubject(), project, TRANSLATOR);
+        FrameActionResultTranslator<ClassFrame, OWLClass> translator = new FrameActionResultTranslator<ClassFrame, OWLClass>(action.getSubject(), project, TRANSLATOR, ClassFrame.class);
         LabelledFrame<ClassFrame> f = translator.doIT();
         final BrowserTextMap browserTextMap = new BrowserTextMap(f, project.getRenderingManager());
         return new RenderableGetObjectResult<LabelledFrame<ClassFrame>>(f, browserTextMap);
@@ -1,5 +1,6 @@
 package edu.stanford.bmir.protege.web.server.frame;
 
+import com.google.common.base.Supplier;
 import edu.stanford.bmir.protege.web.client.dispatch.RenderableGetObjectResult;
 import edu.stanford.bmir.protege.web.client.ui.frame.LabelledFrame;
 import edu.stanford.bmir.protege.web.server.dispatch.AbstractHasProjectActionHandler;
@@ -36,9 +37,14 @@ public class GetDataPropertyFrameActionHandler extends AbstractHasProjectActionH
     }
 
     @Override
-    protected GetObjectResult<LabelledFrame<DataPropertyFrame>> execute(GetDataPropertyFrameAction action, OWLAPIProject project, ExecutionContext executionContext) {
-        DataPropertyFrameTranslator translator = new DataPropertyFrameTranslator();
-        final DataPropertyFrame frame = translator.getFrame(action.getSubject(), project.getRootOntology(), project);
+    protected GetObjectResult<LabelledFrame<DataPropertyFrame>> execute(final GetDataPropertyFrameAction action, final OWLAPIProject project, ExecutionContext executionContext) {
+        final DataPropertyFrame frame = project.getFrameCache().getFrame(action.getSubject(), DataPropertyFrame.class, new Supplier<DataPropertyFrame>() {
+            @Override
+            public DataPropertyFrame get() {
+                DataPropertyFrameTranslator translator = new DataPropertyFrameTranslator();
+                return translator.getFrame(action.getSubject(), project.getRootOntology(), project);
+            }
+        });
         String displayName = project.getRenderingManager().getBrowserText(action.getSubject());
         BrowserTextMap btm = BrowserTextMap.build(project.getRenderingManager(), frame.getSignature().toArray());
         return new RenderableGetObjectResult<LabelledFrame<DataPropertyFrame>>(new LabelledFrame<DataPropertyFrame>(displayName, frame), btm);
@@ -19,13 +19,13 @@ import edu.stanford.bmir.protege.web.server.inject.project.ProjectModule;
 import edu.stanford.bmir.protege.web.server.mansyntax.ManchesterSyntaxFrameParser;
 import edu.stanford.bmir.protege.web.server.owlapi.OWLAPIProjectManager;
 import edu.stanford.bmir.protege.web.server.shortform.EscapingShortFormProvider;
+import edu.stanford.bmir.protege.web.server.shortform.ShortFormMatch;
 import edu.stanford.bmir.protege.web.server.owlapi.OWLAPIProject;
 import edu.stanford.bmir.protege.web.server.shortform.WebProtegeOntologyIRIShortFormProvider;
 import edu.stanford.bmir.protege.web.shared.frame.GetManchesterSyntaxFrameCompletionsAction;
 import edu.stanford.bmir.protege.web.shared.frame.GetManchesterSyntaxFrameCompletionsResult;
 import edu.stanford.bmir.protege.web.shared.renderer.ManchesterSyntaxKeywords;
 import edu.stanford.bmir.protege.web.shared.search.EntityNameMatchResult;
-import edu.stanford.bmir.protege.web.shared.search.EntityNameMatcher;
 import org.coode.owlapi.manchesterowlsyntax.ManchesterOWLSyntax;
 import org.semanticweb.owlapi.expression.ParserException;
 import org.semanticweb.owlapi.model.EntityType;
@@ -104,23 +104,29 @@ public class GetManchesterSyntaxFrameCompletionsActionHandler
         Set<EntityType<?>> expectedEntityTypes = Sets.newHashSet(ManchesterSyntaxFrameParser.getExpectedEntityTypes(e));
         if(!expectedEntityTypes.isEmpty()) {
             BidirectionalShortFormProvider shortFormProvider = project.getRenderingManager().getShortFormProvider();
-            for(String shortForm : shortFormProvider.getShortForms()) {
-                EntityNameMatcher entityNameMatcher = new EntityNameMatcher(lastWordPrefix);
-                Optional<EntityNameMatchResult> match = entityNameMatcher.findIn(shortForm);
-                if(match.isPresent()) {
-                    Set<OWLEntity> entities = shortFormProvider.getEntities(shortForm);
-                    for(OWLEntity entity : entities) {
-                        if(expectedEntityTypes.contains(entity.getEntityType())) {
-                            EscapingShortFormProvider escapingShortFormProvider = new EscapingShortFormProvider(shortFormProvider);
-                            AutoCompletionChoice choice = new AutoCompletionChoice(escapingShortFormProvider.getShortForm(entity), shortForm, "", fromPos, toPos);
-                            AutoCompletionMatch autoCompletionMatch = new AutoCompletionMatch(
-                                    match.get(),
-                                        choice
-                            );
-                            matches.add(autoCompletionMatch);
-                        }
+            EscapingShortFormProvider escapingShortFormProvider = new EscapingShortFormProvider(shortFormProvider);
+            int limit = action.getEntityTypeSuggestLimit();
+            EntityNameMatchResult cutOff = null;
+            for(ShortFormMatch match : project.getSearchManager().getShortFormMatches(lastWordPrefix, limit)) {
+                // Matches arrive best first.  Stop once we have enough and have seen all matches that tie with
+                // the worst one that we need.
+                if(cutOff != null && match.getMatchResult().compareTo(cutOff) > 0) {
+                    break;
+                }
+                String shortForm = match.getShortForm();
+                Set<OWLEntity> entities = shortFormProvider.getEntities(shortForm);
+                for(OWLEntity entity : entities) {
+                    if(expectedEntityTypes.contains(entity.getEntityType())) {
+                        AutoCompletionChoice choice = new AutoCompletionChoice(escapingShortFormProvider.getShortForm(entity), shortForm, "", fromPos, toPos);
+                        AutoCompletionMatch autoCompletionMatch = new AutoCompletionMatch(
+                                match.getMatchResult(),
+                                    choice
+                        );
+                        matches.add(autoCompletionMatch);
                     }
-
+                }
+                if(cutOff == null && matches.size() >= limit) {
+                    cutOff = match.getMatchResult();
                 }
             }
         }
@@ -49,7 +49,7 @@ public class GetNamedIndividualFrameActionHandler implements ActionHandler<GetNa
     @Override
     public GetObjectResult<LabelledFrame<NamedIndividualFrame>> execute(GetNamedIndividualFrameAction action, ExecutionContext executionContext) {
         OWLAPIProject project = projectManager.getProject(action.getProjectId());
-        FrameActionResultTranslator<NamedIndividualFrame, OWLNamedIndividual> t = new FrameActionResultTranslator<NamedIndividualFrame, OWLNamedIndividual>(action.getSubject(), project, TRANSLATOR);
+        FrameActionResultTranslator<NamedIndividualFrame, OWLNamedIndividual> t = new FrameActionResultTranslator<NamedIndividualFrame, OWLNamedIndividual>(action.getSubject(), project, TRANSLATOR, NamedIndividualFrame.class);
         return new GetObjectResult<LabelledFrame<NamedIndividualFrame>>(t.doIT());
     }
 
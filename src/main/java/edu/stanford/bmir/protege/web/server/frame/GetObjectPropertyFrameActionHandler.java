@@ -39,7 +39,7 @@ public class GetObjectPropertyFrameActionHandler extends AbstractHasProjectActio
 
     @Override
     protected GetObjectResult<LabelledFrame<ObjectPropertyFrame>> execute(GetObjectPropertyFrameAction action, OWLAPIProject project, ExecutionContext executionContext) {
-        FrameActionResultTranslator<ObjectPropertyFrame, OWLObjectProperty> translator = new FrameActionResultTranslator<ObjectPropertyFrame, OWLObjectProperty>(action.getSubject(), project, TRANSLATOR);
+        FrameActionResultTranslator<ObjectPropertyFrame, OWLObjectProperty> translator = new FrameActionResultTranslator<ObjectPropertyFrame, OWLObjectProperty>(action.getSubject(), project, TRANSLATOR, ObjectPropertyFrame.class);
         LabelledFrame<ObjectPropertyFrame> f = translator.doIT();
         final BrowserTextMap browserTextMap = new BrowserTextMap(f, project.getRenderingManager());
         return new RenderableGetObjectResult<LabelledFrame<ObjectPropertyFrame>>(f, browserTextMap);
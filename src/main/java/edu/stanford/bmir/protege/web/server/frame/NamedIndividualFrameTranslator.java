@@ -1,5 +1,6 @@
 package edu.stanford.bmir.protege.web.server.frame;
 
+import com.google.common.base.Supplier;
 import edu.stanford.bmir.protege.web.server.owlapi.OWLAPIProject;
 import edu.stanford.bmir.protege.web.shared.DataFactory;
 import edu.stanford.bmir.protege.web.shared.frame.ClassFrame;
@@ -58,8 +59,7 @@ public class NamedIndividualFrameTranslator implements EntityFrameTranslator<Nam
             for(OWLClassAssertionAxiom ax : ont.getClassAssertionAxioms(subject)) {
                 if(!ax.getClassExpression().isAnonymous()) {
                     OWLClass type = (OWLClass) ax.getClassExpression();
-                    ClassFrameTranslator classFrameTranslator = new ClassFrameTranslator();
-                    ClassFrame classFrame = classFrameTranslator.getFrame(type, rootOntology, project);
+                    ClassFrame classFrame = getClassFrame(type, rootOntology, project);
                     for(PropertyValue propertyValue : classFrame.getPropertyValues()) {
                         // Bit yucky
                         if (!propertyValue.isAnnotation()) {
@@ -87,6 +87,16 @@ public class NamedIndividualFrameTranslator implements EntityFrameTranslator<Nam
         return builder.build();
     }
 
+    private ClassFrame getClassFrame(final OWLClass type, final OWLOntology rootOntology, final OWLAPIProject project) {
+        return project.getFrameCache().getFrame(type, ClassFrame.class, new Supplier<ClassFrame>() {
+            @Override
+            public ClassFrame get() {
+                ClassFrameTranslator classFrameTranslator = new ClassFrameTranslator();
+                return classFrameTranslator.getFrame(type, rootOntology, project);
+            }
+        });
+    }
+
     private Set<OWLAxiom> getRelevantAxioms(OWLNamedIndividual subject, OWLOntology rootOntology) {
         Set<OWLAxiom> relevantAxioms = new HashSet<OWLAxiom>();
         for (OWLOntology ontology : rootOntology.getImportsClosure()) {
@@ -7,10 +7,10 @@ import edu.stanford.bmir.protege.web.server.hierarchy.NamedIndividualClassAncest
 import edu.stanford.bmir.protege.web.server.hierarchy.ObjectPropertyObjectPropertyAncestorChecker;
 import edu.stanford.bmir.protege.web.server.owlapi.OWLAPIProject;
 import edu.stanford.bmir.protege.web.shared.frame.PropertyValue;
+import org.semanticweb.owlapi.model.OWLEntity;
 import org.semanticweb.owlapi.model.OWLOntology;
 
-import java.util.Iterator;
-import java.util.List;
+import java.util.*;
 
 /**
  * @author Matthew Horridge, Stanford University, Bio-Medical Informatics Research Group, Date: 26/02/2014
@@ -20,17 +20,53 @@ public class PropertyValueMinimiser {
     public List<PropertyValue> minimisePropertyValues(List<PropertyValue> propertyValues,
                                                     OWLOntology ontology,
                                                     OWLAPIProject project) {
+        return minimisePropertyValues(propertyValues, getPropertyValueSubsumptionChecker(ontology, project));
+    }
+
+    /**
+     * Removes the property values that are subsumed by other property values.  Property values are grouped by
+     * property, so that a property value is only compared with the property values of properties that subsume
+     * its own property, rather than with every other property value.
+     * @param propertyValues The property values to minimise.  Not {@code null}.
+     * @param subsumptionChecker The checker used to compare properties and property values.  Not {@code null}.
+     * @return The minimised property values, in their original order.  Not {@code null}.
+     */
+    protected List<PropertyValue> minimisePropertyValues(List<PropertyValue> propertyValues,
+                                                         PropertyValueSubsumptionChecker subsumptionChecker) {
+        Map<OWLEntity, List<Integer>> indexesByProperty = new LinkedHashMap<>();
+        for (int i = 0; i < propertyValues.size(); i++) {
+            OWLEntity property = propertyValues.get(i).getProperty();
+            List<Integer> indexes = indexesByProperty.get(property);
+            if (indexes == null) {
+                indexes = new ArrayList<>();
+                indexesByProperty.put(property, indexes);
+            }
+            indexes.add(i);
+        }
+        Map<OWLEntity, List<List<Integer>>> subsumingGroupsByProperty = new HashMap<>();
+        for (OWLEntity propertyA : indexesByProperty.keySet()) {
+            List<List<Integer>> subsumingGroups = new ArrayList<>();
+            for (Map.Entry<OWLEntity, List<Integer>> entry : indexesByProperty.entrySet()) {
+                if (subsumptionChecker.isPropertySubsumedBy(propertyA, entry.getKey())) {
+                    subsumingGroups.add(entry.getValue());
+                }
+            }
+            subsumingGroupsByProperty.put(propertyA, subsumingGroups);
+        }
         List<PropertyValue> result = Lists.newArrayList(propertyValues);
         for (int i = 0; i < propertyValues.size(); i++) {
-            for (int j = 0; j < propertyValues.size(); j++) {
-                if (i != j && result.get(i) != null && result.get(j) != null) {
-                    PropertyValue propertyValueA = propertyValues.get(i);
-                    PropertyValue propertyValueB = propertyValues.get(j);
-                    PropertyValueSubsumptionChecker subsumptionChecker = getPropertyValueSubsumptionChecker(ontology,
-                            project);
-                    if (subsumptionChecker.isSubsumedBy(propertyValueA, propertyValueB)) {
-                        // Don't show B because this is more specific!
-                        result.set(j, null);
+            if (result.get(i) == null) {
+                continue;
+            }
+            PropertyValue propertyValueA = propertyValues.get(i);
+            for (List<Integer> subsumingGroup : subsumingGroupsByProperty.get(propertyValueA.getProperty())) {
+                for (int j : subsumingGroup) {
+                    if (i != j && result.get(j) != null) {
+                        PropertyValue propertyValueB = propertyValues.get(j);
+                        if (subsumptionChecker.isSubsumedBy(propertyValueA, propertyValueB)) {
+                            // Don't show B because this is more specific!
+                            result.set(j, null);
+                        }
                     }
                 }
             }
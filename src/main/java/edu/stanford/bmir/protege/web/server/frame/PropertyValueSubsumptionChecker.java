@@ -1,6 +1,7 @@
 package edu.stanford.bmir.protege.web.server.frame;
 
 import edu.stanford.bmir.protege.web.shared.frame.PropertyValue;
+import org.semanticweb.owlapi.model.OWLEntity;
 
 /**
  * @author Matthew Horridge, Stanford University, Bio-Medical Informatics Research Group, Date: 26/02/2014
@@ -8,4 +9,13 @@ import edu.stanford.bmir.protege.web.shared.frame.PropertyValue;
 public interface PropertyValueSubsumptionChecker {
 
     boolean isSubsumedBy(PropertyValue propertyValueA, PropertyValue propertyValueB);
+
+    /**
+     * Determines whether one property is subsumed by another property.  A property value A can only be subsumed by
+     * a property value B if the property of A is subsumed by the property of B.
+     * @param propertyA The first property.  Not {@code null}.
+     * @param propertyB The second property.  Not {@code null}.
+     * @return {@code true} if propertyA is subsumed by propertyB, otherwise {@code false}.
+     */
+    boolean isPropertySubsumedBy(OWLEntity propertyA, OWLEntity propertyB);
 }
@@ -35,7 +35,7 @@ public class StructuralPropertyValueSubsumptionChecker implements PropertyValueS
 
     @Override
     public boolean isSubsumedBy(PropertyValue propertyValueA, PropertyValue propertyValueB) {
-        if (isSubsumedBy(propertyValueA.getProperty(), propertyValueB.getProperty())) {
+        if (isPropertySubsumedBy(propertyValueA.getProperty(), propertyValueB.getProperty())) {
             if (isSubsumedBy(propertyValueA.getValue(), propertyValueB.getValue())) {
                 return true;
             }
@@ -43,6 +43,11 @@ public class StructuralPropertyValueSubsumptionChecker implements PropertyValueS
         return false;
     }
 
+    @Override
+    public boolean isPropertySubsumedBy(OWLEntity propertyA, OWLEntity propertyB) {
+        return isSubsumedBy(propertyA, propertyB);
+    }
+
     private boolean isSubsumedBy(Object entityA, Object entityB) {
         if (entityA.equals(entityB)) {
             return true;
@@ -1,14 +1,12 @@
 package edu.stanford.bmir.protege.web.server.hierarchy;
 
 
+import com.google.common.collect.ImmutableSet;
 import org.apache.log4j.Logger;
 import org.protege.editor.owl.model.hierarchy.OWLObjectHierarchyProviderListener;
 import org.semanticweb.owlapi.model.OWLObject;
 
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 
 /**
  * Author: Matthew Horridge<br>
@@ -23,6 +21,11 @@ import java.util.Set;
  * handles listeners and event firing, and also provides basic
  * implementations of method such as getAncestors, getDescendants etc.
  * which use other core methods.
+ * <p/>
+ * The parents of each node, the ancestors of each node, and the number of children of each
+ * node, are cached as they are computed.  The cached ancestors are indexed by ancestor, so that
+ * invalidating a node only visits the cached entries of its descendants.  Subclasses must call {@link #invalidateCachedNodes(java.util.Collection)}
+ * with the nodes whose parents or children may have changed when they handle changes.
  */
 public abstract class AbstractOWLObjectHierarchyProvider<N extends OWLObject> implements OWLObjectHierarchyProvider<N> {
 
@@ -33,6 +36,26 @@ public abstract class AbstractOWLObjectHierarchyProvider<N extends OWLObject> im
 
     private List<OWLObjectHierarchyProviderListener<N>> listeners;
 
+    private final Object cacheLock = new Object();
+
+    private final Map<N, Set<N>> parentsCache = new HashMap<>();
+
+    private final Map<N, Set<N>> ancestorsCache = new HashMap<>();
+
+    /**
+     * Maps each node to the nodes whose cached ancestors contain it, so that the cached ancestors that are
+     * affected by a change to a node can be found without scanning the whole ancestors cache.
+     */
+    private final Map<N, Set<N>> cachedDescendantsIndex = new HashMap<>();
+
+    private final Map<N, Integer> childCountCache = new HashMap<>();
+
+    /**
+     * Incremented each time the caches are invalidated so that values that were computed
+     * concurrently with an invalidation are not cached.
+     */
+    private long cacheGeneration = 0;
+
 
     protected AbstractOWLObjectHierarchyProvider() {
         listeners = new ArrayList<>();
@@ -41,26 +64,204 @@ public abstract class AbstractOWLObjectHierarchyProvider<N extends OWLObject> im
 
     public void dispose() {
         listeners.clear();
+        invalidateCache();
     }
 
 
+    /**
+     * Gets the ancestors of the specified object.  The ancestors are computed from the cached parents
+     * of the object, reusing any cached ancestors of the nodes that are visited, and are then cached.
+     * @param object The object.
+     * @return The ancestors of the object.  The returned set is unmodifiable.
+     */
     public Set<N> getAncestors(N object) {
+        long generation;
+        synchronized (cacheLock) {
+            Set<N> cachedAncestors = ancestorsCache.get(object);
+            if (cachedAncestors != null) {
+                return cachedAncestors;
+            }
+            generation = cacheGeneration;
+        }
         Set<N> results = new HashSet<N>();
-        getAncestors(results, object);
-        return results;
+        Deque<N> toVisit = new ArrayDeque<N>();
+        toVisit.push(object);
+        while (!toVisit.isEmpty()) {
+            N current = toVisit.pop();
+            for (N parent : getCachedParents(current)) {
+                if (results.add(parent)) {
+                    Set<N> parentAncestors = getCachedAncestors(parent);
+                    if (parentAncestors != null) {
+                        // The cached ancestors are complete, so the parent does not need to be expanded
+                        results.addAll(parentAncestors);
+                    }
+                    else {
+                        toVisit.push(parent);
+                    }
+                }
+            }
+        }
+        Set<N> ancestors = Collections.unmodifiableSet(results);
+        synchronized (cacheLock) {
+            if (generation == cacheGeneration) {
+                putCachedAncestors(object, ancestors);
+            }
+        }
+        return ancestors;
+    }
+
+
+    private Set<N> getCachedAncestors(N object) {
+        synchronized (cacheLock) {
+            return ancestorsCache.get(object);
+        }
+    }
+
+
+    /**
+     * Caches the ancestors of a node and indexes the node by each of its ancestors.  Must be called while
+     * holding the cache lock.
+     */
+    private void putCachedAncestors(N object, Set<N> ancestors) {
+        removeCachedAncestors(object);
+        ancestorsCache.put(object, ancestors);
+        for (N ancestor : ancestors) {
+            Set<N> descendants = cachedDescendantsIndex.get(ancestor);
+            if (descendants == null) {
+                descendants = new HashSet<>();
+                cachedDescendantsIndex.put(ancestor, descendants);
+            }
+            descendants.add(object);
+        }
     }
 
 
-    private void getAncestors(Set<N> results, N object) {
-        for (N parent : getParents(object)) {
-            if (!results.contains(parent)) {
-                results.add(parent);
-                getAncestors(results, parent);
+    /**
+     * Removes the cached ancestors of a node, and the node from the index of its ancestors.  Must be called
+     * while holding the cache lock.
+     */
+    private void removeCachedAncestors(N object) {
+        Set<N> ancestors = ancestorsCache.remove(object);
+        if (ancestors == null) {
+            return;
+        }
+        for (N ancestor : ancestors) {
+            Set<N> descendants = cachedDescendantsIndex.get(ancestor);
+            if (descendants != null) {
+                descendants.remove(object);
+                if (descendants.isEmpty()) {
+                    cachedDescendantsIndex.remove(ancestor);
+                }
             }
         }
     }
 
 
+    private Set<N> getCachedParents(N object) {
+        long generation;
+        synchronized (cacheLock) {
+            Set<N> cachedParents = parentsCache.get(object);
+            if (cachedParents != null) {
+                return cachedParents;
+            }
+            generation = cacheGeneration;
+        }
+        Set<N> parents = ImmutableSet.copyOf(getParents(object));
+        synchronized (cacheLock) {
+            if (generation == cacheGeneration) {
+                parentsCache.put(object, parents);
+            }
+        }
+        return parents;
+    }
+
+
+    /**
+     * Gets the number of children of the specified object.  The count is cached until the object, or one
+     * of its children, is invalidated.
+     * @param object The object.
+     * @return The number of children of the object.
+     */
+    public int getChildCount(N object) {
+        long generation;
+        synchronized (cacheLock) {
+            Integer cachedChildCount = childCountCache.get(object);
+            if (cachedChildCount != null) {
+                return cachedChildCount;
+            }
+            generation = cacheGeneration;
+        }
+        int childCount = getChildren(object).size();
+        synchronized (cacheLock) {
+            if (generation == cacheGeneration) {
+                childCountCache.put(object, childCount);
+            }
+        }
+        return childCount;
+    }
+
+
+    /**
+     * Invalidates the cached parents and child counts of the specified nodes, the cached child counts of
+     * their previous parents, and the cached ancestors of the specified nodes and of their descendants.
+     * @param nodes The nodes whose parents or children may have changed.
+     */
+    protected void invalidateCachedNodes(Collection<? extends N> nodes) {
+        if (nodes.isEmpty()) {
+            return;
+        }
+        synchronized (cacheLock) {
+            cacheGeneration++;
+            for (N node : nodes) {
+                Set<N> previousParents = parentsCache.remove(node);
+                if (previousParents != null) {
+                    childCountCache.keySet().removeAll(previousParents);
+                }
+                removeCachedAncestors(node);
+                childCountCache.remove(node);
+            }
+            // Any node that has one of the changed nodes as an ancestor is a descendant of it.  The children
+            // of a node exclude its ancestors, so the child count of the descendant is invalidated too.
+            for (N node : nodes) {
+                Set<N> descendants = cachedDescendantsIndex.remove(node);
+                if (descendants != null) {
+                    for (N descendant : descendants) {
+                        removeCachedAncestors(descendant);
+                        childCountCache.remove(descendant);
+                    }
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Invalidates the cached child counts of the specified nodes, without invalidating their parents or
+     * ancestors.  This is used for nodes, such as the root, whose children are computed differently.
+     * @param nodes The nodes whose children may have changed.
+     */
+    protected void invalidateCachedChildCounts(Collection<? extends N> nodes) {
+        synchronized (cacheLock) {
+            cacheGeneration++;
+            childCountCache.keySet().removeAll(nodes);
+        }
+    }
+
+
+    /**
+     * Clears all cached parents, ancestors and child counts.
+     */
+    protected void invalidateCache() {
+        synchronized (cacheLock) {
+            cacheGeneration++;
+            parentsCache.clear();
+            ancestorsCache.clear();
+            cachedDescendantsIndex.clear();
+            childCountCache.clear();
+        }
+    }
+
+
     public Set<N> getDescendants(N object) {
         Set<N> results = new HashSet<N>();
         getDescendants(results, object);
@@ -98,7 +299,7 @@ public abstract class AbstractOWLObjectHierarchyProvider<N extends OWLObject> im
             return getSingleSetOfLists(obj);
         }
         Set<List<N>> paths = new HashSet<List<N>>();
-        for (N par : getParents(obj)) {
+        for (N par : getCachedParents(obj)) {
             if (!processed.contains(par)) {
                 processed.add(par);
                 paths.addAll(append(obj, setOfPaths(par, processed)));
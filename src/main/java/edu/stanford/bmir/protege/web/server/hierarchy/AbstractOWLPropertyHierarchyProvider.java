@@ -42,6 +42,12 @@ public abstract class AbstractOWLPropertyHierarchyProvider<R extends OWLProperty
 
     public void handleChanges(List<? extends OWLOntologyChange> changes) {
         Set<P> properties = new HashSet<P>(getPropertiesReferencedInChange(changes));
+        Set<P> changedProperties = new HashSet<P>(properties);
+        // The root never has any parents
+        changedProperties.remove(getRoot());
+        invalidateCachedNodes(changedProperties);
+        // The children of the root are the sub properties of the root, which are recomputed below
+        invalidateCachedChildCounts(Collections.singleton(getRoot()));
         for (P prop : properties) {
             if (isSubPropertyOfRoot(prop)) {
                 subPropertiesOfRoot.add(prop);
@@ -87,9 +87,7 @@ public class AssertedClassHierarchyProvider extends AbstractOWLObjectHierarchyPr
     public void handleChanges(List<? extends OWLOntologyChange> changes) {
         Set<OWLClass> oldTerminalElements = new HashSet<OWLClass>(rootFinder.getTerminalElements());
         Set<OWLClass> changedClasses = new HashSet<OWLClass>();
-        changedClasses.add(root);
         List<OWLAxiomChange> filteredChanges = filterIrrelevantChanges(changes);
-        updateImplicitRoots(filteredChanges);
         for (OWLOntologyChange change : filteredChanges) {
             for (OWLEntity entity : ((OWLAxiomChange) change).getEntities()) {
                 if (entity instanceof OWLClass && !entity.equals(root)) {
@@ -97,19 +95,31 @@ public class AssertedClassHierarchyProvider extends AbstractOWLObjectHierarchyPr
                 }
             }
         }
-        for (OWLClass cls : changedClasses) {
-            registerNodeChanged(cls);
-        }
+        // The root finder uses the parents of the changed classes, so these must be invalidated first
+        invalidateCachedNodes(changedClasses);
+        updateImplicitRoots(filteredChanges);
+        Set<OWLClass> changedTerminalElements = new HashSet<OWLClass>();
         for (OWLClass cls : rootFinder.getTerminalElements()) {
             if (!oldTerminalElements.contains(cls)) {
-                registerNodeChanged(cls);
+                changedTerminalElements.add(cls);
             }
         }
         for (OWLClass cls : oldTerminalElements) {
             if (!rootFinder.getTerminalElements().contains(cls)) {
-                registerNodeChanged(cls);
+                changedTerminalElements.add(cls);
             }
         }
+        // Classes that have become, or are no longer, terminal elements have gained or lost the root as a parent
+        invalidateCachedNodes(changedTerminalElements);
+        // The children of the root are the terminal elements
+        invalidateCachedChildCounts(Collections.singleton(root));
+        registerNodeChanged(root);
+        for (OWLClass cls : changedClasses) {
+            registerNodeChanged(cls);
+        }
+        for (OWLClass cls : changedTerminalElements) {
+            registerNodeChanged(cls);
+        }
         notifyNodeChanges();
     }
 
@@ -186,9 +196,10 @@ public class AssertedClassHierarchyProvider extends AbstractOWLObjectHierarchyPr
         }
         else {
             result = extractChildren(object);
+            Set<OWLClass> ancestors = getAncestors(object);
             for (Iterator<OWLClass> it = result.iterator(); it.hasNext();) {
                 OWLClass curChild = it.next();
-                if (getAncestors(object).contains(curChild)) {
+                if (ancestors.contains(curChild)) {
                     it.remove();
                 }
             }
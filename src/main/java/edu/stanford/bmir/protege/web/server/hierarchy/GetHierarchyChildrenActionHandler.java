@@ -0,0 +1,133 @@
+package edu.stanford.bmir.protege.web.server.hierarchy;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import edu.stanford.bmir.protege.web.server.dispatch.AbstractHasProjectActionHandler;
+import edu.stanford.bmir.protege.web.server.dispatch.ExecutionContext;
+import edu.stanford.bmir.protege.web.server.dispatch.RequestContext;
+import edu.stanford.bmir.protege.web.server.dispatch.RequestValidator;
+import edu.stanford.bmir.protege.web.server.dispatch.validators.UserHasProjectReadPermissionValidator;
+import edu.stanford.bmir.protege.web.server.owlapi.OWLAPIProject;
+import edu.stanford.bmir.protege.web.server.owlapi.OWLAPIProjectManager;
+import edu.stanford.bmir.protege.web.shared.entity.OWLEntityData;
+import edu.stanford.bmir.protege.web.shared.hierarchy.EntityHierarchyNode;
+import edu.stanford.bmir.protege.web.shared.hierarchy.GetHierarchyChildrenAction;
+import edu.stanford.bmir.protege.web.shared.hierarchy.GetHierarchyChildrenResult;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import edu.stanford.bmir.protege.web.shared.watches.Watch;
+import org.semanticweb.owlapi.model.OWLEntity;
+
+import javax.inject.Inject;
+import java.util.*;
+
+/**
+ * Expands several hierarchy nodes in one request.  The child counts come from the counts that are cached,
+ * and kept up to date, by the hierarchy providers.  Children are sorted with deprecated entities last and
+ * then by browser text.
+ */
+public class GetHierarchyChildrenActionHandler extends AbstractHasProjectActionHandler<GetHierarchyChildrenAction, GetHierarchyChildrenResult> {
+
+    @Inject
+    public GetHierarchyChildrenActionHandler(OWLAPIProjectManager projectManager) {
+        super(projectManager);
+    }
+
+    @Override
+    public Class<GetHierarchyChildrenAction> getActionClass() {
+        return GetHierarchyChildrenAction.class;
+    }
+
+    @Override
+    protected RequestValidator<GetHierarchyChildrenAction> getAdditionalRequestValidator(GetHierarchyChildrenAction action, RequestContext requestContext) {
+        return UserHasProjectReadPermissionValidator.get();
+    }
+
+    @Override
+    protected GetHierarchyChildrenResult execute(GetHierarchyChildrenAction action, OWLAPIProject project, ExecutionContext executionContext) {
+        UserId userId = executionContext.getUserId();
+        ImmutableMap.Builder<OWLEntity, ImmutableList<EntityHierarchyNode>> builder = ImmutableMap.builder();
+        for (OWLEntity parent : action.getParents()) {
+            Set<OWLEntity> children = getChildren(parent, project);
+            Map<OWLEntity, OWLEntityData> renderings = project.getRenderingManager().getRendering(children);
+            List<EntityHierarchyNode> nodes = new ArrayList<>();
+            for (OWLEntity child : children) {
+                OWLEntityData entityData = renderings.get(child);
+                if (entityData == null) {
+                    continue;
+                }
+                nodes.add(new EntityHierarchyNode(entityData,
+                        getChildCount(child, project),
+                        project.isDeprecated(child),
+                        getNotesCount(child, project),
+                        ImmutableSet.<Watch<?>>copyOf(project.getWatchManager().getDirectWatches(child, userId))));
+            }
+            Collections.sort(nodes, new EntityHierarchyNodeComparator());
+            builder.put(parent, ImmutableList.copyOf(nodes));
+        }
+        return new GetHierarchyChildrenResult(builder.build());
+    }
+
+    private static Set<OWLEntity> getChildren(OWLEntity parent, OWLAPIProject project) {
+        Set<OWLEntity> children = new HashSet<>();
+        if (parent.isOWLClass()) {
+            children.addAll(project.getClassHierarchyProvider().getChildren(parent.asOWLClass()));
+        }
+        else if (parent.isOWLObjectProperty()) {
+            children.addAll(project.getObjectPropertyHierarchyProvider().getChildren(parent.asOWLObjectProperty()));
+        }
+        else if (parent.isOWLDataProperty()) {
+            children.addAll(project.getDataPropertyHierarchyProvider().getChildren(parent.asOWLDataProperty()));
+        }
+        else if (parent.isOWLAnnotationProperty()) {
+            children.addAll(project.getAnnotationPropertyHierarchyProvider().getChildren(parent.asOWLAnnotationProperty()));
+        }
+        return children;
+    }
+
+    private static int getChildCount(OWLEntity entity, OWLAPIProject project) {
+        if (entity.isOWLClass()) {
+            return project.getClassHierarchyProvider().getChildCount(entity.asOWLClass());
+        }
+        else if (entity.isOWLObjectProperty()) {
+            return project.getObjectPropertyHierarchyProvider().getChildCount(entity.asOWLObjectProperty());
+        }
+        else if (entity.isOWLDataProperty()) {
+            return project.getDataPropertyHierarchyProvider().getChildCount(entity.asOWLDataProperty());
+        }
+        else if (entity.isOWLAnnotationProperty()) {
+            return project.getAnnotationPropertyHierarchyProvider().getChildCount(entity.asOWLAnnotationProperty());
+        }
+        return 0;
+    }
+
+    private static int getNotesCount(OWLEntity entity, OWLAPIProject project) {
+        // The class tree has always shown all of the notes in the discussion thread of a class, including
+        // replies, whereas the property tree has shown the number of root notes
+        if (entity.isOWLClass()) {
+            return project.getNotesManager().getIndirectNotesCount(entity);
+        }
+        else {
+            return project.getNotesManager().getDirectNotesCount(entity);
+        }
+    }
+
+    private static class EntityHierarchyNodeComparator implements Comparator<EntityHierarchyNode> {
+
+        @Override
+        public int compare(EntityHierarchyNode o1, EntityHierarchyNode o2) {
+            if (o1.isDeprecated() != o2.isDeprecated()) {
+                return o1.isDeprecated() ? 1 : -1;
+            }
+            return getSortText(o1).compareToIgnoreCase(getSortText(o2));
+        }
+
+        private static String getSortText(EntityHierarchyNode node) {
+            String browserText = node.getEntityData().getBrowserText();
+            if (browserText.startsWith("'")) {
+                return browserText.substring(1);
+            }
+            return browserText;
+        }
+    }
+}
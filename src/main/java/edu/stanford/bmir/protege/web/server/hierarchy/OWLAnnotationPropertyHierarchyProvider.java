@@ -110,6 +110,7 @@ public class OWLAnnotationPropertyHierarchyProvider extends AbstractOWLObjectHie
 
     public void handleChanges(List<? extends OWLOntologyChange> changes) {
         Set<OWLAnnotationProperty> properties = new HashSet<OWLAnnotationProperty>(getPropertiesReferencedInChange(changes));
+        invalidateCachedNodes(properties);
         for (OWLAnnotationProperty prop : properties) {
             if (isRoot(prop)) {
                 roots.add(prop);
@@ -18,5 +18,6 @@ public class ConfigurationTasksModule extends AbstractModule {
         multibinder.addBinding().to(CheckUIConfigurationDataExists.class);
         multibinder.addBinding().to(CheckMongoDBConnectionTask.class);
         multibinder.addBinding().to(WarmUpMetaProjectTask.class);
+        multibinder.addBinding().to(WarmUpRecentProjectsTask.class);
     }
 }
@@ -0,0 +1,136 @@
+package edu.stanford.bmir.protege.web.server.init;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import edu.stanford.bmir.protege.web.server.app.WebProtegeProperties;
+import edu.stanford.bmir.protege.web.server.inject.DataDirectory;
+import edu.stanford.bmir.protege.web.server.logging.WebProtegeLogger;
+import edu.stanford.bmir.protege.web.server.metaproject.ProjectDetailsManager;
+import edu.stanford.bmir.protege.web.server.owlapi.OWLAPIProjectFileStore;
+import edu.stanford.bmir.protege.web.server.owlapi.OWLAPIProjectFileStoreFactory;
+import edu.stanford.bmir.protege.web.server.owlapi.OWLAPIProjectManager;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.project.ProjectIdFormatException;
+
+import javax.inject.Inject;
+import javax.servlet.ServletContext;
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads the most recently active projects in the background, so that the first users of these projects do not
+ * have to wait for them to load.  The activity of a project is measured by the time at which its change data
+ * was last modified.  This task does not wait for the projects to load.
+ */
+public class WarmUpRecentProjectsTask implements ConfigurationTask {
+
+    private final File dataDirectory;
+
+    private final OWLAPIProjectFileStoreFactory fileStoreFactory;
+
+    private final ProjectDetailsManager projectDetailsManager;
+
+    private final OWLAPIProjectManager projectManager;
+
+    private final WebProtegeProperties properties;
+
+    private final WebProtegeLogger logger;
+
+    @Inject
+    public WarmUpRecentProjectsTask(@DataDirectory File dataDirectory,
+                                    OWLAPIProjectFileStoreFactory fileStoreFactory,
+                                    ProjectDetailsManager projectDetailsManager,
+                                    OWLAPIProjectManager projectManager,
+                                    WebProtegeProperties properties,
+                                    WebProtegeLogger logger) {
+        this.dataDirectory = dataDirectory;
+        this.fileStoreFactory = fileStoreFactory;
+        this.projectDetailsManager = projectDetailsManager;
+        this.projectManager = projectManager;
+        this.properties = properties;
+        this.logger = logger;
+    }
+
+    @Override
+    public void run(ServletContext servletContext) throws WebProtegeConfigurationException {
+        int warmUpCount = properties.getProjectWarmUpCount();
+        if (warmUpCount == 0) {
+            return;
+        }
+        List<ProjectId> projectIds = getRecentlyActiveProjects(warmUpCount);
+        if (projectIds.isEmpty()) {
+            return;
+        }
+        logger.info("Warming up %d recently active projects", projectIds.size());
+        ExecutorService executorService = Executors.newFixedThreadPool(properties.getProjectWarmUpThreadCount(),
+                new ThreadFactoryBuilder()
+                        .setNameFormat("project-warm-up-%d")
+                        .setDaemon(true)
+                        .build());
+        for (final ProjectId projectId : projectIds) {
+            executorService.submit(new Runnable() {
+                @Override
+                public void run() {
+                    warmUp(projectId);
+                }
+            });
+        }
+        // Lets the submitted projects load and then releases the threads
+        executorService.shutdown();
+    }
+
+    private void warmUp(ProjectId projectId) {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        try {
+            projectManager.getProject(projectId);
+            logger.info(projectId, "Warmed up project in %d ms", stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        } catch (RuntimeException e) {
+            logger.info(projectId, "Could not warm up project: %s", e.getMessage());
+        }
+    }
+
+    private List<ProjectId> getRecentlyActiveProjects(int limit) {
+        File[] projectDirectories = OWLAPIProjectFileStore.getAllProjectsDirectory(dataDirectory).listFiles();
+        if (projectDirectories == null) {
+            return Collections.emptyList();
+        }
+        final Map<ProjectId, Long> lastActivityTimes = new HashMap<>();
+        for (File projectDirectory : projectDirectories) {
+            if (!projectDirectory.isDirectory()) {
+                continue;
+            }
+            try {
+                ProjectId projectId = ProjectId.get(projectDirectory.getName());
+                if (projectDetailsManager.isExistingProject(projectId) && !projectDetailsManager.isInTrash(projectId)) {
+                    lastActivityTimes.put(projectId, getLastActivityTime(projectId));
+                }
+            } catch (ProjectIdFormatException e) {
+                // Not a project directory
+            }
+        }
+        List<ProjectId> result = new ArrayList<>(lastActivityTimes.keySet());
+        Collections.sort(result, new Comparator<ProjectId>() {
+            @Override
+            public int compare(ProjectId o1, ProjectId o2) {
+                // Most recent first
+                return Long.compare(lastActivityTimes.get(o2), lastActivityTimes.get(o1));
+            }
+        });
+        return result.subList(0, Math.min(limit, result.size()));
+    }
+
+    private long getLastActivityTime(ProjectId projectId) {
+        OWLAPIProjectFileStore fileStore = fileStoreFactory.get(projectId);
+        long lastActivityTime = fileStore.getProjectDirectory().lastModified();
+        File[] changeDataFiles = fileStore.getChangesDataDirectory().listFiles();
+        if (changeDataFiles != null) {
+            for (File changeDataFile : changeDataFiles) {
+                lastActivityTime = Math.max(lastActivityTime, changeDataFile.lastModified());
+            }
+        }
+        return lastActivityTime;
+    }
+}
@@ -0,0 +1,22 @@
+package edu.stanford.bmir.protege.web.server.inject.project;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import java.io.File;
+
+public class DownloadCacheDirectoryProvider implements Provider<File> {
+
+    private static final String DOWNLOAD_CACHE_DIRECTORY_NAME = "download-cache";
+
+    private final File projectDirectory;
+
+    @Inject
+    public DownloadCacheDirectoryProvider(@ProjectDirectory File projectDirectory) {
+        this.projectDirectory = projectDirectory;
+    }
+
+    @Override
+    public File get() {
+        return new File(projectDirectory, DOWNLOAD_CACHE_DIRECTORY_NAME);
+    }
+}
@@ -0,0 +1,27 @@
+package edu.stanford.bmir.protege.web.server.inject.project;
+
+import edu.stanford.bmir.protege.web.server.notes.NotesOntologyProvider;
+import edu.stanford.bmir.protege.web.server.owlapi.ProjectComponentLoader;
+import edu.stanford.bmir.protege.web.server.owlapi.RootOntologyProvider;
+import edu.stanford.bmir.protege.web.server.owlapi.change.RevisionStoreProvider;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+
+import javax.inject.Inject;
+
+/**
+ * Starts loading the independent components of a project in parallel.  This is the first object that is created
+ * by the project injector, so the components are loading by the time that the rest of the project asks for them.
+ */
+public class ProjectComponentPreloader {
+
+    @Inject
+    public ProjectComponentPreloader(ProjectId projectId,
+                                     ProjectComponentLoader componentLoader,
+                                     RootOntologyProvider rootOntologyProvider,
+                                     RevisionStoreProvider revisionStoreProvider,
+                                     NotesOntologyProvider notesOntologyProvider) {
+        componentLoader.startLoading(projectId, "root ontology", rootOntologyProvider);
+        componentLoader.startLoading(projectId, "revision history", revisionStoreProvider);
+        componentLoader.startLoading(projectId, "notes", notesOntologyProvider);
+    }
+}
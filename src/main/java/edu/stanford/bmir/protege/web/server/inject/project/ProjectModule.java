@@ -8,17 +8,21 @@ import edu.stanford.bmir.protege.web.server.change.HasGetRevisionSummary;
 import edu.stanford.bmir.protege.web.server.events.EventLifeTime;
 import edu.stanford.bmir.protege.web.server.events.EventManager;
 import edu.stanford.bmir.protege.web.server.events.HasPostEvents;
+import edu.stanford.bmir.protege.web.server.filedownload.ProjectDownloadCache;
+import edu.stanford.bmir.protege.web.server.frame.FrameCache;
 import edu.stanford.bmir.protege.web.server.hierarchy.*;
 import edu.stanford.bmir.protege.web.server.mansyntax.WebProtegeOWLOntologyChecker;
 import edu.stanford.bmir.protege.web.server.metrics.MetricCalculator;
 import edu.stanford.bmir.protege.web.server.metrics.MetricCalculatorsProvider;
 import edu.stanford.bmir.protege.web.server.notes.OWLAPINotesManager;
 import edu.stanford.bmir.protege.web.server.notes.OWLAPINotesManagerNotesAPIImpl;
+import edu.stanford.bmir.protege.web.server.obo.OBONamespaceCache;
 import edu.stanford.bmir.protege.web.server.owlapi.*;
 import edu.stanford.bmir.protege.web.server.owlapi.HasApplyChanges;
 import edu.stanford.bmir.protege.web.server.owlapi.change.*;
 import edu.stanford.bmir.protege.web.server.render.*;
 import edu.stanford.bmir.protege.web.server.shortform.*;
+import edu.stanford.bmir.protege.web.server.usage.ReferencingAxiomIndex;
 import edu.stanford.bmir.protege.web.server.util.TempFileFactory;
 import edu.stanford.bmir.protege.web.server.util.TempFileFactoryImpl;
 import edu.stanford.bmir.protege.web.server.watches.*;
@@ -72,6 +76,10 @@ public class ProjectModule extends AbstractModule {
 
         bind(ProjectId.class).toInstance(projectId);
 
+        // Must be the first eager singleton so that project components start loading as soon as possible
+        bind(ProjectComponentPreloader.class)
+                .asEagerSingleton();
+
         bind(File.class)
                 .annotatedWith(RootOntologyDocument.class)
                 .toProvider(RootOntologyDocumentProvider.class);
@@ -83,6 +91,14 @@ public class ProjectModule extends AbstractModule {
                 .annotatedWith(ChangeHistoryFile.class)
                 .toProvider(ChangeHistoryFileProvider.class);
 
+        bind(File.class)
+                .annotatedWith(RevisionCheckpointDirectory.class)
+                .toProvider(RevisionCheckpointDirectoryProvider.class);
+
+        bind(File.class)
+                .annotatedWith(DownloadCacheDirectory.class)
+                .toProvider(DownloadCacheDirectoryProvider.class);
+
         bind(File.class)
                 .annotatedWith(ProjectSpecificUiConfigurationDataDirectory.class)
                 .toProvider(ProjectSpecificUiConfigurationDataDirectoryProvider.class);
@@ -211,6 +227,21 @@ public class ProjectModule extends AbstractModule {
                 .to(WebProtegeBidirectionalShortFormProvider.class)
                 .asEagerSingleton();
 
+        bind(ShortFormIndex.class)
+                .in(SINGLETON);
+
+        bind(ReferencingAxiomIndex.class)
+                .asEagerSingleton();
+
+        bind(FrameCache.class)
+                .in(SINGLETON);
+
+        bind(OBONamespaceCache.class)
+                .in(SINGLETON);
+
+        bind(ProjectDownloadCache.class)
+                .in(SINGLETON);
+
         bind(OntologyIRIShortFormProvider.class)
                 .to(WebProtegeOntologyIRIShortFormProvider.class)
                 .asEagerSingleton();
@@ -252,12 +283,15 @@ public class ProjectModule extends AbstractModule {
 
         bind(HasGetChangeSubjects.class).to(OntologyChangeSubjectProvider.class);
 
+        bind(DeprecatedEntityCheckerImpl.class).in(SINGLETON);
         bind(DeprecatedEntityChecker.class).to(DeprecatedEntityCheckerImpl.class);
 
         bind(HasGetRevisionSummary.class).to(RevisionManagerImpl.class);
 
         bind(RevisionManager.class).to(RevisionManagerImpl.class).asEagerSingleton();
         bind(RevisionStore.class).toProvider(RevisionStoreProvider.class).asEagerSingleton();
+        bind(RevisionCheckpointStore.class).in(SINGLETON);
+        bind(GroupCommitLog.class).in(SINGLETON);
 
         bind(WatchManager.class).to(WatchManagerImpl.class).asEagerSingleton();
         bind(WatchStore.class).to(WatchStoreImpl.class).asEagerSingleton();
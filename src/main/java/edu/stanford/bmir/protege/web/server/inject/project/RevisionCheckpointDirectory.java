@@ -0,0 +1,11 @@
+package edu.stanford.bmir.protege.web.server.inject.project;
+
+import com.google.inject.BindingAnnotation;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+@BindingAnnotation
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RevisionCheckpointDirectory {
+}
@@ -0,0 +1,22 @@
+package edu.stanford.bmir.protege.web.server.inject.project;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import java.io.File;
+
+public class RevisionCheckpointDirectoryProvider implements Provider<File> {
+
+    private static final String CHECKPOINTS_DIRECTORY_NAME = "checkpoints";
+
+    private final File changeHistoryFile;
+
+    @Inject
+    public RevisionCheckpointDirectoryProvider(@ChangeHistoryFile File changeHistoryFile) {
+        this.changeHistoryFile = changeHistoryFile;
+    }
+
+    @Override
+    public File get() {
+        return new File(changeHistoryFile.getParentFile(), CHECKPOINTS_DIRECTORY_NAME);
+    }
+}
@@ -12,6 +12,7 @@ import java.util.List;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -36,6 +37,8 @@ public class MetaProjectStore {
 
     private final Timer saveTimer = new Timer();
 
+    private final AtomicLong modificationCount = new AtomicLong();
+
     @Inject
     public MetaProjectStore(WebProtegeLogger logger) {
         this.logger = logger;
@@ -64,12 +67,23 @@ public class MetaProjectStore {
         }
     }
 
+    /**
+     * Gets the number of times that the meta project has been modified.  The meta project is modified before it is
+     * saved, so this is the number of save requests.  Information that is derived from the meta project may be
+     * cached for as long as this count does not change.
+     * @return The modification count.
+     */
+    public long getModificationCount() {
+        return modificationCount.get();
+    }
+
     /**
      * Requests that the meta project is saved to disk.  The project will be scheduled for being saved.  Any pending
      * save requests will be cancelled.
      * @param metaProject The meta project to be saved.  Not {@code null}.
      */
     public void saveMetaProject(final MetaProject metaProject) {
+        modificationCount.incrementAndGet();
         try {
             lock.lock();
             logger.info("Request to save meta-project received. Scheduling save task.");
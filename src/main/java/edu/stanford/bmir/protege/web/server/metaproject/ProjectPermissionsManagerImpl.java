@@ -1,5 +1,7 @@
 package edu.stanford.bmir.protege.web.server.metaproject;
 
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
 import edu.stanford.bmir.protege.web.shared.permissions.GroupId;
 import edu.stanford.bmir.protege.web.shared.permissions.Permission;
 import edu.stanford.bmir.protege.web.shared.permissions.PermissionsSet;
@@ -10,11 +12,19 @@ import edu.stanford.smi.protege.server.metaproject.*;
 
 import javax.inject.Inject;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Matthew Horridge
  * Stanford Center for Biomedical Informatics Research
  * 06/02/15
+ * <p>
+ *     The operations and permissions that a user has on a project are cached, because working them out requires the
+ *     policy in the meta project to be traversed.  The cache is cleared whenever the meta project is modified (for
+ *     example, when the sharing settings of a project change or a user is added to a group).
+ * </p>
  */
 public class ProjectPermissionsManagerImpl implements ProjectPermissionsManager {
 
@@ -26,11 +36,16 @@ public class ProjectPermissionsManagerImpl implements ProjectPermissionsManager
 
     private final ProjectExistsFilter projectExistsFilter;
 
+    private final MetaProjectStore metaProjectStore;
+
+    private volatile PermissionsCache permissionsCache = new PermissionsCache(-1);
+
     @Inject
-    public ProjectPermissionsManagerImpl(MetaProject metaProject, ProjectDetailsManager projectDetailsManager, ProjectExistsFilter projectExistsFilter) {
+    public ProjectPermissionsManagerImpl(MetaProject metaProject, ProjectDetailsManager projectDetailsManager, ProjectExistsFilter projectExistsFilter, MetaProjectStore metaProjectStore) {
         this.metaProject = metaProject;
         this.projectDetailsManager = projectDetailsManager;
         this.projectExistsFilter = projectExistsFilter;
+        this.metaProjectStore = checkNotNull(metaProjectStore);
     }
 
     @Override
@@ -65,6 +80,22 @@ public class ProjectPermissionsManagerImpl implements ProjectPermissionsManager
 
     @Override
     public Collection<Operation> getAllowedOperations(String project, String userName) {
+        long modificationCount = metaProjectStore.getModificationCount();
+        PermissionsCache cache = getPermissionsCache(modificationCount);
+        ProjectUserKey key = new ProjectUserKey(project, userName);
+        Collection<Operation> cachedOperations = cache.operations.get(key);
+        if(cachedOperations != null) {
+            return cachedOperations;
+        }
+        Collection<Operation> operations = ImmutableList.copyOf(computeAllowedOperations(project, userName));
+        // Don't cache operations that may have been computed from a meta project that was being modified
+        if(metaProjectStore.getModificationCount() == modificationCount) {
+            cache.operations.put(key, operations);
+        }
+        return operations;
+    }
+
+    private Collection<Operation> computeAllowedOperations(String project, String userName) {
         User user = metaProject.getUser(userName);
         if(user == null) {
             return Collections.emptySet();
@@ -85,6 +116,34 @@ public class ProjectPermissionsManagerImpl implements ProjectPermissionsManager
 
     @Override
     public PermissionsSet getPermissionsSet(ProjectId projectId, UserId userId) {
+        long modificationCount = metaProjectStore.getModificationCount();
+        PermissionsCache cache = getPermissionsCache(modificationCount);
+        ProjectUserKey key = new ProjectUserKey(projectId.getId(), userId.getUserName());
+        PermissionsSet cachedPermissionsSet = cache.permissionsSets.get(key);
+        if(cachedPermissionsSet != null) {
+            return cachedPermissionsSet;
+        }
+        PermissionsSet permissionsSet = computePermissionsSet(projectId, userId);
+        if(metaProjectStore.getModificationCount() == modificationCount) {
+            cache.permissionsSets.put(key, permissionsSet);
+        }
+        return permissionsSet;
+    }
+
+    /**
+     * Gets the cache for the specified modification count of the meta project.  Cached information from earlier
+     * modification counts is discarded.
+     */
+    private PermissionsCache getPermissionsCache(long modificationCount) {
+        PermissionsCache cache = permissionsCache;
+        if(cache.modificationCount != modificationCount) {
+            cache = new PermissionsCache(modificationCount);
+            permissionsCache = cache;
+        }
+        return cache;
+    }
+
+    private PermissionsSet computePermissionsSet(ProjectId projectId, UserId userId) {
         ProjectInstance pi = metaProject.getProject(projectId.getId());
         if(pi == null) {
             return PermissionsSet.emptySet();
@@ -199,4 +258,46 @@ public class ProjectPermissionsManagerImpl implements ProjectPermissionsManager
         User owner = projectInstance.getOwner();
         return isUserOwner(user, owner) || isAuthorisedToDisplayInList(user, projectInstance, userGroups) && isAuthorisedToRead(user, projectInstance, userGroups);
     }
+
+    private static class PermissionsCache {
+
+        private final long modificationCount;
+
+        private final Map<ProjectUserKey, Collection<Operation>> operations = new ConcurrentHashMap<>();
+
+        private final Map<ProjectUserKey, PermissionsSet> permissionsSets = new ConcurrentHashMap<>();
+
+        private PermissionsCache(long modificationCount) {
+            this.modificationCount = modificationCount;
+        }
+    }
+
+    private static class ProjectUserKey {
+
+        private final String project;
+
+        private final String userName;
+
+        private ProjectUserKey(String project, String userName) {
+            this.project = project;
+            this.userName = userName;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(project, userName);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if(obj == this) {
+                return true;
+            }
+            if(!(obj instanceof ProjectUserKey)) {
+                return false;
+            }
+            ProjectUserKey other = (ProjectUserKey) obj;
+            return Objects.equal(this.project, other.project) && Objects.equal(this.userName, other.userName);
+        }
+    }
 }
@@ -0,0 +1,41 @@
+package edu.stanford.bmir.protege.web.server.metrics;
+
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyChange;
+
+import java.util.List;
+
+/**
+ * A base class for metrics that count axioms.  Each applied addition of a counted axiom adds one to the count, and
+ * each applied removal of a counted axiom subtracts one from it.
+ */
+public abstract class AbstractAxiomCountMetricCalculator extends CountMetricCalculator {
+
+    public AbstractAxiomCountMetricCalculator(OWLOntology rootOntology, String metricName) {
+        super(rootOntology, metricName);
+    }
+
+    /**
+     * Determines whether an axiom is counted by this metric.
+     * @param axiom The axiom.  Not {@code null}.
+     * @return {@code true} if the axiom is counted, otherwise {@code false}.
+     */
+    protected abstract boolean isCountedAxiom(OWLAxiom axiom);
+
+    @Override
+    protected int getCountDelta(List<? extends OWLOntologyChange> axiomChanges) {
+        int delta = 0;
+        for (OWLOntologyChange change : axiomChanges) {
+            if (isCountedAxiom(change.getAxiom())) {
+                if (change.isAddAxiom()) {
+                    delta++;
+                }
+                else if (change.isRemoveAxiom()) {
+                    delta--;
+                }
+            }
+        }
+        return delta;
+    }
+}
@@ -1,12 +1,7 @@
 package edu.stanford.bmir.protege.web.server.metrics;
 
-import edu.stanford.bmir.protege.web.shared.metrics.IntegerMetricValue;
-import edu.stanford.bmir.protege.web.shared.metrics.MetricValue;
-import org.semanticweb.owlapi.model.OWLAnnotationAxiom;
+import org.semanticweb.owlapi.model.OWLAxiom;
 import org.semanticweb.owlapi.model.OWLOntology;
-import org.semanticweb.owlapi.model.OWLOntologyChange;
-
-import java.util.List;
 
 /**
  * Author: Matthew Horridge<br>
@@ -14,30 +9,24 @@ import java.util.List;
  * Bio-Medical Informatics Research Group<br>
  * Date: 08/06/2012
  */
-public class AnnotationAxiomCountMetricCalculator extends MetricCalculator {
+public class AnnotationAxiomCountMetricCalculator extends AbstractAxiomCountMetricCalculator {
 
     public AnnotationAxiomCountMetricCalculator(OWLOntology project) {
-        super(project);
+        super(project, "Annotation axioms");
     }
 
     @Override
-    public MetricValue computeValue() {
+    protected int getCount() {
         int count = 0;
         for(OWLOntology ontology : getRootOntology().getImportsClosure()) {
             count += (ontology.getAxiomCount() - ontology.getLogicalAxiomCount());
         }
-        return new IntegerMetricValue("Annotation axioms", count);
+        return count;
     }
 
     @Override
-    public OWLAPIProjectMetricState getStateAfterChanges(List<? extends OWLOntologyChange> changes) {
-        for(OWLOntologyChange change : changes) {
-            if(change.isAxiomChange()) {
-                if(change.getAxiom() instanceof OWLAnnotationAxiom) {
-                    return OWLAPIProjectMetricState.DIRTY;
-                }
-            }
-        }
-        return OWLAPIProjectMetricState.CLEAN;
+    protected boolean isCountedAxiom(OWLAxiom axiom) {
+        // Consistent with the full count, which counts the non-logical axioms
+        return !axiom.isLogicalAxiom();
     }
 }
@@ -1,11 +1,7 @@
 package edu.stanford.bmir.protege.web.server.metrics;
 
-import edu.stanford.bmir.protege.web.shared.metrics.IntegerMetricValue;
-import edu.stanford.bmir.protege.web.shared.metrics.MetricValue;
+import org.semanticweb.owlapi.model.OWLAxiom;
 import org.semanticweb.owlapi.model.OWLOntology;
-import org.semanticweb.owlapi.model.OWLOntologyChange;
-
-import java.util.List;
 
 /**
  * Author: Matthew Horridge<br>
@@ -13,28 +9,23 @@ import java.util.List;
  * Bio-Medical Informatics Research Group<br>
  * Date: 08/06/2012
  */
-public class AxiomCountMetricCalculator extends MetricCalculator {
+public class AxiomCountMetricCalculator extends AbstractAxiomCountMetricCalculator {
 
     public AxiomCountMetricCalculator(OWLOntology project) {
-        super(project);
+        super(project, "Axioms");
     }
 
     @Override
-    public MetricValue computeValue() {
+    protected int getCount() {
         int count = 0;
         for(OWLOntology ontology : getRootOntology().getImportsClosure()) {
             count += ontology.getAxiomCount();
         }
-        return new IntegerMetricValue("Axioms", count);
+        return count;
     }
 
     @Override
-    public OWLAPIProjectMetricState getStateAfterChanges(List<? extends OWLOntologyChange> changes) {
-        for(OWLOntologyChange change : changes) {
-            if(change.isAxiomChange()) {
-                return OWLAPIProjectMetricState.DIRTY;
-            }
-        }
-        return OWLAPIProjectMetricState.CLEAN;
+    protected boolean isCountedAxiom(OWLAxiom axiom) {
+        return true;
     }
 }
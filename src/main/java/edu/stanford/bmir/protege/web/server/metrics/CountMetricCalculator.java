@@ -0,0 +1,83 @@
+package edu.stanford.bmir.protege.web.server.metrics;
+
+import edu.stanford.bmir.protege.web.shared.metrics.IntegerMetricValue;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyChange;
+
+import java.util.List;
+
+/**
+ * A base class for metrics that count things in the imports closure of the root ontology.  The count is taken in
+ * full when the value of the metric is first computed, and is then kept up to date by adding the difference that
+ * each list of axiom changes makes to it, so that neither handling changes nor computing the value of the metric
+ * requires the ontology to be scanned.  Other kinds of change, such as import changes, cause the count to be
+ * taken in full again the next time that the value is computed.
+ * <p>
+ *     The value must be computed while no changes are being applied, and changes must be handled before any further
+ *     reads of the ontology, so that each change is reflected in the count exactly once.
+ * </p>
+ */
+public abstract class CountMetricCalculator extends MetricCalculator {
+
+    private final String metricName;
+
+    // Guarded by this
+    private int count;
+
+    // Guarded by this
+    private boolean counted = false;
+
+    public CountMetricCalculator(OWLOntology rootOntology, String metricName) {
+        super(rootOntology);
+        this.metricName = metricName;
+    }
+
+    @Override
+    public synchronized IntegerMetricValue computeValue() {
+        if (!counted) {
+            count = getCount();
+            counted = true;
+        }
+        return new IntegerMetricValue(metricName, count);
+    }
+
+    @Override
+    public synchronized OWLAPIProjectMetricState getStateAfterChanges(List<? extends OWLOntologyChange> changes) {
+        if (!counted) {
+            // The count will be taken when the value is first computed
+            return OWLAPIProjectMetricState.DIRTY;
+        }
+        if (!areAxiomChanges(changes)) {
+            counted = false;
+            return OWLAPIProjectMetricState.DIRTY;
+        }
+        int delta = getCountDelta(changes);
+        if (delta == 0) {
+            return OWLAPIProjectMetricState.CLEAN;
+        }
+        count += delta;
+        return OWLAPIProjectMetricState.DIRTY;
+    }
+
+    private static boolean areAxiomChanges(List<? extends OWLOntologyChange> changes) {
+        for (OWLOntologyChange change : changes) {
+            if (!change.isAxiomChange()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Counts the things that this metric counts, in full.
+     * @return The count.
+     */
+    protected abstract int getCount();
+
+    /**
+     * Gets the difference that the specified changes have made to the count.
+     * @param axiomChanges The axiom changes.  These have already been applied to the ontology.  Not {@code null}.
+     * @return The difference.  Negative if the changes decreased the count.
+     */
+    protected abstract int getCountDelta(List<? extends OWLOntologyChange> axiomChanges);
+}
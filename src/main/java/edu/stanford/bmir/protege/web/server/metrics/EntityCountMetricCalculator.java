@@ -1,12 +1,10 @@
 package edu.stanford.bmir.protege.web.server.metrics;
 
-import edu.stanford.bmir.protege.web.shared.metrics.IntegerMetricValue;
-import org.semanticweb.owlapi.model.EntityType;
-import org.semanticweb.owlapi.model.OWLEntity;
-import org.semanticweb.owlapi.model.OWLOntology;
-import org.semanticweb.owlapi.model.OWLOntologyChange;
+import org.semanticweb.owlapi.model.*;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Author: Matthew Horridge<br>
@@ -17,20 +15,21 @@ import java.util.List;
  *     An abstract base class for different kinds of entity count.
  * </P>
  */
-public abstract class EntityCountMetricCalculator extends MetricCalculator {
+public abstract class EntityCountMetricCalculator extends CountMetricCalculator {
 
     private EntityType<?> entityType;
 
-    private String metricName;
-    
     /**
      * Constructs an entity count metric that counts entities of the specified type.
      * @param rootOntology The project over which the value for the metric is computed.
      * @param entityType The entity type.
      */
     public EntityCountMetricCalculator(OWLOntology rootOntology, EntityType<?> entityType) {
-        super(rootOntology);
+        super(rootOntology, getMetricName(entityType));
         this.entityType = entityType;
+    }
+
+    private static String getMetricName(EntityType<?> entityType) {
         StringBuilder sb = new StringBuilder();
         String typeName = entityType.getName();
         for(int i = 0; i < typeName.length(); i++) {
@@ -40,26 +39,62 @@ public abstract class EntityCountMetricCalculator extends MetricCalculator {
             }
             sb.append(ch);
         }
-        metricName = sb.toString().trim() + " count";
+        return sb.toString().trim() + " count";
     }
 
     @Override
-    public final IntegerMetricValue computeValue() {
-        int entityCount = getEntityCount();
-        return new IntegerMetricValue(metricName, entityCount);
+    protected final int getCount() {
+        return getEntityCount();
     }
-    
+
     protected abstract int getEntityCount();
 
+    /**
+     * Only the entities in the signatures of the changed axioms can have entered or left the signature of the
+     * imports closure.  An entity was in the signature before the changes if a removed axiom mentioned it, or if an
+     * axiom that was not added by the changes mentions it.
+     */
     @Override
-    public OWLAPIProjectMetricState getStateAfterChanges(List<? extends OWLOntologyChange> changes) {
-        for(OWLOntologyChange change : changes) {
+    protected int getCountDelta(List<? extends OWLOntologyChange> axiomChanges) {
+        Set<OWLEntity> changedEntities = new HashSet<>();
+        Set<OWLEntity> entitiesInRemovedAxioms = new HashSet<>();
+        Set<OWLOntologyChange> additions = new HashSet<>();
+        for(OWLOntologyChange change : axiomChanges) {
+            if(change.isAddAxiom()) {
+                additions.add(change);
+            }
             for(OWLEntity entity : change.getSignature()) {
                 if(entity.isType(entityType)) {
-                    return OWLAPIProjectMetricState.DIRTY;
+                    changedEntities.add(entity);
+                    if(change.isRemoveAxiom()) {
+                        entitiesInRemovedAxioms.add(entity);
+                    }
+                }
+            }
+        }
+        int delta = 0;
+        for(OWLEntity entity : changedEntities) {
+            boolean wasInSignature = entitiesInRemovedAxioms.contains(entity)
+                    || isMentionedByAxiomNotIn(entity, additions);
+            boolean isInSignature = getRootOntology().containsEntityInSignature(entity, true);
+            if(isInSignature && !wasInSignature) {
+                delta++;
+            }
+            else if(!isInSignature && wasInSignature) {
+                delta--;
+            }
+        }
+        return delta;
+    }
+
+    private boolean isMentionedByAxiomNotIn(OWLEntity entity, Set<OWLOntologyChange> additions) {
+        for(OWLOntology ontology : getRootOntology().getImportsClosure()) {
+            for(OWLAxiom axiom : ontology.getReferencingAxioms(entity)) {
+                if(!additions.contains(new AddAxiom(ontology, axiom))) {
+                    return true;
                 }
             }
         }
-        return OWLAPIProjectMetricState.CLEAN;
+        return false;
     }
 }
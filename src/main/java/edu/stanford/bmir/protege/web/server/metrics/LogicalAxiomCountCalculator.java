@@ -1,11 +1,7 @@
 package edu.stanford.bmir.protege.web.server.metrics;
 
-import edu.stanford.bmir.protege.web.shared.metrics.IntegerMetricValue;
-import edu.stanford.bmir.protege.web.shared.metrics.MetricValue;
+import org.semanticweb.owlapi.model.OWLAxiom;
 import org.semanticweb.owlapi.model.OWLOntology;
-import org.semanticweb.owlapi.model.OWLOntologyChange;
-
-import java.util.List;
 
 /**
  * Author: Matthew Horridge<br>
@@ -13,28 +9,23 @@ import java.util.List;
  * Bio-Medical Informatics Research Group<br>
  * Date: 08/06/2012
  */
-public class LogicalAxiomCountCalculator extends MetricCalculator {
+public class LogicalAxiomCountCalculator extends AbstractAxiomCountMetricCalculator {
 
     public LogicalAxiomCountCalculator(OWLOntology project) {
-        super(project);
+        super(project, "Logical Axioms");
     }
 
     @Override
-    public MetricValue computeValue() {
+    protected int getCount() {
         int count = 0;
         for(OWLOntology ontology : getRootOntology().getImportsClosure()) {
             count += ontology.getLogicalAxiomCount();
         }
-        return new IntegerMetricValue("Logical Axioms", count);
+        return count;
     }
 
     @Override
-    public OWLAPIProjectMetricState getStateAfterChanges(List<? extends OWLOntologyChange> changes) {
-        for(OWLOntologyChange change : changes) {
-            if(change.isAxiomChange()) {
-                return OWLAPIProjectMetricState.DIRTY;
-            }
-        }
-        return OWLAPIProjectMetricState.CLEAN;
+    protected boolean isCountedAxiom(OWLAxiom axiom) {
+        return axiom.isLogicalAxiom();
     }
 }
@@ -33,4 +33,14 @@ public abstract class MetricCalculator {
 
     public abstract MetricValue computeValue();
 
+    /**
+     * Determines whether the value of this metric should be computed without locking the project.  Metrics that are
+     * expensive to compute should return {@code true} so that they do not hold up changes.  Their values are computed
+     * optimistically, and are discarded if the project changed while they were being computed.
+     * @return {@code false} by default, in which case the value is computed while the project can not be changed.
+     */
+    public boolean isComputedOptimistically() {
+        return false;
+    }
+
 }
@@ -1,11 +1,12 @@
 package edu.stanford.bmir.protege.web.server.metrics;
 
 import com.beust.jcommander.internal.Lists;
-import com.beust.jcommander.internal.Maps;
 import com.google.common.base.Stopwatch;
-import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import edu.stanford.bmir.protege.web.server.events.HasPostEvents;
 import edu.stanford.bmir.protege.web.server.logging.WebProtegeLogger;
+import edu.stanford.bmir.protege.web.server.owlapi.OWLAPIProject;
+import edu.stanford.bmir.protege.web.shared.HasDispose;
 import edu.stanford.bmir.protege.web.shared.event.ProjectEvent;
 import edu.stanford.bmir.protege.web.shared.metrics.MetricValue;
 import edu.stanford.bmir.protege.web.shared.metrics.MetricsChangedEvent;
@@ -13,49 +14,94 @@ import edu.stanford.bmir.protege.web.shared.project.ProjectId;
 import org.semanticweb.owlapi.model.*;
 
 import javax.inject.Inject;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import javax.inject.Provider;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Author: Matthew Horridge<br>
  * Stanford University<br>
  * Bio-Medical Informatics Research Group<br>
  * Date: 08/06/2012
+ * <p>
+ *     Changes only mark the metrics that they affect as dirty, and a {@link MetricsChangedEvent} is posted so that
+ *     viewers of the metrics can ask for them again.  Dirty metrics are recomputed in the background when the metrics
+ *     are next read, and the last computed values are served until then.  A further {@link MetricsChangedEvent} is
+ *     posted once fresh values are available.  Reading the metrics never waits for changes or for recomputation.
+ * </p>
+ * <p>
+ *     Cheap metrics are recomputed under the project read lock, so that they see a consistent view of the project
+ *     ontologies.  Expensive metrics (see {@link MetricCalculator#isComputedOptimistically()}) are recomputed without
+ *     the lock, so that they do not hold up changes, and their values are discarded and recomputed if changes were
+ *     handled while they were being computed.  Changes must be handled under the project write lock.
+ * </p>
  */
-public class OWLAPIProjectMetricsManager {
+public class OWLAPIProjectMetricsManager implements HasDispose {
+
+    /**
+     * The number of times that an expensive metric is computed before giving up until the metrics are next read, if
+     * the project keeps changing while it is being computed.
+     */
+    private static final int MAX_OPTIMISTIC_ATTEMPTS = 3;
 
     public final WebProtegeLogger logger;
 
     private List<MetricCalculator> metrics = Lists.newArrayList();
 
-    private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+    private final Map<MetricCalculator, MetricValue> valueCache = new ConcurrentHashMap<>();
+
+    private final Set<MetricCalculator> dirtyMetrics = Collections.newSetFromMap(
+            new ConcurrentHashMap<MetricCalculator, Boolean>());
 
-    private final Lock readLock = readWriteLock.readLock();
+    private final ExecutorService recomputeExecutor;
 
-    private final Lock writeLock = readWriteLock.writeLock();
+    private final AtomicBoolean recomputeScheduled = new AtomicBoolean();
 
-    private Map<MetricCalculator, MetricValue> valueCache = Maps.newLinkedHashMap();
+    private final Object recomputeLock = new Object();
 
-    private Set<MetricCalculator> dirtyMetrics = Sets.newHashSet();
+    /**
+     * The number of change lists that have been handled.  Only modified under the project write lock.
+     */
+    private final AtomicLong changeListCount = new AtomicLong();
 
     private HasPostEvents<ProjectEvent<?>> eventBus;
 
     private ProjectId projectId;
 
+    private final Provider<OWLAPIProject> projectProvider;
+
     @Inject
     public OWLAPIProjectMetricsManager(ProjectId projectId,
                                        List<MetricCalculator> metrics,
                                        HasPostEvents<ProjectEvent<?>> eventBus,
-                                       WebProtegeLogger logger) {
+                                       WebProtegeLogger logger,
+                                       Provider<OWLAPIProject> projectProvider) {
+        this(projectId, metrics, eventBus, logger, projectProvider,
+                Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                        .setNameFormat("metrics-%d")
+                        .setPriority(Thread.MIN_PRIORITY)
+                        .setDaemon(true)
+                        .build()));
+    }
+
+    OWLAPIProjectMetricsManager(ProjectId projectId,
+                                List<MetricCalculator> metrics,
+                                HasPostEvents<ProjectEvent<?>> eventBus,
+                                WebProtegeLogger logger,
+                                Provider<OWLAPIProject> projectProvider,
+                                ExecutorService recomputeExecutor) {
         this.projectId = projectId;
         this.logger = logger;
         this.eventBus = eventBus;
+        this.projectProvider = projectProvider;
+        this.recomputeExecutor = recomputeExecutor;
         this.metrics.addAll(metrics);
         markAllAsDirty();
     }
@@ -64,47 +110,145 @@ public class OWLAPIProjectMetricsManager {
         dirtyMetrics.addAll(metrics);
     }
 
+    /**
+     * Marks the metrics that are affected by the specified changes as dirty.  This must be called while the project
+     * write lock is held, straight after the changes have been applied.  No metrics are recomputed here.
+     * @param changes The changes.  Not {@code null}.
+     */
     public void handleOntologyChanges(List<? extends OWLOntologyChange> changes) {
+        changeListCount.incrementAndGet();
+        boolean dirty = false;
+        for(MetricCalculator metric : metrics) {
+            if(metric.getStateAfterChanges(changes) == OWLAPIProjectMetricState.DIRTY) {
+                dirtyMetrics.add(metric);
+                dirty = true;
+            }
+        }
+        if(dirty) {
+            eventBus.postEvent(new MetricsChangedEvent(projectId));
+        }
+    }
+
+    private void scheduleRecomputation() {
+        if(!recomputeScheduled.compareAndSet(false, true)) {
+            // The metrics that have just been marked as dirty will be recomputed by the scheduled recomputation
+            return;
+        }
         try {
-            writeLock.lock();
+            recomputeExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    // Metrics that are marked as dirty from here on need another recomputation
+                    recomputeScheduled.set(false);
+                    if(recomputeDirtyMetrics()) {
+                        eventBus.postEvent(new MetricsChangedEvent(projectId));
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // The project has been disposed of
+            recomputeScheduled.set(false);
+        }
+    }
+
+    /**
+     * Recomputes the values of the dirty metrics.  If a metric cannot be recomputed then its last computed value is
+     * kept, and it is left dirty so that it is tried again the next time that the metrics are read.
+     * @return {@code true} if any metrics were recomputed, otherwise {@code false}.
+     */
+    private boolean recomputeDirtyMetrics() {
+        synchronized (recomputeLock) {
+            Lock readLock = projectProvider.get().getProjectChangeReadLock();
+            boolean recomputed = false;
             for(MetricCalculator metric : metrics) {
-                if(metric.getStateAfterChanges(changes) == OWLAPIProjectMetricState.DIRTY) {
+                if(!dirtyMetrics.remove(metric)) {
+                    continue;
+                }
+                boolean computed;
+                if(metric.isComputedOptimistically()) {
+                    computed = recomputeOptimistically(metric, readLock);
+                }
+                else {
+                    computed = recomputeUnderLock(metric, readLock);
+                }
+                if(computed) {
+                    recomputed = true;
+                }
+                else {
                     dirtyMetrics.add(metric);
                 }
             }
-            if(!dirtyMetrics.isEmpty()) {
-                eventBus.postEvent(new MetricsChangedEvent(projectId));
-            }
-        }
-        finally {
-            writeLock.unlock();
+            return recomputed;
         }
     }
 
-    private void recomputeDirtyMetrics() {
+    private boolean recomputeUnderLock(MetricCalculator metric, Lock readLock) {
         try {
-            writeLock.lock();
-            for(Iterator<MetricCalculator> metricIt = dirtyMetrics.iterator(); metricIt.hasNext(); ) {
-                MetricCalculator metric = metricIt.next();
-                metricIt.remove();
-                try {
-                    MetricValue metricValue = metric.computeValue();
-                    valueCache.put(metric, metricValue);
-                } catch (Exception e) {
-                    logger.severe(e);
-                    // Mark as not computed
-                    valueCache.put(metric, null);
+            readLock.lock();
+            valueCache.put(metric, metric.computeValue());
+            return true;
+        } catch (Exception e) {
+            logger.severe(e);
+            return false;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Recomputes a metric without holding the project read lock.  The value is only kept if no changes were handled
+     * while it was being computed.  Changes are applied and handled under the project write lock, so taking the read
+     * lock to check the change count means that changes that were being applied during the computation are seen.
+     */
+    private boolean recomputeOptimistically(MetricCalculator metric, Lock readLock) {
+        for(int attempt = 0; attempt < MAX_OPTIMISTIC_ATTEMPTS; attempt++) {
+            long changeListCountBefore = getChangeListCount(readLock);
+            MetricValue metricValue = null;
+            Exception exception = null;
+            try {
+                metricValue = metric.computeValue();
+            } catch (Exception e) {
+                exception = e;
+            }
+            try {
+                readLock.lock();
+                if(changeListCount.get() != changeListCountBefore) {
+                    // The ontologies changed during the computation, which may also be the cause of any exception
+                    continue;
                 }
+                if(exception != null) {
+                    logger.severe(exception);
+                    return false;
+                }
+                valueCache.put(metric, metricValue);
+                return true;
+            } finally {
+                readLock.unlock();
             }
+        }
+        return false;
+    }
+
+    private long getChangeListCount(Lock readLock) {
+        try {
+            readLock.lock();
+            return changeListCount.get();
         } finally {
-            writeLock.lock();
+            readLock.unlock();
         }
     }
 
+    /**
+     * Gets the last computed values of the metrics.  Dirty metrics are recomputed in the background.  Metrics that
+     * have not been computed yet are not included.
+     * @return The metric values.  Not {@code null}.
+     */
     public List<MetricValue> getMetrics() {
         logger.info("getMetrics()");
         Stopwatch stopwatch = Stopwatch.createStarted();
-        recomputeDirtyMetrics();
+        if(!dirtyMetrics.isEmpty()) {
+            scheduleRecomputation();
+        }
         List<MetricValue> result = readMetrics();
         long ms = stopwatch.elapsed(TimeUnit.MILLISECONDS);
         logger.info("getMetrics().  Retrieved metrics in %d ms", ms);
@@ -112,19 +256,18 @@ public class OWLAPIProjectMetricsManager {
     }
 
     private List<MetricValue> readMetrics() {
-        readLock.lock();
-        try {
-            List<MetricValue> result = Lists.newArrayList();
-            for(MetricCalculator metric : metrics) {
-                MetricValue value = valueCache.get(metric);
-                if (value != null) {
-                    result.add(value);
-                }
+        List<MetricValue> result = Lists.newArrayList();
+        for(MetricCalculator metric : metrics) {
+            MetricValue value = valueCache.get(metric);
+            if (value != null) {
+                result.add(value);
             }
-            return result;
-        }
-        finally {
-            readLock.unlock();
         }
+        return result;
+    }
+
+    @Override
+    public void dispose() {
+        recomputeExecutor.shutdownNow();
     }
 }
@@ -33,4 +33,12 @@ public class ProfileMetricCalculator extends MetricCalculator {
     public OWLAPIProjectMetricState getStateAfterChanges(List<? extends OWLOntologyChange> changes) {
         return OWLAPIProjectMetricState.DIRTY;
     }
+
+    /**
+     * Profile checks walk the whole imports closure, so they are not run while the project is locked.
+     */
+    @Override
+    public boolean isComputedOptimistically() {
+        return true;
+    }
 }
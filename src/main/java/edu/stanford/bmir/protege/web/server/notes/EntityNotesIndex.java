@@ -0,0 +1,133 @@
+package edu.stanford.bmir.protege.web.server.notes;
+
+import com.google.common.base.Function;
+import edu.stanford.bmir.protege.web.shared.notes.DiscussionThread;
+import edu.stanford.bmir.protege.web.shared.notes.Note;
+import org.semanticweb.owlapi.model.*;
+
+import java.util.*;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An index of the number of notes that are attached to each entity.  The notes of an entity are counted, from
+ * its discussion thread, the first time that they are asked for.  The ids of the notes in the thread are indexed
+ * so that the counts of an entity can be invalidated when any note in its thread changes.
+ * <p>
+ *     This class is thread safe.
+ * </p>
+ */
+public class EntityNotesIndex {
+
+    private final Function<OWLEntity, DiscussionThread> discussionThreadProvider;
+
+    private final Map<IRI, NotesCount> countsByEntity = new HashMap<>();
+
+    /**
+     * Maps the IRI of each note to the IRI of the entity whose discussion thread contains the note.
+     */
+    private final Map<IRI, IRI> entityByNote = new HashMap<>();
+
+    private long generation = 0;
+
+    /**
+     * Constructs an index.
+     * @param discussionThreadProvider A function that gets the discussion thread of an entity from the notes
+     *                                 ontology.  Not {@code null}.
+     */
+    public EntityNotesIndex(Function<OWLEntity, DiscussionThread> discussionThreadProvider) {
+        this.discussionThreadProvider = checkNotNull(discussionThreadProvider);
+    }
+
+    /**
+     * Gets the number of root notes, that is notes that are not replies, that are attached to an entity.
+     * @param entity The entity.  Not {@code null}.
+     * @return The number of root notes.
+     */
+    public int getDirectNotesCount(OWLEntity entity) {
+        return getNotesCount(entity).directNotesCount;
+    }
+
+    /**
+     * Gets the number of notes, including replies, in the discussion thread of an entity.
+     * @param entity The entity.  Not {@code null}.
+     * @return The number of notes.
+     */
+    public int getIndirectNotesCount(OWLEntity entity) {
+        return getNotesCount(entity).indirectNotesCount;
+    }
+
+    /**
+     * Invalidates the counts of the entities whose discussion threads are affected by changes to the notes ontology.
+     * @param changes The changes that were applied to the notes ontology.  Not {@code null}.
+     */
+    public synchronized void handleChanges(List<? extends OWLOntologyChange> changes) {
+        generation++;
+        for (OWLOntologyChange change : changes) {
+            if (!change.isAxiomChange()) {
+                countsByEntity.clear();
+                entityByNote.clear();
+                return;
+            }
+            // Notes are attached to entities, and replies to notes, by axioms that mention both of them
+            for (OWLEntity entity : change.getAxiom().getSignature()) {
+                IRI iri = entity.getIRI();
+                IRI noteEntity = entityByNote.get(iri);
+                if (noteEntity != null) {
+                    invalidate(noteEntity);
+                }
+                invalidate(iri);
+            }
+        }
+    }
+
+    private NotesCount getNotesCount(OWLEntity entity) {
+        IRI iri = entity.getIRI();
+        long generationAtStart;
+        synchronized (this) {
+            NotesCount cachedCount = countsByEntity.get(iri);
+            if (cachedCount != null) {
+                return cachedCount;
+            }
+            generationAtStart = generation;
+        }
+        DiscussionThread thread = discussionThreadProvider.apply(entity);
+        Set<IRI> noteIRIs = new HashSet<>();
+        for (Note note : thread.getNotes()) {
+            noteIRIs.add(IRI.create(note.getNoteId().getLexicalForm()));
+        }
+        NotesCount count = new NotesCount(thread.getRootNotes().size(), thread.size(), noteIRIs);
+        synchronized (this) {
+            // Don't cache counts that may have been computed from a thread that has since changed
+            if (generation == generationAtStart) {
+                countsByEntity.put(iri, count);
+                for (IRI noteIRI : noteIRIs) {
+                    entityByNote.put(noteIRI, iri);
+                }
+            }
+        }
+        return count;
+    }
+
+    private void invalidate(IRI entityIRI) {
+        NotesCount count = countsByEntity.remove(entityIRI);
+        if (count != null) {
+            entityByNote.keySet().removeAll(count.noteIRIs);
+        }
+    }
+
+    private static class NotesCount {
+
+        private final int directNotesCount;
+
+        private final int indirectNotesCount;
+
+        private final Set<IRI> noteIRIs;
+
+        private NotesCount(int directNotesCount, int indirectNotesCount, Set<IRI> noteIRIs) {
+            this.directNotesCount = directNotesCount;
+            this.indirectNotesCount = indirectNotesCount;
+            this.noteIRIs = noteIRIs;
+        }
+    }
+}
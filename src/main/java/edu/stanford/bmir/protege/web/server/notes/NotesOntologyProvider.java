@@ -0,0 +1,78 @@
+package edu.stanford.bmir.protege.web.server.notes;
+
+import edu.stanford.bmir.protege.web.server.inject.project.NotesOntologyDocument;
+import edu.stanford.bmir.protege.web.server.owlapi.manager.WebProtegeOWLManager;
+import org.semanticweb.binaryowl.owlapi.BinaryOWLOntologyDocumentFormat;
+import org.semanticweb.owlapi.model.*;
+import org.semanticweb.owlapi.util.SimpleIRIMapper;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+import java.io.File;
+import java.net.URL;
+
+/**
+ * Loads the notes ontology for a project, creating an empty notes ontology if the project does not have one.
+ * The ontology is loaded once, on the first call to {@link #get()}.
+ */
+@Singleton
+public class NotesOntologyProvider implements Provider<OWLOntology> {
+
+    private final File notesOntologyDocument;
+
+    private OWLOntology notesOntology = null;
+
+    @Inject
+    public NotesOntologyProvider(@NotesOntologyDocument File notesOntologyDocument) {
+        this.notesOntologyDocument = notesOntologyDocument;
+    }
+
+    @Override
+    public synchronized OWLOntology get() {
+        if (notesOntology != null) {
+            return notesOntology;
+        }
+        try {
+            if(!notesOntologyDocument.exists()) {
+                notesOntology = createEmptyNotesOntology();
+            }
+            else {
+                notesOntology = loadExistingNotesOntology();
+            }
+            return notesOntology;
+        }
+        catch (OWLOntologyCreationException | OWLOntologyStorageException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private OWLOntology loadExistingNotesOntology() throws OWLOntologyCreationException {
+        final OWLOntologyManager man = WebProtegeOWLManager.createOWLOntologyManager();
+        man.addIRIMapper(new SimpleIRIMapper(OWLAPINotesManagerNotesAPIImpl.CHANGES_ONTOLOGY_IRI, getChangeOntologyDocumentIRI()));
+        return man.loadOntologyFromOntologyDocument(notesOntologyDocument);
+    }
+
+
+    private OWLOntology createEmptyNotesOntology() throws OWLOntologyCreationException, OWLOntologyStorageException {
+        OWLOntologyManager notesOntologyManager = WebProtegeOWLManager.createOWLOntologyManager();
+        OWLOntology ontology = notesOntologyManager.createOntology();
+        final OWLDataFactory df = notesOntologyManager.getOWLDataFactory();
+        notesOntologyManager.applyChange(new AddImport(ontology, df.getOWLImportsDeclaration(OWLAPINotesManagerNotesAPIImpl.CHANGES_ONTOLOGY_IRI)));
+        IRI notesOntologyDocumentIRI = IRI.create(notesOntologyDocument);
+        notesOntologyManager.setOntologyDocumentIRI(ontology, notesOntologyDocumentIRI);
+        notesOntologyDocument.getParentFile().mkdirs();
+        BinaryOWLOntologyDocumentFormat notesOntologyDocumentFormat = new BinaryOWLOntologyDocumentFormat();
+        notesOntologyManager.saveOntology(ontology, notesOntologyDocumentFormat, notesOntologyDocumentIRI);
+        return ontology;
+    }
+
+    static IRI getChangeOntologyDocumentIRI() {
+        URL changeOntologyURL = OWLAPINotesManagerNotesAPIImpl.class.getResource("/" + OWLAPINotesManagerNotesAPIImpl.CHANGES_ONTOLOGY_FILE_NAME);
+        if (changeOntologyURL == null) {
+            throw new RuntimeException("Changes ontology not found.  Please make sure the changes ontology document is placed in the class path with a file name of " + OWLAPINotesManagerNotesAPIImpl.CHANGES_ONTOLOGY_FILE_NAME);
+        }
+        String uriString = changeOntologyURL.toString();
+        return IRI.create(uriString);
+    }
+}
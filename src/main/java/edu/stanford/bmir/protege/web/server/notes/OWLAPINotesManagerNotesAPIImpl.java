@@ -1,12 +1,12 @@
 package edu.stanford.bmir.protege.web.server.notes;
 
+import com.google.common.base.Function;
 import com.google.common.base.Optional;
 import com.google.common.base.Stopwatch;
 import edu.stanford.bmir.protege.web.server.events.HasPostEvents;
 import edu.stanford.bmir.protege.web.server.inject.project.NotesOntologyDocument;
 import edu.stanford.bmir.protege.web.server.logging.WebProtegeLogger;
 import edu.stanford.bmir.protege.web.server.owlapi.OWLAPIProjectDocumentStore;
-import edu.stanford.bmir.protege.web.server.owlapi.manager.WebProtegeOWLManager;
 import edu.stanford.bmir.protege.web.shared.BrowserTextProvider;
 import edu.stanford.bmir.protege.web.shared.DataFactory;
 import edu.stanford.bmir.protege.web.shared.entity.OWLEntityData;
@@ -27,13 +27,11 @@ import org.semanticweb.binaryowl.owlapi.BinaryOWLOntologyDocumentFormat;
 import org.semanticweb.owlapi.change.OWLOntologyChangeData;
 import org.semanticweb.owlapi.change.OWLOntologyChangeRecord;
 import org.semanticweb.owlapi.model.*;
-import org.semanticweb.owlapi.util.SimpleIRIMapper;
 import org.yaml.snakeyaml.nodes.NodeId;
 
 import javax.inject.Inject;
 import java.io.File;
 import java.io.IOException;
-import java.net.URL;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
 
@@ -68,8 +66,11 @@ public class OWLAPINotesManagerNotesAPIImpl implements OWLAPINotesManager {
 
     private File notesOntologyDocument;
 
+    private final EntityNotesIndex notesIndex;
+
     @Inject
     public OWLAPINotesManagerNotesAPIImpl(@NotesOntologyDocument File notesOntologyDocument,
+                                          NotesOntologyProvider notesOntologyProvider,
                                           ProjectId projectId,
                                           OWLDataFactory dataFactory,
                                           HasPostEvents<ProjectEvent<?>> eventManager,
@@ -81,15 +82,16 @@ public class OWLAPINotesManagerNotesAPIImpl implements OWLAPINotesManager {
         this.eventManager = eventManager;
         this.browserTextProvider = browserTextProvider;
         this.notesOntologyDocument = notesOntologyDocument;
+        this.notesIndex = new EntityNotesIndex(new Function<OWLEntity, DiscussionThread>() {
+            @Override
+            public DiscussionThread apply(OWLEntity entity) {
+                return getDiscusssionThread(entity);
+            }
+        });
 
         try {
             Stopwatch stopwatch = Stopwatch.createStarted();
-            if(!notesOntologyDocument.exists()) {
-                createEmptyNotesOntology();
-            }
-            else {
-                loadExistingNotesOntology();
-            }
+            notesOntology = notesOntologyProvider.get();
             notesManager = NotesManager.createNotesManager(notesOntology, getChangeOntologyDocumentIRI().toString());
             notesManager.getOWLOntology().getOWLOntologyManager().addOntologyChangeListener(new OWLOntologyChangeListener() {
                 public void ontologiesChanged(List<? extends OWLOntologyChange> changes) throws OWLException {
@@ -98,38 +100,15 @@ public class OWLAPINotesManagerNotesAPIImpl implements OWLAPINotesManager {
             });
             logger.info(projectId, "Initialized notes manager in %d ms", stopwatch.elapsed(TimeUnit.MILLISECONDS));
         }
-        catch (OWLOntologyCreationException | NotesException e) {
+        catch (NotesException e) {
             // Can't start - too dangerous to do anything without human intervention
             throw new RuntimeException(e);
         }
     }
 
-    private void loadExistingNotesOntology() throws OWLOntologyCreationException {
-        final OWLOntologyManager man = WebProtegeOWLManager.createOWLOntologyManager();
-        man.addIRIMapper(new SimpleIRIMapper(CHANGES_ONTOLOGY_IRI,  getChangeOntologyDocumentIRI()));
-        notesOntology = man.loadOntologyFromOntologyDocument(notesOntologyDocument);
-    }
-
-
-    private void createEmptyNotesOntology() {
-        try {
-            OWLOntologyManager notesOntologyManager = WebProtegeOWLManager.createOWLOntologyManager();
-            notesOntology = notesOntologyManager.createOntology();
-            final OWLDataFactory df = notesOntologyManager.getOWLDataFactory();
-            notesOntologyManager.applyChange(new AddImport(notesOntology, df.getOWLImportsDeclaration(CHANGES_ONTOLOGY_IRI)));
-            IRI notesOntologyDocumentIRI = IRI.create(notesOntologyDocument);
-            notesOntologyManager.setOntologyDocumentIRI(notesOntology, notesOntologyDocumentIRI);
-            notesOntologyDocument.getParentFile().mkdirs();
-            BinaryOWLOntologyDocumentFormat notesOntologyDocumentFormat = new BinaryOWLOntologyDocumentFormat();
-            notesOntologyManager.saveOntology(notesOntology, notesOntologyDocumentFormat, notesOntologyDocumentIRI);
-        }
-        catch (OWLOntologyCreationException | OWLOntologyStorageException e) {
-            throw new RuntimeException(e);
-        }
-    }
-
 
     private void handleNotesOntologyChanged(List<OWLOntologyChange> changes) {
+        notesIndex.handleChanges(changes);
         try {
             OWLOntologyManager notesOntologyManager = notesOntology.getOWLOntologyManager();
             if(notesOntologyManager.getOntologyFormat(notesOntology) instanceof BinaryOWLOntologyDocumentFormat) {
@@ -143,8 +122,11 @@ public class OWLAPINotesManagerNotesAPIImpl implements OWLAPINotesManager {
                 serializer.appendOntologyChanges(notesOntologyDocument, new OntologyChangeDataList(infoList, System.currentTimeMillis()));
             }
             else {
-                // Swap it over
-                notesOntologyManager.saveOntology(notesOntology, new BinaryOWLOntologyDocumentFormat());
+                // Swap it over.  Saving the ontology does not change its format, so this is set explicitly in
+                // order that later changes are appended to the document rather than the whole document being saved.
+                BinaryOWLOntologyDocumentFormat format = new BinaryOWLOntologyDocumentFormat();
+                notesOntologyManager.saveOntology(notesOntology, format, IRI.create(notesOntologyDocument));
+                notesOntologyManager.setOntologyFormat(notesOntology, format);
             }
 
         }
@@ -155,12 +137,7 @@ public class OWLAPINotesManagerNotesAPIImpl implements OWLAPINotesManager {
     }
 
     private IRI getChangeOntologyDocumentIRI() {
-        URL changeOntologyURL = OWLAPINotesManagerNotesAPIImpl.class.getResource("/" + CHANGES_ONTOLOGY_FILE_NAME);
-        if (changeOntologyURL == null) {
-            throw new RuntimeException("Changes ontology not found.  Please make sure the changes ontology document is placed in the class path with a file name of " + CHANGES_ONTOLOGY_FILE_NAME);
-        }
-        String uriString = changeOntologyURL.toString();
-        return IRI.create(uriString);
+        return NotesOntologyProvider.getChangeOntologyDocumentIRI();
     }
 
 
@@ -231,11 +208,11 @@ public class OWLAPINotesManagerNotesAPIImpl implements OWLAPINotesManager {
 
 
     public int getDirectNotesCount(OWLEntity entity) {
-        return getDiscusssionThread(entity).getRootNotes().size();
+        return notesIndex.getDirectNotesCount(entity);
     }
 
     public int getIndirectNotesCount(OWLEntity entity) {
-        return getDiscusssionThread(entity).size();
+        return notesIndex.getIndirectNotesCount(entity);
     }
 
     @Override
@@ -1,92 +1,123 @@
 package edu.stanford.bmir.protege.web.server.obo;
 
-import edu.stanford.bmir.protege.web.server.owlapi.OWLAPIProject;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Multiset;
+import edu.stanford.bmir.protege.web.server.inject.project.RootOntology;
 import edu.stanford.bmir.protege.web.shared.obo.OBONamespace;
 import org.obolibrary.obo2owl.Obo2OWLConstants;
 import org.semanticweb.owlapi.model.*;
 
+import javax.inject.Inject;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Author: Matthew Horridge<br>
  * Stanford University<br>
  * Bio-Medical Informatics Research Group<br>
  * Date: 20/05/2012
+ * <p>
+ *     Caches the OBO namespaces that are used in the root ontology of a project.  The namespaces are found when the
+ *     cache is created, and the cache is then kept up to date from the changes that are applied to the ontology.  The
+ *     number of namespace annotations that mention each namespace is tracked, so that a namespace is only removed
+ *     when its last annotation is removed.
+ * </p>
  */
 public class OBONamespaceCache {
 
     public static final IRI OBO_NAMESPACE_IRI = Obo2OWLConstants.Obo2OWLVocabulary.IRI_OIO_hasOboNamespace.getIRI();
 
-    private Set<OBONamespace> namespaceCache = new HashSet<OBONamespace>();
-
-    private ReadWriteLock READ_WRITE_LOCK = new ReentrantReadWriteLock();
-
-    private Lock READ_LOCK = READ_WRITE_LOCK.readLock();
+    private final OWLOntology rootOntology;
 
-    private Lock WRITE_LOCK = READ_WRITE_LOCK.writeLock();
+    // Guarded by this
+    private final Multiset<OBONamespace> namespaceCounts = HashMultiset.create();
 
-    private OWLAPIProject project;
+    private volatile ImmutableSet<OBONamespace> namespaces = ImmutableSet.of();
 
-
-    public static OBONamespaceCache createCache(OWLAPIProject project) {
-        return new OBONamespaceCache(project);
+    @Inject
+    public OBONamespaceCache(@RootOntology OWLOntology rootOntology) {
+        this.rootOntology = checkNotNull(rootOntology);
+        rebuildNamespaceCache();
     }
 
-    private OBONamespaceCache(OWLAPIProject project) {
-        this.project = project;
-        rebuildNamespaceCache();
+    private synchronized void rebuildNamespaceCache() {
+        namespaceCounts.clear();
+        for(OWLAnnotation anno : rootOntology.getAnnotations()) {
+            addNamespace(anno.getProperty(), anno.getValue());
+        }
+        for(OWLAnnotationAssertionAxiom ax : rootOntology.getAxioms(AxiomType.ANNOTATION_ASSERTION)) {
+            addNamespace(ax.getProperty(), ax.getValue());
+        }
+        namespaces = ImmutableSet.copyOf(namespaceCounts.elementSet());
     }
 
-    private void rebuildNamespaceCache() {
-        Set<OBONamespace> namespaces = new HashSet<OBONamespace>();
-        for(OWLAnnotation anno : project.getRootOntology().getAnnotations()) {
-            if(isNamespaceAnnotation(anno)) {
-                if(anno.getValue() instanceof OWLLiteral) {
-                    OWLLiteral lit = (OWLLiteral) anno.getValue();
-                    namespaces.add(new OBONamespace(lit.getLiteral()));
-                }
+    /**
+     * Updates the cache to take the specified changes into account.  The changes must have been applied to the
+     * root ontology.
+     * @param changes The changes.  Not {@code null}.
+     */
+    public synchronized void handleChanges(List<? extends OWLOntologyChange> changes) {
+        boolean changed = false;
+        for(OWLOntologyChange change : changes) {
+            if(change instanceof ImportChange) {
+                rebuildNamespaceCache();
+                return;
             }
-        }
-        for(OWLClass cls : project.getRootOntology().getClassesInSignature(true)) {
-            for(OWLAnnotationAssertionAxiom ax : cls.getAnnotationAssertionAxioms(project.getRootOntology())) {
-                if(isNamespaceAnnotationProperty(ax)) {
-                    if(ax.getValue() instanceof OWLLiteral) {
-                        OWLLiteral lit = (OWLLiteral) ax.getValue();
-                        namespaces.add(new OBONamespace(lit.getLiteral()));
+            if(!change.getOntology().equals(rootOntology)) {
+                continue;
+            }
+            if(change.isAxiomChange()) {
+                OWLAxiom axiom = change.getAxiom();
+                if(axiom instanceof OWLAnnotationAssertionAxiom) {
+                    OWLAnnotationAssertionAxiom ax = (OWLAnnotationAssertionAxiom) axiom;
+                    if(change.isAddAxiom()) {
+                        changed |= addNamespace(ax.getProperty(), ax.getValue());
+                    }
+                    else {
+                        changed |= removeNamespace(ax.getProperty(), ax.getValue());
                     }
                 }
             }
+            else if(change instanceof AddOntologyAnnotation) {
+                OWLAnnotation anno = ((AddOntologyAnnotation) change).getAnnotation();
+                changed |= addNamespace(anno.getProperty(), anno.getValue());
+            }
+            else if(change instanceof RemoveOntologyAnnotation) {
+                OWLAnnotation anno = ((RemoveOntologyAnnotation) change).getAnnotation();
+                changed |= removeNamespace(anno.getProperty(), anno.getValue());
+            }
         }
-        try {
-            WRITE_LOCK.lock();
-            namespaceCache.clear();
-            namespaceCache.addAll(namespaces);
+        if(changed) {
+            namespaces = ImmutableSet.copyOf(namespaceCounts.elementSet());
         }
-        finally {
-            WRITE_LOCK.unlock();
+    }
+
+    private boolean addNamespace(OWLAnnotationProperty property, OWLAnnotationValue value) {
+        if(isNamespaceAnnotation(property, value)) {
+            namespaceCounts.add(new OBONamespace(((OWLLiteral) value).getLiteral()));
+            return true;
         }
+        return false;
     }
 
-    private boolean isNamespaceAnnotationProperty(OWLAnnotationAssertionAxiom ax) {
-        return ax.getProperty().getIRI().equals(OBO_NAMESPACE_IRI);
+    private boolean removeNamespace(OWLAnnotationProperty property, OWLAnnotationValue value) {
+        if(isNamespaceAnnotation(property, value)) {
+            namespaceCounts.remove(new OBONamespace(((OWLLiteral) value).getLiteral()));
+            return true;
+        }
+        return false;
     }
 
-    private boolean isNamespaceAnnotation(OWLAnnotation annotation) {
-        return annotation.getProperty().getIRI().equals(OBO_NAMESPACE_IRI) || annotation.getProperty().getIRI().equals(OBO_NAMESPACE_IRI);
+    private static boolean isNamespaceAnnotation(OWLAnnotationProperty property, OWLAnnotationValue value) {
+        return property.getIRI().equals(OBO_NAMESPACE_IRI) && value instanceof OWLLiteral;
     }
 
     public Set<OBONamespace> getNamespaces() {
-        try {
-            READ_LOCK.lock();
-            return new HashSet<OBONamespace>(namespaceCache);
-        }
-        finally {
-            READ_LOCK.unlock();
-        }
+        return new HashSet<OBONamespace>(namespaces);
     }
 
 }
@@ -2,10 +2,13 @@ package edu.stanford.bmir.protege.web.server.owlapi;
 
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ListMultimap;
 import com.google.inject.Injector;
 import edu.stanford.bmir.protege.web.server.crud.*;
 import edu.stanford.bmir.protege.web.server.crud.persistence.ProjectEntityCrudKitSettingsRepository;
 import edu.stanford.bmir.protege.web.server.events.*;
+import edu.stanford.bmir.protege.web.server.filedownload.ProjectDownloadCache;
+import edu.stanford.bmir.protege.web.server.frame.FrameCache;
 import edu.stanford.bmir.protege.web.server.hierarchy.*;
 import edu.stanford.bmir.protege.web.server.inject.WebProtegeInjector;
 import edu.stanford.bmir.protege.web.server.inject.project.ProjectModule;
@@ -15,6 +18,7 @@ import edu.stanford.bmir.protege.web.server.owlapi.change.*;
 import edu.stanford.bmir.protege.web.server.owlapi.manager.WebProtegeOWLManager;
 import edu.stanford.bmir.protege.web.server.project.UIConfigurationManager;
 import edu.stanford.bmir.protege.web.server.shortform.*;
+import edu.stanford.bmir.protege.web.server.usage.ReferencingAxiomIndex;
 import edu.stanford.bmir.protege.web.server.metrics.DefaultMetricsCalculators;
 import edu.stanford.bmir.protege.web.server.render.DeprecatedEntityCheckerImpl;
 import edu.stanford.bmir.protege.web.server.render.EntityIRICheckerImpl;
@@ -33,6 +37,7 @@ import edu.stanford.bmir.protege.web.server.logging.WebProtegeLogger;
 import edu.stanford.bmir.protege.web.server.notes.OWLAPINotesManager;
 import edu.stanford.bmir.protege.web.server.notes.OWLAPINotesManagerNotesAPIImpl;
 import edu.stanford.bmir.protege.web.server.metrics.OWLAPIProjectMetricsManager;
+import edu.stanford.bmir.protege.web.server.obo.OBONamespaceCache;
 import edu.stanford.bmir.protege.web.server.permissions.ProjectPermissionsManager;
 import edu.stanford.bmir.protege.web.shared.crud.EntityCrudKitSettings;
 import edu.stanford.bmir.protege.web.shared.crud.EntityShortForm;
@@ -56,7 +61,6 @@ import org.semanticweb.owlapi.io.OWLParserException;
 import org.semanticweb.owlapi.model.*;
 import org.semanticweb.owlapi.util.*;
 import org.semanticweb.owlapi.vocab.Namespaces;
-import org.semanticweb.owlapi.vocab.OWLRDFVocabulary;
 import uk.ac.manchester.cs.owl.owlapi.EmptyInMemOWLOntologyFactory;
 import uk.ac.manchester.cs.owl.owlapi.OWLDataFactoryImpl;
 import uk.ac.manchester.cs.owl.owlapi.ParsableOWLOntologyFactory;
@@ -64,8 +68,10 @@ import uk.ac.manchester.cs.owl.owlapi.mansyntaxrenderer.ManchesterOWLSyntaxOntol
 
 import javax.inject.Inject;
 import javax.inject.Provider;
+import java.io.File;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
@@ -107,10 +113,22 @@ public class OWLAPIProject implements HasDispose, HasDataFactory, HasContainsEnt
 
     private final OWLAPISearchManager searchManager;
 
+    private final ReferencingAxiomIndex referencingAxiomIndex;
+
+    private final FrameCache frameCache;
+
+    private final DeprecatedEntityCheckerImpl deprecatedEntityChecker;
+
+    private final OBONamespaceCache oboNamespaceCache;
+
+    private final ProjectDownloadCache downloadCache;
+
     private final OWLAPINotesManager notesManager;
 
     private final RevisionManager changeManager;
 
+    private final GroupCommitLog groupCommitLog;
+
     private final ProjectChangesManager projectChangesManager;
 
     private final WatchedChangesManager watchedChangesManager;
@@ -130,6 +148,14 @@ public class OWLAPIProject implements HasDispose, HasDataFactory, HasContainsEnt
 
     private final Provider<ManchesterSyntaxFrameParser> manchesterSyntaxFrameParserProvider;
 
+    private final WebProtegeLogger logger;
+
+    /**
+     * Set once changes have been applied that could not be saved to disk.  Further changes are refused because they
+     * could not be replayed from the change history without the ones that were lost.
+     */
+    private volatile boolean unsavedChanges = false;
+
 
     private final ReadWriteLock projectChangeLock = new ReentrantReadWriteLock();
 
@@ -140,7 +166,7 @@ public class OWLAPIProject implements HasDispose, HasDataFactory, HasContainsEnt
     private final Lock changeProcesssingLock = new ReentrantLock();
 
     @Inject
-    public OWLAPIProject(OWLAPIProjectDocumentStore documentStore, ProjectId projectId, OWLDataFactory dataFactory, ProjectAccessManager projectAccessManager, RenderingManager renderingManager, EventManager<ProjectEvent<?>> projectEventManager, @RootOntology OWLOntology ontology, AssertedClassHierarchyProvider classHierarchyProvider, OWLObjectPropertyHierarchyProvider objectPropertyHierarchyProvider, OWLDataPropertyHierarchyProvider dataPropertyHierarchyProvider, OWLAnnotationPropertyHierarchyProvider annotationPropertyHierarchyProvider, OWLAPISearchManager searchManager, OWLAPINotesManager notesManager, RevisionManager changeManager, ProjectChangesManager projectChangesManager, WatchedChangesManager watchedChangesManager, OWLAPIProjectMetricsManager metricsManager, WatchManager watchManager, ProjectEntityCrudKitHandlerCache entityCrudKitHandlerCache, ProjectEntityCrudKitSettingsRepository entityCrudKitSettingsRepository, Provider<EventTranslatorManager> eventTranslatorManagerProvider, UIConfigurationManager uiConfigurationManager, Provider<ManchesterSyntaxFrameParser> manchesterSyntaxFrameParserProvider) {
+    public OWLAPIProject(OWLAPIProjectDocumentStore documentStore, ProjectId projectId, OWLDataFactory dataFactory, ProjectAccessManager projectAccessManager, RenderingManager renderingManager, EventManager<ProjectEvent<?>> projectEventManager, @RootOntology OWLOntology ontology, AssertedClassHierarchyProvider classHierarchyProvider, OWLObjectPropertyHierarchyProvider objectPropertyHierarchyProvider, OWLDataPropertyHierarchyProvider dataPropertyHierarchyProvider, OWLAnnotationPropertyHierarchyProvider annotationPropertyHierarchyProvider, OWLAPISearchManager searchManager, ReferencingAxiomIndex referencingAxiomIndex, FrameCache frameCache, DeprecatedEntityCheckerImpl deprecatedEntityChecker, OBONamespaceCache oboNamespaceCache, ProjectDownloadCache downloadCache, OWLAPINotesManager notesManager, RevisionManager changeManager, GroupCommitLog groupCommitLog, ProjectChangesManager projectChangesManager, WatchedChangesManager watchedChangesManager, OWLAPIProjectMetricsManager metricsManager, WatchManager watchManager, ProjectEntityCrudKitHandlerCache entityCrudKitHandlerCache, ProjectEntityCrudKitSettingsRepository entityCrudKitSettingsRepository, Provider<EventTranslatorManager> eventTranslatorManagerProvider, UIConfigurationManager uiConfigurationManager, Provider<ManchesterSyntaxFrameParser> manchesterSyntaxFrameParserProvider, WebProtegeLogger logger) {
         this.documentStore = documentStore;
         this.projectId = projectId;
         this.dataFactory = dataFactory;
@@ -153,8 +179,14 @@ public class OWLAPIProject implements HasDispose, HasDataFactory, HasContainsEnt
         this.dataPropertyHierarchyProvider = dataPropertyHierarchyProvider;
         this.annotationPropertyHierarchyProvider = annotationPropertyHierarchyProvider;
         this.searchManager = searchManager;
+        this.referencingAxiomIndex = referencingAxiomIndex;
+        this.frameCache = frameCache;
+        this.deprecatedEntityChecker = deprecatedEntityChecker;
+        this.oboNamespaceCache = oboNamespaceCache;
+        this.downloadCache = downloadCache;
         this.notesManager = notesManager;
         this.changeManager = changeManager;
+        this.groupCommitLog = groupCommitLog;
         this.projectChangesManager = projectChangesManager;
         this.watchedChangesManager = watchedChangesManager;
         this.metricsManager = metricsManager;
@@ -164,6 +196,7 @@ public class OWLAPIProject implements HasDispose, HasDataFactory, HasContainsEnt
         this.eventTranslatorManagerProvider = eventTranslatorManagerProvider;
         this.uiConfigurationManager = uiConfigurationManager;
         this.manchesterSyntaxFrameParserProvider = manchesterSyntaxFrameParserProvider;
+        this.logger = logger;
     }
 
     public ProjectId getProjectId() {
@@ -181,18 +214,7 @@ public class OWLAPIProject implements HasDispose, HasDataFactory, HasContainsEnt
      * @return {@code true} if the entity is deprecated in this project, otherwise {@code false}.
      */
     public boolean isDeprecated(OWLEntity entity) {
-        if (!getRootOntology().containsAnnotationPropertyInSignature(OWLRDFVocabulary.OWL_DEPRECATED.getIRI(), true)) {
-            return false;
-        }
-        // TODO: Cache
-        for (OWLOntology ont : getRootOntology().getImportsClosure()) {
-            for (OWLAnnotationAssertionAxiom ax : ont.getAnnotationAssertionAxioms(entity.getIRI())) {
-                if (ax.isDeprecatedIRIAssertion()) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return deprecatedEntityChecker.isDeprecated(entity);
     }
 
     @Override
@@ -220,6 +242,10 @@ public class OWLAPIProject implements HasDispose, HasDataFactory, HasContainsEnt
         return changeManager;
     }
 
+    public ProjectDownloadCache getDownloadCache() {
+        return downloadCache;
+    }
+
     public ProjectChangesManager getProjectChangesManager() {
         return projectChangesManager;
     }
@@ -264,6 +290,18 @@ public class OWLAPIProject implements HasDispose, HasDataFactory, HasContainsEnt
         return ontology;
     }
 
+    public ReferencingAxiomIndex getReferencingAxiomIndex() {
+        return referencingAxiomIndex;
+    }
+
+    public FrameCache getFrameCache() {
+        return frameCache;
+    }
+
+    public OBONamespaceCache getOBONamespaceCache() {
+        return oboNamespaceCache;
+    }
+
     public RenderingManager getRenderingManager() {
         return renderingManager;
     }
@@ -272,6 +310,15 @@ public class OWLAPIProject implements HasDispose, HasDataFactory, HasContainsEnt
         return notesManager;
     }
 
+    /**
+     * Gets the lock that guards reads of the project ontologies.  While this lock is held no changes can be applied
+     * to the project ontologies, so they will be consistent with the current revision.
+     * @return The read lock.  Not {@code null}.
+     */
+    public Lock getProjectChangeReadLock() {
+        return projectChangeReadLock;
+    }
+
     public RevisionNumber getRevisionNumber() {
         try {
             projectChangeReadLock.lock();
@@ -357,6 +404,10 @@ public class OWLAPIProject implements HasDispose, HasDataFactory, HasContainsEnt
      * @throws NullPointerException      if any parameters are {@code null}.
      * @throws PermissionDeniedException if the user identified by {@code userId} does not have permssion to write to
      *                                   ontologies in this project.
+     * @throws OWLAPIProjectException    if earlier changes could not be written to disk, in which case the project no
+     *                                   longer accepts changes.  If the changes that are applied by this call can
+     *                                   not be written to disk then this is logged, rather than thrown, because the
+     *                                   changes are already visible to other users.
      */
     @Override
     public <R> ChangeApplicationResult<R> applyChanges(final UserId userId, final ChangeListGenerator<R> changeListGenerator, final ChangeDescriptionGenerator<R> changeDescriptionGenerator) throws PermissionDeniedException {
@@ -368,9 +419,14 @@ public class OWLAPIProject implements HasDispose, HasDataFactory, HasContainsEnt
             throw new PermissionDeniedException("You do not have permission to write to ontologies in this project");
         }
 
+        if (unsavedChanges) {
+            throw new OWLAPIProjectException("The project can not be changed because earlier changes could not be saved to disk");
+        }
+
         final Set<OWLEntity> changeSignature = new HashSet<OWLEntity>();
         final List<OWLOntologyChange> appliedChanges;
         final ChangeApplicationResult<R> finalResult;
+        Future<Void> durability = null;
 
 
         // The following must take into consideration fresh entity IRIs.  Entity IRIs are minted on the server, so
@@ -446,8 +502,12 @@ public class OWLAPIProject implements HasDispose, HasDataFactory, HasContainsEnt
                 Optional<R> renamedResult = getRenamedResult(changeListGenerator, gen.getResult(), renameMap);
                 finalResult = new ChangeApplicationResult<R>(renamedResult, appliedChanges, renameMap);
                 if (!appliedChanges.isEmpty()) {
-                    Revision rev = logAndBroadcastAppliedChanges(userId, finalResult, changeDescriptionGenerator);
+                    // Metric counts are kept up to date by adding the difference that the changes make to them.  This
+                    // must happen before any reads, which may recount, so it is done under the write lock.
+                    metricsManager.handleOntologyChanges(appliedChanges);
+                    Revision rev = logAppliedChanges(userId, finalResult, changeDescriptionGenerator);
                     revision = Optional.of(rev);
+                    durability = saveAppliedChanges(appliedChanges);
                 }
                 else {
                     revision = Optional.absent();
@@ -458,6 +518,14 @@ public class OWLAPIProject implements HasDispose, HasDataFactory, HasContainsEnt
             }
 
 
+            if (revision.isPresent()) {
+                // No other changes can be applied until the change processing lock is released, so derived
+                // structures can be brought up to date without blocking readers
+                updateDerivedStructures(appliedChanges);
+                downloadCache.handleRevisionCommitted();
+            }
+
+
             if (revision.isPresent() && !(changeListGenerator instanceof SilentChangeListGenerator)) {
                 List<ProjectEvent<?>> highLevelEvents = new ArrayList<>();
                 eventTranslatorManager.translateOntologyChanges(revision.get(), appliedChanges, highLevelEvents);
@@ -470,6 +538,15 @@ public class OWLAPIProject implements HasDispose, HasDataFactory, HasContainsEnt
             changeProcesssingLock.unlock();
         }
 
+        // Wait for the changes to be written to disk.  This happens outside of the change processing lock so that
+        // the writes of concurrent committers are grouped together.
+        if (durability != null && !groupCommitLog.awaitDurability(durability)) {
+            // The cause has been logged by the commit log
+            unsavedChanges = true;
+            logger.info(projectId, "Changes were applied that could not be saved to disk.  " +
+                    "The project will not accept further changes until it is reloaded.");
+        }
+
         return finalResult;
 
 
@@ -530,7 +607,7 @@ public class OWLAPIProject implements HasDispose, HasDataFactory, HasContainsEnt
     }
 
 
-    private <R> Revision logAndBroadcastAppliedChanges(UserId userId, ChangeApplicationResult<R> finalResult, ChangeDescriptionGenerator<R> changeDescriptionGenerator) {
+    private <R> Revision logAppliedChanges(UserId userId, ChangeApplicationResult<R> finalResult, ChangeDescriptionGenerator<R> changeDescriptionGenerator) {
         // Generate a description for the changes that were actually applied
         String changeDescription = changeDescriptionGenerator.generateChangeDescription(finalResult);
         // Log the changes
@@ -538,19 +615,38 @@ public class OWLAPIProject implements HasDispose, HasDataFactory, HasContainsEnt
         for (OWLOntologyChange change : finalResult.getChangeList()) {
             changeRecords.add(change.getChangeRecord());
         }
-        Revision revision = changeManager.addRevision(userId, changeRecords, changeDescription);
+        return changeManager.addRevision(userId, changeRecords, changeDescription);
+    }
 
-        // TODO: THis list of "listeners" should be injected
-        List<OWLOntologyChange> changes = finalResult.getChangeList();
-        documentStore.saveOntologyChanges(changes);
+    /**
+     * Submits the applied changes to be appended to the project documents.  Since the revision was submitted
+     * to the same group commit log beforehand, the returned future also covers the durability of the revision.
+     * This must be called while the project is write locked.
+     */
+    private Future<Void> saveAppliedChanges(final List<OWLOntologyChange> changes) {
+        // The documents and the change data are read from the ontologies now, because the writer runs concurrently
+        // with later changes
+        final ListMultimap<File, OWLOntologyChangeData> changeDataByDocument = documentStore.getChangeDataByDocument(changes);
+        return groupCommitLog.submit(new GroupCommitTask() {
+            @Override
+            public Collection<File> write() throws IOException {
+                return documentStore.saveOntologyChanges(changeDataByDocument);
+            }
+        });
+    }
 
+    private void updateDerivedStructures(List<OWLOntologyChange> changes) {
+        // TODO: THis list of "listeners" should be injected
+        deprecatedEntityChecker.handleChanges(changes);
         classHierarchyProvider.handleChanges(changes);
         objectPropertyHierarchyProvider.handleChanges(changes);
         dataPropertyHierarchyProvider.handleChanges(changes);
         annotationPropertyHierarchyProvider.handleChanges(changes);
-        metricsManager.handleOntologyChanges(changes);
-
-        return revision;
+        // Frames are derived from the hierarchies, so the frame cache must be updated after them
+        frameCache.handleChanges(changes);
+        oboNamespaceCache.handleChanges(changes);
+        // Renderings depend on deprecation, so the rendering cache must be updated after the deprecated entity checker
+        renderingManager.handleChanges(changes);
     }
 
 
@@ -707,6 +803,10 @@ public class OWLAPIProject implements HasDispose, HasDataFactory, HasContainsEnt
         dataPropertyHierarchyProvider.dispose();
         annotationPropertyHierarchyProvider.dispose();
         projectAccessManager.dispose();
+        groupCommitLog.dispose();
+        watchManager.dispose();
+        metricsManager.dispose();
+        downloadCache.dispose();
     }
 
 }
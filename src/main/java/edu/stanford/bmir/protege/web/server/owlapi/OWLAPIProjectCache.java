@@ -1,22 +1,22 @@
 package edu.stanford.bmir.protege.web.server.owlapi;
 
+import com.google.common.base.Function;
 import com.google.common.base.Optional;
-import com.google.common.collect.Interner;
-import com.google.common.collect.Interners;
 import com.google.inject.Injector;
 import edu.stanford.bmir.protege.web.client.rpc.data.NewProjectSettings;
 import edu.stanford.bmir.protege.web.server.ProjectIdFactory;
+import edu.stanford.bmir.protege.web.server.app.WebProtegeProperties;
 import edu.stanford.bmir.protege.web.server.events.EventTranslatorModule;
 import edu.stanford.bmir.protege.web.server.inject.WebProtegeInjector;
 import edu.stanford.bmir.protege.web.server.inject.project.ProjectModule;
-import edu.stanford.bmir.protege.web.server.logging.WebProtegeLoggerEx;
 import edu.stanford.bmir.protege.web.server.logging.WebProtegeLogger;
 import edu.stanford.bmir.protege.web.server.logging.WebProtegeLoggerEx;
-import edu.stanford.bmir.protege.web.server.watches.WatchEventManager;
 import edu.stanford.bmir.protege.web.shared.project.ProjectAlreadyExistsException;
 import edu.stanford.bmir.protege.web.shared.project.ProjectDocumentNotFoundException;
 import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.project.ProjectIdFormatException;
 import org.semanticweb.owlapi.io.OWLParserException;
+import org.semanticweb.owlapi.model.OWLOntology;
 import org.semanticweb.owlapi.model.OWLOntologyCreationException;
 import org.semanticweb.owlapi.model.OWLOntologyStorageException;
 
@@ -24,165 +24,283 @@ import javax.inject.Inject;
 import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Author: Matthew Horridge<br>
  * Stanford University<br>
  * Bio-Medical Informatics Research Group<br>
  * Date: 07/03/2012
+ * <p>
+ *     Loaded projects are kept in memory until the estimated size of the loaded projects exceeds a memory budget
+ *     (a percentage of the maximum heap size), at which point the {@link ProjectCacheEvictionPolicy} selects the
+ *     projects to evict.  Projects that have not been accessed for {@link #IDLE_PROJECT_TIME_MS} are also evicted.
+ *     Projects that are pinned in the configuration are never evicted.
+ * </p>
  */
 public class OWLAPIProjectCache {
 
-    private final Interner<ProjectId> projectIdInterner;
+    /**
+     * The period between eviction checks (in ms).  Every 30 seconds.
+     */
+    public static final int PURGE_CHECK_PERIOD_MS = 30 * 1000;
 
+    /**
+     * Elapsed time from the last access after which a project is evicted regardless of the memory that is
+     * available.  This is much longer than the period with which clients poll the project event queue, so that
+     * projects that are being used are not disposed of and then reloaded.
+     */
+    private static final long IDLE_PROJECT_TIME_MS = 60 * 60 * 1000;
 
-    private final ReadWriteLock projectMapReadWriteLoc = new ReentrantReadWriteLock();
+    /**
+     * A rough estimate of the number of bytes that an axiom occupies once it has been loaded and indexed, including
+     * the space used by the derived structures in the project (hierarchies, indexes, renderings etc.).
+     */
+    private static final long ESTIMATED_BYTES_PER_AXIOM = 1024;
 
-    private final Lock READ_LOCK = projectMapReadWriteLoc.readLock();
+    /**
+     * A rough estimate of the number of bytes that each revision in the revision history occupies.
+     */
+    private static final long ESTIMATED_BYTES_PER_REVISION = 256;
 
-    private final Lock WRITE_LOCK = projectMapReadWriteLoc.writeLock();
+    /**
+     * A rough estimate of the fixed overhead of a loaded project.
+     */
+    private static final long ESTIMATED_BYTES_PER_PROJECT = 4 * 1024 * 1024;
 
-//    private Map<ProjectId, OWLAPIProject> projectId2ProjectMa = new ConcurrentHashMap<>();
+    private final ConcurrentMap<ProjectId, ProjectCacheEntry> entries = new ConcurrentHashMap<>();
 
-    private Map<ProjectId, Injector> projectId2ProjectInjector = new ConcurrentHashMap<>();
+    private final Object evictionLock = new Object();
 
+    private final ProjectCacheEvictionPolicy evictionPolicy;
 
-    private final ReadWriteLock LAST_ACCESS_LOCK = new ReentrantReadWriteLock();
+    private final Set<ProjectId> pinnedProjects;
 
-    private final ReadWriteLock PROJECT_ID_LOCK = new ReentrantReadWriteLock();
+    private final long maxWeight;
 
-    private Map<ProjectId, Long> lastAccessMap = new HashMap<ProjectId, Long>();
+    private final AtomicLong hitCount = new AtomicLong();
 
+    private final AtomicLong missCount = new AtomicLong();
 
+    private final AtomicLong loadFailureCount = new AtomicLong();
 
-    /**
-     * The period between purge checks (in ms).  Every 30 seconds.
-     */
-    public static final int PURGE_CHECK_PERIOD_MS = 30 * 1000;
+    private final AtomicLong totalLoadTimeMs = new AtomicLong();
 
-    /**
-     * Elapsed time from the last access after which a project should be considered dormant (and should therefore
-     * be purged).  This can interact with the frequency with which clients poll the project event queue (which is
-     * be default every 10 seconds).
-     */
-    private static final long DORMANT_PROJECT_TIME_MS = 3 * 60 * 1000;
+    private final AtomicLong evictionCount = new AtomicLong();
 
     private final WebProtegeLogger logger;
 
+    private final Function<ProjectId, Injector> projectInjectorFactory;
+
 
     @Inject
-    public OWLAPIProjectCache(WebProtegeLogger logger) {
-        this.logger = logger;
+    public OWLAPIProjectCache(WebProtegeLogger logger,
+                              WebProtegeProperties properties,
+                              ProjectCacheEvictionPolicy evictionPolicy) {
+        this(logger,
+                evictionPolicy,
+                (Runtime.getRuntime().maxMemory() / 100) * properties.getProjectCacheMaxMemoryPercentage(),
+                getPinnedProjects(properties, logger),
+                new Function<ProjectId, Injector>() {
+                    @Override
+                    public Injector apply(ProjectId projectId) {
+                        return WebProtegeInjector.get().createChildInjector(
+                                new ProjectModule(projectId),
+                                new EventTranslatorModule());
+                    }
+                });
         Timer timer = new Timer(true);
         timer.schedule(new TimerTask() {
             @Override
             public void run() {
-                purgeDormantProjects();
+                purgeProjects();
             }
-        }, 0, PURGE_CHECK_PERIOD_MS);
-        projectIdInterner = Interners.newWeakInterner();
-
+        }, PURGE_CHECK_PERIOD_MS, PURGE_CHECK_PERIOD_MS);
     }
 
-
     /**
-     * Gets the list of cached project ids.
-     * @return A list of cached project ids.
+     * Creates a cache that does not periodically purge idle projects.
+     * @param projectInjectorFactory Creates the injector that is used to load a project.
      */
-    private List<ProjectId> getCachedProjectIds() {
-        try {
+    OWLAPIProjectCache(WebProtegeLogger logger,
+                       ProjectCacheEvictionPolicy evictionPolicy,
+                       long maxWeight,
+                       Set<ProjectId> pinnedProjects,
+                       Function<ProjectId, Injector> projectInjectorFactory) {
+        this.logger = checkNotNull(logger);
+        this.evictionPolicy = checkNotNull(evictionPolicy);
+        this.maxWeight = maxWeight;
+        this.pinnedProjects = checkNotNull(pinnedProjects);
+        this.projectInjectorFactory = checkNotNull(projectInjectorFactory);
+    }
 
-            READ_LOCK.lock();
-            return new ArrayList<ProjectId>(lastAccessMap.keySet());
+    private static Set<ProjectId> getPinnedProjects(WebProtegeProperties properties, WebProtegeLogger logger) {
+        Set<ProjectId> result = new HashSet<>();
+        for (String id : properties.getProjectCachePinnedProjects()) {
+            try {
+                result.add(ProjectId.get(id));
+            } catch (ProjectIdFormatException e) {
+                logger.info("Ignoring malformed pinned project id: %s", id);
+            }
         }
-        finally {
-            READ_LOCK.unlock();
+        return result;
+    }
+
+
+    /**
+     * Gets the entries for the projects that have been loaded.
+     * @return A list of entries.
+     */
+    private List<ProjectCacheEntry> getLoadedEntries() {
+        List<ProjectCacheEntry> result = new ArrayList<>();
+        for (ProjectCacheEntry entry : entries.values()) {
+            if (entry.isLoaded()) {
+                result.add(entry);
+            }
         }
+        return result;
     }
 
 
-    private void purgeDormantProjects() {
-        // No locking needed
-        for (ProjectId projectId : getCachedProjectIds()) {
-            long time = getLastAccessTime(projectId);
-            long lastAccessTimeDiff = System.currentTimeMillis() - time;
-            if (time == 0 || lastAccessTimeDiff > DORMANT_PROJECT_TIME_MS) {
-                purge(projectId);
+    private void purgeProjects() {
+        try {
+            long currentTime = System.currentTimeMillis();
+            for (ProjectCacheEntry entry : getLoadedEntries()) {
+                if (!entry.isPinned() && currentTime - entry.getLastAccessTime() > IDLE_PROJECT_TIME_MS) {
+                    purge(entry);
+                }
+                else {
+                    // Projects grow as they are edited
+                    entry.setWeight(estimateWeight(entry));
+                }
             }
+            evictIfNecessary(Optional.<ProjectCacheEntry>absent());
+        } catch (RuntimeException e) {
+            // Don't let the timer die
+            logger.severe(e);
         }
     }
 
 
+    /**
+     * Evicts projects if the loaded projects exceed the memory budget.
+     * @param retainedEntry An entry that must not be evicted, for example, the entry of a project that has just been
+     *                      loaded for a request that is still waiting for it.
+     */
+    private void evictIfNecessary(Optional<ProjectCacheEntry> retainedEntry) {
+        synchronized (evictionLock) {
+            List<ProjectCacheEntry> entriesToEvict = evictionPolicy.selectEntriesToEvict(getLoadedEntries(),
+                    maxWeight,
+                    System.currentTimeMillis());
+            int evicted = 0;
+            for (ProjectCacheEntry entry : entriesToEvict) {
+                if (!entry.isPinned() && !retainedEntry.equals(Optional.of(entry))) {
+                    purge(entry);
+                    evictionCount.incrementAndGet();
+                    evicted++;
+                }
+            }
+            if (evicted > 0) {
+                logger.info("Evicted %d projects to stay within the project memory budget.  %s",
+                        evicted,
+                        getStats());
+            }
+        }
+    }
 
 
     public OWLAPIProject getProject(ProjectId projectId) throws ProjectDocumentNotFoundException {
-        return getProjectInternal(projectId, AccessMode.NORMAL);
+        return getProjectInternal(projectId);
     }
 
     public Optional<OWLAPIProject> getProjectIfActive(ProjectId projectId) {
-        try {
-            READ_LOCK.lock();
-            if(!isActive(projectId)) {
-                return Optional.absent();
-            }
-            else {
-                return Optional.of(getProjectInternal(projectId, AccessMode.QUIET));
-            }
+        // Don't go through getProjectInternal, which would reload the project if it was purged in the meantime
+        ProjectCacheEntry entry = entries.get(projectId);
+        if(entry == null || !entry.isLoaded()) {
+            return Optional.absent();
         }
-        finally {
-            READ_LOCK.unlock();
+        else {
+            hitCount.incrementAndGet();
+            entry.recordAccess(System.currentTimeMillis());
+            return Optional.of(entry.getInjector().getInstance(OWLAPIProject.class));
         }
-
     }
 
-    private enum AccessMode {
-        NORMAL,
-        QUIET
-    }
-
-    private OWLAPIProject getProjectInternal(ProjectId projectId, AccessMode accessMode) {
-        // Per project lock
-        synchronized (getInternedProjectId(projectId)) {
-            try {
-                Injector projectInjector = getProjectInjector(projectId);
-                if (accessMode == AccessMode.NORMAL) {
-                    logProjectAccess(projectId);
+    private OWLAPIProject getProjectInternal(ProjectId projectId) {
+        try {
+            ProjectCacheEntry entry = entries.get(projectId);
+            if (entry == null) {
+                ProjectCacheEntry freshEntry = new ProjectCacheEntry(projectId,
+                        pinnedProjects.contains(projectId),
+                        System.currentTimeMillis());
+                entry = entries.putIfAbsent(projectId, freshEntry);
+                if (entry == null) {
+                    // Only the thread that installed the entry loads the project.  Other threads wait for it.
+                    // Loading the project records this access.
+                    missCount.incrementAndGet();
+                    loadProject(freshEntry);
+                    return freshEntry.getInjector().getInstance(OWLAPIProject.class);
                 }
-                return projectInjector.getInstance(OWLAPIProject.class);
-            }
-            catch (OWLParserException e) {
-                throw new RuntimeException(e);
             }
+            hitCount.incrementAndGet();
+            Injector projectInjector = entry.getInjector();
+            entry.recordAccess(System.currentTimeMillis());
+            return projectInjector.getInstance(OWLAPIProject.class);
+        }
+        catch (OWLParserException e) {
+            throw new RuntimeException(e);
         }
     }
 
-    private Injector getProjectInjector(ProjectId projectId) {
-        Injector projectInjector = projectId2ProjectInjector.get(projectId);
-        if (projectInjector == null) {
-            logger.info("Request for unloaded project. Loading %s.", projectId.getId());
-            WebProtegeInjector appInjector = WebProtegeInjector.get();
-            projectInjector = appInjector.createChildInjector(
-                    new ProjectModule(projectId),
-                    new EventTranslatorModule());
-            //  projectId2ProjectMap.put(projectId, project);
-            projectId2ProjectInjector.put(projectId, projectInjector);
-            WebProtegeLoggerEx loggerEx = new WebProtegeLoggerEx(logger);
-            loggerEx.logMemoryUsage();
+    private void loadProject(ProjectCacheEntry entry) {
+        ProjectId projectId = entry.getProjectId();
+        logger.info("Request for unloaded project. Loading %s.", projectId.getId());
+        long t0 = System.currentTimeMillis();
+        try {
+            Injector projectInjector = projectInjectorFactory.apply(projectId);
+            entry.setLoading(projectInjector);
+            OWLAPIProject project = projectInjector.getInstance(OWLAPIProject.class);
+            entry.setWeight(estimateWeight(project));
+            entry.setLoaded(projectInjector);
+        }
+        catch (RuntimeException | Error e) {
+            entries.remove(projectId, entry);
+            loadFailureCount.incrementAndGet();
+            entry.setLoadFailed(e);
+            throw e;
         }
-        return projectInjector;
+        finally {
+            totalLoadTimeMs.addAndGet(System.currentTimeMillis() - t0);
+        }
+        logger.info("Loaded %s in %d ms.  %d projects are now loaded.",
+                projectId.getId(),
+                System.currentTimeMillis() - t0,
+                entries.size());
+        WebProtegeLoggerEx loggerEx = new WebProtegeLoggerEx(logger);
+        loggerEx.logMemoryUsage();
+        // Record the access before evicting so that the project that has just been loaded counts as the most
+        // recently used project.  Projects that were accessed while it was being loaded would otherwise be kept in
+        // preference to it.
+        entry.recordAccess(System.currentTimeMillis());
+        evictIfNecessary(Optional.of(entry));
     }
 
-    /**
-     * Gets an interned {@link ProjectId} that is equal to the specified {@link ProjectId}.
-     * @param projectId The project id to intern.
-     * @return The interned project Id.  Not {@code null}.
-     */
-    private ProjectId getInternedProjectId(ProjectId projectId) {
-        // The interner is thread safe.
-        return projectIdInterner.intern(projectId);
+    private long estimateWeight(ProjectCacheEntry entry) {
+        return estimateWeight(entry.getInjector().getInstance(OWLAPIProject.class));
+    }
+
+    private static long estimateWeight(OWLAPIProject project) {
+        long axiomCount = 0;
+        for (OWLOntology ontology : project.getRootOntology().getImportsClosure()) {
+            axiomCount += ontology.getAxiomCount();
+        }
+        long revisionCount = project.getChangeManager().getCurrentRevision().getValue();
+        return ESTIMATED_BYTES_PER_PROJECT
+                + axiomCount * ESTIMATED_BYTES_PER_AXIOM
+                + revisionCount * ESTIMATED_BYTES_PER_REVISION;
     }
 
     public OWLAPIProject getProject(NewProjectSettings newProjectSettings) throws ProjectAlreadyExistsException, OWLOntologyCreationException, OWLOntologyStorageException, IOException {
@@ -191,7 +309,7 @@ public class OWLAPIProjectCache {
             ProjectImporter importer = new ProjectImporter(projectId);
             importer.createProjectFromSources(newProjectSettings.getSourceDocumentId(), newProjectSettings.getProjectOwner());
         }
-        return getProjectInternal(projectId, AccessMode.NORMAL);
+        return getProjectInternal(projectId);
 //        try {
 //            OWLAPIProjectDocumentStore documentStore = OWLAPIProjectDocumentStore.createNewProject(newProjectSettings);
 //            return getProject(documentStore.getProjectId());
@@ -202,30 +320,26 @@ public class OWLAPIProjectCache {
     }
 
     public void purge(ProjectId projectId) {
-        try {
-            WRITE_LOCK.lock();
-            LAST_ACCESS_LOCK.writeLock().lock();
-            Injector projectInjector = projectId2ProjectInjector.remove(projectId);
-            lastAccessMap.remove(projectId);
-            OWLAPIProject project  = projectInjector.getInstance(OWLAPIProject.class);
-            project.dispose();
+        ProjectCacheEntry entry = entries.get(projectId);
+        if (entry != null && entry.isLoaded()) {
+            purge(entry);
         }
-        finally {
-            final int projectsBeingAccessed = lastAccessMap.size();
-            LAST_ACCESS_LOCK.writeLock().unlock();
-            WRITE_LOCK.unlock();
-            logger.info("Purged project: %s.  %d projects are now being accessed.", projectId.getId(), projectsBeingAccessed);
+    }
+
+    private void purge(ProjectCacheEntry entry) {
+        // Only dispose of the project if this thread removed it, so that it is disposed of once
+        if (entries.remove(entry.getProjectId(), entry)) {
+            OWLAPIProject project = entry.getInjector().getInstance(OWLAPIProject.class);
+            project.dispose();
+            logger.info("Purged project: %s.  %d projects are now being accessed.",
+                    entry.getProjectId().getId(),
+                    entries.size());
         }
     }
 
     public boolean isActive(ProjectId projectId) {
-        try {
-            READ_LOCK.lock();
-            return lastAccessMap.containsKey(projectId);
-        }
-        finally {
-            READ_LOCK.unlock();
-        }
+        ProjectCacheEntry entry = entries.get(projectId);
+        return entry != null && entry.isLoaded();
     }
 
     /**
@@ -235,50 +349,32 @@ public class OWLAPIProjectCache {
      *         if the project does not exist.
      */
     public long getLastAccessTime(ProjectId projectId) {
-        Long timestamp = null;
-        try {
-            LAST_ACCESS_LOCK.readLock().lock();
-            timestamp = lastAccessMap.get(projectId);
-        }
-        finally {
-            LAST_ACCESS_LOCK.readLock().unlock();
-        }
-        if (timestamp == null) {
+        ProjectCacheEntry entry = entries.get(projectId);
+        if (entry == null) {
             return 0;
         }
         else {
-            return timestamp;
+            return entry.getLastAccessTime();
         }
     }
 
-    private void logProjectAccess(final ProjectId projectId) {
-        try {
-            LAST_ACCESS_LOCK.writeLock().lock();
-            long currentTime = System.currentTimeMillis();
-            int currentSize = lastAccessMap.size();
-            lastAccessMap.put(projectId, currentTime);
-            if(lastAccessMap.size() > currentSize) {
-                logger.info("%d projects are now being accessed", lastAccessMap.size());
-            }
-        }
-        finally {
-            LAST_ACCESS_LOCK.writeLock().unlock();
+    /**
+     * Gets a snapshot of the statistics of this cache.
+     * @return The statistics.  Not {@code null}.
+     */
+    public ProjectCacheStats getStats() {
+        List<ProjectCacheEntry> loadedEntries = getLoadedEntries();
+        long totalWeight = 0;
+        for (ProjectCacheEntry entry : loadedEntries) {
+            totalWeight += entry.getWeight();
         }
+        return new ProjectCacheStats(hitCount.get(),
+                missCount.get(),
+                loadFailureCount.get(),
+                totalLoadTimeMs.get(),
+                evictionCount.get(),
+                loadedEntries.size(),
+                totalWeight,
+                maxWeight);
     }
-
-//    private void logMemoryUsage(ProjectId projectId) {
-//        Runtime runtime = Runtime.getRuntime();
-//        long totalMemoryBytes = runtime.totalMemory();
-//        long freeMemoryBytes = runtime.freeMemory();
-//        long freeMemoryMB = toMB(freeMemoryBytes);
-//        long usedMemoryBytes = totalMemoryBytes - freeMemoryBytes;
-//        long usedMemoryMB = toMB(usedMemoryBytes);
-//        long totalMemoryMB = toMB(totalMemoryBytes);
-//        double percentageUsed = (100.0 * usedMemoryBytes) / totalMemoryBytes;
-//        LOGGER.info("Using %d MB of %d MB (%.2f%%) [%d MB free]", usedMemoryMB, totalMemoryMB, percentageUsed, freeMemoryMB);
-//    }
-//
-//    private long toMB(long bytes) {
-//        return bytes / (1024 * 1024);
-//    }
 }
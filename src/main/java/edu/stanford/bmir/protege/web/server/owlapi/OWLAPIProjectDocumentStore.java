@@ -81,52 +81,62 @@ public class OWLAPIProjectDocumentStore {
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
 
-    public void saveOntologyChanges(List<OWLOntologyChange> rawChangeList) {
+    /**
+     * Gets the data of the specified changes grouped by the documents of the ontologies that they apply to.  This
+     * reads the ontologies and their manager, so it must be called while the ontologies can not be changed.
+     * @param rawChangeList The changes.  Not {@code null}.
+     * @return The change data, keyed by document.  Not {@code null}.
+     */
+    public ListMultimap<File, OWLOntologyChangeData> getChangeDataByDocument(List<OWLOntologyChange> rawChangeList) {
+        ListMultimap<OWLOntology, OWLOntologyChange> changesByOntology = ArrayListMultimap.create();
+        for (OWLOntologyChange change : rawChangeList) {
+            changesByOntology.put(change.getOntology(), change);
+        }
+        ListMultimap<File, OWLOntologyChangeData> result = ArrayListMultimap.create();
+        for (OWLOntology ontology : changesByOntology.keySet()) {
+            IRI docIRI = ontology.getOWLOntologyManager().getOntologyDocumentIRI(ontology);
+            if (docIRI == null) {
+                // Generate new ontology
+                throw new RuntimeException("No ontology document specified for ontology");
+            }
+            if (!"file".equalsIgnoreCase(docIRI.toURI().getScheme())) {
+                throw new RuntimeException("Document IRI is not a local file IRI");
+            }
+            File file = new File(docIRI.toURI());
+            for (OWLOntologyChange change : changesByOntology.get(ontology)) {
+                OWLOntologyChangeRecord changeRecord = change.getChangeRecord();
+                result.put(file, changeRecord.getData());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Appends change data to ontology documents.
+     * @param changeDataByDocument The change data, keyed by the document that it should be appended to, as returned
+     *                             by {@link #getChangeDataByDocument(List)}.  Not {@code null}.
+     * @return The documents that were appended to.  Not {@code null}.
+     * @throws IOException If the changes could not be appended.
+     */
+    public Collection<File> saveOntologyChanges(ListMultimap<File, OWLOntologyChangeData> changeDataByDocument) throws IOException {
+        List<File> documents = new ArrayList<>();
         // Put changes into a buffer
         try {
             writeLock.lock();
-            try {
-                ListMultimap<OWLOntology, OWLOntologyChange> changesByOntology = ArrayListMultimap.create();
-                for (OWLOntologyChange change : rawChangeList) {
-                    changesByOntology.put(change.getOntology(), change);
-                }
-                for (OWLOntology ontology : changesByOntology.keySet()) {
-                    IRI docIRI = ontology.getOWLOntologyManager().getOntologyDocumentIRI(ontology);
-                    if (docIRI == null) {
-                        // Generate new ontology
-                        throw new RuntimeException("No ontology document specified for ontology");
-                    }
-                    if (!"file".equalsIgnoreCase(docIRI.toURI().getScheme())) {
-                        throw new RuntimeException("Document IRI is not a local file IRI");
-                    }
-                        List<OWLOntologyChange> ontologyChangeList = changesByOntology.get(ontology);
-                        List<OWLOntologyChangeData> infoList = new ArrayList<OWLOntologyChangeData>();
-                        for (OWLOntologyChange change : ontologyChangeList) {
-                            OWLOntologyChangeRecord changeRecord = change.getChangeRecord();
-                            infoList.add(changeRecord.getData());
-                        }
-                        File file = new File(docIRI.toURI());
-                        BinaryOWLOntologyDocumentSerializer serializer = new BinaryOWLOntologyDocumentSerializer();
-                        serializer.appendOntologyChanges(file, new OntologyChangeDataList(infoList,
-                                System.currentTimeMillis(),
-                                BinaryOWLMetadata.emptyMetadata
-                                        ()));
-
-
-
-
-                }
-
-            } catch (IOException e) {
-                logger.severe(e);
-                // NOW WHAT?!?!?!?!?!?!?!?!?!?
-                e.printStackTrace();
+            for (File file : changeDataByDocument.keySet()) {
+                BinaryOWLOntologyDocumentSerializer serializer = new BinaryOWLOntologyDocumentSerializer();
+                serializer.appendOntologyChanges(file, new OntologyChangeDataList(changeDataByDocument.get(file),
+                        System.currentTimeMillis(),
+                        BinaryOWLMetadata.emptyMetadata
+                                ()));
+                documents.add(file);
             }
         } finally {
             writeLock.unlock();
+            // Need to delete cache files
+            deleteCacheFiles();
         }
-        // Need to delete cache files
-        deleteCacheFiles();
+        return documents;
     }
 
     public ProjectId getProjectId() {
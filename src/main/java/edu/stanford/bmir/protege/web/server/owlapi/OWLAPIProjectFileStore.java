@@ -119,9 +119,7 @@ public class OWLAPIProjectFileStore {
     @Inject
     public OWLAPIProjectFileStore(@DataDirectory File webProtegeDataDirectory, @Assisted ProjectId projectId) {
         checkNotNull(webProtegeDataDirectory);
-        File baseDirectory = new File(webProtegeDataDirectory, BASE_DIRECTORY_NAME);
-        File allProjectsDirectory = new File(baseDirectory, ALL_PROJECTS_DIRECTORY_NAME);
-        this.projectDirectory = new File(allProjectsDirectory, projectId.getId());
+        this.projectDirectory = new File(getAllProjectsDirectory(webProtegeDataDirectory), projectId.getId());
 
         this.changesDataDirectory = new File(projectDirectory, CHANGE_DATA_DIRECTORY_NAME);
 //        this.configurationsDirectory = new File(projectDirectory, CONFIGURATIONS_DIRECTORY_NAME);
@@ -131,6 +129,16 @@ public class OWLAPIProjectFileStore {
         this.importsCacheDirectory = new File(projectDirectory, IMPORTS_CACHE_DIRECTORY_NAME);
     }
 
+    /**
+     * Gets the directory that contains the directories of all projects.
+     * @param webProtegeDataDirectory The root directory where data is stored.  Not {@code null}.
+     * @return The directory.  Not {@code null}.
+     */
+    public static File getAllProjectsDirectory(File webProtegeDataDirectory) {
+        File baseDirectory = new File(webProtegeDataDirectory, BASE_DIRECTORY_NAME);
+        return new File(baseDirectory, ALL_PROJECTS_DIRECTORY_NAME);
+    }
+
     public void initDirectories() {
         projectDirectory.mkdirs();
         changesDataDirectory.mkdirs();
@@ -47,4 +47,8 @@ public class OWLAPIProjectManager {
     public long getLastAccessTime(ProjectId projectId) {
         return projectCache.getLastAccessTime(projectId);
     }
+
+    public ProjectCacheStats getProjectCacheStats() {
+        return projectCache.getStats();
+    }
 }
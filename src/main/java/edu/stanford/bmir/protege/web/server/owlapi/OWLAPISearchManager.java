@@ -1,6 +1,8 @@
 package edu.stanford.bmir.protege.web.server.owlapi;
 
 import edu.stanford.bmir.protege.web.client.rpc.data.EntityData;
+import edu.stanford.bmir.protege.web.server.shortform.ShortFormIndex;
+import edu.stanford.bmir.protege.web.server.shortform.ShortFormMatch;
 import org.semanticweb.owlapi.model.OWLEntity;
 import org.semanticweb.owlapi.util.BidirectionalShortFormProvider;
 
@@ -17,14 +19,34 @@ import java.util.regex.Pattern;
  */
 public class OWLAPISearchManager {
 
+    /**
+     * Matches search strings that do not contain any regular expression meta characters.
+     */
+    private static final Pattern LITERAL_SEARCH_STRING_PATTERN = Pattern.compile("[^\\\\\\[\\]{}()*+?.^$|]+");
+
     private BidirectionalShortFormProvider shortFormProvider;
 
     private LegacyEntityDataProvider entityDataProvider;
 
+    private ShortFormIndex shortFormIndex;
+
     @Inject
-    public OWLAPISearchManager(LegacyEntityDataProvider entityDataProvider, BidirectionalShortFormProvider shortFormProvider) {
+    public OWLAPISearchManager(LegacyEntityDataProvider entityDataProvider, BidirectionalShortFormProvider shortFormProvider, ShortFormIndex shortFormIndex) {
         this.shortFormProvider = shortFormProvider;
         this.entityDataProvider = entityDataProvider;
+        this.shortFormIndex = shortFormIndex;
+    }
+
+    /**
+     * Finds the short forms that match the specified search string in the sense of
+     * {@link edu.stanford.bmir.protege.web.shared.search.EntityNameMatcher}.
+     * @param searchString The search string.  Not {@code null}.
+     * @param limit The number of matches that the caller is interested in.  See
+     * {@link ShortFormIndex#getMatches(String, int)}.
+     * @return The matches, best matches first.  Not {@code null}.
+     */
+    public List<ShortFormMatch> getShortFormMatches(String searchString, int limit) {
+        return shortFormIndex.getMatches(searchString, limit);
     }
 
     public List<EntityData> search(final String search) {
@@ -37,8 +59,18 @@ public class OWLAPISearchManager {
         }
         List<EntityData> result = new ArrayList<EntityData>();
 
-        // Needs to be more efficient, but will do for now
-        Set<String> shortForms = shortFormProvider.getShortForms();
+        final Collection<String> shortForms;
+        if(LITERAL_SEARCH_STRING_PATTERN.matcher(normalizedSearchString).matches()) {
+            // A literal search string can only match short forms that contain it, which the index can find
+            // without looking at every short form.
+            shortForms = new ArrayList<>();
+            for(ShortFormMatch match : shortFormIndex.getMatches(normalizedSearchString, Integer.MAX_VALUE)) {
+                shortForms.add(match.getShortForm());
+            }
+        }
+        else {
+            shortForms = shortFormProvider.getShortForms();
+        }
         Pattern pattern = Pattern.compile(normalizedSearchString, Pattern.CASE_INSENSITIVE);
 
         
@@ -346,15 +346,10 @@ public class OntologyServiceOWLAPIImpl extends WebProtegeRemoteServiceServlet im
         AssertedClassHierarchyProvider hierarchyProvider = project.getClassHierarchyProvider();
         OWLClass cls = rm.getEntity(className, EntityType.CLASS);
 
-        boolean checkForDeprecated = project.getRootOntology().containsAnnotationPropertyInSignature(OWLRDFVocabulary.OWL_DEPRECATED.getIRI());
         for (OWLClass subclass : new ArrayList<OWLClass>(hierarchyProvider.getChildren(cls))) {
-            boolean deprecated = false;
-            if(checkForDeprecated) {
-                deprecated = project.isDeprecated(subclass);
-            }
+            boolean deprecated = project.isDeprecated(subclass);
 //            if (!deprecated) {
-                Set<OWLClass> children = hierarchyProvider.getChildren(subclass);
-                int subClassSubClassesCount = children.size();
+                int subClassSubClassesCount = hierarchyProvider.getChildCount(subclass);
                 String browserText = rm.getBrowserText(subclass);
                 String name = subclass.getIRI().toString();
                 SubclassEntityData data = new SubclassEntityData(name, browserText, new HashSet<EntityData>(0), subClassSubClassesCount);
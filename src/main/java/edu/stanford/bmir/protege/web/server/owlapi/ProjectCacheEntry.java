@@ -0,0 +1,157 @@
+package edu.stanford.bmir.protege.web.server.owlapi;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.google.inject.Injector;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+
+import java.util.concurrent.ExecutionException;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An entry in the {@link OWLAPIProjectCache}.  An entry is placed in the cache before its project is loaded, so
+ * that concurrent requests for the same project wait for a single load rather than each loading the project.
+ * <p>
+ *     An entry records the estimated retained size (the weight) of its project and how frequently the project is
+ *     accessed.  The access frequency decays exponentially, halving every {@link #FREQUENCY_HALF_LIFE_MS}, so that
+ *     projects that were used heavily a long time ago do not stay in memory at the expense of projects that are
+ *     being used now.
+ * </p>
+ */
+public class ProjectCacheEntry {
+
+    public static final long FREQUENCY_HALF_LIFE_MS = 10 * 60 * 1000;
+
+    private final ProjectId projectId;
+
+    private final boolean pinned;
+
+    private final SettableFuture<Injector> injectorFuture = SettableFuture.create();
+
+    private volatile Thread loadingThread;
+
+    private volatile Injector loadingInjector;
+
+    private volatile long weight = 0;
+
+    private long lastAccessTime;
+
+    private double frequency = 0;
+
+    public ProjectCacheEntry(ProjectId projectId, boolean pinned, long creationTime) {
+        this.projectId = checkNotNull(projectId);
+        this.pinned = pinned;
+        this.lastAccessTime = creationTime;
+    }
+
+    public ProjectId getProjectId() {
+        return projectId;
+    }
+
+    /**
+     * Determines whether this entry is pinned.  Pinned entries are never evicted by the cache's eviction policy.
+     */
+    public boolean isPinned() {
+        return pinned;
+    }
+
+    /**
+     * Gets the estimated retained size of the project, in bytes.
+     */
+    public long getWeight() {
+        return weight;
+    }
+
+    public void setWeight(long weight) {
+        this.weight = weight;
+    }
+
+    public synchronized long getLastAccessTime() {
+        return lastAccessTime;
+    }
+
+    /**
+     * Records an access of the project.
+     * @param time The time of the access.
+     */
+    public synchronized void recordAccess(long time) {
+        frequency = getFrequency(time) + 1;
+        lastAccessTime = Math.max(time, lastAccessTime);
+    }
+
+    /**
+     * Gets the decayed access frequency of the project at the specified time.
+     * @param time The time.
+     * @return The frequency.
+     */
+    public synchronized double getFrequency(long time) {
+        long elapsed = Math.max(0, time - lastAccessTime);
+        return frequency * Math.pow(0.5, (double) elapsed / FREQUENCY_HALF_LIFE_MS);
+    }
+
+    /**
+     * Determines whether the project has been loaded successfully.
+     */
+    public boolean isLoaded() {
+        if (!injectorFuture.isDone()) {
+            return false;
+        }
+        try {
+            injectorFuture.get();
+            return true;
+        } catch (InterruptedException | ExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Marks the start of loading the project on the current thread.
+     * @param injector The project injector that is being used to load the project.  Not {@code null}.
+     */
+    public void setLoading(Injector injector) {
+        loadingInjector = checkNotNull(injector);
+        loadingThread = Thread.currentThread();
+    }
+
+    public void setLoaded(Injector injector) {
+        loadingThread = null;
+        loadingInjector = null;
+        injectorFuture.set(checkNotNull(injector));
+    }
+
+    public void setLoadFailed(Throwable t) {
+        loadingThread = null;
+        loadingInjector = null;
+        injectorFuture.setException(checkNotNull(t));
+    }
+
+    /**
+     * Gets the injector for the project, waiting for the project to be loaded if necessary.  If the project is
+     * being loaded by the calling thread then the injector is returned without waiting.
+     * @return The injector.  Not {@code null}.
+     * @throws RuntimeException if loading the project failed.
+     */
+    public Injector getInjector() {
+        Injector injector = loadingInjector;
+        if (injector != null && loadingThread == Thread.currentThread()) {
+            return injector;
+        }
+        try {
+            return Uninterruptibles.getUninterruptibly(injectorFuture);
+        } catch (ExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper("ProjectCacheEntry")
+                .addValue(projectId)
+                .add("weight", weight)
+                .add("pinned", pinned)
+                .toString();
+    }
+}
@@ -0,0 +1,22 @@
+package edu.stanford.bmir.protege.web.server.owlapi;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Decides which projects should be evicted from the {@link OWLAPIProjectCache} when the estimated size of the
+ * loaded projects exceeds the cache's memory budget.
+ */
+public interface ProjectCacheEvictionPolicy {
+
+    /**
+     * Selects the entries that should be evicted.
+     * @param loadedEntries The entries for the projects that are loaded.  Not {@code null}.
+     * @param maxWeight The maximum total weight of the loaded projects.
+     * @param currentTime The current time.
+     * @return The entries to evict.  Pinned entries must not be selected.  Not {@code null}.
+     */
+    List<ProjectCacheEntry> selectEntriesToEvict(Collection<ProjectCacheEntry> loadedEntries,
+                                                 long maxWeight,
+                                                 long currentTime);
+}
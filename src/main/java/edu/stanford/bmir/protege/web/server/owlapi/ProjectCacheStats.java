@@ -0,0 +1,114 @@
+package edu.stanford.bmir.protege.web.server.owlapi;
+
+import com.google.common.base.Objects;
+
+/**
+ * A snapshot of the statistics of the {@link OWLAPIProjectCache}.
+ */
+public class ProjectCacheStats {
+
+    private final long hitCount;
+
+    private final long missCount;
+
+    private final long loadFailureCount;
+
+    private final long totalLoadTimeMs;
+
+    private final long evictionCount;
+
+    private final int loadedProjectCount;
+
+    private final long totalWeight;
+
+    private final long maxWeight;
+
+    public ProjectCacheStats(long hitCount,
+                             long missCount,
+                             long loadFailureCount,
+                             long totalLoadTimeMs,
+                             long evictionCount,
+                             int loadedProjectCount,
+                             long totalWeight,
+                             long maxWeight) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.loadFailureCount = loadFailureCount;
+        this.totalLoadTimeMs = totalLoadTimeMs;
+        this.evictionCount = evictionCount;
+        this.loadedProjectCount = loadedProjectCount;
+        this.totalWeight = totalWeight;
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Gets the number of requests for a project that was loaded, or was being loaded.
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Gets the number of requests that caused a project to be loaded.
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getLoadFailureCount() {
+        return loadFailureCount;
+    }
+
+    /**
+     * Gets the total time spent loading projects, in milliseconds.
+     */
+    public long getTotalLoadTimeMs() {
+        return totalLoadTimeMs;
+    }
+
+    /**
+     * Gets the average time taken to load a project, in milliseconds.
+     */
+    public long getAverageLoadTimeMs() {
+        if (missCount == 0) {
+            return 0;
+        }
+        return totalLoadTimeMs / missCount;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public int getLoadedProjectCount() {
+        return loadedProjectCount;
+    }
+
+    /**
+     * Gets the estimated total size of the loaded projects, in bytes.
+     */
+    public long getTotalWeight() {
+        return totalWeight;
+    }
+
+    /**
+     * Gets the memory budget for loaded projects, in bytes.
+     */
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper("ProjectCacheStats")
+                .add("hits", hitCount)
+                .add("misses", missCount)
+                .add("loadFailures", loadFailureCount)
+                .add("averageLoadTimeMs", getAverageLoadTimeMs())
+                .add("evictions", evictionCount)
+                .add("loadedProjects", loadedProjectCount)
+                .add("totalWeight", totalWeight)
+                .add("maxWeight", maxWeight)
+                .toString();
+    }
+}
@@ -0,0 +1,77 @@
+package edu.stanford.bmir.protege.web.server.owlapi;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import edu.stanford.bmir.protege.web.server.logging.WebProtegeLogger;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Loads the independent components of projects (the root ontology document, the revision history and the notes)
+ * on a bounded pool of background threads, so that the components of a project load in parallel rather than
+ * one after the other.
+ * <p>
+ *     Components are loaded by calling {@link Provider#get()} on providers that load their component once and then
+ *     cache it.  Nothing waits for a background load that has not started: if a component is needed before its
+ *     background load has started then the thread that needs it loads it, and the background load finds it already
+ *     loaded.  If a
+ *     background load fails then the component is loaded again, and the failure is reported, when the component is
+ *     next asked for.
+ * </p>
+ */
+public class ProjectComponentLoader {
+
+    private static final int MAX_THREADS = 4;
+
+    private final ExecutorService executorService;
+
+    private final WebProtegeLogger logger;
+
+    @Inject
+    public ProjectComponentLoader(WebProtegeLogger logger) {
+        this.logger = checkNotNull(logger);
+        int threadCount = Math.min(MAX_THREADS, Math.max(1, Runtime.getRuntime().availableProcessors()));
+        this.executorService = Executors.newFixedThreadPool(threadCount,
+                new ThreadFactoryBuilder()
+                        .setNameFormat("project-component-loader-%d")
+                        .setDaemon(true)
+                        .build());
+    }
+
+    /**
+     * Starts loading a component in the background.
+     * @param projectId The project that the component belongs to.  Not {@code null}.
+     * @param componentName A human readable name for the component, used when reporting load times.
+     *                      Not {@code null}.
+     * @param componentProvider A provider that loads the component once and caches it.  The provider must not
+     *                          use an {@link com.google.inject.Injector}, because the thread that is loading the
+     *                          rest of the project may hold Guice's singleton lock.  Not {@code null}.
+     */
+    public void startLoading(final ProjectId projectId,
+                             final String componentName,
+                             final Provider<?> componentProvider) {
+        checkNotNull(projectId);
+        checkNotNull(componentName);
+        checkNotNull(componentProvider);
+        executorService.submit(new Runnable() {
+            @Override
+            public void run() {
+                Stopwatch stopwatch = Stopwatch.createStarted();
+                try {
+                    componentProvider.get();
+                    logger.info(projectId, "Loaded %s in %d ms", componentName, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+                } catch (RuntimeException e) {
+                    // The project loader retries, and reports the failure, when it asks for the component
+                    logger.info(projectId, "Failed to load %s in the background: %s", componentName, e.getMessage());
+                }
+            }
+        });
+    }
+}
@@ -1,6 +1,6 @@
 package edu.stanford.bmir.protege.web.server.owlapi;
 
-import com.google.common.collect.ImmutableList;
+import com.google.common.base.Stopwatch;
 import edu.stanford.bmir.protege.web.client.rpc.data.DocumentId;
 import edu.stanford.bmir.protege.web.server.app.WebProtegeProperties;
 import edu.stanford.bmir.protege.web.server.inject.DataDirectoryProvider;
@@ -10,29 +10,32 @@ import edu.stanford.bmir.protege.web.server.inject.project.ChangeHistoryFileProv
 import edu.stanford.bmir.protege.web.server.inject.project.ProjectDirectoryProvider;
 import edu.stanford.bmir.protege.web.server.inject.project.RootOntologyDocumentProvider;
 import edu.stanford.bmir.protege.web.server.logging.WebProtegeLogger;
-import edu.stanford.bmir.protege.web.server.owlapi.change.Revision;
+import edu.stanford.bmir.protege.web.server.owlapi.change.GroupCommitLog;
+import edu.stanford.bmir.protege.web.server.owlapi.change.OntologyContentsChangeRecordList;
 import edu.stanford.bmir.protege.web.server.owlapi.change.RevisionStoreImpl;
 import edu.stanford.bmir.protege.web.server.owlapi.manager.WebProtegeOWLManager;
 import edu.stanford.bmir.protege.web.shared.project.ProjectId;
-import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
 import edu.stanford.bmir.protege.web.shared.user.UserId;
 import org.apache.commons.io.FileUtils;
 import org.semanticweb.binaryowl.owlapi.BinaryOWLOntologyDocumentFormat;
-import org.semanticweb.owlapi.change.AddAxiomData;
-import org.semanticweb.owlapi.change.AddImportData;
-import org.semanticweb.owlapi.change.AddOntologyAnnotationData;
-import org.semanticweb.owlapi.change.OWLOntologyChangeRecord;
 import org.semanticweb.owlapi.model.*;
 import uk.ac.manchester.cs.owl.owlapi.OWLDataFactoryImpl;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Matthew Horridge
  * Stanford Center for Biomedical Informatics Research
  * 03/06/15
+ * <p>
+ *     Creates a project from uploaded sources.  The sources are parsed once.  The initial revision, which adds the
+ *     contents of the parsed ontologies, is then streamed into the change history straight from the parsed
+ *     ontologies, so the change records of the revision are never all held in memory.  The parsed ontologies are
+ *     released before the project is loaded, so that at most one copy of the ontologies is in memory at a time.
+ * </p>
  */
 public class ProjectImporter {
 
@@ -44,6 +47,10 @@ public class ProjectImporter {
 
     private final RevisionStoreImpl revisionStore;
 
+    private final GroupCommitLog groupCommitLog;
+
+    private final WebProtegeLogger logger;
+
     public ProjectImporter(ProjectId projectId) {
         // THIS WILL BE THROWN OUT
         this.projectId = projectId;
@@ -52,10 +59,12 @@ public class ProjectImporter {
         this.uploadsDirectory = new UploadsDirectoryProvider(dataDirectoryProvider.get()).get();
         File projectDirectory = new ProjectDirectoryProvider(dataDirectoryProvider.get(), projectId).get();
         rootOntologyDocument = new RootOntologyDocumentProvider(projectDirectory).get();
-        WebProtegeLogger logger = WebProtegeInjector.get().getInstance(WebProtegeLogger.class);
+        this.logger = WebProtegeInjector.get().getInstance(WebProtegeLogger.class);
+        this.groupCommitLog = new GroupCommitLog(logger);
         this.revisionStore = new RevisionStoreImpl(projectId,
                 new OWLDataFactoryImpl(false, false),
                 new ChangeHistoryFileProvider(projectDirectory).get(),
+                groupCommitLog,
                 logger);
         this.revisionStore.load();
     }
@@ -70,9 +79,17 @@ public class ProjectImporter {
             OWLOntologyLoaderConfiguration loaderConfig = new OWLOntologyLoaderConfiguration()
                     .setMissingImportHandlingStrategy(MissingImportHandlingStrategy.SILENT);
             RawProjectSourcesImporter importer = new RawProjectSourcesImporter(rootOntologyManager, loaderConfig);
+            Stopwatch stopwatch = Stopwatch.createStarted();
             OWLOntology ontology = importer.importRawProjectSources(projectSources);
-
-            generateInitialChanges(owner, rootOntologyManager);
+            logger.info(projectId, "Parsed uploaded sources in %d ms", stopwatch.elapsed(TimeUnit.MILLISECONDS));
+            for (OWLOntology ont : rootOntologyManager.getOntologies()) {
+                rootOntologyManager.setOntologyFormat(ont, new BinaryOWLOntologyDocumentFormat());
+            }
+            try {
+                generateInitialChanges(owner, rootOntologyManager);
+            } finally {
+                groupCommitLog.dispose();
+            }
             writeNewProject(rootOntologyManager, ontology);
             deleteSourceFile(uploadedFile);
         }
@@ -82,33 +99,21 @@ public class ProjectImporter {
 
     }
 
-    private void generateInitialChanges(UserId owner, OWLOntologyManager rootOntologyManager) {
-        ImmutableList<OWLOntologyChangeRecord> changeRecords = getInitialChangeRecords(rootOntologyManager);
-        revisionStore.addRevision(
-                new Revision(
-                        owner,
-                        RevisionNumber.getRevisionNumber(1),
-                        changeRecords,
-                        System.currentTimeMillis(),
-                        "Initial import"));
-    }
-
-    private ImmutableList<OWLOntologyChangeRecord> getInitialChangeRecords(OWLOntologyManager rootOntologyManager) {
-        // TODO:  Separate change generator
-        ImmutableList.Builder<OWLOntologyChangeRecord> changeRecordList = ImmutableList.builder();
-        for (OWLOntology ont : rootOntologyManager.getOntologies()) {
-            rootOntologyManager.setOntologyFormat(ont, new BinaryOWLOntologyDocumentFormat());
-            for(OWLAxiom axiom : ont.getAxioms()) {
-                changeRecordList.add(new OWLOntologyChangeRecord(ont.getOntologyID(), new AddAxiomData(axiom)));
-            }
-            for(OWLAnnotation annotation : ont.getAnnotations()) {
-                changeRecordList.add(new OWLOntologyChangeRecord(ont.getOntologyID(), new AddOntologyAnnotationData(annotation)));
-            }
-            for(OWLImportsDeclaration importsDeclaration : ont.getImportsDeclarations()) {
-                changeRecordList.add(new OWLOntologyChangeRecord(ont.getOntologyID(), new AddImportData(importsDeclaration)));
-            }
-        }
-        return changeRecordList.build();
+    private void generateInitialChanges(UserId owner, OWLOntologyManager rootOntologyManager) throws IOException {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        OntologyContentsChangeRecordList changeRecords = new OntologyContentsChangeRecordList(
+                rootOntologyManager.getOntologies(),
+                new OntologyContentsChangeRecordList.ProgressListener() {
+                    @Override
+                    public void handleProgress(int recordsGenerated, int totalRecords) {
+                        logger.info(projectId, "Writing initial revision: %d of %d changes written",
+                                recordsGenerated, totalRecords);
+                    }
+                });
+        revisionStore.addInitialRevision(owner, System.currentTimeMillis(), "Initial import", changeRecords);
+        logger.info(projectId, "Wrote initial revision (%d changes) in %d ms",
+                changeRecords.size(),
+                stopwatch.elapsed(TimeUnit.MILLISECONDS));
     }
 
     private void deleteSourceFile(File sourceFile) {
@@ -119,11 +124,13 @@ public class ProjectImporter {
             OWLOntologyManager rootOntologyManager,
             OWLOntology ontology) throws
             OWLOntologyStorageException {
+        Stopwatch stopwatch = Stopwatch.createStarted();
         rootOntologyDocument.getParentFile().mkdirs();
         rootOntologyManager.saveOntology(ontology, new BinaryOWLOntologyDocumentFormat(),
                 IRI.create(rootOntologyDocument));
         ImportsCacheManager cacheManager = new ImportsCacheManager(projectId);
         cacheManager.cacheImports(ontology);
+        logger.info(projectId, "Wrote project documents in %d ms", stopwatch.elapsed(TimeUnit.MILLISECONDS));
     }
 
 }
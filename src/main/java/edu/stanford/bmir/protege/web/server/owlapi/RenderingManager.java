@@ -1,6 +1,7 @@
 package edu.stanford.bmir.protege.web.server.owlapi;
 
 import com.google.common.base.Optional;
+import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableMap;
 import com.google.gwt.safehtml.shared.SafeHtml;
 import com.google.gwt.safehtml.shared.SafeHtmlBuilder;
@@ -12,6 +13,7 @@ import edu.stanford.bmir.protege.web.server.inject.WebProtegeInjector;
 import edu.stanford.bmir.protege.web.server.inject.project.RootOntology;
 import edu.stanford.bmir.protege.web.server.logging.WebProtegeLogger;
 import edu.stanford.bmir.protege.web.server.render.*;
+import edu.stanford.bmir.protege.web.server.render.RenderingCache.RenderingStyle;
 import edu.stanford.bmir.protege.web.server.shortform.EscapingShortFormProvider;
 import edu.stanford.bmir.protege.web.shared.BrowserTextProvider;
 import edu.stanford.bmir.protege.web.shared.entity.*;
@@ -20,6 +22,7 @@ import org.semanticweb.owlapi.io.OWLObjectRenderer;
 import org.semanticweb.owlapi.model.*;
 import org.semanticweb.owlapi.util.BidirectionalShortFormProvider;
 import org.semanticweb.owlapi.util.OntologyIRIShortFormProvider;
+import org.semanticweb.owlapi.util.ShortFormProvider;
 import org.semanticweb.owlapi.vocab.DublinCoreVocabulary;
 import org.semanticweb.owlapi.vocab.OWL2Datatype;
 import org.semanticweb.owlapi.vocab.OWLRDFVocabulary;
@@ -31,6 +34,7 @@ import java.awt.event.ActionListener;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * Author: Matthew Horridge<br>
@@ -45,6 +49,8 @@ public class RenderingManager implements BrowserTextProvider, HasGetFrameRenderi
 
     public static final String NULL_BROWSER_TEXT = "\"\"";
 
+    private static final long MAXIMUM_CACHED_RENDERINGS = 50000;
+
     private final BidirectionalShortFormProvider shortFormProvider;
 
     // An immutable map of IRI to OWLEntity for built in entities.
@@ -64,6 +70,19 @@ public class RenderingManager implements BrowserTextProvider, HasGetFrameRenderi
 
     private final WebProtegeLogger logger;
 
+    private final RenderingCache renderingCache;
+
+    private final EscapingShortFormProvider escapingShortFormProvider;
+
+    /**
+     * Manchester syntax renderers are not thread safe, so each renderer is used by one thread at a time
+     */
+    private final Queue<OWLObjectRenderer> browserTextRenderers = new ConcurrentLinkedQueue<>();
+
+    private final Queue<OWLObjectRenderer> escapingBrowserTextRenderers = new ConcurrentLinkedQueue<>();
+
+    private final ManchesterSyntaxObjectRenderer htmlRenderer;
+
     @Inject
     public RenderingManager(@RootOntology OWLOntology rootOnt,
                             OWLDataFactory dataFactory,
@@ -107,6 +126,23 @@ public class RenderingManager implements BrowserTextProvider, HasGetFrameRenderi
         this.deprecatedEntityChecker = deprecatedChecker;
 
         this.highlightEntityChecker = highlightedEntityChecker;
+
+        this.escapingShortFormProvider = new EscapingShortFormProvider(shortFormProvider);
+
+        EntityIRIChecker renderingEntityIRIChecker = new EntityIRICheckerImpl(rootOnt);
+
+        // Each rendering builds its own visitor, so this renderer can be shared between threads
+        this.htmlRenderer = new ManchesterSyntaxObjectRenderer(
+                shortFormProvider,
+                renderingEntityIRIChecker,
+                LiteralStyle.BRACKETED,
+                new DefaultHttpLinkRenderer(),
+                new MarkdownLiteralRenderer());
+
+        this.renderingCache = new RenderingCache(shortFormProvider,
+                renderingEntityIRIChecker,
+                deprecatedChecker,
+                MAXIMUM_CACHED_RENDERINGS);
     }
 
     /**
@@ -707,19 +743,48 @@ public class RenderingManager implements BrowserTextProvider, HasGetFrameRenderi
      * @param object The object.
      * @return The browser text for the object.
      */
-    public String getBrowserText(OWLObject object) {
-        OWLObjectRenderer owlObjectRenderer = new ManchesterOWLSyntaxOWLObjectRendererImpl();
+    public String getBrowserText(final OWLObject object) {
+        return renderingCache.getRendering(object, RenderingStyle.BROWSER_TEXT, new Supplier<String>() {
+            @Override
+            public String get() {
+                return renderBrowserText(object);
+            }
+        });
+    }
+
+    private String renderBrowserText(OWLObject object) {
+        final Queue<OWLObjectRenderer> renderers;
+        final ShortFormProvider sfp;
         if (object instanceof OWLEntity || object instanceof IRI) {
-            owlObjectRenderer.setShortFormProvider(shortFormProvider);
+            renderers = browserTextRenderers;
+            sfp = shortFormProvider;
         }
         else {
-            owlObjectRenderer.setShortFormProvider(new EscapingShortFormProvider(shortFormProvider));
+            renderers = escapingBrowserTextRenderers;
+            sfp = escapingShortFormProvider;
+        }
+        OWLObjectRenderer owlObjectRenderer = renderers.poll();
+        if (owlObjectRenderer == null) {
+            owlObjectRenderer = new ManchesterOWLSyntaxOWLObjectRendererImpl();
+            owlObjectRenderer.setShortFormProvider(sfp);
         }
-        String browserText = owlObjectRenderer.render(object);
-        if(browserText == null) {
-            return NULL_BROWSER_TEXT;
+        try {
+            String browserText = owlObjectRenderer.render(object);
+            if(browserText == null) {
+                return NULL_BROWSER_TEXT;
+            }
+            return browserText;
+        } finally {
+            renderers.offer(owlObjectRenderer);
         }
-        return browserText;
+    }
+
+    /**
+     * Removes cached renderings that are out of date because of the specified changes.
+     * @param changes The changes that have been applied to the project ontologies.  Not {@code null}.
+     */
+    public void handleChanges(List<OWLOntologyChange> changes) {
+        renderingCache.handleChanges(changes);
     }
 
     @Override
@@ -742,11 +807,11 @@ public class RenderingManager implements BrowserTextProvider, HasGetFrameRenderi
         return builder.toString();
     }
 
-    public String getHTMLBrowserText(OWLObject object) {
-        return getHTMLBrowserText(object, new HighlightedEntityChecker() {
+    public String getHTMLBrowserText(final OWLObject object) {
+        return renderingCache.getRendering(object, RenderingStyle.HTML, new Supplier<String>() {
             @Override
-            public boolean isHighlighted(OWLEntity entity) {
-                return false;
+            public String get() {
+                return htmlRenderer.render(object, NullHighlightedEntityChecker.get(), deprecatedEntityChecker);
             }
         });
     }
@@ -766,13 +831,7 @@ public class RenderingManager implements BrowserTextProvider, HasGetFrameRenderi
     }
 
     public String getHTMLBrowserText(OWLObject object, HighlightedEntityChecker highlightChecker) {
-        ManchesterSyntaxObjectRenderer renderer = new ManchesterSyntaxObjectRenderer(
-                getShortFormProvider(),
-                new EntityIRICheckerImpl(rootOntology),
-                LiteralStyle.BRACKETED,
-                new DefaultHttpLinkRenderer(),
-                new MarkdownLiteralRenderer());
-        return renderer.render(object, highlightChecker, deprecatedEntityChecker);
+        return htmlRenderer.render(object, highlightChecker, deprecatedEntityChecker);
     }
 
 
@@ -0,0 +1,66 @@
+package edu.stanford.bmir.protege.web.server.owlapi;
+
+import javax.inject.Inject;
+import java.util.*;
+
+/**
+ * An eviction policy that evicts the projects that give the least benefit per unit of memory.  The benefit of a
+ * project is its decayed access frequency, so a large project that is rarely used is evicted before a small
+ * project that is used often.  Ties are broken by evicting the least recently used project first.
+ * <p>
+ *     The most recently accessed project is never evicted, so that a project that on its own exceeds the budget can
+ *     still be used rather than being reloaded on every request.
+ * </p>
+ */
+public class WeightedProjectCacheEvictionPolicy implements ProjectCacheEvictionPolicy {
+
+    @Inject
+    public WeightedProjectCacheEvictionPolicy() {
+    }
+
+    @Override
+    public List<ProjectCacheEntry> selectEntriesToEvict(Collection<ProjectCacheEntry> loadedEntries,
+                                                        long maxWeight,
+                                                        final long currentTime) {
+        long totalWeight = 0;
+        ProjectCacheEntry mostRecentlyUsed = null;
+        for (ProjectCacheEntry entry : loadedEntries) {
+            totalWeight += entry.getWeight();
+            if (mostRecentlyUsed == null || entry.getLastAccessTime() > mostRecentlyUsed.getLastAccessTime()) {
+                mostRecentlyUsed = entry;
+            }
+        }
+        if (totalWeight <= maxWeight) {
+            return Collections.emptyList();
+        }
+        List<ProjectCacheEntry> candidates = new ArrayList<>();
+        for (ProjectCacheEntry entry : loadedEntries) {
+            if (!entry.isPinned() && entry != mostRecentlyUsed) {
+                candidates.add(entry);
+            }
+        }
+        Collections.sort(candidates, new Comparator<ProjectCacheEntry>() {
+            @Override
+            public int compare(ProjectCacheEntry o1, ProjectCacheEntry o2) {
+                int diff = Double.compare(getBenefitPerByte(o1, currentTime), getBenefitPerByte(o2, currentTime));
+                if (diff != 0) {
+                    return diff;
+                }
+                return Long.compare(o1.getLastAccessTime(), o2.getLastAccessTime());
+            }
+        });
+        List<ProjectCacheEntry> result = new ArrayList<>();
+        for (ProjectCacheEntry candidate : candidates) {
+            if (totalWeight <= maxWeight) {
+                break;
+            }
+            result.add(candidate);
+            totalWeight -= candidate.getWeight();
+        }
+        return result;
+    }
+
+    private static double getBenefitPerByte(ProjectCacheEntry entry, long currentTime) {
+        return entry.getFrequency(currentTime) / Math.max(1, entry.getWeight());
+    }
+}
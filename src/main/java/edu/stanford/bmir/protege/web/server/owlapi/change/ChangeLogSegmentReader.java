@@ -0,0 +1,134 @@
+package edu.stanford.bmir.protege.web.server.owlapi.change;
+
+import com.google.common.collect.ImmutableList;
+import org.semanticweb.binaryowl.BinaryOWLChangeLogHandler;
+import org.semanticweb.binaryowl.BinaryOWLOntologyChangeLog;
+import org.semanticweb.binaryowl.BinaryOWLParseException;
+import org.semanticweb.binaryowl.change.OntologyChangeRecordList;
+import org.semanticweb.binaryowl.chunk.SkipSetting;
+import org.semanticweb.owlapi.change.OWLOntologyChangeRecord;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+
+import java.io.*;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Reads the change records of a single revision from a binary change log, given the byte range that the revision
+ * occupies in the log.  The log header, followed by the bytes of the revision, is presented to the binary OWL
+ * change log parser as if it were a log containing just that revision.
+ */
+public class ChangeLogSegmentReader {
+
+    private long headerLength = -1;
+
+    private final File changeLogFile;
+
+    private final OWLDataFactory dataFactory;
+
+    public ChangeLogSegmentReader(File changeLogFile, OWLDataFactory dataFactory) {
+        this.changeLogFile = checkNotNull(changeLogFile);
+        this.dataFactory = checkNotNull(dataFactory);
+    }
+
+    /**
+     * Reads the change records stored between the specified offsets.
+     * @param startOffset The offset of the first byte of the revision in the change log.  An offset of zero
+     *                    indicates that the revision was the first one written to the log, in which case the range
+     *                    also contains the log header.
+     * @param endOffset The offset of the byte after the last byte of the revision.
+     * @return The change records.  Not {@code null}.
+     * @throws IOException If there was a problem reading the log.
+     */
+    public ImmutableList<OWLOntologyChangeRecord> readChanges(long startOffset, long endOffset) throws IOException {
+        checkArgument(startOffset <= endOffset, "Start offset must not be greater than end offset");
+        byte[] data;
+        try (RandomAccessFile file = new RandomAccessFile(changeLogFile, "r")) {
+            if (startOffset == 0) {
+                data = readBytes(file, 0, endOffset);
+            }
+            else {
+                long headerLength = getHeaderLength(file, startOffset);
+                byte[] header = readBytes(file, 0, headerLength);
+                byte[] segment = readBytes(file, startOffset, endOffset);
+                data = new byte[header.length + segment.length];
+                System.arraycopy(header, 0, data, 0, header.length);
+                System.arraycopy(segment, 0, data, header.length, segment.length);
+            }
+        }
+        final ImmutableList.Builder<OWLOntologyChangeRecord> result = ImmutableList.builder();
+        try {
+            BinaryOWLOntologyChangeLog changeLog = new BinaryOWLOntologyChangeLog();
+            changeLog.readChanges(new ByteArrayInputStream(data), dataFactory, new BinaryOWLChangeLogHandler() {
+                public void handleChangesRead(OntologyChangeRecordList list, SkipSetting skipSetting, long l) {
+                    result.addAll(list.getChangeRecords());
+                }
+            }, SkipSetting.SKIP_NONE);
+        } catch (BinaryOWLParseException e) {
+            throw new IOException("Corrupt change log segment", e);
+        }
+        return result.build();
+    }
+
+    private static byte[] readBytes(RandomAccessFile file, long from, long to) throws IOException {
+        byte[] bytes = new byte[(int) (to - from)];
+        file.seek(from);
+        file.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * Gets the length of the header at the start of the change log.  A log that holds no change lists consists of
+     * just the header, so the header is the shortest prefix of the log that the change log parser reads as a
+     * complete log.  The header comes before the revision at the specified offset, so only the bytes before that
+     * revision need to be examined.  The length is determined once per log, because the header of a log is never
+     * rewritten.
+     */
+    private synchronized long getHeaderLength(RandomAccessFile file, long revisionStartOffset) throws IOException {
+        if (headerLength == -1) {
+            byte[] prefix = readBytes(file, 0, revisionStartOffset);
+            for (int length = 1; length <= prefix.length && headerLength == -1; length++) {
+                if (isEmptyChangeLog(prefix, length)) {
+                    headerLength = length;
+                }
+            }
+            if (headerLength == -1) {
+                throw new IOException("Could not find the end of the change log header");
+            }
+        }
+        return headerLength;
+    }
+
+    private boolean isEmptyChangeLog(byte[] data, int length) {
+        final boolean[] containsChanges = {false};
+        try {
+            BinaryOWLOntologyChangeLog changeLog = new BinaryOWLOntologyChangeLog();
+            changeLog.readChanges(new ByteArrayInputStream(data, 0, length), dataFactory, new BinaryOWLChangeLogHandler() {
+                public void handleChangesRead(OntologyChangeRecordList list, SkipSetting skipSetting, long l) {
+                    containsChanges[0] = true;
+                }
+            }, SkipSetting.SKIP_DATA);
+            return !containsChanges[0];
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof ChangeLogSegmentReader)) {
+            return false;
+        }
+        ChangeLogSegmentReader other = (ChangeLogSegmentReader) obj;
+        return this.changeLogFile.equals(other.changeLogFile);
+    }
+
+    @Override
+    public int hashCode() {
+        return changeLogFile.hashCode();
+    }
+}
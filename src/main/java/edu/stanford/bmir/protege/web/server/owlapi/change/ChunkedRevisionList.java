@@ -0,0 +1,86 @@
+package edu.stanford.bmir.protege.web.server.owlapi.change;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+import static com.google.common.base.Preconditions.checkElementIndex;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An append-only list of revisions that is stored in fixed size chunks.  Appending a revision never copies
+ * previously appended revisions (only the small array of chunk pointers is grown occasionally) and taking a
+ * snapshot of the list is a constant time operation.
+ * <p>
+ *     This class is not thread safe for writers.  Calls to {@link #add(Revision)} must be externally synchronized.
+ *     Snapshots obtained from {@link #asList()} may be read concurrently with writes.  Since slots in a chunk are
+ *     only ever written once, and a snapshot only looks at slots that were filled before it was published,
+ *     a snapshot never changes.
+ * </p>
+ */
+public class ChunkedRevisionList {
+
+    private static final int CHUNK_SIZE = 1024;
+
+    private Revision[][] chunks = new Revision[0][];
+
+    private int size = 0;
+
+    private volatile Snapshot snapshot = new Snapshot(chunks, 0);
+
+    /**
+     * Appends a revision to the end of this list.
+     * @param revision The revision to append.  Not {@code null}.
+     */
+    public void add(Revision revision) {
+        checkNotNull(revision);
+        int chunkIndex = size / CHUNK_SIZE;
+        if (chunkIndex == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunks.length + 1);
+            chunks[chunkIndex] = new Revision[CHUNK_SIZE];
+        }
+        chunks[chunkIndex][size % CHUNK_SIZE] = revision;
+        size++;
+        // Publish.  The volatile write makes the slot that was written above visible to readers of the snapshot.
+        snapshot = new Snapshot(chunks, size);
+    }
+
+    /**
+     * Gets the number of revisions in this list.
+     */
+    public int size() {
+        return snapshot.size();
+    }
+
+    /**
+     * Gets an unmodifiable snapshot of this list.  The snapshot will not be affected by subsequent additions.
+     * @return The snapshot.  Not {@code null}.
+     */
+    public List<Revision> asList() {
+        return snapshot;
+    }
+
+    private static class Snapshot extends AbstractList<Revision> implements RandomAccess {
+
+        private final Revision[][] chunks;
+
+        private final int size;
+
+        private Snapshot(Revision[][] chunks, int size) {
+            this.chunks = chunks;
+            this.size = size;
+        }
+
+        @Override
+        public Revision get(int index) {
+            checkElementIndex(index, size);
+            return chunks[index / CHUNK_SIZE][index % CHUNK_SIZE];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package edu.stanford.bmir.protege.web.server.owlapi.change;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import edu.stanford.bmir.protege.web.server.logging.WebProtegeLogger;
+
+import javax.inject.Inject;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Writes the durable parts of project changes (the change history and the ontology documents) on a single
+ * background writer, batching the writes of concurrent committers so that the files that were written to are
+ * forced to disk once per batch, rather than once per commit.
+ * <p>
+ *     Tasks are written, and become durable, in the order in which they were submitted.  Therefore, once the
+ *     future for a task has completed, all tasks that were submitted before it are also durable.
+ * </p>
+ * <p>
+ *     If a task fails then the tasks that follow it may depend upon it (for example, revision N + 1 can not be
+ *     replayed without revision N), so they are not written.  Once a task has failed, every later task fails with
+ *     the same cause.
+ * </p>
+ */
+public class GroupCommitLog {
+
+    private final WebProtegeLogger logger;
+
+    private static final long DISPOSE_TIMEOUT_SECONDS = 60;
+
+    private final ExecutorService writerExecutor;
+
+    private final List<PendingTask> pendingTasks = new ArrayList<>();
+
+    private boolean batchScheduled = false;
+
+    private Throwable failure = null;
+
+    @Inject
+    public GroupCommitLog(WebProtegeLogger logger) {
+        this(logger, Executors.newSingleThreadExecutor());
+    }
+
+    GroupCommitLog(WebProtegeLogger logger, ExecutorService writerExecutor) {
+        this.logger = checkNotNull(logger);
+        this.writerExecutor = checkNotNull(writerExecutor);
+    }
+
+    /**
+     * Submits a task for writing.
+     * @param task The task.  Not {@code null}.
+     * @return A future that completes once the task has been written and the files that it wrote to have been
+     * forced to disk.  The future fails if the task, or forcing its files, failed, or if an earlier task failed.
+     */
+    public ListenableFuture<Void> submit(GroupCommitTask task) {
+        checkNotNull(task);
+        PendingTask pendingTask = new PendingTask(task);
+        synchronized (pendingTasks) {
+            if (failure != null) {
+                pendingTask.future.setException(failure);
+                return pendingTask.future;
+            }
+            pendingTasks.add(pendingTask);
+            if (!batchScheduled) {
+                try {
+                    writerExecutor.submit(new Runnable() {
+                        @Override
+                        public void run() {
+                            writeBatch();
+                        }
+                    });
+                    batchScheduled = true;
+                } catch (RejectedExecutionException e) {
+                    // The log has been disposed of
+                    pendingTasks.remove(pendingTask);
+                    pendingTask.future.setException(e);
+                }
+            }
+        }
+        return pendingTask.future;
+    }
+
+    /**
+     * Waits for the specified future, which was obtained from this log, to complete.  Failures do not need to be
+     * logged by the caller because this log logs them as they occur.
+     * @param future The future.  Not {@code null}.
+     * @return {@code true} if the write succeeded, otherwise {@code false}.
+     */
+    public boolean awaitDurability(Future<Void> future) {
+        try {
+            future.get();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes any pending tasks and then stops the writer.  This method blocks until the pending tasks have been
+     * written.
+     */
+    public void dispose() {
+        writerExecutor.shutdown();
+        try {
+            if (!writerExecutor.awaitTermination(DISPOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                logger.info("Timed out waiting for pending changes to be written to disk");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeBatch() {
+        List<PendingTask> batch;
+        Throwable previousFailure;
+        synchronized (pendingTasks) {
+            batch = new ArrayList<>(pendingTasks);
+            pendingTasks.clear();
+            batchScheduled = false;
+            previousFailure = failure;
+        }
+        if (previousFailure != null) {
+            failAll(batch, previousFailure);
+            return;
+        }
+        Set<File> writtenFiles = new LinkedHashSet<>();
+        List<PendingTask> writtenTasks = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            PendingTask pendingTask = batch.get(i);
+            try {
+                writtenFiles.addAll(pendingTask.task.write());
+                writtenTasks.add(pendingTask);
+            } catch (IOException | RuntimeException e) {
+                logger.severe(e);
+                setFailed(e);
+                // Don't write the tasks that follow, because they may depend on the one that failed
+                failAll(batch.subList(i, batch.size()), e);
+                break;
+            }
+        }
+        try {
+            for (File file : writtenFiles) {
+                force(file);
+            }
+            for (PendingTask pendingTask : writtenTasks) {
+                pendingTask.future.set(null);
+            }
+        } catch (IOException e) {
+            logger.severe(e);
+            setFailed(e);
+            failAll(writtenTasks, e);
+        }
+    }
+
+    private void setFailed(Throwable cause) {
+        synchronized (pendingTasks) {
+            if (failure == null) {
+                failure = cause;
+            }
+        }
+    }
+
+    private static void failAll(List<PendingTask> tasks, Throwable cause) {
+        for (PendingTask pendingTask : tasks) {
+            pendingTask.future.setException(cause);
+        }
+    }
+
+    private static void force(File file) throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+        // Forcing a channel flushes all of the data for the underlying file, including data that was written
+        // through other streams.
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+
+    private static class PendingTask {
+
+        private final GroupCommitTask task;
+
+        private final SettableFuture<Void> future = SettableFuture.create();
+
+        private PendingTask(GroupCommitTask task) {
+            this.task = task;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package edu.stanford.bmir.protege.web.server.owlapi.change;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * A write that is performed by a {@link GroupCommitLog}.
+ */
+public interface GroupCommitTask {
+
+    /**
+     * Performs the write.
+     * @return The files that were written to, which will be forced to disk at the end of the batch that this
+     * task belongs to.  Not {@code null}.
+     * @throws IOException If the write failed.
+     */
+    Collection<File> write() throws IOException;
+}
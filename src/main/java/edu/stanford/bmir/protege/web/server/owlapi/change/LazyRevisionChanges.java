@@ -0,0 +1,69 @@
+package edu.stanford.bmir.protege.web.server.owlapi.change;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+import org.semanticweb.owlapi.change.OWLOntologyChangeRecord;
+
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Supplies the change records of a revision by reading them from the change log on demand.  Records that have
+ * been read are softly cached so that they are retained while there is enough memory, but can be reclaimed
+ * (and re-read later) when there is not.
+ */
+public class LazyRevisionChanges implements Supplier<ImmutableList<OWLOntologyChangeRecord>> {
+
+    private final ChangeLogSegmentReader reader;
+
+    private final long startOffset;
+
+    private final long endOffset;
+
+    private SoftReference<ImmutableList<OWLOntologyChangeRecord>> cachedChanges = new SoftReference<>(null);
+
+    public LazyRevisionChanges(ChangeLogSegmentReader reader, long startOffset, long endOffset) {
+        this.reader = checkNotNull(reader);
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+    }
+
+    @Override
+    public synchronized ImmutableList<OWLOntologyChangeRecord> get() {
+        ImmutableList<OWLOntologyChangeRecord> changes = cachedChanges.get();
+        if (changes == null) {
+            try {
+                changes = reader.readChanges(startOffset, endOffset);
+                cachedChanges = new SoftReference<>(changes);
+            } catch (IOException e) {
+                throw new RuntimeException("Could not read changes from change log: " + e.getMessage(), e);
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Two suppliers are equal if they read the same range of the same change log, and so supply the same changes.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof LazyRevisionChanges)) {
+            return false;
+        }
+        LazyRevisionChanges other = (LazyRevisionChanges) obj;
+        return this.reader.equals(other.reader)
+                && this.startOffset == other.startOffset
+                && this.endOffset == other.endOffset;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(reader, startOffset, endOffset);
+    }
+}
@@ -0,0 +1,127 @@
+package edu.stanford.bmir.protege.web.server.owlapi.change;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import org.semanticweb.owlapi.change.AddAxiomData;
+import org.semanticweb.owlapi.change.AddImportData;
+import org.semanticweb.owlapi.change.AddOntologyAnnotationData;
+import org.semanticweb.owlapi.change.OWLOntologyChangeRecord;
+import org.semanticweb.owlapi.model.*;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Iterator;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A list of the change records that add the contents (axioms, ontology annotations and imports declarations) of a
+ * set of ontologies.  The records are generated on the fly while the list is iterated over, so the list does not
+ * hold a copy of the ontology contents.  The list is intended to be iterated over; getting a record by its position
+ * takes time that is linear in the position.  The ontologies must not be changed while the list is in use.
+ */
+public class OntologyContentsChangeRecordList extends AbstractList<OWLOntologyChangeRecord> {
+
+    /**
+     * Receives the number of records that have been generated as the list is iterated over.
+     */
+    public interface ProgressListener {
+
+        void handleProgress(int recordsGenerated, int totalRecords);
+    }
+
+    private static final int PROGRESS_INTERVAL = 100000;
+
+    private final ImmutableList<OWLOntology> ontologies;
+
+    private final ProgressListener progressListener;
+
+    private final int size;
+
+    public OntologyContentsChangeRecordList(Collection<OWLOntology> ontologies) {
+        this(ontologies, new ProgressListener() {
+            @Override
+            public void handleProgress(int recordsGenerated, int totalRecords) {
+            }
+        });
+    }
+
+    public OntologyContentsChangeRecordList(Collection<OWLOntology> ontologies, ProgressListener progressListener) {
+        this.ontologies = ImmutableList.copyOf(ontologies);
+        this.progressListener = checkNotNull(progressListener);
+        int size = 0;
+        for(OWLOntology ont : this.ontologies) {
+            size += ont.getAxiomCount();
+            size += ont.getAnnotations().size();
+            size += ont.getImportsDeclarations().size();
+        }
+        this.size = size;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public OWLOntologyChangeRecord get(int index) {
+        if(index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return Iterables.get(this, index);
+    }
+
+    @Override
+    public Iterator<OWLOntologyChangeRecord> iterator() {
+        return new AbstractIterator<OWLOntologyChangeRecord>() {
+
+            private final Iterator<OWLOntology> ontologyIterator = ontologies.iterator();
+
+            private OWLOntology currentOntology = null;
+
+            private Iterator<OWLAxiom> axiomIterator = null;
+
+            private Iterator<OWLAnnotation> annotationIterator = null;
+
+            private Iterator<OWLImportsDeclaration> importsDeclarationIterator = null;
+
+            private int recordsGenerated = 0;
+
+            @Override
+            protected OWLOntologyChangeRecord computeNext() {
+                while (true) {
+                    if(currentOntology == null) {
+                        if(!ontologyIterator.hasNext()) {
+                            progressListener.handleProgress(recordsGenerated, size);
+                            return endOfData();
+                        }
+                        currentOntology = ontologyIterator.next();
+                        axiomIterator = currentOntology.getAxioms().iterator();
+                        annotationIterator = currentOntology.getAnnotations().iterator();
+                        importsDeclarationIterator = currentOntology.getImportsDeclarations().iterator();
+                    }
+                    OWLOntologyID ontologyId = currentOntology.getOntologyID();
+                    if(axiomIterator.hasNext()) {
+                        return generated(new OWLOntologyChangeRecord(ontologyId, new AddAxiomData(axiomIterator.next())));
+                    }
+                    if(annotationIterator.hasNext()) {
+                        return generated(new OWLOntologyChangeRecord(ontologyId, new AddOntologyAnnotationData(annotationIterator.next())));
+                    }
+                    if(importsDeclarationIterator.hasNext()) {
+                        return generated(new OWLOntologyChangeRecord(ontologyId, new AddImportData(importsDeclarationIterator.next())));
+                    }
+                    currentOntology = null;
+                }
+            }
+
+            private OWLOntologyChangeRecord generated(OWLOntologyChangeRecord record) {
+                recordsGenerated++;
+                if(recordsGenerated % PROGRESS_INTERVAL == 0) {
+                    progressListener.handleProgress(recordsGenerated, size);
+                }
+                return record;
+            }
+        };
+    }
+}
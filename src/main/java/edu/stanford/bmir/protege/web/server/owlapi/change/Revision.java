@@ -4,6 +4,9 @@ import com.google.common.base.*;
 import static com.google.common.base.Objects.*;
 
 import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
 import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
 import edu.stanford.bmir.protege.web.shared.user.UserId;
@@ -30,7 +33,9 @@ public class Revision implements Iterable<OWLOntologyChangeRecord>, Comparable<R
 
     private long timestamp;
 
-    private final ImmutableList<OWLOntologyChangeRecord> changes;
+    private final Supplier<ImmutableList<OWLOntologyChangeRecord>> changes;
+
+    private final Optional<Integer> changeCount;
 
     private final String highLevelDescription;
 
@@ -38,7 +43,31 @@ public class Revision implements Iterable<OWLOntologyChangeRecord>, Comparable<R
                     ImmutableList<OWLOntologyChangeRecord> changes,
                     long timestamp,
                     String highLevelDescription) {
+        this.changes = Suppliers.ofInstance(checkNotNull(changes));
+        this.changeCount = Optional.absent();
+        this.userId = checkNotNull(userId);
+        this.revisionNumber = checkNotNull(revisionNumber);
+        this.timestamp = timestamp;
+        this.highLevelDescription = checkNotNull(highLevelDescription);
+    }
+
+    /**
+     * Constructs a revision whose change records are obtained on demand from the specified supplier.  This allows
+     * a revision to be held in memory without holding its (possibly large) list of changes.
+     * @param userId The user that created the revision.  Not {@code null}.
+     * @param revisionNumber The revision number.  Not {@code null}.
+     * @param changeCount The number of changes that the supplier will supply.
+     * @param changes A supplier for the changes.  Not {@code null}.
+     * @param timestamp The timestamp of the revision.
+     * @param highLevelDescription The description of the revision.  Not {@code null}.
+     */
+    public Revision(UserId userId, RevisionNumber revisionNumber,
+                    int changeCount,
+                    Supplier<ImmutableList<OWLOntologyChangeRecord>> changes,
+                    long timestamp,
+                    String highLevelDescription) {
         this.changes = checkNotNull(changes);
+        this.changeCount = Optional.of(changeCount);
         this.userId = checkNotNull(userId);
         this.revisionNumber = checkNotNull(revisionNumber);
         this.timestamp = timestamp;
@@ -46,11 +75,14 @@ public class Revision implements Iterable<OWLOntologyChangeRecord>, Comparable<R
     }
 
     public int getSize() {
-        return changes.size();
+        if(changeCount.isPresent()) {
+            return changeCount.get();
+        }
+        return changes.get().size();
     }
 
     public ImmutableList<OWLOntologyChangeRecord> getChanges() {
-        return changes;
+        return changes.get();
     }
 
     public static Revision createEmptyRevisionWithRevisionNumber(RevisionNumber revision) {
@@ -78,7 +110,7 @@ public class Revision implements Iterable<OWLOntologyChangeRecord>, Comparable<R
     }
 
     public Iterator<OWLOntologyChangeRecord> iterator() {
-        return changes.iterator();
+        return getChanges().iterator();
     }
 
 
@@ -89,10 +121,14 @@ public class Revision implements Iterable<OWLOntologyChangeRecord>, Comparable<R
                 .addValue(userId)
                 .add("timestamp", timestamp)
                 .add("description", highLevelDescription)
-                .addValue(changes)
+                .add("changes", getSize())
                 .toString();
     }
 
+    /**
+     * Two revisions are equal if they have the same metadata and the same changes.  The changes of two lazily loaded
+     * revisions are compared by their position in the change log, so that they do not need to be read to do so.
+     */
     @Override
     public boolean equals(Object obj) {
         if (obj == this) {
@@ -106,11 +142,23 @@ public class Revision implements Iterable<OWLOntologyChangeRecord>, Comparable<R
                 && this.revisionNumber.equals(other.revisionNumber)
                 && this.timestamp == other.timestamp
                 && this.highLevelDescription.equals(other.highLevelDescription)
-                && this.changes.equals(other.changes);
+                && this.getSize() == other.getSize()
+                && hasSameChangesAs(other);
+    }
+
+    private boolean hasSameChangesAs(Revision other) {
+        if (this.changes instanceof LazyRevisionChanges && other.changes instanceof LazyRevisionChanges) {
+            return this.changes.equals(other.changes);
+        }
+        return this.getChanges().equals(other.getChanges());
     }
 
+    /**
+     * The hash code does not include the changes, because a lazily loaded revision may be equal to one whose changes
+     * are held in memory.
+     */
     @Override
     public int hashCode() {
-        return Objects.hashCode(userId, revisionNumber, timestamp, highLevelDescription, changes);
+        return Objects.hashCode(userId, revisionNumber, timestamp, highLevelDescription, getSize());
     }
 }
@@ -0,0 +1,277 @@
+package edu.stanford.bmir.protege.web.server.owlapi.change;
+
+import com.google.common.base.Optional;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import edu.stanford.bmir.protege.web.server.inject.project.RevisionCheckpointDirectory;
+import edu.stanford.bmir.protege.web.server.logging.WebProtegeLogger;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import org.semanticweb.binaryowl.BinaryOWLChangeLogHandler;
+import org.semanticweb.binaryowl.BinaryOWLMetadata;
+import org.semanticweb.binaryowl.BinaryOWLOntologyChangeLog;
+import org.semanticweb.binaryowl.BinaryOWLParseException;
+import org.semanticweb.binaryowl.change.OntologyChangeRecordList;
+import org.semanticweb.binaryowl.chunk.SkipSetting;
+import org.semanticweb.owlapi.change.AddAxiomData;
+import org.semanticweb.owlapi.change.AddImportData;
+import org.semanticweb.owlapi.change.AddOntologyAnnotationData;
+import org.semanticweb.owlapi.change.OWLOntologyChangeRecord;
+import org.semanticweb.owlapi.model.*;
+
+import javax.inject.Inject;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Stores snapshots (checkpoints) of the state of the project ontologies at particular revisions.  A checkpoint
+ * allows the ontologies at a historical revision to be rebuilt by restoring the nearest preceding checkpoint and
+ * then replaying the (few) revisions after it, rather than replaying the complete change history.
+ * <p>
+ *     A checkpoint is stored as a binary OWL change log that contains one change list per ontology.  Each list
+ *     contains the records that add the content of the ontology to an empty ontology, and its metadata holds
+ *     the id of the ontology (so that empty ontologies are also restored).
+ * </p>
+ */
+public class RevisionCheckpointStore {
+
+    /**
+     * The maximum number of revisions that should be replayed beyond a checkpoint before a new checkpoint is taken.
+     */
+    public static final int REVISION_INTERVAL = 500;
+
+    /**
+     * The maximum number of change records that should be replayed beyond a checkpoint before a new checkpoint is
+     * taken.
+     */
+    public static final int CHANGE_INTERVAL = 250000;
+
+    private static final Pattern CHECKPOINT_FILE_NAME_PATTERN = Pattern.compile("checkpoint-(\\d+)\\.binary");
+
+    private static final String ONTOLOGY_IRI_METADATA_ATTRIBUTE = "ontologyIRI";
+
+    private static final String VERSION_IRI_METADATA_ATTRIBUTE = "versionIRI";
+
+    private final File checkpointDirectory;
+
+    private final OWLDataFactory dataFactory;
+
+    private final WebProtegeLogger logger;
+
+    private final Executor writeExecutor;
+
+    private final AtomicBoolean writePending = new AtomicBoolean();
+
+    private NavigableSet<Long> checkpoints = null;
+
+    @Inject
+    public RevisionCheckpointStore(@RevisionCheckpointDirectory File checkpointDirectory,
+                                   OWLDataFactory dataFactory,
+                                   WebProtegeLogger logger) {
+        this(checkpointDirectory, dataFactory, logger, createWriteExecutor());
+    }
+
+    RevisionCheckpointStore(File checkpointDirectory,
+                            OWLDataFactory dataFactory,
+                            WebProtegeLogger logger,
+                            Executor writeExecutor) {
+        this.checkpointDirectory = checkNotNull(checkpointDirectory);
+        this.dataFactory = checkNotNull(dataFactory);
+        this.logger = checkNotNull(logger);
+        this.writeExecutor = checkNotNull(writeExecutor);
+    }
+
+    private static Executor createWriteExecutor() {
+        // At most one checkpoint is pending at a time (see writeCheckpoint), so the queue never needs to hold more
+        // than one
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(1),
+                new ThreadFactoryBuilder()
+                        .setNameFormat("revision-checkpoint-writer-%d")
+                        .setPriority(Thread.MIN_PRIORITY)
+                        .setDaemon(true)
+                        .build());
+        // Checkpoints are written infrequently, so don't keep the thread around between them
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Determines whether a checkpoint should be taken given the amount of history that has been replayed since
+     * the last checkpoint.
+     * @param revisionCount The number of revisions replayed since the last checkpoint.
+     * @param changeCount The number of change records replayed since the last checkpoint.
+     */
+    public boolean isCheckpointDue(int revisionCount, int changeCount) {
+        return revisionCount >= REVISION_INTERVAL || changeCount >= CHANGE_INTERVAL;
+    }
+
+    /**
+     * Gets the revision number of the latest checkpoint that is at or before the specified revision.
+     * @param revisionNumber The revision number.  Not {@code null}.
+     * @return The revision number of the checkpoint, or an absent value if there is no such checkpoint.
+     */
+    public Optional<RevisionNumber> getLatestCheckpoint(RevisionNumber revisionNumber) {
+        Long checkpoint = getCheckpoints().floor(revisionNumber.getValue());
+        if (checkpoint == null) {
+            return Optional.absent();
+        }
+        return Optional.of(RevisionNumber.getRevisionNumber(checkpoint));
+    }
+
+    /**
+     * Reads the checkpoint for the specified revision.
+     * @param revisionNumber The revision number of the checkpoint.  Not {@code null}.
+     * @return A map from ontology id to the records that add the content of the ontology with that id to an
+     * empty ontology.  The map iterates in the order that the ontologies were written.
+     * @throws IOException If the checkpoint could not be read.
+     */
+    public Map<OWLOntologyID, List<OWLOntologyChangeRecord>> readCheckpoint(RevisionNumber revisionNumber) throws IOException {
+        final Map<OWLOntologyID, List<OWLOntologyChangeRecord>> result = new LinkedHashMap<>();
+        try (InputStream is = new BufferedInputStream(new FileInputStream(getCheckpointFile(revisionNumber.getValue())))) {
+            BinaryOWLOntologyChangeLog changeLog = new BinaryOWLOntologyChangeLog();
+            changeLog.readChanges(is, dataFactory, new BinaryOWLChangeLogHandler() {
+                public void handleChangesRead(OntologyChangeRecordList list, SkipSetting skipSetting, long l) {
+                    OWLOntologyID ontologyId = getOntologyId(list.getMetadata());
+                    result.put(ontologyId, new ArrayList<>(list.getChangeRecords()));
+                }
+            }, SkipSetting.SKIP_NONE);
+        } catch (BinaryOWLParseException e) {
+            throw new IOException("Corrupt checkpoint", e);
+        }
+        return result;
+    }
+
+    /**
+     * Writes a checkpoint of the ontologies in the specified manager in the background, so that the caller does not
+     * wait for it.  The content of the ontologies is read by the writer, so the manager must not be changed once it
+     * has been passed to this method.  Only one checkpoint is written at a time.  A checkpoint that is requested
+     * while another one is pending is skipped, so that the managers of several replays are not held in memory
+     * waiting to be written.  Failure to write a checkpoint is logged, but is otherwise harmless because the
+     * checkpoint can always be recreated from the change history.
+     * @param revisionNumber The revision that the state of the manager corresponds to.  Not {@code null}.
+     * @param manager The manager.  Not {@code null}.
+     */
+    public void writeCheckpoint(RevisionNumber revisionNumber, final OWLOntologyManager manager) {
+        checkNotNull(manager);
+        final long revision = revisionNumber.getValue();
+        if (getCheckpoints().contains(revision) || !writePending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            writeExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        writeCheckpointFile(revision, manager);
+                    } finally {
+                        writePending.set(false);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            writePending.set(false);
+        }
+    }
+
+    private synchronized void writeCheckpointFile(long revision, OWLOntologyManager manager) {
+        File checkpointFile = getCheckpointFile(revision);
+        File tmpFile = new File(checkpointDirectory, checkpointFile.getName() + ".tmp");
+        try {
+            checkpointDirectory.mkdirs();
+            Files.deleteIfExists(tmpFile.toPath());
+            BinaryOWLOntologyChangeLog changeLog = new BinaryOWLOntologyChangeLog();
+            for (OWLOntology ontology : manager.getOntologies()) {
+                changeLog.appendChanges(new OntologyChangeRecordList(
+                        System.currentTimeMillis(),
+                        getMetadata(ontology.getOntologyID()),
+                        getContentChangeRecords(ontology)), tmpFile);
+            }
+            Files.move(tmpFile.toPath(), checkpointFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            getCheckpoints().add(revision);
+        } catch (IOException e) {
+            logger.info("Could not write checkpoint for revision %d.  Cause: %s", revision, e.getMessage());
+            tmpFile.delete();
+        }
+    }
+
+    private synchronized NavigableSet<Long> getCheckpoints() {
+        if (checkpoints == null) {
+            checkpoints = new ConcurrentSkipListSet<>();
+            File[] files = checkpointDirectory.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    Matcher matcher = CHECKPOINT_FILE_NAME_PATTERN.matcher(file.getName());
+                    if (matcher.matches()) {
+                        checkpoints.add(Long.parseLong(matcher.group(1)));
+                    }
+                }
+            }
+        }
+        return checkpoints;
+    }
+
+    private File getCheckpointFile(long revision) {
+        return new File(checkpointDirectory, "checkpoint-" + revision + ".binary");
+    }
+
+    private static List<OWLOntologyChangeRecord> getContentChangeRecords(OWLOntology ontology) {
+        OWLOntologyID id = ontology.getOntologyID();
+        List<OWLOntologyChangeRecord> records = new ArrayList<>();
+        for (OWLImportsDeclaration importsDeclaration : ontology.getImportsDeclarations()) {
+            records.add(new OWLOntologyChangeRecord(id, new AddImportData(importsDeclaration)));
+        }
+        for (OWLAnnotation annotation : ontology.getAnnotations()) {
+            records.add(new OWLOntologyChangeRecord(id, new AddOntologyAnnotationData(annotation)));
+        }
+        for (OWLAxiom axiom : ontology.getAxioms()) {
+            records.add(new OWLOntologyChangeRecord(id, new AddAxiomData(axiom)));
+        }
+        return records;
+    }
+
+    private static BinaryOWLMetadata getMetadata(OWLOntologyID ontologyId) {
+        BinaryOWLMetadata metadata = new BinaryOWLMetadata();
+        if (!ontologyId.isAnonymous()) {
+            metadata.setStringAttribute(ONTOLOGY_IRI_METADATA_ATTRIBUTE, ontologyId.getOntologyIRI().toString());
+            if (ontologyId.getVersionIRI() != null) {
+                metadata.setStringAttribute(VERSION_IRI_METADATA_ATTRIBUTE, ontologyId.getVersionIRI().toString());
+            }
+        }
+        return metadata;
+    }
+
+    private static OWLOntologyID getOntologyId(BinaryOWLMetadata metadata) {
+        String ontologyIRI = metadata.getStringAttribute(ONTOLOGY_IRI_METADATA_ATTRIBUTE, "");
+        if (ontologyIRI.isEmpty()) {
+            return new OWLOntologyID();
+        }
+        String versionIRI = metadata.getStringAttribute(VERSION_IRI_METADATA_ATTRIBUTE, "");
+        if (versionIRI.isEmpty()) {
+            return new OWLOntologyID(IRI.create(ontologyIRI));
+        }
+        return new OWLOntologyID(IRI.create(ontologyIRI), IRI.create(versionIRI));
+    }
+}
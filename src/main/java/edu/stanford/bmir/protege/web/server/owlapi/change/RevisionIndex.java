@@ -0,0 +1,117 @@
+package edu.stanford.bmir.protege.web.server.owlapi.change;
+
+import com.google.common.base.Charsets;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An append-only index that sits beside a binary change log.  For each revision in the log the index stores
+ * the revision metadata and the offsets of the revision in the log.  This means that revision summaries
+ * can be loaded without parsing any change records, and that the change records of a given revision can be
+ * read on demand by seeking into the log.
+ */
+public class RevisionIndex {
+
+    private static final int VERSION = 1;
+
+    private final File indexFile;
+
+    public RevisionIndex(File indexFile) {
+        this.indexFile = checkNotNull(indexFile);
+    }
+
+    public File getFile() {
+        return indexFile;
+    }
+
+    public boolean exists() {
+        return indexFile.exists();
+    }
+
+    /**
+     * Reads all of the entries in this index.
+     * @return The entries, in the order that they were appended.
+     * @throws IOException If the index could not be read or it is truncated or corrupt.
+     */
+    public List<RevisionIndexEntry> read() throws IOException {
+        List<RevisionIndexEntry> entries = new ArrayList<>();
+        try (DataInputStream is = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            while (true) {
+                int version;
+                try {
+                    version = is.readInt();
+                } catch (EOFException e) {
+                    // Clean end of index
+                    break;
+                }
+                if (version != VERSION) {
+                    throw new IOException("Unknown revision index entry version: " + version);
+                }
+                RevisionNumber revisionNumber = RevisionNumber.getRevisionNumber(is.readLong());
+                UserId userId = UserId.getUserId(is.readUTF());
+                long timestamp = is.readLong();
+                byte[] descriptionBytes = new byte[is.readInt()];
+                is.readFully(descriptionBytes);
+                String description = new String(descriptionBytes, Charsets.UTF_8);
+                int changeCount = is.readInt();
+                long startOffset = is.readLong();
+                long endOffset = is.readLong();
+                entries.add(new RevisionIndexEntry(revisionNumber,
+                        userId,
+                        timestamp,
+                        description,
+                        changeCount,
+                        startOffset,
+                        endOffset));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Appends an entry to this index.
+     * @param entry The entry.  Not {@code null}.
+     * @throws IOException If there was a problem writing the entry.
+     */
+    public void append(RevisionIndexEntry entry) throws IOException {
+        try (DataOutputStream os = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile, true)))) {
+            writeEntry(entry, os);
+        }
+    }
+
+    /**
+     * Replaces the contents of this index with the specified entries.
+     * @param entries The entries.  Not {@code null}.
+     * @throws IOException If there was a problem writing the entries.
+     */
+    public void write(List<RevisionIndexEntry> entries) throws IOException {
+        try (DataOutputStream os = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile, false)))) {
+            for (RevisionIndexEntry entry : entries) {
+                writeEntry(entry, os);
+            }
+        }
+    }
+
+    public void delete() {
+        indexFile.delete();
+    }
+
+    private static void writeEntry(RevisionIndexEntry entry, DataOutputStream os) throws IOException {
+        os.writeInt(VERSION);
+        os.writeLong(entry.getRevisionNumber().getValue());
+        os.writeUTF(entry.getUserId().getUserName());
+        os.writeLong(entry.getTimestamp());
+        byte[] descriptionBytes = entry.getDescription().getBytes(Charsets.UTF_8);
+        os.writeInt(descriptionBytes.length);
+        os.write(descriptionBytes);
+        os.writeInt(entry.getChangeCount());
+        os.writeLong(entry.getStartOffset());
+        os.writeLong(entry.getEndOffset());
+    }
+}
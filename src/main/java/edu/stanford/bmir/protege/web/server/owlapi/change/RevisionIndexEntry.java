@@ -0,0 +1,108 @@
+package edu.stanford.bmir.protege.web.server.owlapi.change;
+
+import com.google.common.base.Objects;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+
+import static com.google.common.base.Objects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Describes a revision that is stored in a binary change log, along with the byte range of the log that holds
+ * the revision's change records.
+ */
+public class RevisionIndexEntry {
+
+    private final RevisionNumber revisionNumber;
+
+    private final UserId userId;
+
+    private final long timestamp;
+
+    private final String description;
+
+    private final int changeCount;
+
+    private final long startOffset;
+
+    private final long endOffset;
+
+    public RevisionIndexEntry(RevisionNumber revisionNumber,
+                              UserId userId,
+                              long timestamp,
+                              String description,
+                              int changeCount,
+                              long startOffset,
+                              long endOffset) {
+        this.revisionNumber = checkNotNull(revisionNumber);
+        this.userId = checkNotNull(userId);
+        this.timestamp = timestamp;
+        this.description = checkNotNull(description);
+        this.changeCount = changeCount;
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+    }
+
+    public RevisionNumber getRevisionNumber() {
+        return revisionNumber;
+    }
+
+    public UserId getUserId() {
+        return userId;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public int getChangeCount() {
+        return changeCount;
+    }
+
+    public long getStartOffset() {
+        return startOffset;
+    }
+
+    public long getEndOffset() {
+        return endOffset;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(revisionNumber, userId, timestamp, description, changeCount, startOffset, endOffset);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof RevisionIndexEntry)) {
+            return false;
+        }
+        RevisionIndexEntry other = (RevisionIndexEntry) obj;
+        return this.revisionNumber.equals(other.revisionNumber)
+                && this.userId.equals(other.userId)
+                && this.timestamp == other.timestamp
+                && this.description.equals(other.description)
+                && this.changeCount == other.changeCount
+                && this.startOffset == other.startOffset
+                && this.endOffset == other.endOffset;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper("RevisionIndexEntry")
+                .addValue(revisionNumber)
+                .addValue(userId)
+                .add("timestamp", timestamp)
+                .add("changeCount", changeCount)
+                .add("startOffset", startOffset)
+                .add("endOffset", endOffset)
+                .toString();
+    }
+}
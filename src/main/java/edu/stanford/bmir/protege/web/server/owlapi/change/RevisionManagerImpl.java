@@ -10,6 +10,7 @@ import org.semanticweb.owlapi.change.*;
 import org.semanticweb.owlapi.model.*;
 
 import javax.inject.Inject;
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
@@ -33,9 +34,12 @@ public class RevisionManagerImpl implements RevisionManager {
 
     private final RevisionStore revisionStore;
 
+    private final RevisionCheckpointStore checkpointStore;
+
     @Inject
-    public RevisionManagerImpl(RevisionStore revisionStore) {
+    public RevisionManagerImpl(RevisionStore revisionStore, RevisionCheckpointStore checkpointStore) {
         this.revisionStore = checkNotNull(revisionStore);
+        this.checkpointStore = checkNotNull(checkpointStore);
     }
 
     @Override
@@ -65,24 +69,52 @@ public class RevisionManagerImpl implements RevisionManager {
         return revisionStore.getCurrentRevisionNumber();
     }
 
+    /**
+     * Gets an ontology manager that contains the project ontologies as they were at the specified revision.  The
+     * ontologies are rebuilt from the latest checkpoint at or before the specified revision, followed by a replay
+     * of the revisions after the checkpoint.  If the replay was long then a checkpoint of the replayed revision is
+     * written in the background, so that subsequent requests for it and later revisions are cheaper.
+     * @param revision The revision.  Not {@code null}.
+     * @return A fresh ontology manager.  Not {@code null}.
+     */
     @Override
     public OWLOntologyManager getOntologyManagerForRevision(RevisionNumber revision) {
          try {
             OWLOntologyManager manager = WebProtegeOWLManager.createOWLOntologyManager();
             final OWLOntologyID singletonOntologyId = new OWLOntologyID();
+            RevisionNumber replayStart = RevisionNumber.getRevisionNumber(0);
+            Optional<RevisionNumber> checkpoint = checkpointStore.getLatestCheckpoint(revision);
+            if(checkpoint.isPresent()) {
+                try {
+                    restoreCheckpoint(checkpoint.get(), manager, singletonOntologyId);
+                    replayStart = checkpoint.get();
+                } catch (IOException e) {
+                    // Fall back to a full replay into a fresh manager
+                    manager = WebProtegeOWLManager.createOWLOntologyManager();
+                }
+            }
+            int revisionsSinceCheckpoint = 0;
+            int changesSinceCheckpoint = 0;
+            RevisionNumber lastReplayedRevision = replayStart;
             for (Revision rev : revisionStore.getRevisions()) {
-                if(rev.getRevisionNumber().compareTo(revision) <= 0)
+                RevisionNumber revisionNumber = rev.getRevisionNumber();
+                if (revisionNumber.compareTo(replayStart) <= 0) {
+                    continue;
+                }
+                if (revisionNumber.compareTo(revision) > 0) {
+                    break;
+                }
                 for (OWLOntologyChangeRecord record : rev) {
-                    // Anonymous ontologies are not handled nicely at all.
-                    OWLOntologyChangeRecord normalisedChangeRecord = normaliseChangeRecord(record, singletonOntologyId);
-                    OWLOntologyID ontologyId = normalisedChangeRecord.getOntologyID();
-                    if (!manager.contains(ontologyId)) {
-                        manager.createOntology(ontologyId);
-                    }
-
-                    OWLOntologyChange change = normalisedChangeRecord.createOntologyChange(manager);
-                    manager.applyChange(change);
+                    applyChangeRecord(manager, record, singletonOntologyId);
                 }
+                revisionsSinceCheckpoint++;
+                changesSinceCheckpoint += rev.getSize();
+                lastReplayedRevision = revisionNumber;
+            }
+            if(checkpointStore.isCheckpointDue(revisionsSinceCheckpoint, changesSinceCheckpoint)) {
+                // The checkpoint is read from the manager in the background, so it is only taken once the replay has
+                // finished and the manager is no longer changed
+                checkpointStore.writeCheckpoint(lastReplayedRevision, manager);
             }
             if (manager.getOntologies().isEmpty()) {
                 // No revisions exported.  Just create an empty ontology
@@ -94,6 +126,34 @@ public class RevisionManagerImpl implements RevisionManager {
         }
     }
 
+    private void restoreCheckpoint(RevisionNumber checkpoint,
+                                   OWLOntologyManager manager,
+                                   OWLOntologyID singletonOntologyId) throws IOException, OWLOntologyCreationException {
+        Map<OWLOntologyID, List<OWLOntologyChangeRecord>> ontologies = checkpointStore.readCheckpoint(checkpoint);
+        for(OWLOntologyID ontologyId : ontologies.keySet()) {
+            OWLOntologyID normalisedOntologyId = ontologyId.isAnonymous() ? singletonOntologyId : ontologyId;
+            if(!manager.contains(normalisedOntologyId)) {
+                manager.createOntology(normalisedOntologyId);
+            }
+            for(OWLOntologyChangeRecord record : ontologies.get(ontologyId)) {
+                applyChangeRecord(manager, record, singletonOntologyId);
+            }
+        }
+    }
+
+    private void applyChangeRecord(OWLOntologyManager manager,
+                                   OWLOntologyChangeRecord record,
+                                   OWLOntologyID singletonOntologyId) throws OWLOntologyCreationException {
+        // Anonymous ontologies are not handled nicely at all.
+        OWLOntologyChangeRecord normalisedChangeRecord = normaliseChangeRecord(record, singletonOntologyId);
+        OWLOntologyID ontologyId = normalisedChangeRecord.getOntologyID();
+        if (!manager.contains(ontologyId)) {
+            manager.createOntology(ontologyId);
+        }
+        OWLOntologyChange change = normalisedChangeRecord.createOntologyChange(manager);
+        manager.applyChange(change);
+    }
+
     private OWLOntologyChangeRecord normaliseChangeRecord(OWLOntologyChangeRecord changeRecord, OWLOntologyID singletonAnonymousId) {
         OWLOntologyID ontologyID = changeRecord.getOntologyID();
         if (ontologyID.isAnonymous()) {
@@ -1,11 +1,15 @@
 package edu.stanford.bmir.protege.web.server.owlapi.change;
 
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
 import org.semanticweb.binaryowl.BinaryOWLMetadata;
 import org.semanticweb.binaryowl.BinaryOWLOntologyChangeLog;
 import org.semanticweb.binaryowl.change.OntologyChangeRecordList;
+import org.semanticweb.owlapi.change.OWLOntologyChangeRecord;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
 import java.util.concurrent.Callable;
 
 import static edu.stanford.bmir.protege.web.server.owlapi.change.RevisionSerializationVocabulary.*;
@@ -20,21 +24,51 @@ public class RevisionSerializationTask implements Callable<Integer> {
 
     private final File file;
 
-    private final Revision revision;
+    private final UserId userId;
+
+    private final RevisionNumber revisionNumber;
+
+    private final long timestamp;
+
+    private final String description;
+
+    private final List<OWLOntologyChangeRecord> changeRecords;
 
     public RevisionSerializationTask(File file, Revision revision) {
+        this(file,
+                revision.getUserId(),
+                revision.getRevisionNumber(),
+                revision.getTimestamp(),
+                revision.getHighLevelDescription(),
+                revision.getChanges());
+    }
+
+    /**
+     * Constructs a task that serializes a revision whose change records are given by a list.  The list is only
+     * iterated over, so it may generate its records on the fly rather than hold them in memory.
+     */
+    public RevisionSerializationTask(File file,
+                                     UserId userId,
+                                     RevisionNumber revisionNumber,
+                                     long timestamp,
+                                     String description,
+                                     List<OWLOntologyChangeRecord> changeRecords) {
         this.file = file;
-        this.revision = revision;
+        this.userId = userId;
+        this.revisionNumber = revisionNumber;
+        this.timestamp = timestamp;
+        this.description = description;
+        this.changeRecords = changeRecords;
     }
 
     public Integer call() throws IOException {
         BinaryOWLMetadata metadata = new BinaryOWLMetadata();
-        metadata.setStringAttribute(USERNAME_METADATA_ATTRIBUTE.getVocabularyName(), revision.getUserId().getUserName());
-        metadata.setLongAttribute(REVISION_META_DATA_ATTRIBUTE.getVocabularyName(), revision.getRevisionNumber().getValue());
-        metadata.setStringAttribute(DESCRIPTION_META_DATA_ATTRIBUTE.getVocabularyName(), revision.getHighLevelDescription());
+        metadata.setStringAttribute(USERNAME_METADATA_ATTRIBUTE.getVocabularyName(), userId.getUserName());
+        metadata.setLongAttribute(REVISION_META_DATA_ATTRIBUTE.getVocabularyName(), revisionNumber.getValue());
+        metadata.setStringAttribute(DESCRIPTION_META_DATA_ATTRIBUTE.getVocabularyName(), description);
         metadata.setStringAttribute(REVISION_TYPE_META_DATA_ATTRIBUTE.getVocabularyName(), RevisionType.EDIT.name());
         BinaryOWLOntologyChangeLog changeLog = new BinaryOWLOntologyChangeLog();
-        changeLog.appendChanges(new OntologyChangeRecordList(revision.getTimestamp(), metadata, revision.getChanges()), file);
+        changeLog.appendChanges(new OntologyChangeRecordList(timestamp, metadata, changeRecords), file);
         return 0;
     }
 }
@@ -1,9 +1,10 @@
 package edu.stanford.bmir.protege.web.server.owlapi.change;
 
 import com.google.common.base.Optional;
-import com.google.common.collect.ImmutableList;
 import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
 
+import java.util.List;
+
 /**
  * Matthew Horridge
  * Stanford Center for Biomedical Informatics Research
@@ -13,9 +14,10 @@ public interface RevisionStore {
 
     /**
      * Gets all of the revisions.
-     * @return The revisions in an immutable list.
+     * @return The revisions in an unmodifiable list.  The list is a snapshot and will not reflect revisions that are
+     * subsequently added to this store.
      */
-    ImmutableList<Revision> getRevisions();
+    List<Revision> getRevisions();
 
     /**
      * Gets the revision that has the specified revision number.
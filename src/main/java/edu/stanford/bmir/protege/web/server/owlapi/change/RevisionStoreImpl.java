@@ -5,6 +5,7 @@ import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Interner;
 import com.google.common.collect.Interners;
+import com.google.common.io.CountingInputStream;
 import edu.stanford.bmir.protege.web.server.inject.project.ChangeHistoryFile;
 import edu.stanford.bmir.protege.web.server.logging.WebProtegeLogger;
 import edu.stanford.bmir.protege.web.shared.project.ProjectId;
@@ -24,11 +25,8 @@ import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.*;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
@@ -44,15 +42,12 @@ import static com.google.common.base.Preconditions.checkNotNull;
  */
 public class RevisionStoreImpl implements RevisionStore {
 
-    private ExecutorService changeSerializationExucutor = Executors.newSingleThreadExecutor();
+    private static final String INDEX_FILE_SUFFIX = ".index";
 
-
-    private ImmutableList<Revision> revisions = ImmutableList.of();
+    private volatile ChunkedRevisionList revisions = new ChunkedRevisionList();
 
     private ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
 
-    private Lock readLock = readWriteLock.readLock();
-
     private Lock writeLock = readWriteLock.writeLock();
 
 
@@ -62,26 +57,37 @@ public class RevisionStoreImpl implements RevisionStore {
 
     private final File changeHistoryFile;
 
+    private final RevisionIndex revisionIndex;
+
+    private final ChangeLogSegmentReader changeLogSegmentReader;
+
+    private final GroupCommitLog groupCommitLog;
+
     private final WebProtegeLogger logger;
 
+    private Future<Void> lastWrite = null;
+
     @Inject
     public RevisionStoreImpl(ProjectId projectId,
                              OWLDataFactory dataFactory,
                              @ChangeHistoryFile File changeHistoryFile,
+                             GroupCommitLog groupCommitLog,
                              WebProtegeLogger logger) {
         this.projectId = checkNotNull(projectId);
         this.dataFactory = checkNotNull(dataFactory);
         this.changeHistoryFile = checkNotNull(changeHistoryFile);
+        this.groupCommitLog = checkNotNull(groupCommitLog);
         this.logger = checkNotNull(logger);
+        this.revisionIndex = new RevisionIndex(
+                new File(changeHistoryFile.getParentFile(), changeHistoryFile.getName() + INDEX_FILE_SUFFIX));
+        this.changeLogSegmentReader = new ChangeLogSegmentReader(changeHistoryFile, dataFactory);
     }
 
     @Override
     public Optional<Revision> getRevision(RevisionNumber revisionNumber) {
-        if(revisions.isEmpty()) {
-            return Optional.absent();
-        }
-        int index = getRevisionIndexForRevision(revisionNumber);
-        if(index == -1) {
+        List<Revision> revisions = this.revisions.asList();
+        int index = getRevisionIndexForRevision(revisions, revisionNumber);
+        if(index < 0) {
             return Optional.absent();
         }
         else {
@@ -91,26 +97,16 @@ public class RevisionStoreImpl implements RevisionStore {
 
     @Override
     public RevisionNumber getCurrentRevisionNumber() {
-        try {
-            readLock.lock();
-            if (revisions.isEmpty()) {
-                return RevisionNumber.getRevisionNumber(0);
-            }
-            return revisions.get(revisions.size() - 1).getRevisionNumber();
-        } finally {
-            readLock.unlock();
+        List<Revision> revisions = this.revisions.asList();
+        if (revisions.isEmpty()) {
+            return RevisionNumber.getRevisionNumber(0);
         }
-
+        return revisions.get(revisions.size() - 1).getRevisionNumber();
     }
 
     @Override
-    public ImmutableList<Revision> getRevisions() {
-        try {
-            readLock.lock();
-            return revisions;
-        } finally {
-            readLock.unlock();
-        }
+    public List<Revision> getRevisions() {
+        return revisions.asList();
     }
 
     @Override
@@ -125,10 +121,7 @@ public class RevisionStoreImpl implements RevisionStore {
                         getCurrentRevisionNumber().getValue()
                 ));
             }
-            ImmutableList.Builder<Revision> extendedList = ImmutableList.builder();
-            extendedList.addAll(revisions);
-            extendedList.add(revision);
-            revisions = extendedList.build();
+            revisions.add(revision);
             persistChanges(revision);
         } finally {
             writeLock.unlock();
@@ -136,48 +129,82 @@ public class RevisionStoreImpl implements RevisionStore {
 
     }
 
+    /**
+     * Adds the first revision to an empty store.  The change records are written to the change log directly from
+     * the specified list, which is only iterated over, so that the records can be generated on the fly rather than
+     * held in memory.  Once written, the records of the revision are read from the change log on demand.  This
+     * method blocks until the revision has been written to disk.
+     * @param userId The user that created the revision.  Not {@code null}.
+     * @param timestamp The timestamp of the revision.
+     * @param description The description of the revision.  Not {@code null}.
+     * @param changeRecords The change records.  Not {@code null}.
+     * @throws IllegalStateException if the store already contains revisions.
+     * @throws IOException if the revision could not be written.
+     */
+    public void addInitialRevision(final UserId userId,
+                                   final long timestamp,
+                                   final String description,
+                                   final List<OWLOntologyChangeRecord> changeRecords) throws IOException {
+        checkNotNull(userId);
+        checkNotNull(description);
+        checkNotNull(changeRecords);
+        try {
+            writeLock.lock();
+            if(!revisions.asList().isEmpty()) {
+                throw new IllegalStateException("The initial revision can only be added to an empty revision store");
+            }
+            final RevisionNumber revisionNumber = RevisionNumber.getRevisionNumber(1);
+            final List<RevisionIndexEntry> writtenEntries = new ArrayList<>(1);
+            Future<Void> future = groupCommitLog.submit(new GroupCommitTask() {
+                @Override
+                public Collection<File> write() throws IOException {
+                    long startOffset = changeHistoryFile.exists() ? changeHistoryFile.length() : 0;
+                    new RevisionSerializationTask(changeHistoryFile,
+                            userId,
+                            revisionNumber,
+                            timestamp,
+                            description,
+                            changeRecords).call();
+                    RevisionIndexEntry entry = new RevisionIndexEntry(revisionNumber,
+                            userId,
+                            timestamp,
+                            description,
+                            changeRecords.size(),
+                            startOffset,
+                            changeHistoryFile.length());
+                    revisionIndex.append(entry);
+                    writtenEntries.add(entry);
+                    return Arrays.asList(changeHistoryFile, revisionIndex.getFile());
+                }
+            });
+            if(!groupCommitLog.awaitDurability(future) || writtenEntries.isEmpty()) {
+                throw new IOException("Could not write the initial revision to the change history");
+            }
+            revisions = toLazyRevisions(writtenEntries);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
     public void load() {
         try {
             writeLock.lock();
             if(!changeHistoryFile.exists()) {
                 changeHistoryFile.getParentFile().mkdirs();
+                // Any index that is lying around does not belong to this change history
+                revisionIndex.delete();
                 return;
             }
-            final ImmutableList.Builder<Revision> revisionsBuilder = ImmutableList.builder();
-            try {
-                Stopwatch stopwatch = Stopwatch.createStarted();
-                BinaryOWLOntologyChangeLog changeLog = new BinaryOWLOntologyChangeLog();
-                final BufferedInputStream inputStream = new BufferedInputStream(new FileInputStream(changeHistoryFile));
-                final Interner<OWLAxiom> axiomInterner = Interners.newStrongInterner();
-                final Interner<String> metadataInterner = Interners.newStrongInterner();
-                changeLog.readChanges(inputStream, dataFactory, new BinaryOWLChangeLogHandler() {
-                    public void handleChangesRead(OntologyChangeRecordList list, SkipSetting skipSetting, long l) {
-
-                        BinaryOWLMetadata metadata = list.getMetadata();
-                        String userName = metadataInterner.intern(metadata.getStringAttribute(RevisionSerializationVocabulary.USERNAME_METADATA_ATTRIBUTE.getVocabularyName(), ""));
-                        Long revisionNumberValue = metadata.getLongAttribute(RevisionSerializationVocabulary.REVISION_META_DATA_ATTRIBUTE.getVocabularyName(), 0l);
-                        RevisionNumber revisionNumber = RevisionNumber.getRevisionNumber(revisionNumberValue);
-
-                        String description = metadataInterner.intern(metadata.getStringAttribute(RevisionSerializationVocabulary.DESCRIPTION_META_DATA_ATTRIBUTE.getVocabularyName(), ""));
-
-//                        RevisionType type = RevisionType.valueOf(metadata.getStringAttribute(RevisionSerializationVocabulary.REVISION_TYPE_META_DATA_ATTRIBUTE.getVocabularyName(), RevisionType.EDIT.name()));
-
-                        final UserId userId = UserId.getUserId(userName);
-                        final List<OWLOntologyChangeRecord> changeRecords = internChangeRecords(list, axiomInterner);
-
-                        Revision revision = new Revision(userId, revisionNumber, ImmutableList.copyOf(changeRecords), list.getTimestamp(), description);
-                        revisionsBuilder.add(revision);
-                    }
-                }, SkipSetting.SKIP_NONE);
-                inputStream.close();
-                stopwatch.stop();
-                revisions = revisionsBuilder.build();
-                logger.info(projectId, "Change history loading complete.  Loaded %d revisions in %d ms", revisions.size(), stopwatch.elapsed(TimeUnit.MILLISECONDS));
-
-            } catch (Exception e) {
-                logger.severe(e);
-                logger.info(projectId, "Failed to load change history.  Cause: " + e.getMessage());
+            if(loadFromIndex()) {
+                return;
+            }
+            ChangeLogScan scan = loadFromChangeLog();
+            ChunkedRevisionList loadedRevisionList = new ChunkedRevisionList();
+            for(Revision revision : scan.revisions) {
+                loadedRevisionList.add(revision);
             }
+            revisions = loadedRevisionList;
+            rebuildIndex(scan);
         } finally {
             writeLock.unlock();
         }
@@ -185,29 +212,216 @@ public class RevisionStoreImpl implements RevisionStore {
 
     }
 
-
-    private int getRevisionIndexForRevision(RevisionNumber revision) {
+    /**
+     * Loads the revisions from the revision index, if it exists and is consistent with the change log.  The change
+     * records of the revisions are not loaded; they are read on demand.
+     * @return {@code true} if the revisions were loaded from the index, otherwise {@code false}.
+     */
+    private boolean loadFromIndex() {
+        if(!revisionIndex.exists()) {
+            return false;
+        }
         try {
-            readLock.lock();
-            if (revisions.isEmpty()) {
-                return -1;
+            Stopwatch stopwatch = Stopwatch.createStarted();
+            List<RevisionIndexEntry> entries = revisionIndex.read();
+            if(!isConsistentWithChangeLog(entries)) {
+                logger.info(projectId, "Revision index is out of date with respect to the change history.  The index will be rebuilt.");
+                return false;
             }
-            if (revision.isHead()) {
-                return revisions.size() - 1;
+            revisions = toLazyRevisions(entries);
+            stopwatch.stop();
+            logger.info(projectId, "Change history loading complete.  Loaded %d revisions from index in %d ms", entries.size(), stopwatch.elapsed(TimeUnit.MILLISECONDS));
+            return true;
+        } catch (IOException e) {
+            logger.info(projectId, "Could not read revision index.  The index will be rebuilt.  Cause: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Checks that the specified entries describe revisions with increasing revision numbers that occupy consecutive,
+     * non-empty ranges of the change log, starting at the beginning of the log and ending at the end of it.
+     */
+    private boolean isConsistentWithChangeLog(List<RevisionIndexEntry> entries) {
+        if(entries.isEmpty()) {
+            return false;
+        }
+        long expectedStartOffset = 0;
+        RevisionNumber previousRevisionNumber = RevisionNumber.getRevisionNumber(0);
+        for(RevisionIndexEntry entry : entries) {
+            if(entry.getStartOffset() != expectedStartOffset) {
+                return false;
             }
-            Revision firstRevision = revisions.get(0);
-            if (revision.compareTo(firstRevision.getRevisionNumber()) < 0) {
-                return -1;
+            if(entry.getEndOffset() <= entry.getStartOffset()) {
+                return false;
             }
-            Revision lastRevision = revisions.get(revisions.size() - 1);
-            if (lastRevision.getRevisionNumber() == revision) {
-                return revisions.size() - 1;
+            if(entry.getRevisionNumber().compareTo(previousRevisionNumber) <= 0) {
+                return false;
             }
-            Revision dummy = Revision.createEmptyRevisionWithRevisionNumber(revision);
-            return Collections.binarySearch(revisions, dummy);
-        } finally {
-            readLock.unlock();
+            expectedStartOffset = entry.getEndOffset();
+            previousRevisionNumber = entry.getRevisionNumber();
+        }
+        return expectedStartOffset == changeHistoryFile.length();
+    }
+
+    private ChunkedRevisionList toLazyRevisions(List<RevisionIndexEntry> entries) {
+        ChunkedRevisionList result = new ChunkedRevisionList();
+        for(RevisionIndexEntry entry : entries) {
+            result.add(new Revision(
+                    entry.getUserId(),
+                    entry.getRevisionNumber(),
+                    entry.getChangeCount(),
+                    new LazyRevisionChanges(changeLogSegmentReader, entry.getStartOffset(), entry.getEndOffset()),
+                    entry.getTimestamp(),
+                    entry.getDescription()));
+        }
+        return result;
+    }
+
+    /**
+     * Loads all revisions, including their change records, by parsing the complete change log.  As each revision is
+     * parsed the number of bytes that have been consumed from the log is noted, which gives the offsets of the
+     * revision in the log.
+     */
+    private ChangeLogScan loadFromChangeLog() {
+        final ChangeLogScan scan = new ChangeLogScan();
+        try (final CountingInputStream inputStream = new CountingInputStream(
+                new BufferedInputStream(new FileInputStream(changeHistoryFile)))) {
+            Stopwatch stopwatch = Stopwatch.createStarted();
+            BinaryOWLOntologyChangeLog changeLog = new BinaryOWLOntologyChangeLog();
+            final Interner<OWLAxiom> axiomInterner = Interners.newStrongInterner();
+            final Interner<String> metadataInterner = Interners.newStrongInterner();
+            changeLog.readChanges(inputStream, dataFactory, new BinaryOWLChangeLogHandler() {
+                public void handleChangesRead(OntologyChangeRecordList list, SkipSetting skipSetting, long l) {
+
+                    BinaryOWLMetadata metadata = list.getMetadata();
+                    String userName = metadataInterner.intern(metadata.getStringAttribute(RevisionSerializationVocabulary.USERNAME_METADATA_ATTRIBUTE.getVocabularyName(), ""));
+                    Long revisionNumberValue = metadata.getLongAttribute(RevisionSerializationVocabulary.REVISION_META_DATA_ATTRIBUTE.getVocabularyName(), 0l);
+                    RevisionNumber revisionNumber = RevisionNumber.getRevisionNumber(revisionNumberValue);
+
+                    String description = metadataInterner.intern(metadata.getStringAttribute(RevisionSerializationVocabulary.DESCRIPTION_META_DATA_ATTRIBUTE.getVocabularyName(), ""));
+
+//                        RevisionType type = RevisionType.valueOf(metadata.getStringAttribute(RevisionSerializationVocabulary.REVISION_TYPE_META_DATA_ATTRIBUTE.getVocabularyName(), RevisionType.EDIT.name()));
+
+                    final UserId userId = UserId.getUserId(userName);
+                    final List<OWLOntologyChangeRecord> changeRecords = internChangeRecords(list, axiomInterner);
+
+                    Revision revision = new Revision(userId, revisionNumber, ImmutableList.copyOf(changeRecords), list.getTimestamp(), description);
+                    scan.revisions.add(revision);
+
+                    long startOffset = scan.entries.isEmpty() ? 0 : scan.entries.get(scan.entries.size() - 1).getEndOffset();
+                    scan.entries.add(new RevisionIndexEntry(revisionNumber,
+                            userId,
+                            list.getTimestamp(),
+                            description,
+                            changeRecords.size(),
+                            startOffset,
+                            inputStream.getCount()));
+                }
+            }, SkipSetting.SKIP_NONE);
+            scan.complete = true;
+            stopwatch.stop();
+            logger.info(projectId, "Change history loading complete.  Loaded %d revisions in %d ms", scan.revisions.size(), stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        } catch (BinaryOWLParseException e) {
+            handleCorruptChangeLog(e);
+            logger.info(projectId, "Loaded %d revisions from a corrupt change history.  Cause: %s", scan.revisions.size(), e.getMessage());
+        } catch (Exception e) {
+            logger.severe(e);
+            logger.info(projectId, "Failed to load change history.  Cause: " + e.getMessage());
+        }
+        return scan;
+    }
+
+    /**
+     * Rebuilds the revision index for a change log that does not have one (or that has one that is out of date)
+     * from the offsets that were noted while the change log was parsed.  The change log itself is never modified.
+     * The index is only written if the complete change log was parsed without error and the noted offsets can be
+     * verified against the change log.  If this succeeds, the fully loaded revisions are swapped for lazily loaded
+     * ones.  Otherwise, any existing index is deleted and the fully loaded revisions are kept.
+     */
+    private void rebuildIndex(ChangeLogScan scan) {
+        if(!scan.complete) {
+            logger.info(projectId, "The change history could not be parsed completely.  The revision index will not be rebuilt.");
+            revisionIndex.delete();
+            return;
+        }
+        if(scan.entries.isEmpty()) {
+            return;
+        }
+        try {
+            Stopwatch stopwatch = Stopwatch.createStarted();
+            if(!isConsistentWithChangeLog(scan.entries) || !isReadableFromChangeLog(scan.entries)) {
+                logger.info(projectId, "Could not determine the offsets of revisions in the change history.  The revision index will not be rebuilt.");
+                revisionIndex.delete();
+                return;
+            }
+            revisionIndex.write(scan.entries);
+            revisions = toLazyRevisions(scan.entries);
+            stopwatch.stop();
+            logger.info(projectId, "Rebuilt revision index in %d ms", stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        } catch (IOException e) {
+            // The change log is untouched and we have the fully loaded revisions, so we can carry on regardless.
+            logger.severe(e);
+            logger.info(projectId, "Failed to rebuild revision index.  Cause: " + e.getMessage());
+            revisionIndex.delete();
+        }
+    }
+
+    /**
+     * Checks that each revision described by the specified entries can be read back from the change log, and that
+     * it has the number of changes that was noted when the log was parsed.  This verifies every boundary between
+     * revisions as well as the end of the log.
+     */
+    private boolean isReadableFromChangeLog(List<RevisionIndexEntry> entries) {
+        try {
+            for(RevisionIndexEntry entry : entries) {
+                List<OWLOntologyChangeRecord> records = changeLogSegmentReader.readChanges(entry.getStartOffset(), entry.getEndOffset());
+                if(records.size() != entry.getChangeCount()) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Appends the specified revision to the specified change log file.
+     * @return An index entry that describes where the revision was written to.
+     */
+    private static RevisionIndexEntry serializeRevision(Revision revision, File file) throws IOException {
+        long startOffset = file.exists() ? file.length() : 0;
+        new RevisionSerializationTask(file, revision).call();
+        long endOffset = file.length();
+        return new RevisionIndexEntry(
+                revision.getRevisionNumber(),
+                revision.getUserId(),
+                revision.getTimestamp(),
+                revision.getHighLevelDescription(),
+                revision.getSize(),
+                startOffset,
+                endOffset);
+    }
+
+
+    private static int getRevisionIndexForRevision(List<Revision> revisions, RevisionNumber revision) {
+        if (revisions.isEmpty()) {
+            return -1;
+        }
+        if (revision.isHead()) {
+            return revisions.size() - 1;
         }
+        Revision firstRevision = revisions.get(0);
+        if (revision.compareTo(firstRevision.getRevisionNumber()) < 0) {
+            return -1;
+        }
+        Revision lastRevision = revisions.get(revisions.size() - 1);
+        if (lastRevision.getRevisionNumber().equals(revision)) {
+            return revisions.size() - 1;
+        }
+        Revision dummy = Revision.createEmptyRevisionWithRevisionNumber(revision);
+        return Collections.binarySearch(revisions, dummy);
     }
 
 
@@ -302,30 +516,63 @@ public class RevisionStoreImpl implements RevisionStore {
 //        }
 //    }
 
-    private void persistChanges(Revision revision) {
+    private void persistChanges(final Revision revision) {
         try {
             writeLock.lock();
-            RevisionSerializationTask revisionSerializationTask = new RevisionSerializationTask(changeHistoryFile, revision);
-            if (revisions.size() != 1) {
-                changeSerializationExucutor.submit(revisionSerializationTask);
-            } else {
-                // Save immediately
-                try {
-                    logger.info("Saving first revision of project " + projectId);
-                    revisionSerializationTask.call();
-                } catch (IOException e) {
-                    logger.severe(e);
+            lastWrite = groupCommitLog.submit(new GroupCommitTask() {
+                @Override
+                public Collection<File> write() throws IOException {
+                    RevisionIndexEntry entry = serializeRevision(revision, changeHistoryFile);
+                    revisionIndex.append(entry);
+                    return Arrays.asList(changeHistoryFile, revisionIndex.getFile());
                 }
+            });
+            if (revisions.size() == 1) {
+                // Save immediately
+                logger.info("Saving first revision of project " + projectId);
+                awaitLastWrite();
             }
         } finally {
             writeLock.unlock();
         }
     }
 
+    /**
+     * Waits for the most recently submitted revision to be written to disk.  The commit log writes revisions in the
+     * order that they were submitted, and fails any revision that follows one that could not be written, so once the
+     * last revision is durable all of the revisions before it are too.
+     * @return {@code true} if all revisions that have been added to this store have been written to disk, otherwise
+     * {@code false}.
+     */
+    public boolean awaitLastWrite() {
+        Future<Void> write;
+        try {
+            writeLock.lock();
+            write = lastWrite;
+        } finally {
+            writeLock.unlock();
+        }
+        return write == null || groupCommitLog.awaitDurability(write);
+    }
+
     private void handleCorruptChangeLog(BinaryOWLParseException e) {
         // The change log appears to be corrupt.  We somehow need a way of backing up the old log and creating
         // a fresh one.
         logger.severe(new RuntimeException("Corrupt change log", e));
     }
 
+    /**
+     * The result of parsing a change log.
+     */
+    private static class ChangeLogScan {
+
+        private final List<Revision> revisions = new ArrayList<>();
+
+        private final List<RevisionIndexEntry> entries = new ArrayList<>();
+
+        /**
+         * Whether the whole change log was parsed without error.
+         */
+        private boolean complete = false;
+    }
 }
@@ -2,12 +2,14 @@ package edu.stanford.bmir.protege.web.server.owlapi.change;
 
 import javax.inject.Inject;
 import javax.inject.Provider;
+import javax.inject.Singleton;
 
 /**
  * Matthew Horridge
  * Stanford Center for Biomedical Informatics Research
  * 02/06/15
  */
+@Singleton
 public class RevisionStoreProvider implements Provider<RevisionStore> {
 
     private RevisionStoreImpl revisionStore;
@@ -1,12 +1,12 @@
 package edu.stanford.bmir.protege.web.server.owlapi.change;
 
 import com.google.common.collect.ImmutableList;
-import edu.stanford.bmir.protege.web.server.hierarchy.OWLObjectHierarchyProvider;
+import edu.stanford.bmir.protege.web.server.watches.IndirectlyWatchedEntitiesFinder;
 import edu.stanford.bmir.protege.web.shared.change.ProjectChange;
 import edu.stanford.bmir.protege.web.shared.watches.EntityFrameWatch;
 import edu.stanford.bmir.protege.web.shared.watches.HierarchyBranchWatch;
 import edu.stanford.bmir.protege.web.shared.watches.Watch;
-import org.semanticweb.owlapi.model.*;
+import org.semanticweb.owlapi.model.OWLEntity;
 
 import javax.inject.Inject;
 import java.util.HashSet;
@@ -22,15 +22,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
  */
 public class WatchedChangesManager {
 
-    private final OWLObjectHierarchyProvider<OWLClass> classHierarchyProvider;
-
-    private final OWLObjectHierarchyProvider<OWLObjectProperty> objectPropertyHierarchyProvider;
-
-    private final OWLObjectHierarchyProvider<OWLDataProperty> dataPropertyHierarchyProvider;
-
-    private final OWLObjectHierarchyProvider<OWLAnnotationProperty> annotationPropertyHierarchyProvider;
-
-    private final HasImportsClosure rootOntologyImportsClosureProvider;
+    private final IndirectlyWatchedEntitiesFinder indirectlyWatchedEntitiesFinder;
 
     private final RevisionManager changeManager;
 
@@ -40,19 +32,11 @@ public class WatchedChangesManager {
 
     @Inject
     public WatchedChangesManager(ProjectChangesManager projectChangesManager,
-                                 OWLObjectHierarchyProvider<OWLClass> classHierarchyProvider,
-                                 OWLObjectHierarchyProvider<OWLObjectProperty> objectPropertyHierarchyProvider,
-                                 OWLObjectHierarchyProvider<OWLDataProperty> dataPropertyHierarchyProvider,
-                                 OWLObjectHierarchyProvider<OWLAnnotationProperty> annotationPropertyHierarchyProvider,
-                                 HasImportsClosure rootOntologyImportsClosureProvider,
+                                 IndirectlyWatchedEntitiesFinder indirectlyWatchedEntitiesFinder,
                                  RevisionManager changeManager,
                                  EntitiesByRevisionCache entitiesByRevisionCache) {
         this.projectChangesManager = checkNotNull(projectChangesManager);
-        this.classHierarchyProvider = checkNotNull(classHierarchyProvider);
-        this.objectPropertyHierarchyProvider = checkNotNull(objectPropertyHierarchyProvider);
-        this.dataPropertyHierarchyProvider = checkNotNull(dataPropertyHierarchyProvider);
-        this.annotationPropertyHierarchyProvider = checkNotNull(annotationPropertyHierarchyProvider);
-        this.rootOntologyImportsClosureProvider = checkNotNull(rootOntologyImportsClosureProvider);
+        this.indirectlyWatchedEntitiesFinder = checkNotNull(indirectlyWatchedEntitiesFinder);
         this.changeManager = checkNotNull(changeManager);
         this.entitiesByRevisionCache = checkNotNull(entitiesByRevisionCache);
     }
@@ -91,69 +75,11 @@ public class WatchedChangesManager {
             if (directWatches.contains(entity)) {
                 watchedEntities.add(entity);
             }
-            else {
-                boolean watchedByAncestor = isWatchedByAncestor(superEntities, entity);
-                if (watchedByAncestor) {
-                    watchedEntities.add(entity);
-                }
+            else if (!indirectlyWatchedEntitiesFinder.getWatchingBranchRoots(entity, superEntities).isEmpty()) {
+                watchedEntities.add(entity);
             }
         }
         return watchedEntities;
     }
 
-
-    private Boolean isWatchedByAncestor(final Set<OWLEntity> watchedAncestors, OWLEntity entity) {
-        return entity.accept(new OWLEntityVisitorEx<Boolean>() {
-            @Override
-            public Boolean visit(OWLClass cls) {
-                final Set<? extends OWLEntity> ancestors = classHierarchyProvider.getAncestors(cls);
-                return isWatchedByAncestor(ancestors);
-            }
-
-
-            @Override
-            public Boolean visit(OWLObjectProperty property) {
-                return isWatchedByAncestor(objectPropertyHierarchyProvider.getAncestors(property));
-            }
-
-            @Override
-            public Boolean visit(OWLDataProperty property) {
-                return isWatchedByAncestor(dataPropertyHierarchyProvider.getAncestors(property));
-            }
-
-            @Override
-            public Boolean visit(OWLNamedIndividual individual) {
-                final Set<OWLClassExpression> types = individual.getTypes(rootOntologyImportsClosureProvider.getImportsClosure());
-                for (OWLClassExpression ce : types) {
-                    if (!ce.isAnonymous()) {
-                        if (isWatchedByAncestor(classHierarchyProvider.getAncestors(ce.asOWLClass()))) {
-                            return true;
-                        }
-                    }
-                }
-                return false;
-            }
-
-            @Override
-            public Boolean visit(OWLDatatype datatype) {
-                return false;
-            }
-
-            @Override
-            public Boolean visit(OWLAnnotationProperty property) {
-                return isWatchedByAncestor(annotationPropertyHierarchyProvider.getAncestors(property));
-            }
-
-            private Boolean isWatchedByAncestor(Set<? extends OWLEntity> ancestors) {
-                for (OWLEntity anc : ancestors) {
-                    if (watchedAncestors.contains(anc)) {
-                        return true;
-                    }
-                }
-                return false;
-            }
-
-        });
-    }
-
 }
@@ -2,8 +2,7 @@ package edu.stanford.bmir.protege.web.server.project;
 
 import com.google.inject.AbstractModule;
 import com.google.inject.assistedinject.FactoryModuleBuilder;
-import edu.stanford.bmir.protege.web.server.owlapi.OWLAPIProjectFileStoreFactory;
-import edu.stanford.bmir.protege.web.server.owlapi.OWLAPIProjectManager;
+import edu.stanford.bmir.protege.web.server.owlapi.*;
 
 /**
  * Matthew Horridge
@@ -15,6 +14,9 @@ public class ProjectManagerModule extends AbstractModule {
     @Override
     protected void configure() {
         bind(OWLAPIProjectManager.class).asEagerSingleton();
+        bind(OWLAPIProjectCache.class).asEagerSingleton();
+        bind(ProjectCacheEvictionPolicy.class).to(WeightedProjectCacheEvictionPolicy.class);
+        bind(ProjectComponentLoader.class).asEagerSingleton();
         install(new FactoryModuleBuilder().build(OWLAPIProjectFileStoreFactory.class));
     }
 }
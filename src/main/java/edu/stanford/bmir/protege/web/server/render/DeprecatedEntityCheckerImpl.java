@@ -1,12 +1,13 @@
 package edu.stanford.bmir.protege.web.server.render;
 
 import edu.stanford.bmir.protege.web.server.inject.project.RootOntology;
-import org.semanticweb.owlapi.model.OWLAnnotationAssertionAxiom;
-import org.semanticweb.owlapi.model.OWLEntity;
-import org.semanticweb.owlapi.model.OWLOntology;
-import org.semanticweb.owlapi.vocab.OWLRDFVocabulary;
+import org.semanticweb.owlapi.model.*;
 
 import javax.inject.Inject;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -14,25 +15,69 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * Matthew Horridge
  * Stanford Center for Biomedical Informatics Research
  * 27/01/15
+ * <p>
+ *     Checks whether entities are deprecated using an index of the IRIs that are the subjects of
+ *     {@code owl:deprecated "true"} annotation assertions in the imports closure of the root ontology.  The index is
+ *     built when the checker is created and is kept up to date by {@link #handleChanges(List)}.
+ * </p>
+ * <p>
+ *     This class is thread safe.
+ * </p>
  */
 public class DeprecatedEntityCheckerImpl implements DeprecatedEntityChecker {
 
-    private OWLOntology rootOntology;
+    private final OWLOntology rootOntology;
 
+    private volatile Set<IRI> deprecatedIRIs;
 
     @Inject
     public DeprecatedEntityCheckerImpl(@RootOntology OWLOntology rootOntology) {
         this.rootOntology = checkNotNull(rootOntology);
+        this.deprecatedIRIs = buildIndex();
     }
 
     @Override
     public boolean isDeprecated(OWLEntity entity) {
-        if (!rootOntology.containsAnnotationPropertyInSignature(OWLRDFVocabulary.OWL_DEPRECATED.getIRI(), true)) {
-            return false;
+        return deprecatedIRIs.contains(entity.getIRI());
+    }
+
+    /**
+     * Updates the index with the specified changes.  This must be called after the changes have been applied to the
+     * ontologies, and changes must not be applied concurrently with this call.
+     * @param changes The changes that were applied.  Not {@code null}.
+     */
+    public void handleChanges(List<? extends OWLOntologyChange> changes) {
+        for (OWLOntologyChange change : changes) {
+            if (change instanceof ImportChange) {
+                // The imports closure has changed
+                deprecatedIRIs = buildIndex();
+                return;
+            }
+        }
+        for (OWLOntologyChange change : changes) {
+            if (!change.isAxiomChange() || !(change.getAxiom() instanceof OWLAnnotationAssertionAxiom)) {
+                continue;
+            }
+            OWLAnnotationAssertionAxiom axiom = (OWLAnnotationAssertionAxiom) change.getAxiom();
+            if (!axiom.getProperty().isDeprecated() || !(axiom.getSubject() instanceof IRI)) {
+                continue;
+            }
+            IRI subject = (IRI) axiom.getSubject();
+            if (change.isAddAxiom()) {
+                if (axiom.isDeprecatedIRIAssertion()) {
+                    deprecatedIRIs.add(subject);
+                }
+            }
+            else if (!hasDeprecatedIRIAssertion(subject)) {
+                // The IRI may be deprecated by more than one assertion
+                deprecatedIRIs.remove(subject);
+            }
         }
-        // TODO: Cache
+    }
+
+    private boolean hasDeprecatedIRIAssertion(IRI subject) {
         for (OWLOntology ont : rootOntology.getImportsClosure()) {
-            for (OWLAnnotationAssertionAxiom ax : ont.getAnnotationAssertionAxioms(entity.getIRI())) {
+            for (OWLAnnotationAssertionAxiom ax : ont.getAnnotationAssertionAxioms(subject)) {
                 if (ax.isDeprecatedIRIAssertion()) {
                     return true;
                 }
@@ -40,4 +85,16 @@ public class DeprecatedEntityCheckerImpl implements DeprecatedEntityChecker {
         }
         return false;
     }
+
+    private Set<IRI> buildIndex() {
+        Set<IRI> result = Collections.newSetFromMap(new ConcurrentHashMap<IRI, Boolean>());
+        for (OWLOntology ont : rootOntology.getImportsClosure()) {
+            for (OWLAnnotationAssertionAxiom ax : ont.getAxioms(AxiomType.ANNOTATION_ASSERTION)) {
+                if (ax.isDeprecatedIRIAssertion() && ax.getSubject() instanceof IRI) {
+                    result.add((IRI) ax.getSubject());
+                }
+            }
+        }
+        return result;
+    }
 }
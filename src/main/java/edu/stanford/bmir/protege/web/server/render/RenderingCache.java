@@ -0,0 +1,312 @@
+package edu.stanford.bmir.protege.web.server.render;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Supplier;
+import com.google.common.cache.*;
+import com.google.common.collect.ImmutableMap;
+import org.semanticweb.owlapi.model.*;
+import org.semanticweb.owlapi.util.ShortFormProvider;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A bounded cache of the renderings of {@link OWLObject}s.  The rendering of an object depends on the short
+ * forms of the entities that it mentions, on whether these entities are deprecated and on whether the IRIs that
+ * it mentions are the IRIs of entities.  This is the rendering state of an IRI.  The rendering state of each
+ * IRI that is mentioned by a cached rendering is recorded, and when ontology changes alter the rendering state
+ * of an IRI the renderings that mention it are removed from the cache.
+ */
+public class RenderingCache {
+
+    /**
+     * The style of a cached rendering.
+     */
+    public enum RenderingStyle {
+
+        BROWSER_TEXT,
+
+        HTML
+    }
+
+    private final ShortFormProvider shortFormProvider;
+
+    private final EntityIRIChecker entityIRIChecker;
+
+    private final DeprecatedEntityChecker deprecatedEntityChecker;
+
+    private final Cache<RenderingKey, String> cache;
+
+    private final Object indexLock = new Object();
+
+    private final Map<IRI, Set<RenderingKey>> keysByIRI = new HashMap<>();
+
+    private final Map<RenderingKey, Set<IRI>> irisByKey = new HashMap<>();
+
+    private final Map<IRI, IRIRenderingState> renderingStates = new ConcurrentHashMap<>();
+
+    /**
+     * Incremented whenever renderings are invalidated, so that renderings that were computed at the same time as an
+     * invalidation are not cached.
+     */
+    private long generation = 0;
+
+    public RenderingCache(ShortFormProvider shortFormProvider,
+                          EntityIRIChecker entityIRIChecker,
+                          DeprecatedEntityChecker deprecatedEntityChecker,
+                          long maximumSize) {
+        this.shortFormProvider = checkNotNull(shortFormProvider);
+        this.entityIRIChecker = checkNotNull(entityIRIChecker);
+        this.deprecatedEntityChecker = checkNotNull(deprecatedEntityChecker);
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .removalListener(new RemovalListener<RenderingKey, String>() {
+                    @Override
+                    public void onRemoval(RemovalNotification<RenderingKey, String> notification) {
+                        if (notification.getCause() != RemovalCause.REPLACED) {
+                            removeFromIndex(notification.getKey());
+                        }
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Gets the rendering of an object in the specified style.  If the rendering is not cached then it is rendered
+     * by the specified renderer.
+     * @param object The object to render.  Not {@code null}.
+     * @param style The style of the rendering.  Not {@code null}.
+     * @param renderer A renderer that renders the object in the specified style.  Not {@code null}.
+     * @return The rendering.  Not {@code null}.
+     */
+    public String getRendering(OWLObject object, RenderingStyle style, Supplier<String> renderer) {
+        RenderingKey key = new RenderingKey(object, style);
+        String cachedRendering = cache.getIfPresent(key);
+        if (cachedRendering != null) {
+            return cachedRendering;
+        }
+        Set<IRI> iris = getMentionedIRIs(object);
+        // Rendering states are recorded before rendering, so that a change that happens during rendering is
+        // detected when the change is handled
+        for (IRI iri : iris) {
+            if (!renderingStates.containsKey(iri)) {
+                renderingStates.put(iri, getRenderingState(iri));
+            }
+        }
+        long startGeneration;
+        synchronized (indexLock) {
+            startGeneration = generation;
+        }
+        String rendering = renderer.get();
+        synchronized (indexLock) {
+            if (generation == startGeneration && renderingStates.keySet().containsAll(iris)) {
+                for (IRI iri : iris) {
+                    Set<RenderingKey> keys = keysByIRI.get(iri);
+                    if (keys == null) {
+                        keys = new HashSet<>();
+                        keysByIRI.put(iri, keys);
+                    }
+                    keys.add(key);
+                }
+                irisByKey.put(key, iris);
+                cache.put(key, rendering);
+            }
+            else {
+                // Don't keep states for IRIs that are not mentioned by any cached rendering
+                for (IRI iri : iris) {
+                    if (!keysByIRI.containsKey(iri)) {
+                        renderingStates.remove(iri);
+                    }
+                }
+            }
+        }
+        return rendering;
+    }
+
+    /**
+     * Removes the cached renderings that are out of date after the specified changes have been applied.  This
+     * should be called after other derived structures, such as the deprecated entity checker, have been updated.
+     * @param changes The changes that have been applied.  Not {@code null}.
+     */
+    public void handleChanges(List<OWLOntologyChange> changes) {
+        Set<IRI> candidateIRIs = new HashSet<>();
+        for (OWLOntologyChange change : changes) {
+            if (change.isAxiomChange()) {
+                candidateIRIs.addAll(getMentionedIRIs(change.getAxiom()));
+            }
+            else {
+                // Imports and ontology level changes are rare and can change the rendering state of anything
+                invalidateAll();
+                return;
+            }
+        }
+        Set<IRI> changedIRIs = new HashSet<>();
+        for (IRI iri : candidateIRIs) {
+            IRIRenderingState recordedState = renderingStates.get(iri);
+            if (recordedState != null && !recordedState.equals(getRenderingState(iri))) {
+                changedIRIs.add(iri);
+            }
+        }
+        if (changedIRIs.isEmpty()) {
+            return;
+        }
+        synchronized (indexLock) {
+            generation++;
+            for (IRI iri : changedIRIs) {
+                Set<RenderingKey> keys = keysByIRI.get(iri);
+                if (keys != null) {
+                    cache.invalidateAll(new ArrayList<>(keys));
+                }
+                renderingStates.remove(iri);
+            }
+        }
+    }
+
+    /**
+     * Removes all cached renderings.
+     */
+    public void invalidateAll() {
+        synchronized (indexLock) {
+            generation++;
+            cache.invalidateAll();
+            keysByIRI.clear();
+            irisByKey.clear();
+            renderingStates.clear();
+        }
+    }
+
+    private void removeFromIndex(RenderingKey key) {
+        synchronized (indexLock) {
+            Set<IRI> iris = irisByKey.remove(key);
+            if (iris == null) {
+                return;
+            }
+            for (IRI iri : iris) {
+                Set<RenderingKey> keys = keysByIRI.get(iri);
+                if (keys != null) {
+                    keys.remove(key);
+                    if (keys.isEmpty()) {
+                        keysByIRI.remove(iri);
+                        renderingStates.remove(iri);
+                    }
+                }
+            }
+        }
+    }
+
+    private IRIRenderingState getRenderingState(IRI iri) {
+        ImmutableMap.Builder<OWLEntity, String> shortForms = ImmutableMap.builder();
+        Set<OWLEntity> deprecatedEntities = new HashSet<>();
+        for (OWLEntity entity : entityIRIChecker.getEntitiesWithIRI(iri)) {
+            shortForms.put(entity, shortFormProvider.getShortForm(entity));
+            if (deprecatedEntityChecker.isDeprecated(entity)) {
+                deprecatedEntities.add(entity);
+            }
+        }
+        return new IRIRenderingState(shortForms.build(), deprecatedEntities);
+    }
+
+    /**
+     * Gets the IRIs that are mentioned by an object.  These are the IRIs of the entities in the signature of the
+     * object, and the IRIs that are annotation subjects or values.
+     */
+    private static Set<IRI> getMentionedIRIs(OWLObject object) {
+        Set<IRI> iris = new HashSet<>();
+        if (object instanceof IRI) {
+            iris.add((IRI) object);
+        }
+        for (OWLEntity entity : object.getSignature()) {
+            iris.add(entity.getIRI());
+        }
+        if (object instanceof OWLAnnotationAssertionAxiom) {
+            OWLAnnotationAssertionAxiom ax = (OWLAnnotationAssertionAxiom) object;
+            if (ax.getSubject() instanceof IRI) {
+                iris.add((IRI) ax.getSubject());
+            }
+            addAnnotationValueIRI(ax.getValue(), iris);
+        }
+        if (object instanceof OWLAxiom) {
+            addAnnotationValueIRIs(((OWLAxiom) object).getAnnotations(), iris);
+        }
+        if (object instanceof OWLAnnotation) {
+            OWLAnnotation annotation = (OWLAnnotation) object;
+            addAnnotationValueIRI(annotation.getValue(), iris);
+            addAnnotationValueIRIs(annotation.getAnnotations(), iris);
+        }
+        return iris;
+    }
+
+    private static void addAnnotationValueIRIs(Set<OWLAnnotation> annotations, Set<IRI> iris) {
+        for (OWLAnnotation annotation : annotations) {
+            addAnnotationValueIRI(annotation.getValue(), iris);
+            addAnnotationValueIRIs(annotation.getAnnotations(), iris);
+        }
+    }
+
+    private static void addAnnotationValueIRI(OWLAnnotationValue value, Set<IRI> iris) {
+        if (value instanceof IRI) {
+            iris.add((IRI) value);
+        }
+    }
+
+    private static class RenderingKey {
+
+        private final OWLObject object;
+
+        private final RenderingStyle style;
+
+        private RenderingKey(OWLObject object, RenderingStyle style) {
+            this.object = checkNotNull(object);
+            this.style = checkNotNull(style);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(object, style);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof RenderingKey)) {
+                return false;
+            }
+            RenderingKey other = (RenderingKey) obj;
+            return this.style == other.style && this.object.equals(other.object);
+        }
+    }
+
+    private static class IRIRenderingState {
+
+        private final ImmutableMap<OWLEntity, String> shortForms;
+
+        private final Set<OWLEntity> deprecatedEntities;
+
+        private IRIRenderingState(ImmutableMap<OWLEntity, String> shortForms, Set<OWLEntity> deprecatedEntities) {
+            this.shortForms = shortForms;
+            this.deprecatedEntities = deprecatedEntities;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(shortForms, deprecatedEntities);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof IRIRenderingState)) {
+                return false;
+            }
+            IRIRenderingState other = (IRIRenderingState) obj;
+            return this.shortForms.equals(other.shortForms)
+                    && this.deprecatedEntities.equals(other.deprecatedEntities);
+        }
+    }
+}
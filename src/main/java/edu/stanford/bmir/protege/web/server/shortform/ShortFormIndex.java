@@ -0,0 +1,299 @@
+package edu.stanford.bmir.protege.web.server.shortform;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.Ordering;
+import edu.stanford.bmir.protege.web.shared.entity.EntityNameUtils;
+import edu.stanford.bmir.protege.web.shared.search.EntityNameMatchResult;
+import edu.stanford.bmir.protege.web.shared.search.EntityNameMatcher;
+
+import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An index of the short forms in a project that supports finding the short forms that match a search string
+ * (in the sense of {@link EntityNameMatcher}) without scanning every short form.
+ * <p>
+ *     The index consists of two parts.  The first is a sorted map from the (lower case) text that starts at each
+ *     word start in each short form to the short forms that contain that text.  This finds exact, word and word
+ *     prefix matches with a range lookup.  The second part is a trigram index that maps each (lower case) three
+ *     character substring to the short forms that contain it.  For search strings of three or more characters the
+ *     short forms that contain every trigram of the search string are a superset of the short forms that contain
+ *     the search string, so intersecting the trigram postings yields every kind of match.  Shorter search strings
+ *     are contained in one of the trigrams of any short form that contains them, so their substring matches are found
+ *     from the trigrams rather than from every short form.  In all cases candidates are verified with an
+ *     {@link EntityNameMatcher}.
+ * </p>
+ * <p>
+ *     This class is thread safe.
+ * </p>
+ */
+public class ShortFormIndex {
+
+    /**
+     * The maximum length of the keys in the word start map.  Search strings that are longer than this are looked
+     * up using their prefix of this length, and candidates are then verified.
+     */
+    private static final int MAX_WORD_START_KEY_LENGTH = 16;
+
+    private static final int TRIGRAM_LENGTH = 3;
+
+    private final Set<String> shortForms = new HashSet<>();
+
+    private final NavigableMap<String, Set<String>> wordStartMap = new TreeMap<>();
+
+    private final Map<String, Set<String>> trigramMap = new HashMap<>();
+
+    /**
+     * The short forms that are too short to contain a trigram.
+     */
+    private final Set<String> shortFormsWithoutTrigrams = new HashSet<>();
+
+    private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+
+    private final Lock readLock = readWriteLock.readLock();
+
+    private final Lock writeLock = readWriteLock.writeLock();
+
+    /**
+     * Adds a short form to this index.
+     * @param shortForm The short form.  Not {@code null}.
+     */
+    public void add(String shortForm) {
+        checkNotNull(shortForm);
+        try {
+            writeLock.lock();
+            if (!shortForms.add(shortForm)) {
+                return;
+            }
+            for (String key : getWordStartKeys(shortForm)) {
+                addPosting(wordStartMap, key, shortForm);
+            }
+            Set<String> trigrams = getTrigrams(shortForm.toLowerCase());
+            for (String trigram : trigrams) {
+                addPosting(trigramMap, trigram, shortForm);
+            }
+            if (trigrams.isEmpty()) {
+                shortFormsWithoutTrigrams.add(shortForm);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes a short form from this index.
+     * @param shortForm The short form.  Not {@code null}.
+     */
+    public void remove(String shortForm) {
+        checkNotNull(shortForm);
+        try {
+            writeLock.lock();
+            if (!shortForms.remove(shortForm)) {
+                return;
+            }
+            for (String key : getWordStartKeys(shortForm)) {
+                removePosting(wordStartMap, key, shortForm);
+            }
+            for (String trigram : getTrigrams(shortForm.toLowerCase())) {
+                removePosting(trigramMap, trigram, shortForm);
+            }
+            shortFormsWithoutTrigrams.remove(shortForm);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Finds the short forms that match the specified search string.
+     * @param searchString The search string.  Not {@code null}.
+     * @param limit The number of matches that the caller is interested in.  Only this many of the best matches are
+     *              ranked up front; any further matches are ranked as the list is read past them.  For search strings
+     *              that are shorter than three characters, substring matches (which rank after all other kinds of
+     *              match) are only searched for if fewer than {@code limit} better matches are found.
+     * @return A list of matches, best matches first.  Not {@code null}.
+     */
+    public List<ShortFormMatch> getMatches(String searchString, int limit) {
+        checkNotNull(searchString);
+        EntityNameMatcher matcher = new EntityNameMatcher(searchString);
+        String lowerCaseSearchString = searchString.toLowerCase();
+        List<ShortFormMatch> result = new ArrayList<>();
+        try {
+            readLock.lock();
+            if (lowerCaseSearchString.isEmpty()) {
+                addMatches(shortForms, matcher, result);
+            }
+            else if (lowerCaseSearchString.length() >= TRIGRAM_LENGTH) {
+                addMatches(getTrigramCandidates(lowerCaseSearchString), matcher, result);
+            }
+            else {
+                Set<String> wordStartCandidates = getWordStartCandidates(lowerCaseSearchString);
+                addMatches(wordStartCandidates, matcher, result);
+                if (result.size() < limit) {
+                    for (String shortForm : getSubStringCandidates(lowerCaseSearchString)) {
+                        if (!wordStartCandidates.contains(shortForm)) {
+                            addMatch(shortForm, matcher, result);
+                        }
+                    }
+                }
+            }
+        } finally {
+            readLock.unlock();
+        }
+        return new RankedMatchList(result, limit);
+    }
+
+    private Set<String> getWordStartCandidates(String lowerCaseSearchString) {
+        String key = truncate(lowerCaseSearchString);
+        Set<String> candidates = new HashSet<>();
+        for (Set<String> posting : wordStartMap.subMap(key, true, key + Character.MAX_VALUE, true).values()) {
+            candidates.addAll(posting);
+        }
+        return candidates;
+    }
+
+    private Collection<String> getTrigramCandidates(String lowerCaseSearchString) {
+        List<Set<String>> postings = new ArrayList<>();
+        for (String trigram : getTrigrams(lowerCaseSearchString)) {
+            Set<String> posting = trigramMap.get(trigram);
+            if (posting == null) {
+                return Collections.emptySet();
+            }
+            postings.add(posting);
+        }
+        // Intersect starting with the smallest posting
+        Collections.sort(postings, new Comparator<Set<String>>() {
+            @Override
+            public int compare(Set<String> o1, Set<String> o2) {
+                return Integer.compare(o1.size(), o2.size());
+            }
+        });
+        Set<String> candidates = new HashSet<>(postings.get(0));
+        for (int i = 1; i < postings.size() && !candidates.isEmpty(); i++) {
+            candidates.retainAll(postings.get(i));
+        }
+        return candidates;
+    }
+
+    /**
+     * Gets the short forms that may contain the specified search string, which is shorter than a trigram.  Any short
+     * form that contains the search string either has a trigram that contains it or has no trigrams at all.
+     */
+    private Set<String> getSubStringCandidates(String lowerCaseSearchString) {
+        Set<String> candidates = new HashSet<>(shortFormsWithoutTrigrams);
+        for (Map.Entry<String, Set<String>> entry : trigramMap.entrySet()) {
+            if (entry.getKey().contains(lowerCaseSearchString)) {
+                candidates.addAll(entry.getValue());
+            }
+        }
+        return candidates;
+    }
+
+    private static void addMatches(Collection<String> candidates, EntityNameMatcher matcher, List<ShortFormMatch> result) {
+        for (String candidate : candidates) {
+            addMatch(candidate, matcher, result);
+        }
+    }
+
+    private static void addMatch(String shortForm, EntityNameMatcher matcher, List<ShortFormMatch> result) {
+        Optional<EntityNameMatchResult> matchResult = matcher.findIn(shortForm);
+        if (matchResult.isPresent()) {
+            result.add(new ShortFormMatch(shortForm, matchResult.get()));
+        }
+    }
+
+    private static Set<String> getWordStartKeys(String shortForm) {
+        Set<String> keys = new HashSet<>();
+        // The start of the short form, and the start of a quoted short form, are always keys so that exact
+        // matches can be found even if the short form does not start with a word character.
+        keys.add(truncate(shortForm.toLowerCase()));
+        if (EntityNameUtils.isQuoted(shortForm)) {
+            keys.add(truncate(shortForm.substring(1).toLowerCase()));
+        }
+        for (int i = 0; i < shortForm.length(); i++) {
+            if (EntityNameUtils.isWordStart(shortForm, i)) {
+                keys.add(truncate(shortForm.substring(i).toLowerCase()));
+            }
+        }
+        return keys;
+    }
+
+    private static Set<String> getTrigrams(String lowerCaseString) {
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + TRIGRAM_LENGTH <= lowerCaseString.length(); i++) {
+            trigrams.add(lowerCaseString.substring(i, i + TRIGRAM_LENGTH));
+        }
+        return trigrams;
+    }
+
+    private static String truncate(String s) {
+        if (s.length() <= MAX_WORD_START_KEY_LENGTH) {
+            return s;
+        }
+        return s.substring(0, MAX_WORD_START_KEY_LENGTH);
+    }
+
+    private static void addPosting(Map<String, Set<String>> map, String key, String shortForm) {
+        Set<String> posting = map.get(key);
+        if (posting == null) {
+            posting = new HashSet<>(2);
+            map.put(key, posting);
+        }
+        posting.add(shortForm);
+    }
+
+    private static void removePosting(Map<String, Set<String>> map, String key, String shortForm) {
+        Set<String> posting = map.get(key);
+        if (posting != null) {
+            posting.remove(shortForm);
+            if (posting.isEmpty()) {
+                map.remove(key);
+            }
+        }
+    }
+
+    /**
+     * A list of matches in rank order.  The best matches, up to the limit that the caller is interested in, are
+     * selected with a bounded heap when the list is created.  The remaining matches are only ranked if the list is
+     * read past the best matches, and then only as far as it is read.
+     */
+    private static class RankedMatchList extends AbstractList<ShortFormMatch> {
+
+        private final List<ShortFormMatch> matches;
+
+        private final List<ShortFormMatch> rankedMatches;
+
+        private PriorityQueue<ShortFormMatch> remainingMatches = null;
+
+        private RankedMatchList(List<ShortFormMatch> matches, int limit) {
+            this.matches = matches;
+            this.rankedMatches = new ArrayList<>(Ordering.<ShortFormMatch>natural().leastOf(matches, Math.max(limit, 0)));
+        }
+
+        @Override
+        public ShortFormMatch get(int index) {
+            if (index < 0 || index >= matches.size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + matches.size());
+            }
+            if (index >= rankedMatches.size() && remainingMatches == null) {
+                // The matches are totally ordered, so the first matches in the queue are the ones already ranked
+                remainingMatches = new PriorityQueue<>(matches);
+                for (int i = 0; i < rankedMatches.size(); i++) {
+                    remainingMatches.poll();
+                }
+            }
+            while (rankedMatches.size() <= index) {
+                rankedMatches.add(remainingMatches.poll());
+            }
+            return rankedMatches.get(index);
+        }
+
+        @Override
+        public int size() {
+            return matches.size();
+        }
+    }
+}
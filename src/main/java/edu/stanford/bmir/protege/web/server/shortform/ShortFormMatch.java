@@ -0,0 +1,68 @@
+package edu.stanford.bmir.protege.web.server.shortform;
+
+import com.google.common.base.Objects;
+import edu.stanford.bmir.protege.web.shared.search.EntityNameMatchResult;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A short form along with the result of matching a search string against it.  Matches are ordered by their
+ * match results, so that better matches come first, and then by their short forms.
+ */
+public class ShortFormMatch implements Comparable<ShortFormMatch> {
+
+    private final String shortForm;
+
+    private final EntityNameMatchResult matchResult;
+
+    public ShortFormMatch(String shortForm, EntityNameMatchResult matchResult) {
+        this.shortForm = checkNotNull(shortForm);
+        this.matchResult = checkNotNull(matchResult);
+    }
+
+    public String getShortForm() {
+        return shortForm;
+    }
+
+    public EntityNameMatchResult getMatchResult() {
+        return matchResult;
+    }
+
+    @Override
+    public int compareTo(ShortFormMatch other) {
+        int diff = this.matchResult.compareTo(other.matchResult);
+        if (diff != 0) {
+            return diff;
+        }
+        diff = this.shortForm.compareToIgnoreCase(other.shortForm);
+        if (diff != 0) {
+            return diff;
+        }
+        return this.shortForm.compareTo(other.shortForm);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(shortForm, matchResult);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof ShortFormMatch)) {
+            return false;
+        }
+        ShortFormMatch other = (ShortFormMatch) obj;
+        return this.shortForm.equals(other.shortForm) && this.matchResult.equals(other.matchResult);
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper("ShortFormMatch")
+                .addValue(shortForm)
+                .addValue(matchResult)
+                .toString();
+    }
+}
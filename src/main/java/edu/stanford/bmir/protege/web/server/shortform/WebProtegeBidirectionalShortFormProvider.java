@@ -33,11 +33,14 @@ public class WebProtegeBidirectionalShortFormProvider implements BidirectionalSh
 
     private BidirectionalShortFormProviderAdapter delegate;
 
+    private final ShortFormIndex shortFormIndex;
+
     private ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
 
     @Inject
-    public WebProtegeBidirectionalShortFormProvider(@RootOntology OWLOntology rootOntology, ShortFormProvider shortFormProvider) {
+    public WebProtegeBidirectionalShortFormProvider(@RootOntology OWLOntology rootOntology, ShortFormProvider shortFormProvider, ShortFormIndex shortFormIndex) {
         this.rootOntology = rootOntology;
+        this.shortFormIndex = shortFormIndex;
         final Set<OWLOntology> importsClosure = rootOntology.getImportsClosure();
         delegate = new BidirectionalShortFormProviderAdapter(importsClosure, shortFormProvider) {
             @Override
@@ -50,6 +53,10 @@ public class WebProtegeBidirectionalShortFormProvider implements BidirectionalSh
 
         setupBuiltinObjectRenderings(rootOntology);
 
+        for(String shortForm : delegate.getShortForms()) {
+            shortFormIndex.add(shortForm);
+        }
+
         OWLOntologyManager manager = rootOntology.getOWLOntologyManager();
         manager.addOntologyChangeListener(new OWLOntologyChangeListener() {
             public void ontologiesChanged(List<? extends OWLOntologyChange> changes) throws OWLException {
@@ -161,12 +168,15 @@ public class WebProtegeBidirectionalShortFormProvider implements BidirectionalSh
                 for (OWLEntity entity : entities) {
                     if (!processed.contains(entity)) {
                         processed.add(entity);
+                        String previousShortForm = delegate.getShortForm(entity);
                         if (rootOntology.containsEntityInSignature(entity, true)) {
                             delegate.add(entity);
                         }
                         else {
                             delegate.remove(entity);
                         }
+                        updateShortFormIndex(previousShortForm);
+                        updateShortFormIndex(delegate.getShortForm(entity));
                     }
                 }
 
@@ -177,5 +187,22 @@ public class WebProtegeBidirectionalShortFormProvider implements BidirectionalSh
         }
     }
 
+    /**
+     * Brings the short form index up to date for the specified short form, which may have been added or
+     * removed as a result of a change.
+     */
+    private void updateShortFormIndex(String shortForm) {
+        if(shortForm == null) {
+            return;
+        }
+        Set<OWLEntity> entities = delegate.getEntities(shortForm);
+        if(entities.isEmpty()) {
+            shortFormIndex.remove(shortForm);
+        }
+        else {
+            shortFormIndex.add(shortForm);
+        }
+    }
+
 
 }
@@ -1,5 +1,6 @@
 package edu.stanford.bmir.protege.web.server.usage;
 
+import com.google.common.collect.Iterables;
 import edu.stanford.bmir.protege.web.server.dispatch.AbstractHasProjectActionHandler;
 import edu.stanford.bmir.protege.web.server.dispatch.ExecutionContext;
 import edu.stanford.bmir.protege.web.server.dispatch.RequestContext;
@@ -11,10 +12,7 @@ import edu.stanford.bmir.protege.web.shared.usage.*;
 import org.semanticweb.owlapi.model.*;
 
 import javax.inject.Inject;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 
 /**
  * Author: Matthew Horridge<br>
@@ -45,60 +43,28 @@ public class GetUsageActionHandler extends AbstractHasProjectActionHandler<GetUs
         final OWLEntity subject = action.getSubject();
         ReferencingAxiomVisitor visitor = new ReferencingAxiomVisitor(project, subject);
         final UsageFilter usageFilter = action.getUsageFilter();
+        // The references are gathered lazily so that only the axioms that are needed to fill the page are visited.
+        // Axioms that reference the subject as an entity (including as an annotation property) come from the
+        // OWL API reference index.  Axioms that reference the subject IRI as an annotation subject, annotation value
+        // or annotation property range or domain come from the project's referencing axiom index.
+        List<Iterable<? extends OWLAxiom>> references = new ArrayList<Iterable<? extends OWLAxiom>>();
         int totalReferenceCount = 0;
-        int counter = 0;
-
-        final IRI subjectIRI = subject.getIRI();
         for (OWLOntology ont : project.getRootOntology().getImportsClosure()) {
-            Set<OWLAxiom> references = ont.getReferencingAxioms(subject);
-            for (OWLAxiom reference : references) {
-                counter = processAxiom(reference, usageFilter, action, usage, visitor, counter);
-                totalReferenceCount++;
-            }
-
+            Set<OWLAxiom> entityReferences = ont.getReferencingAxioms(subject);
+            references.add(entityReferences);
+            totalReferenceCount += entityReferences.size();
+        }
+        Collection<OWLAxiom> iriReferences = project.getReferencingAxiomIndex().getReferencingAxioms(subject.getIRI());
+        references.add(iriReferences);
+        totalReferenceCount += iriReferences.size();
 
-            final Set<OWLAnnotationAssertionAxiom> annotationAssertionAxioms = ont.getAxioms(AxiomType.ANNOTATION_ASSERTION);
-            for (OWLAnnotationAssertionAxiom ax : annotationAssertionAxioms) {
-                if (ax.getSubject().equals(subjectIRI)) {
-                    counter = processAxiom(ax, usageFilter, action, usage, visitor, counter);
-                    totalReferenceCount++;
-                }
-                if (ax.getProperty().equals(subject)) {
-                    counter = processAxiom(ax, usageFilter, action, usage, visitor, counter);
-                    totalReferenceCount++;
-                }
-                if (ax.getValue().equals(subjectIRI)) {
-                    counter = processAxiom(ax, usageFilter, action, usage, visitor, counter);
-                    totalReferenceCount++;
-                }
-            }
-            final Set<OWLAnnotationPropertyRangeAxiom> annotationPropertyRangeAxioms = ont.getAxioms(AxiomType.ANNOTATION_PROPERTY_RANGE);
-            for (OWLAnnotationPropertyRangeAxiom ax : annotationPropertyRangeAxioms) {
-                if (ax.getProperty().equals(subject)) {
-                    counter = processAxiom(ax, usageFilter, action, usage, visitor, counter);
-                    totalReferenceCount++;
-                }
-                if (ax.getRange().equals(subjectIRI)) {
-                    counter = processAxiom(ax, usageFilter, action, usage, visitor, counter);
-                    totalReferenceCount++;
-                }
-            }
-            final Set<OWLAnnotationPropertyDomainAxiom> annotationPropertyDomainAxioms = ont.getAxioms(AxiomType.ANNOTATION_PROPERTY_DOMAIN);
-            for (OWLAnnotationPropertyDomainAxiom ax : annotationPropertyDomainAxioms) {
-                if (ax.getProperty().equals(subject)) {
-                    counter = processAxiom(ax, usageFilter, action, usage, visitor, counter);
-                    totalReferenceCount++;
-                }
-                if (ax.getDomain().equals(subjectIRI)) {
-                    counter = processAxiom(ax, usageFilter, action, usage, visitor, counter);
-                    totalReferenceCount++;
-                }
+        int counter = 0;
+        for (OWLAxiom reference : Iterables.concat(references)) {
+            if (counter >= action.getPageSize()) {
+                break;
             }
+            counter = processAxiom(reference, usageFilter, action, usage, visitor, counter);
         }
-
-
-
-
         Collections.sort(usage, new UsageReferenceComparator(subject));
         return new GetUsageResult(project.getProjectId(), usage, totalReferenceCount);
     }
@@ -106,17 +72,12 @@ public class GetUsageActionHandler extends AbstractHasProjectActionHandler<GetUs
     private int processAxiom(OWLAxiom reference, UsageFilter usageFilter, GetUsageAction action, List<UsageReference> result, ReferencingAxiomVisitor visitor, int counter) {
         if (usageFilter.isIncluded(reference.getAxiomType())) {
             counter++;
-            if (counter <= action.getPageSize()) {
-                final Set<UsageReference> refs = reference.accept(visitor);
-                for (UsageReference ref : refs) {
-                    if (isIncludedBySubject(usageFilter, action, ref)) {
-                        if (counter <= action.getPageSize()) {
-                            result.addAll(refs);
-                        }
-                    }
+            final Set<UsageReference> refs = reference.accept(visitor);
+            for (UsageReference ref : refs) {
+                if (isIncludedBySubject(usageFilter, action, ref)) {
+                    result.addAll(refs);
                 }
             }
-
         }
         return counter;
     }
@@ -0,0 +1,150 @@
+package edu.stanford.bmir.protege.web.server.usage;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableMultiset;
+import com.google.common.collect.Multiset;
+import edu.stanford.bmir.protege.web.server.inject.project.RootOntology;
+import org.semanticweb.owlapi.model.*;
+import org.semanticweb.owlapi.util.OWLAxiomVisitorAdapter;
+
+import javax.inject.Inject;
+import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An index of the axioms that reference IRIs in positions that are not covered by the OWL API's own
+ * entity reference index.  These are the subjects and values of annotation assertion axioms, and the ranges
+ * and domains of annotation property range and domain axioms.  The index covers the ontologies in the project
+ * and is kept up to date by listening to the ontology change stream.
+ * <p>
+ *     An axiom that is contained in several ontologies is indexed once for each ontology that contains it.
+ * </p>
+ * <p>
+ *     This class is thread safe.
+ * </p>
+ */
+public class ReferencingAxiomIndex {
+
+    private final Map<IRI, Multiset<OWLAxiom>> index = new HashMap<>();
+
+    private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+
+    private final Lock readLock = readWriteLock.readLock();
+
+    private final Lock writeLock = readWriteLock.writeLock();
+
+    @Inject
+    public ReferencingAxiomIndex(@RootOntology OWLOntology rootOntology) {
+        OWLOntologyManager manager = rootOntology.getOWLOntologyManager();
+        try {
+            writeLock.lock();
+            for (OWLOntology ontology : rootOntology.getImportsClosure()) {
+                addAxioms(ontology.getAxioms(AxiomType.ANNOTATION_ASSERTION));
+                addAxioms(ontology.getAxioms(AxiomType.ANNOTATION_PROPERTY_RANGE));
+                addAxioms(ontology.getAxioms(AxiomType.ANNOTATION_PROPERTY_DOMAIN));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        manager.addOntologyChangeListener(new OWLOntologyChangeListener() {
+            public void ontologiesChanged(List<? extends OWLOntologyChange> changes) throws OWLException {
+                handleChanges(changes);
+            }
+        });
+    }
+
+    /**
+     * Gets the axioms that reference the specified IRI as an annotation subject, an annotation value, or an
+     * annotation property range or domain.
+     * @param iri The IRI.  Not {@code null}.
+     * @return The referencing axioms.  An axiom appears once for each ontology that contains it.  Not {@code null}.
+     */
+    public Collection<OWLAxiom> getReferencingAxioms(IRI iri) {
+        checkNotNull(iri);
+        try {
+            readLock.lock();
+            Multiset<OWLAxiom> axioms = index.get(iri);
+            if (axioms == null) {
+                return Collections.emptyList();
+            }
+            return ImmutableMultiset.copyOf(axioms);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private void handleChanges(List<? extends OWLOntologyChange> changes) {
+        try {
+            writeLock.lock();
+            for (OWLOntologyChange change : changes) {
+                if (change.isAddAxiom()) {
+                    addAxiom(change.getAxiom());
+                }
+                else if (change.isRemoveAxiom()) {
+                    removeAxiom(change.getAxiom());
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void addAxioms(Collection<? extends OWLAxiom> axioms) {
+        for (OWLAxiom axiom : axioms) {
+            addAxiom(axiom);
+        }
+    }
+
+    private void addAxiom(OWLAxiom axiom) {
+        for (IRI iri : getReferencedIRIs(axiom)) {
+            Multiset<OWLAxiom> axioms = index.get(iri);
+            if (axioms == null) {
+                axioms = HashMultiset.create(2);
+                index.put(iri, axioms);
+            }
+            axioms.add(axiom);
+        }
+    }
+
+    private void removeAxiom(OWLAxiom axiom) {
+        for (IRI iri : getReferencedIRIs(axiom)) {
+            Multiset<OWLAxiom> axioms = index.get(iri);
+            if (axioms != null) {
+                axioms.remove(axiom);
+                if (axioms.isEmpty()) {
+                    index.remove(iri);
+                }
+            }
+        }
+    }
+
+    private static Set<IRI> getReferencedIRIs(OWLAxiom axiom) {
+        final Set<IRI> result = new HashSet<>(2);
+        axiom.accept(new OWLAxiomVisitorAdapter() {
+            @Override
+            public void visit(OWLAnnotationAssertionAxiom axiom) {
+                if (axiom.getSubject() instanceof IRI) {
+                    result.add((IRI) axiom.getSubject());
+                }
+                if (axiom.getValue() instanceof IRI) {
+                    result.add((IRI) axiom.getValue());
+                }
+            }
+
+            @Override
+            public void visit(OWLAnnotationPropertyRangeAxiom axiom) {
+                result.add(axiom.getRange());
+            }
+
+            @Override
+            public void visit(OWLAnnotationPropertyDomainAxiom axiom) {
+                result.add(axiom.getDomain());
+            }
+        });
+        return result;
+    }
+}
@@ -16,58 +16,94 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * Matthew Horridge
  * Stanford Center for Biomedical Informatics Research
  * 04/03/15
+ * <p>
+ *     Finds the roots of watched hierarchy branches that an entity lies in.  An entity lies in the branch of each of
+ *     its ancestors, and an individual lies in the branches of the ancestors of its named types.  The ancestors are
+ *     cached by the hierarchy providers, so once they have been computed this is a set membership test for each
+ *     branch root.
+ * </p>
  */
 public class IndirectlyWatchedEntitiesFinder {
 
     private final OWLOntology rootOntology;
 
-    private final edu.stanford.bmir.protege.web.server.hierarchy.OWLObjectHierarchyProvider<OWLClass> classHierarchyProvider;
+    private final OWLObjectHierarchyProvider<OWLClass> classHierarchyProvider;
 
     private final OWLObjectHierarchyProvider<OWLObjectProperty> objectPropertyHierarchyProvider;
 
     private final OWLObjectHierarchyProvider<OWLDataProperty> dataPropertyHierarchyProvider;
 
+    private final OWLObjectHierarchyProvider<OWLAnnotationProperty> annotationPropertyHierarchyProvider;
+
 
     @Inject
     public IndirectlyWatchedEntitiesFinder(@RootOntology OWLOntology rootOntology,
                                            OWLObjectHierarchyProvider<OWLClass> classHierarchyProvider,
                                            OWLObjectHierarchyProvider<OWLObjectProperty> objectPropertyHierarchyProvider,
-                                           OWLObjectHierarchyProvider<OWLDataProperty> dataPropertyHierarchyProvider) {
+                                           OWLObjectHierarchyProvider<OWLDataProperty> dataPropertyHierarchyProvider,
+                                           OWLObjectHierarchyProvider<OWLAnnotationProperty> annotationPropertyHierarchyProvider) {
         this.rootOntology = checkNotNull(rootOntology);
         this.classHierarchyProvider = checkNotNull(classHierarchyProvider);
         this.objectPropertyHierarchyProvider = checkNotNull(objectPropertyHierarchyProvider);
         this.dataPropertyHierarchyProvider = checkNotNull(dataPropertyHierarchyProvider);
+        this.annotationPropertyHierarchyProvider = checkNotNull(annotationPropertyHierarchyProvider);
     }
 
-    public Set<? extends OWLEntity> getRelatedWatchedEntities(OWLEntity entity) {
-        return entity.accept(new OWLEntityVisitorExAdapter<Set<? extends OWLEntity>>() {
+    /**
+     * Gets the roots of the specified branches whose branches contain the specified entity.
+     * @param entity The entity.  Not {@code null}.
+     * @param branchRoots The roots of the watched branches.  Not {@code null}.
+     * @return The subset of {@code branchRoots} that are ancestors of {@code entity}.  Not {@code null}.
+     */
+    public Set<OWLEntity> getWatchingBranchRoots(OWLEntity entity, final Set<? extends OWLEntity> branchRoots) {
+        if (branchRoots.isEmpty()) {
+            // Avoid computing the ancestors of the entity
+            return Collections.emptySet();
+        }
+        return entity.accept(new OWLEntityVisitorExAdapter<Set<OWLEntity>>() {
             @Override
-            protected Set<? extends OWLEntity> getDefaultReturnValue(OWLEntity object) {
+            protected Set<OWLEntity> getDefaultReturnValue(OWLEntity object) {
                 return Collections.emptySet();
             }
 
             @Override
-            public Set<? extends OWLEntity> visit(OWLClass desc) {
-                return classHierarchyProvider.getAncestors(desc);
+            public Set<OWLEntity> visit(OWLClass desc) {
+                return getBranchRootsIn(classHierarchyProvider.getAncestors(desc));
             }
 
             @Override
-            public Set<? extends OWLEntity> visit(OWLDataProperty property) {
-                return dataPropertyHierarchyProvider.getAncestors(property);
+            public Set<OWLEntity> visit(OWLDataProperty property) {
+                return getBranchRootsIn(dataPropertyHierarchyProvider.getAncestors(property));
             }
 
             @Override
-            public Set<? extends OWLEntity> visit(OWLObjectProperty property) {
-                return objectPropertyHierarchyProvider.getAncestors(property);
+            public Set<OWLEntity> visit(OWLObjectProperty property) {
+                return getBranchRootsIn(objectPropertyHierarchyProvider.getAncestors(property));
             }
 
             @Override
-            public Set<? extends OWLEntity> visit(OWLNamedIndividual individual) {
+            public Set<OWLEntity> visit(OWLAnnotationProperty property) {
+                return getBranchRootsIn(annotationPropertyHierarchyProvider.getAncestors(property));
+            }
+
+            @Override
+            public Set<OWLEntity> visit(OWLNamedIndividual individual) {
                 Set<OWLClassExpression> types = individual.getTypes(rootOntology.getImportsClosure());
-                Set<OWLClass> result = new HashSet<OWLClass>();
+                Set<OWLEntity> result = new HashSet<>();
                 for(OWLClassExpression ce : types) {
                     if(!ce.isAnonymous()) {
-                        result.addAll(classHierarchyProvider.getAncestors(ce.asOWLClass()));
+                        result.addAll(getBranchRootsIn(classHierarchyProvider.getAncestors(ce.asOWLClass())));
+                    }
+                }
+                return result;
+            }
+
+            private Set<OWLEntity> getBranchRootsIn(Set<? extends OWLEntity> ancestors) {
+                Set<OWLEntity> result = new HashSet<>();
+                // There are usually far fewer branch roots than ancestors
+                for (OWLEntity branchRoot : branchRoots) {
+                    if (ancestors.contains(branchRoot)) {
+                        result.add(branchRoot);
                     }
                 }
                 return result;
@@ -3,6 +3,7 @@ package edu.stanford.bmir.protege.web.server.watches;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimap;
 import edu.stanford.bmir.protege.web.shared.user.UserId;
+import edu.stanford.bmir.protege.web.shared.watches.HierarchyBranchWatch;
 import edu.stanford.bmir.protege.web.shared.watches.Watch;
 import org.semanticweb.owlapi.model.OWLEntity;
 
@@ -27,6 +28,11 @@ public class WatchIndex {
 
     private final Multimap<Object, Watch<?>> watchedObject2Watch = HashMultimap.create();
 
+    /**
+     * The entities that are watched by at least one {@link HierarchyBranchWatch}.
+     */
+    private final Set<OWLEntity> watchedBranchRoots = new HashSet<>();
+
     private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
 
     private final Lock readLock = readWriteLock.readLock();
@@ -39,6 +45,9 @@ public class WatchIndex {
             boolean added = userId2Watch.put(checkNotNull(userId), checkNotNull(watch));
             watch2UserId.put(watch, userId);
             watchedObject2Watch.put(watch.getWatchedObject(), watch);
+            if (watch instanceof HierarchyBranchWatch) {
+                watchedBranchRoots.add(((HierarchyBranchWatch) watch).getEntity());
+            }
             return added;
         } finally {
             writeLock.unlock();
@@ -50,7 +59,13 @@ public class WatchIndex {
             writeLock.lock();
             boolean removed = userId2Watch.remove(checkNotNull(userId), checkNotNull(watch));
             watch2UserId.remove(watch, userId);
-            watchedObject2Watch.remove(watch.getWatchedObject(), watch);
+            // The watch may still be held by other users
+            if (!watch2UserId.containsKey(watch)) {
+                watchedObject2Watch.remove(watch.getWatchedObject(), watch);
+                if (watch instanceof HierarchyBranchWatch) {
+                    watchedBranchRoots.remove(((HierarchyBranchWatch) watch).getEntity());
+                }
+            }
             return removed;
         } finally {
             writeLock.unlock();
@@ -75,6 +90,19 @@ public class WatchIndex {
         }
     }
 
+    /**
+     * Gets the entities that are the roots of watched hierarchy branches.
+     * @return A copy of the set of entities that are watched by at least one {@link HierarchyBranchWatch}.
+     * Not {@code null}.
+     */
+    public Set<OWLEntity> getWatchedBranchRoots() {
+        try {
+            readLock.lock();
+            return new HashSet<>(watchedBranchRoots);
+        } finally {
+            readLock.unlock();
+        }
+    }
 
     public Set<UserId> getUsersForWatch(Watch<?> watch) {
         try {
@@ -1,5 +1,6 @@
 package edu.stanford.bmir.protege.web.server.watches;
 
+import edu.stanford.bmir.protege.web.shared.HasDispose;
 import edu.stanford.bmir.protege.web.shared.user.UserId;
 import edu.stanford.bmir.protege.web.shared.watches.Watch;
 import org.semanticweb.owlapi.model.OWLEntity;
@@ -12,7 +13,7 @@ import java.util.Set;
  * Bio-Medical Informatics Research Group<br>
  * Date: 20/03/2013
  */
-public interface WatchManager {
+public interface WatchManager extends HasDispose {
 
     /**
      * Gets the {@link Watch}es for the specified {@link UserId}.
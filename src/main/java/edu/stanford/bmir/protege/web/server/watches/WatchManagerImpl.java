@@ -47,6 +47,9 @@ public class WatchManagerImpl implements WatchManager, HasDispose {
         this.watchTriggeredHandler = checkNotNull(watchTriggeredHandler);
         this.watchedEntitiesFinder = checkNotNull(watchedEntitiesFinder);
         this.eventManager = checkNotNull(eventManager);
+        for (UserWatch<?> userWatch : watchStore.getWatches()) {
+            watchIndex.addWatch(userWatch.getWatch(), userWatch.getUserId());
+        }
     }
 
     @Override
@@ -84,8 +87,10 @@ public class WatchManagerImpl implements WatchManager, HasDispose {
     public void handleEntityFrameChanged(OWLEntity entity) {
         List<Watch<?>> watches = new ArrayList<>();
         watches.addAll(watchIndex.getWatchesOnEntity(entity));
-        for (OWLEntity anc : watchedEntitiesFinder.getRelatedWatchedEntities(entity)) {
-            watches.addAll(watchIndex.getWatchesOnEntity(anc));
+        Set<OWLEntity> branchRoots = watchIndex.getWatchedBranchRoots();
+        for (OWLEntity branchRoot : watchedEntitiesFinder.getWatchingBranchRoots(entity, branchRoots)) {
+            // Only branch watches cover the descendants of the watched entity
+            watches.add(new HierarchyBranchWatch(branchRoot));
         }
         for (Watch<?> watch : watches) {
             for (UserId userId : watchIndex.getUsersForWatch(watch)) {
@@ -104,6 +109,7 @@ public class WatchManagerImpl implements WatchManager, HasDispose {
 
     @Override
     public void dispose() {
+        watchTriggeredHandler.dispose();
     }
 
 
@@ -120,13 +120,13 @@ public class WatchStoreImpl implements WatchStore {
         } else if (entityTypeName.equals(EntityType.OBJECT_PROPERTY.getName())) {
             entity = entityProvider.getOWLObjectProperty(IRI.create(iri));
         } else if (entityTypeName.equals(EntityType.DATA_PROPERTY.getName())) {
-            entity = entityProvider.getOWLObjectProperty(IRI.create(iri));
+            entity = entityProvider.getOWLDataProperty(IRI.create(iri));
         } else if (entityTypeName.equals(EntityType.ANNOTATION_PROPERTY.getName())) {
-            entity = entityProvider.getOWLObjectProperty(IRI.create(iri));
+            entity = entityProvider.getOWLAnnotationProperty(IRI.create(iri));
         } else if (entityTypeName.equals(EntityType.NAMED_INDIVIDUAL.getName())) {
-            entity = entityProvider.getOWLObjectProperty(IRI.create(iri));
+            entity = entityProvider.getOWLNamedIndividual(IRI.create(iri));
         } else if (entityTypeName.equals(EntityType.DATATYPE.getName())) {
-            entity = entityProvider.getOWLObjectProperty(IRI.create(iri));
+            entity = entityProvider.getOWLDatatype(IRI.create(iri));
         } else {
             throw new RuntimeException("Invalid entity type: " + entityTypeName);
         }
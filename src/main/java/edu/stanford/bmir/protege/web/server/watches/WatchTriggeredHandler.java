@@ -1,5 +1,6 @@
 package edu.stanford.bmir.protege.web.server.watches;
 
+import edu.stanford.bmir.protege.web.shared.HasDispose;
 import edu.stanford.bmir.protege.web.shared.user.UserId;
 import edu.stanford.bmir.protege.web.shared.watches.Watch;
 import org.semanticweb.owlapi.model.OWLEntity;
@@ -9,7 +10,7 @@ import org.semanticweb.owlapi.model.OWLEntity;
  * Stanford Center for Biomedical Informatics Research
  * 04/03/15
  */
-public interface WatchTriggeredHandler {
+public interface WatchTriggeredHandler extends HasDispose {
 
     void handleWatchTriggered(final Watch<?> watch, final UserId userId, final OWLEntity entity);
 }
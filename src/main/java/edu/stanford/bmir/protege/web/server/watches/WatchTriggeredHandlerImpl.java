@@ -2,6 +2,9 @@ package edu.stanford.bmir.protege.web.server.watches;
 
 import com.google.common.base.Optional;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import edu.stanford.bmir.protege.web.server.app.WebProtegeProperties;
+import edu.stanford.bmir.protege.web.server.inject.ApplicationHost;
+import edu.stanford.bmir.protege.web.server.logging.WebProtegeLogger;
 import edu.stanford.bmir.protege.web.server.mail.SendMail;
 import edu.stanford.bmir.protege.web.server.metaproject.UserDetailsManager;
 import edu.stanford.bmir.protege.web.shared.BrowserTextProvider;
@@ -13,19 +16,32 @@ import org.semanticweb.owlapi.model.OWLEntity;
 
 import javax.inject.Inject;
 import java.net.URLEncoder;
-import java.util.Date;
-import java.util.concurrent.ExecutorService;
+import java.util.*;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Matthew Horridge
  * Stanford Center for Biomedical Informatics Research
  * 04/03/15
+ * <p>
+ *     Notifies users of changes to the entities that they watch by email.  The changes that trigger a user's watches
+ *     are collected over a window of time, starting at the first change, and the user is then sent one email that
+ *     lists the changed entities.  An entity that changes several times in a window is listed once.  The number of
+ *     entities that are listed in one email is limited, so a bulk edit does not build up an unbounded backlog of
+ *     notifications; further changes to other entities are counted but not listed.
+ * </p>
  */
 public class WatchTriggeredHandlerImpl implements WatchTriggeredHandler {
 
-    private ExecutorService emailExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setPriority(Thread.MIN_PRIORITY).build());
+    private static final int MAX_LISTED_ENTITIES = 100;
+
+    private final ScheduledExecutorService emailExecutor;
 
+    private final long windowSeconds;
 
     private final ProjectId projectId;
 
@@ -37,42 +53,175 @@ public class WatchTriggeredHandlerImpl implements WatchTriggeredHandler {
 
     private final UserDetailsManager userDetailsManager;
 
+    private final WebProtegeLogger logger;
+
+    private final Map<UserId, PendingNotification> pendingNotifications = new HashMap<>();
+
 
     @Inject
-    public WatchTriggeredHandlerImpl(ProjectId projectId, BrowserTextProvider browserTextProvider, String applicationHost, SendMail mailManager, UserDetailsManager userDetailsManager) {
-        this.projectId = projectId;
-        this.browserTextProvider = browserTextProvider;
-        this.applicationHost = applicationHost;
-        this.mailManager = mailManager;
-        this.userDetailsManager = userDetailsManager;
+    public WatchTriggeredHandlerImpl(ProjectId projectId,
+                                     BrowserTextProvider browserTextProvider,
+                                     @ApplicationHost String applicationHost,
+                                     SendMail mailManager,
+                                     UserDetailsManager userDetailsManager,
+                                     WebProtegeProperties properties,
+                                     WebProtegeLogger logger) {
+        this(projectId, browserTextProvider, applicationHost, mailManager, userDetailsManager, logger,
+                Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                        .setNameFormat("watch-notification-%d")
+                        .setPriority(Thread.MIN_PRIORITY)
+                        .setDaemon(true)
+                        .build()),
+                properties.getWatchNotificationWindowSeconds());
+    }
+
+    WatchTriggeredHandlerImpl(ProjectId projectId,
+                              BrowserTextProvider browserTextProvider,
+                              String applicationHost,
+                              SendMail mailManager,
+                              UserDetailsManager userDetailsManager,
+                              WebProtegeLogger logger,
+                              ScheduledExecutorService emailExecutor,
+                              long windowSeconds) {
+        this.projectId = checkNotNull(projectId);
+        this.browserTextProvider = checkNotNull(browserTextProvider);
+        this.applicationHost = checkNotNull(applicationHost);
+        this.mailManager = checkNotNull(mailManager);
+        this.userDetailsManager = checkNotNull(userDetailsManager);
+        this.logger = checkNotNull(logger);
+        this.emailExecutor = checkNotNull(emailExecutor);
+        this.windowSeconds = windowSeconds;
     }
 
     @Override
     public void handleWatchTriggered(final Watch<?> watch, final UserId userId, final OWLEntity entity) {
-        emailExecutor.submit(new Runnable() {
-            @Override
-            public void run() {
-                Optional<UserDetails> userDetailsOptional = userDetailsManager.getUserDetails(userId);
-                if(!userDetailsOptional.isPresent()) {
-                    return;
+        synchronized (pendingNotifications) {
+            PendingNotification pendingNotification = pendingNotifications.get(userId);
+            if (pendingNotification == null) {
+                pendingNotification = new PendingNotification();
+                pendingNotifications.put(userId, pendingNotification);
+                emailExecutor.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        sendNotification(userId);
+                    }
+                }, windowSeconds, TimeUnit.SECONDS);
+            }
+            pendingNotification.add(entity);
+        }
+    }
+
+    @Override
+    public void dispose() {
+        List<UserId> userIds;
+        synchronized (pendingNotifications) {
+            userIds = new ArrayList<>(pendingNotifications.keySet());
+        }
+        // Don't lose the changes that have been collected so far.  The notifications are sent on the email executor,
+        // which completes the tasks that were submitted before it was shut down, so disposing doesn't wait for mail.
+        for (final UserId userId : userIds) {
+            emailExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    sendNotification(userId);
                 }
-                UserDetails userDetails = userDetailsOptional.get();
-                final String displayName = "watched project";
-                final String emailSubject = String.format("Changes made in %s by %s", displayName, userDetails.getDisplayName());
-                String message = "\nChanges were made to " + entity.getEntityType().getName() + " " + browserTextProvider.getOWLEntityBrowserText(entity) + " " + entity.getIRI().toQuotedString();
-                message = message + (" on " + new Date() + "\n\n");
-                message = message + "You can view this " + entity.getEntityType().getName() + " at the link below:";
-                StringBuilder directLinkBuilder = new StringBuilder();
-                directLinkBuilder.append("http://");
-                directLinkBuilder.append(applicationHost);
-                directLinkBuilder.append("#Edit:projectId=");
-                directLinkBuilder.append(projectId.getId());
-                directLinkBuilder.append(";tab=ClassesTab&id=");
-                directLinkBuilder.append(URLEncoder.encode(entity.getIRI().toString()));
-                message += "\n" + directLinkBuilder.toString();
-                mailManager.sendMail(userDetails.getEmailAddress().or("Not specified"), emailSubject, message);
+            });
+        }
+        emailExecutor.shutdown();
+    }
+
+    private void sendNotification(UserId userId) {
+        PendingNotification pendingNotification;
+        synchronized (pendingNotifications) {
+            pendingNotification = pendingNotifications.remove(userId);
+        }
+        if (pendingNotification == null) {
+            return;
+        }
+        Optional<UserDetails> userDetailsOptional = userDetailsManager.getUserDetails(userId);
+        if (!userDetailsOptional.isPresent()) {
+            return;
+        }
+        UserDetails userDetails = userDetailsOptional.get();
+        final String displayName = "watched project";
+        final String emailSubject = String.format("Changes made in %s", displayName);
+        StringBuilder message = new StringBuilder();
+        message.append("\nChanges were made to the following entities between ");
+        message.append(new Date(pendingNotification.getStartTime()));
+        message.append(" and ");
+        message.append(new Date());
+        message.append(".  You can view each entity at the link below it.\n\n");
+        for (OWLEntity entity : pendingNotification.getEntities()) {
+            message.append(entity.getEntityType().getName());
+            message.append(" ");
+            message.append(browserTextProvider.getOWLEntityBrowserText(entity).or(entity.getIRI().toString()));
+            message.append(" ");
+            message.append(entity.getIRI().toQuotedString());
+            message.append("\n");
+            message.append(getDirectLink(entity));
+            message.append("\n\n");
+        }
+        int unlistedCount = pendingNotification.getUnlistedCount();
+        if (unlistedCount > 0) {
+            message.append(unlistedCount);
+            message.append(" further changes were made to other watched entities.\n");
+        }
+        mailManager.sendMail(userDetails.getEmailAddress().or("Not specified"), emailSubject, message.toString());
+        logger.info(projectId, "Sent a watch notification listing %d changed entities, from %d changes, to %s",
+                pendingNotification.getEntities().size(),
+                pendingNotification.getTriggerCount(),
+                userId.getUserName());
+    }
 
+    private String getDirectLink(OWLEntity entity) {
+        StringBuilder directLinkBuilder = new StringBuilder();
+        directLinkBuilder.append("http://");
+        directLinkBuilder.append(applicationHost);
+        directLinkBuilder.append("#Edit:projectId=");
+        directLinkBuilder.append(projectId.getId());
+        directLinkBuilder.append(";tab=ClassesTab&id=");
+        directLinkBuilder.append(URLEncoder.encode(entity.getIRI().toString()));
+        return directLinkBuilder.toString();
+    }
+
+    /**
+     * The changed entities that a user has not yet been notified of.
+     */
+    private static class PendingNotification {
+
+        private final long startTime = System.currentTimeMillis();
+
+        private final Set<OWLEntity> entities = new LinkedHashSet<>();
+
+        private int unlistedCount = 0;
+
+        private int triggerCount = 0;
+
+        public void add(OWLEntity entity) {
+            triggerCount++;
+            if (entities.size() < MAX_LISTED_ENTITIES) {
+                entities.add(entity);
+            }
+            else if (!entities.contains(entity)) {
+                // Nothing is kept for unlisted entities, so a bulk edit cannot build up an unbounded notification
+                unlistedCount++;
             }
-        });
+        }
+
+        public long getStartTime() {
+            return startTime;
+        }
+
+        public Set<OWLEntity> getEntities() {
+            return entities;
+        }
+
+        public int getUnlistedCount() {
+            return unlistedCount;
+        }
+
+        public int getTriggerCount() {
+            return triggerCount;
+        }
     }
 }
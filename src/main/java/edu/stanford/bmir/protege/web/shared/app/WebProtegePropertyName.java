@@ -59,7 +59,25 @@ public enum WebProtegePropertyName {
     OPEN_ID_ENABLED("openid.enabled", PropertyValue.ofBoolean(true), ClientVisibility.VISIBLE),
 
     @WebProtegePropertiesDocumentation(description = "Specifies whether or not users should be allowed to sign up for accounts", example = "false")
-    USER_ACCOUNT_CREATION_ENABLED("user.account.creation.enabled", PropertyValue.ofBoolean(true), ClientVisibility.VISIBLE);
+    USER_ACCOUNT_CREATION_ENABLED("user.account.creation.enabled", PropertyValue.ofBoolean(true), ClientVisibility.VISIBLE),
+
+    @WebProtegePropertiesDocumentation(description = "The percentage of the maximum heap size that loaded projects may occupy before projects are evicted from memory", example = "60")
+    PROJECT_CACHE_MAX_MEMORY_PERCENTAGE("project.cache.max.memory.percentage", PropertyValue.ofInteger(60), ClientVisibility.HIDDEN),
+
+    @WebProtegePropertiesDocumentation(description = "A comma separated list of the ids of projects that are never evicted from memory once they have been loaded", example = "e7e4ea5e-6b46-4f5b-9d1c-8f2a5b1b6c4d")
+    PROJECT_CACHE_PINNED_PROJECTS("project.cache.pinned.projects", PropertyValue.absentByDefault(), ClientVisibility.HIDDEN),
+
+    @WebProtegePropertiesDocumentation(description = "The number of recently active projects that are loaded in the background when WebProtégé starts", example = "5")
+    PROJECT_WARMUP_COUNT("project.warmup.count", PropertyValue.ofInteger(5), ClientVisibility.HIDDEN),
+
+    @WebProtegePropertiesDocumentation(description = "The number of threads that are used to load recently active projects when WebProtégé starts", example = "2")
+    PROJECT_WARMUP_THREADS("project.warmup.threads", PropertyValue.ofInteger(2), ClientVisibility.HIDDEN),
+
+    @WebProtegePropertiesDocumentation(description = "The number of seconds over which the changes to a user's watched entities are collected into one notification email", example = "60")
+    WATCH_NOTIFICATION_WINDOW_SECONDS("watch.notification.window.seconds", PropertyValue.ofInteger(60), ClientVisibility.HIDDEN),
+
+    @WebProtegePropertiesDocumentation(description = "The number of CSV rows that are imported in each revision when a CSV file is imported", example = "1000")
+    CSV_IMPORT_CHUNK_SIZE("csv.import.chunk.size", PropertyValue.ofInteger(1000), ClientVisibility.HIDDEN);
 
 
     private static class PropertyValue {
@@ -0,0 +1,56 @@
+package edu.stanford.bmir.protege.web.shared.csv;
+
+import edu.stanford.bmir.protege.web.client.rpc.data.DocumentId;
+import edu.stanford.bmir.protege.web.shared.event.ProjectEvent;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Posted after each chunk of rows of a CSV file has been imported into a project.
+ */
+public class CSVImportProgressEvent extends ProjectEvent<CSVImportProgressHandler> {
+
+    private static final transient Type<CSVImportProgressHandler> TYPE = new Type<CSVImportProgressHandler>();
+
+    private DocumentId documentId;
+
+    private int importedRowCount;
+
+    public CSVImportProgressEvent(ProjectId source, DocumentId documentId, int importedRowCount) {
+        super(source);
+        this.documentId = checkNotNull(documentId);
+        this.importedRowCount = importedRowCount;
+    }
+
+    private CSVImportProgressEvent() {
+    }
+
+    public static Type<CSVImportProgressHandler> getType() {
+        return TYPE;
+    }
+
+    @Override
+    public Type<CSVImportProgressHandler> getAssociatedType() {
+        return TYPE;
+    }
+
+    /**
+     * Gets the id of the CSV document that is being imported.
+     */
+    public DocumentId getDocumentId() {
+        return documentId;
+    }
+
+    /**
+     * Gets the number of rows that have been imported so far.
+     */
+    public int getImportedRowCount() {
+        return importedRowCount;
+    }
+
+    @Override
+    protected void dispatch(CSVImportProgressHandler handler) {
+        handler.handleCSVImportProgress(this);
+    }
+}
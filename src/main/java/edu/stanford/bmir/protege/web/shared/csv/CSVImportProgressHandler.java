@@ -0,0 +1,6 @@
+package edu.stanford.bmir.protege.web.shared.csv;
+
+public interface CSVImportProgressHandler {
+
+    void handleCSVImportProgress(CSVImportProgressEvent event);
+}
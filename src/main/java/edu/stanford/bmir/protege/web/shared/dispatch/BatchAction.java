@@ -0,0 +1,63 @@
+package edu.stanford.bmir.protege.web.shared.dispatch;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An action that wraps up a list of {@link ReadOnlyAction}s so that they can be sent to the server in one
+ * request.  The sub-actions are executed independently of each other, and in no particular order.  The
+ * outcome of each sub-action is returned in the {@link BatchResult}, at the same position as the sub-action.
+ */
+public class BatchAction implements Action<BatchResult> {
+
+    private ImmutableList<Action<?>> actions;
+
+    /**
+     * For serialization purposes only
+     */
+    private BatchAction() {
+    }
+
+    /**
+     * Constructs a {@link BatchAction}.
+     * @param actions The sub-actions.  Not {@code null}.  Each sub-action should be a {@link ReadOnlyAction}.
+     * @throws NullPointerException if {@code actions} is {@code null}.
+     */
+    public BatchAction(ImmutableList<Action<?>> actions) {
+        this.actions = checkNotNull(actions);
+    }
+
+    /**
+     * Gets the sub-actions.
+     * @return The list of sub-actions.  Not {@code null}.
+     */
+    public ImmutableList<Action<?>> getActions() {
+        return actions;
+    }
+
+    @Override
+    public int hashCode() {
+        return "BatchAction".hashCode() + actions.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if(obj == this) {
+            return true;
+        }
+        if(!(obj instanceof BatchAction)) {
+            return false;
+        }
+        BatchAction other = (BatchAction) obj;
+        return this.actions.equals(other.actions);
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper("BatchAction")
+                .addValue(actions)
+                .toString();
+    }
+}
@@ -0,0 +1,84 @@
+package edu.stanford.bmir.protege.web.shared.dispatch;
+
+import com.google.common.base.Objects;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The result of executing a {@link BatchAction}.  For each sub-action there is either a result, if the
+ * sub-action was executed successfully, or the exception that was thrown, if it wasn't.
+ */
+public class BatchResult implements Result {
+
+    private List<DispatchServiceResultContainer> results;
+
+    private List<Throwable> exceptions;
+
+    /**
+     * For serialization purposes only
+     */
+    private BatchResult() {
+    }
+
+    /**
+     * Constructs a {@link BatchResult}.
+     * @param results The results of the sub-actions.  Not {@code null}.  The result at a position is {@code null}
+     *                if the sub-action at that position failed.
+     * @param exceptions The exceptions thrown by the sub-actions.  Not {@code null}.  The exception at a position
+     *                   is {@code null} if the sub-action at that position was executed successfully.
+     * @throws NullPointerException if any parameters are {@code null}.
+     * @throws IllegalArgumentException if the lists are of different sizes.
+     */
+    public BatchResult(List<DispatchServiceResultContainer> results, List<Throwable> exceptions) {
+        // Copied into lists that can hold nulls
+        this.results = new ArrayList<>(checkNotNull(results));
+        this.exceptions = new ArrayList<>(checkNotNull(exceptions));
+        if(this.results.size() != this.exceptions.size()) {
+            throw new IllegalArgumentException("There must be one result or exception for each sub-action");
+        }
+    }
+
+    /**
+     * Gets the number of sub-actions that this is a result for.
+     */
+    public int size() {
+        return results.size();
+    }
+
+    /**
+     * Determines whether the sub-action at the specified position was executed successfully.
+     * @param index The position of the sub-action.
+     * @return {@code true} if the sub-action was executed successfully, otherwise {@code false}.
+     */
+    public boolean isSuccess(int index) {
+        return exceptions.get(index) == null;
+    }
+
+    /**
+     * Gets the result of the sub-action at the specified position.
+     * @param index The position of the sub-action.
+     * @return The result.  {@code null} if the sub-action failed.
+     */
+    public DispatchServiceResultContainer getResult(int index) {
+        return results.get(index);
+    }
+
+    /**
+     * Gets the exception that was thrown by the sub-action at the specified position.
+     * @param index The position of the sub-action.
+     * @return The exception.  {@code null} if the sub-action was executed successfully.
+     */
+    public Throwable getException(int index) {
+        return exceptions.get(index);
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper("BatchResult")
+                .add("size", size())
+                .toString();
+    }
+}
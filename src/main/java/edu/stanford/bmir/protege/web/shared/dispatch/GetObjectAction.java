@@ -10,6 +10,6 @@ package edu.stanford.bmir.protege.web.shared.dispatch;
  *     {@link GetObjectResult} which is returned.
  * </p>
  */
-public interface GetObjectAction<T> extends Action<GetObjectResult<T>> {
+public interface GetObjectAction<T> extends Action<GetObjectResult<T>>, ReadOnlyAction {
 
 }
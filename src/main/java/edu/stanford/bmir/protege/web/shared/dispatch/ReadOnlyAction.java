@@ -0,0 +1,11 @@
+package edu.stanford.bmir.protege.web.shared.dispatch;
+
+/**
+ * A marker interface for actions which only read state on the server.  Executing a read only action has no
+ * side effects, and equal read only actions that are executed at the same time have equal results.  This
+ * means that the dispatch framework may execute read only actions in a {@link BatchAction}, and may send
+ * one request for equal read only actions that are in flight at the same time.
+ */
+public interface ReadOnlyAction {
+
+}
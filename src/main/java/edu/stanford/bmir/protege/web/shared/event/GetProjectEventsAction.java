@@ -24,6 +24,8 @@ public class GetProjectEventsAction implements HasProjectAction<GetProjectEvents
 
     private EventTag sinceTag;
 
+    private int maxWaitTimeInMs;
+
     /**
      * For serialization purposes only.
      */
@@ -31,15 +33,33 @@ public class GetProjectEventsAction implements HasProjectAction<GetProjectEvents
     }
 
     public GetProjectEventsAction(EventTag sinceTag, ProjectId projectId, UserId userId) {
+        this(sinceTag, projectId, userId, 0);
+    }
+
+    /**
+     * Creates an action that waits (long polls) for events if there are no events since the specified tag.
+     * @param sinceTag The tag from which events should be retrieved.
+     * @param projectId The project.
+     * @param userId The user.
+     * @param maxWaitTimeInMs The maximum amount of time that the server should hold the request open waiting for
+     *                        events.  Zero indicates that the request should return immediately.  The server may
+     *                        wait for less time than this.
+     */
+    public GetProjectEventsAction(EventTag sinceTag, ProjectId projectId, UserId userId, int maxWaitTimeInMs) {
         this.sinceTag = sinceTag;
         this.projectId = projectId;
         this.userId = userId;
+        this.maxWaitTimeInMs = maxWaitTimeInMs;
     }
 
     public EventTag getSinceTag() {
         return sinceTag;
     }
 
+    public int getMaxWaitTimeInMs() {
+        return maxWaitTimeInMs;
+    }
+
     @Override
     public ProjectId getProjectId() {
         return projectId;
@@ -60,6 +80,7 @@ public class GetProjectEventsAction implements HasProjectAction<GetProjectEvents
         return Objects.toStringHelper("GetProjectEventsAction")
                 .addValue(projectId)
                 .addValue(userId)
-                .add("since", sinceTag).toString();
+                .add("since", sinceTag)
+                .add("maxWaitTime", maxWaitTimeInMs).toString();
     }
 }
@@ -51,7 +51,8 @@ public class GetProjectEventsAction_CustomFieldSerializer extends CustomFieldSer
         String projectName = streamReader.readString();
         String userName = streamReader.readString();
         int ordinal = streamReader.readInt();
-        return new GetProjectEventsAction(EventTag.get(ordinal), ProjectId.get(projectName), UserId.getUserId(userName));
+        int maxWaitTimeInMs = streamReader.readInt();
+        return new GetProjectEventsAction(EventTag.get(ordinal), ProjectId.get(projectName), UserId.getUserId(userName), maxWaitTimeInMs);
     }
 
 
@@ -74,6 +75,7 @@ public class GetProjectEventsAction_CustomFieldSerializer extends CustomFieldSer
         streamWriter.writeString(instance.getProjectId().getId());
         streamWriter.writeString(instance.getUserId().getUserName());
         streamWriter.writeInt(instance.getSinceTag().getOrdinal());
+        streamWriter.writeInt(instance.getMaxWaitTimeInMs());
     }
 
 
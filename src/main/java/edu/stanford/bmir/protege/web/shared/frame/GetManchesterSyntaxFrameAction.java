@@ -3,6 +3,7 @@ package edu.stanford.bmir.protege.web.shared.frame;
 import edu.stanford.bmir.protege.web.shared.HasProjectId;
 import edu.stanford.bmir.protege.web.shared.HasSubject;
 import edu.stanford.bmir.protege.web.shared.dispatch.Action;
+import edu.stanford.bmir.protege.web.shared.dispatch.ReadOnlyAction;
 import edu.stanford.bmir.protege.web.shared.project.ProjectId;
 import org.semanticweb.owlapi.model.OWLEntity;
 
@@ -11,7 +12,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 /**
  * @author Matthew Horridge, Stanford University, Bio-Medical Informatics Research Group, Date: 18/03/2014
  */
-public class GetManchesterSyntaxFrameAction implements Action<GetManchesterSyntaxFrameResult>, HasProjectId, HasSubject<OWLEntity> {
+public class GetManchesterSyntaxFrameAction implements Action<GetManchesterSyntaxFrameResult>, HasProjectId, HasSubject<OWLEntity>, ReadOnlyAction {
 
     private ProjectId projectId;
 
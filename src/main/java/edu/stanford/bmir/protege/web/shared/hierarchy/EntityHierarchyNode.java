@@ -0,0 +1,98 @@
+package edu.stanford.bmir.protege.web.shared.hierarchy;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableSet;
+import com.google.gwt.user.client.rpc.IsSerializable;
+import edu.stanford.bmir.protege.web.shared.entity.OWLEntityData;
+import edu.stanford.bmir.protege.web.shared.watches.Watch;
+
+import static com.google.common.base.Objects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A node in an entity hierarchy, together with the information that is needed to display the node in a tree:
+ * the number of children of the node, whether the entity is deprecated, the number of notes on the entity
+ * and the watches that the requesting user has on the entity.
+ */
+public class EntityHierarchyNode implements IsSerializable {
+
+    private OWLEntityData entityData;
+
+    private int childCount;
+
+    private boolean deprecated;
+
+    private int notesCount;
+
+    private ImmutableSet<Watch<?>> watches;
+
+    /**
+     * For serialization purposes only
+     */
+    private EntityHierarchyNode() {
+    }
+
+    public EntityHierarchyNode(OWLEntityData entityData,
+                               int childCount,
+                               boolean deprecated,
+                               int notesCount,
+                               ImmutableSet<Watch<?>> watches) {
+        this.entityData = checkNotNull(entityData);
+        this.childCount = childCount;
+        this.deprecated = deprecated;
+        this.notesCount = notesCount;
+        this.watches = checkNotNull(watches);
+    }
+
+    public OWLEntityData getEntityData() {
+        return entityData;
+    }
+
+    public int getChildCount() {
+        return childCount;
+    }
+
+    public boolean isDeprecated() {
+        return deprecated;
+    }
+
+    public int getNotesCount() {
+        return notesCount;
+    }
+
+    public ImmutableSet<Watch<?>> getWatches() {
+        return watches;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(entityData, childCount, deprecated, notesCount, watches);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof EntityHierarchyNode)) {
+            return false;
+        }
+        EntityHierarchyNode other = (EntityHierarchyNode) obj;
+        return this.entityData.equals(other.entityData)
+                && this.childCount == other.childCount
+                && this.deprecated == other.deprecated
+                && this.notesCount == other.notesCount
+                && this.watches.equals(other.watches);
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper("EntityHierarchyNode")
+                .addValue(entityData)
+                .add("childCount", childCount)
+                .add("deprecated", deprecated)
+                .add("notesCount", notesCount)
+                .add("watches", watches)
+                .toString();
+    }
+}
@@ -0,0 +1,68 @@
+package edu.stanford.bmir.protege.web.shared.hierarchy;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableSet;
+import edu.stanford.bmir.protege.web.shared.HasProjectId;
+import edu.stanford.bmir.protege.web.shared.dispatch.Action;
+import edu.stanford.bmir.protege.web.shared.dispatch.ReadOnlyAction;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import org.semanticweb.owlapi.model.OWLEntity;
+
+import static com.google.common.base.Objects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Gets the children of several nodes in the entity hierarchies of a project in one round trip.  Classes are
+ * expanded using the class hierarchy, and properties are expanded using the hierarchy for their type of property.
+ */
+public class GetHierarchyChildrenAction implements Action<GetHierarchyChildrenResult>, HasProjectId, ReadOnlyAction {
+
+    private ProjectId projectId;
+
+    private ImmutableSet<OWLEntity> parents;
+
+    /**
+     * For serialization purposes only
+     */
+    private GetHierarchyChildrenAction() {
+    }
+
+    public GetHierarchyChildrenAction(ProjectId projectId, ImmutableSet<OWLEntity> parents) {
+        this.projectId = checkNotNull(projectId);
+        this.parents = checkNotNull(parents);
+    }
+
+    @Override
+    public ProjectId getProjectId() {
+        return projectId;
+    }
+
+    public ImmutableSet<OWLEntity> getParents() {
+        return parents;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(projectId, parents);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof GetHierarchyChildrenAction)) {
+            return false;
+        }
+        GetHierarchyChildrenAction other = (GetHierarchyChildrenAction) obj;
+        return this.projectId.equals(other.projectId) && this.parents.equals(other.parents);
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper("GetHierarchyChildrenAction")
+                .addValue(projectId)
+                .addValue(parents)
+                .toString();
+    }
+}
@@ -0,0 +1,67 @@
+package edu.stanford.bmir.protege.web.shared.hierarchy;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import edu.stanford.bmir.protege.web.shared.dispatch.Result;
+import org.semanticweb.owlapi.model.OWLEntity;
+
+import static com.google.common.base.Objects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+public class GetHierarchyChildrenResult implements Result {
+
+    private ImmutableMap<OWLEntity, ImmutableList<EntityHierarchyNode>> childrenByParent;
+
+    /**
+     * For serialization purposes only
+     */
+    private GetHierarchyChildrenResult() {
+    }
+
+    public GetHierarchyChildrenResult(ImmutableMap<OWLEntity, ImmutableList<EntityHierarchyNode>> childrenByParent) {
+        this.childrenByParent = checkNotNull(childrenByParent);
+    }
+
+    /**
+     * Gets the children of the specified parent.
+     * @param parent The parent.  Not {@code null}.
+     * @return The children of the parent, in display order.  An empty list if the parent was not requested or
+     * does not have any children.  Not {@code null}.
+     */
+    public ImmutableList<EntityHierarchyNode> getChildren(OWLEntity parent) {
+        ImmutableList<EntityHierarchyNode> children = childrenByParent.get(checkNotNull(parent));
+        if (children == null) {
+            return ImmutableList.of();
+        }
+        return children;
+    }
+
+    public ImmutableMap<OWLEntity, ImmutableList<EntityHierarchyNode>> getChildrenByParent() {
+        return childrenByParent;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(childrenByParent);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof GetHierarchyChildrenResult)) {
+            return false;
+        }
+        GetHierarchyChildrenResult other = (GetHierarchyChildrenResult) obj;
+        return this.childrenByParent.equals(other.childrenByParent);
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper("GetHierarchyChildrenResult")
+                .addValue(childrenByParent)
+                .toString();
+    }
+}
@@ -4,6 +4,7 @@ import com.google.common.base.Objects;
 import edu.stanford.bmir.protege.web.shared.HasProjectId;
 import edu.stanford.bmir.protege.web.shared.HasUserId;
 import edu.stanford.bmir.protege.web.shared.dispatch.Action;
+import edu.stanford.bmir.protege.web.shared.dispatch.ReadOnlyAction;
 import edu.stanford.bmir.protege.web.shared.project.ProjectId;
 import edu.stanford.bmir.protege.web.shared.user.UserId;
 
@@ -15,7 +16,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * Stanford Center for Biomedical Informatics Research
  * 23/02/15
  */
-public class GetPermissionsAction implements Action<GetPermissionsResult>, HasProjectId, HasUserId {
+public class GetPermissionsAction implements Action<GetPermissionsResult>, HasProjectId, HasUserId, ReadOnlyAction {
 
     private ProjectId projectId;
 
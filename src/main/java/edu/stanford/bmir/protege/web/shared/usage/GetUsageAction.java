@@ -3,6 +3,7 @@ package edu.stanford.bmir.protege.web.shared.usage;
 import com.google.common.base.Optional;
 import edu.stanford.bmir.protege.web.client.dispatch.actions.AbstractHasProjectIdAndSubject;
 import edu.stanford.bmir.protege.web.shared.dispatch.Action;
+import edu.stanford.bmir.protege.web.shared.dispatch.ReadOnlyAction;
 import edu.stanford.bmir.protege.web.shared.project.ProjectId;
 import org.semanticweb.owlapi.model.OWLEntity;
 
@@ -12,7 +13,7 @@ import org.semanticweb.owlapi.model.OWLEntity;
  * Bio-Medical Informatics Research Group<br>
  * Date: 11/07/2013
  */
-public class GetUsageAction extends AbstractHasProjectIdAndSubject<OWLEntity> implements Action<GetUsageResult> {
+public class GetUsageAction extends AbstractHasProjectIdAndSubject<OWLEntity> implements Action<GetUsageResult>, ReadOnlyAction {
 
     private static final int DEFAULT_PAGE_SIZE = 500;
 
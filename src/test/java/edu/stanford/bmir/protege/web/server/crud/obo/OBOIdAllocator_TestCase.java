@@ -0,0 +1,87 @@
+package edu.stanford.bmir.protege.web.server.crud.obo;
+
+import edu.stanford.bmir.protege.web.shared.crud.oboid.UserIdRange;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.junit.Before;
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class OBOIdAllocator_TestCase {
+
+    private static final String PREFIX = "http://purl.obolibrary.org/obo/TEST_";
+
+    private OWLOntologyManager manager;
+
+    private OWLOntology ontology;
+
+    private UserId userId;
+
+    private UserId otherUserId;
+
+    @Before
+    public void setUp() throws Exception {
+        manager = OWLManager.createOWLOntologyManager();
+        ontology = manager.createOntology();
+        userId = UserId.getUserId("User");
+        otherUserId = UserId.getUserId("OtherUser");
+    }
+
+    @Test
+    public void shouldAllocateIdAfterHighestUsedId() {
+        declare(PREFIX + "0000003");
+        declare(PREFIX + "0000010");
+        OBOIdAllocator allocator = new OBOIdAllocator(PREFIX, 7, Collections.<UserIdRange>emptyList(), ontology);
+        assertThat(allocator.allocateId(userId), is(11L));
+    }
+
+    @Test
+    public void shouldNotAllocateSameIdTwice() {
+        OBOIdAllocator allocator = new OBOIdAllocator(PREFIX, 7, Collections.<UserIdRange>emptyList(), ontology);
+        assertThat(allocator.allocateId(userId), is(1L));
+        assertThat(allocator.allocateId(otherUserId), is(2L));
+    }
+
+    @Test
+    public void shouldIgnoreIRIsWithOtherPrefixes() {
+        declare("http://purl.obolibrary.org/obo/OTHER_0000010");
+        declare(PREFIX + "ABC");
+        OBOIdAllocator allocator = new OBOIdAllocator(PREFIX, 7, Collections.<UserIdRange>emptyList(), ontology);
+        assertThat(allocator.allocateId(userId), is(1L));
+    }
+
+    @Test
+    public void shouldAllocateIdsInUserRange() {
+        declare(PREFIX + "0000105");
+        declare(PREFIX + "0000500");
+        UserIdRange range = new UserIdRange(userId, 100, 199);
+        OBOIdAllocator allocator = new OBOIdAllocator(PREFIX, 7, Arrays.asList(range), ontology);
+        assertThat(allocator.allocateId(userId), is(106L));
+        assertThat(allocator.allocateId(otherUserId), is(501L));
+    }
+
+    @Test(expected = CannotGenerateFreshEntityIdForUserException.class)
+    public void shouldThrowExceptionWhenUserRangeIsExhausted() {
+        declare(PREFIX + "0000199");
+        UserIdRange range = new UserIdRange(userId, 100, 199);
+        OBOIdAllocator allocator = new OBOIdAllocator(PREFIX, 7, Arrays.asList(range), ontology);
+        allocator.allocateId(userId);
+    }
+
+    @Test
+    public void shouldPadIdToTotalDigits() {
+        OBOIdAllocator allocator = new OBOIdAllocator(PREFIX, 7, Collections.<UserIdRange>emptyList(), ontology);
+        assertThat(allocator.getIRI(42), is(IRI.create(PREFIX + "0000042")));
+    }
+
+    private void declare(String iri) {
+        OWLDataFactory dataFactory = manager.getOWLDataFactory();
+        manager.addAxiom(ontology, dataFactory.getOWLDeclarationAxiom(dataFactory.getOWLClass(IRI.create(iri))));
+    }
+}
@@ -0,0 +1,124 @@
+package edu.stanford.bmir.protege.web.server.csv;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import edu.stanford.bmir.protege.web.client.rpc.data.DocumentId;
+import edu.stanford.bmir.protege.web.server.change.ChangeDescriptionGenerator;
+import edu.stanford.bmir.protege.web.server.change.ChangeListGenerator;
+import edu.stanford.bmir.protege.web.server.dispatch.ExecutionContext;
+import edu.stanford.bmir.protege.web.server.events.EventManager;
+import edu.stanford.bmir.protege.web.server.owlapi.OWLAPIProject;
+import edu.stanford.bmir.protege.web.server.owlapi.OWLAPIProjectManager;
+import edu.stanford.bmir.protege.web.shared.csv.*;
+import edu.stanford.bmir.protege.web.shared.event.ProjectEvent;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.semanticweb.owlapi.model.OWLClass;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ImportCSVFileActionHandler_TestCase {
+
+    private static final String DOCUMENT_ID = "import.csv";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    private OWLAPIProjectManager projectManager;
+
+    @Mock
+    private OWLAPIProject project;
+
+    @Mock
+    private EventManager<ProjectEvent<?>> eventManager;
+
+    @Mock
+    private ExecutionContext executionContext;
+
+    @Mock
+    private OWLClass importRootClass;
+
+    private ProjectId projectId;
+
+    private UserId userId;
+
+    private ImportCSVFileAction action;
+
+    @Before
+    public void setUp() throws Exception {
+        projectId = ProjectId.get(UUID.randomUUID().toString());
+        userId = UserId.getUserId("bob");
+        when(project.getProjectId()).thenReturn(projectId);
+        when(project.getEventManager()).thenReturn(eventManager);
+        when(executionContext.getUserId()).thenReturn(userId);
+        CSVImportDescriptor descriptor = new CSVImportDescriptor(CSVRowImportType.CLASS, 0,
+                Collections.<CSVColumnDescriptor>emptyList());
+        action = new ImportCSVFileAction(projectId, new DocumentId(DOCUMENT_ID), importRootClass, descriptor);
+    }
+
+    private ImportCSVFileResult importRows(int rowCount, int chunkSize) throws Exception {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < rowCount; i++) {
+            csv.append("Row").append(i).append(",Value").append(i).append("\n");
+        }
+        File uploadsDirectory = temporaryFolder.getRoot();
+        Files.write(csv.toString(), new File(uploadsDirectory, DOCUMENT_ID), Charsets.UTF_8);
+        ImportCSVFileActionHandler handler = new ImportCSVFileActionHandler(uploadsDirectory, projectManager, chunkSize);
+        return handler.execute(action, project, executionContext);
+    }
+
+    @Test
+    public void shouldImportEachChunkAsSeparateRevision() throws Exception {
+        importRows(5, 2);
+        verify(project, times(3)).applyChanges(eq(userId), any(ChangeListGenerator.class), any(ChangeDescriptionGenerator.class));
+    }
+
+    @Test
+    public void shouldImportFileThatFitsIntoOneChunkAsOneRevision() throws Exception {
+        importRows(2, 2);
+        verify(project, times(1)).applyChanges(eq(userId), any(ChangeListGenerator.class), any(ChangeDescriptionGenerator.class));
+    }
+
+    @Test
+    public void shouldReturnNumberOfImportedRows() throws Exception {
+        ImportCSVFileResult result = importRows(5, 2);
+        assertThat(result.getRowCount(), is(5));
+    }
+
+    @Test
+    public void shouldPostProgressEventAfterEachChunk() throws Exception {
+        importRows(5, 2);
+        ArgumentCaptor<ProjectEvent> captor = ArgumentCaptor.forClass(ProjectEvent.class);
+        verify(eventManager, times(3)).postEvent(captor.capture());
+        List<ProjectEvent> events = captor.getAllValues();
+        assertThat(((CSVImportProgressEvent) events.get(0)).getImportedRowCount(), is(2));
+        assertThat(((CSVImportProgressEvent) events.get(1)).getImportedRowCount(), is(4));
+        assertThat(((CSVImportProgressEvent) events.get(2)).getImportedRowCount(), is(5));
+    }
+
+    @Test
+    public void shouldNotApplyChangesForEmptyFile() throws Exception {
+        ImportCSVFileResult result = importRows(0, 2);
+        verify(project, never()).applyChanges(any(UserId.class), any(ChangeListGenerator.class), any(ChangeDescriptionGenerator.class));
+        assertThat(result.getRowCount(), is(0));
+    }
+}
@@ -1,18 +1,30 @@
 package edu.stanford.bmir.protege.web.server.dispatch.impl;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
 import edu.stanford.bmir.protege.web.client.dispatch.ActionExecutionException;
 import edu.stanford.bmir.protege.web.server.dispatch.*;
 import edu.stanford.bmir.protege.web.server.dispatch.validators.UserHasProjectWritePermissionValidator;
 import edu.stanford.bmir.protege.web.shared.HasProjectId;
-import edu.stanford.bmir.protege.web.shared.dispatch.Action;
-import edu.stanford.bmir.protege.web.shared.dispatch.Result;
+import edu.stanford.bmir.protege.web.shared.dispatch.*;
 import edu.stanford.bmir.protege.web.shared.permissions.PermissionDeniedException;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.*;
 
 /**
@@ -41,11 +53,14 @@ public class DispatchServiceExecutorImpl_TestCase<A extends Action<R>, R extends
     @Mock
     private RequestValidator<A> requestValidator;
 
+    @Mock
+    private R result;
+
     private DispatchServiceExecutorImpl executor;
 
     @Before
     public void setUp() throws Exception {
-        executor = new DispatchServiceExecutorImpl(registry);
+        executor = new DispatchServiceExecutorImpl(registry, MoreExecutors.newDirectExecutorService());
         when(registry.getActionHandler(action)).thenReturn(actionHandler);
         when(actionHandler.getRequestValidator(action, requestContext)).thenReturn(requestValidator);
         when(requestValidator.validateAction(action, requestContext)).thenReturn(RequestValidationResult.getValid());
@@ -75,4 +90,95 @@ public class DispatchServiceExecutorImpl_TestCase<A extends Action<R>, R extends
         executor.execute(action, requestContext, executionContext);
         verify(actionHandler, times(1)).execute(action, executionContext);
     }
+
+    @Test
+    public void shouldExecuteBatchedReadOnlyActions() {
+        A readOnlyAction = mockReadOnlyAction();
+        when(actionHandler.execute(readOnlyAction, executionContext)).thenReturn(result);
+        BatchResult batchResult = executeBatch(readOnlyAction, readOnlyAction);
+        assertThat(batchResult.size(), is(2));
+        assertThat(batchResult.isSuccess(0), is(true));
+        assertThat(batchResult.getResult(1).getResult(), is((Result) result));
+        verify(actionHandler, times(2)).execute(readOnlyAction, executionContext);
+    }
+
+    @Test
+    public void shouldNotExecuteBatchedActionThatIsNotReadOnly() {
+        BatchResult batchResult = executeBatch(action);
+        assertThat(batchResult.isSuccess(0), is(false));
+        assertThat(batchResult.getException(0), is(instanceOf(ActionExecutionException.class)));
+        verify(actionHandler, never()).execute(action, executionContext);
+    }
+
+    @Test
+    public void shouldNotExecuteBatchedActionThatIsDenied() {
+        A deniedAction = mockReadOnlyAction();
+        when(requestValidator.validateAction(deniedAction, requestContext)).thenReturn(RequestValidationResult.getInvalid("Denied"));
+        A readOnlyAction = mockReadOnlyAction();
+        BatchResult batchResult = executeBatch(deniedAction, readOnlyAction);
+        assertThat(batchResult.getException(0), is(instanceOf(PermissionDeniedException.class)));
+        assertThat(batchResult.isSuccess(1), is(true));
+        verify(actionHandler, never()).execute(deniedAction, executionContext);
+    }
+
+    @Test
+    public void shouldReturnExceptionOfFailedBatchedAction() {
+        A failingAction = mockReadOnlyAction();
+        when(actionHandler.execute(failingAction, executionContext)).thenThrow(new RuntimeException());
+        A readOnlyAction = mockReadOnlyAction();
+        BatchResult batchResult = executeBatch(failingAction, readOnlyAction);
+        assertThat(batchResult.getException(0), is(instanceOf(ActionExecutionException.class)));
+        assertThat(batchResult.isSuccess(1), is(true));
+    }
+
+    @Test
+    public void shouldRunBatchedActionOnRequestThreadWhenBatchExecutorIsBusy() throws Exception {
+        ExecutorService batchExecutor = DispatchServiceExecutorImpl.createBatchExecutor(1, 0);
+        try {
+            executor = new DispatchServiceExecutorImpl(registry, batchExecutor);
+            final CountDownLatch releaseBlockingAction = new CountDownLatch(1);
+            final List<Thread> executingThreads = new CopyOnWriteArrayList<>();
+            A blockingAction = mockReadOnlyAction();
+            when(actionHandler.execute(blockingAction, executionContext)).thenAnswer(new Answer<R>() {
+                @Override
+                public R answer(InvocationOnMock invocation) throws Throwable {
+                    releaseBlockingAction.await();
+                    return result;
+                }
+            });
+            A readOnlyAction = mockReadOnlyAction();
+            when(actionHandler.execute(readOnlyAction, executionContext)).thenAnswer(new Answer<R>() {
+                @Override
+                public R answer(InvocationOnMock invocation) throws Throwable {
+                    executingThreads.add(Thread.currentThread());
+                    releaseBlockingAction.countDown();
+                    return result;
+                }
+            });
+            // The only batch thread is occupied by the blocking action, and no actions can be queued
+            BatchResult batchResult = executeBatch(blockingAction, readOnlyAction, readOnlyAction);
+            assertThat(batchResult.isSuccess(0), is(true));
+            assertThat(batchResult.isSuccess(1), is(true));
+            assertThat(batchResult.isSuccess(2), is(true));
+            assertThat(executingThreads, contains(Thread.currentThread(), Thread.currentThread()));
+        } finally {
+            batchExecutor.shutdownNow();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private A mockReadOnlyAction() {
+        A readOnlyAction = (A) mock(Action.class, withSettings().extraInterfaces(ReadOnlyAction.class));
+        when(registry.getActionHandler(readOnlyAction)).thenReturn(actionHandler);
+        when(actionHandler.getRequestValidator(readOnlyAction, requestContext)).thenReturn(requestValidator);
+        when(requestValidator.validateAction(readOnlyAction, requestContext)).thenReturn(RequestValidationResult.getValid());
+        return readOnlyAction;
+    }
+
+    @SafeVarargs
+    private final BatchResult executeBatch(A... actions) {
+        ImmutableList<Action<?>> batchedActions = ImmutableList.<Action<?>>copyOf(actions);
+        DispatchServiceResultContainer container = executor.execute(new BatchAction(batchedActions), requestContext, executionContext);
+        return (BatchResult) container.getResult();
+    }
 }
@@ -0,0 +1,88 @@
+package edu.stanford.bmir.protege.web.server.events;
+
+import edu.stanford.bmir.protege.web.shared.event.PermissionsChangedEvent;
+import edu.stanford.bmir.protege.web.shared.event.ProjectEvent;
+import edu.stanford.bmir.protege.web.shared.events.EventList;
+import edu.stanford.bmir.protege.web.shared.events.EventTag;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+
+public class EventManager_TestCase {
+
+    private EventManager<ProjectEvent<?>> eventManager;
+
+    private ProjectEvent<?> event;
+
+    private ExecutorService pollExecutor;
+
+    @Before
+    public void setUp() throws Exception {
+        eventManager = new EventManager<>(EventLifeTime.get(1, TimeUnit.MINUTES));
+        event = new PermissionsChangedEvent(ProjectId.get(UUID.randomUUID().toString()));
+        pollExecutor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        pollExecutor.shutdownNow();
+        eventManager.dispose();
+    }
+
+    private Future<EventList<ProjectEvent<?>>> poll(final EventTag fromTag, final long maxWaitTime) {
+        return pollExecutor.submit(new Callable<EventList<ProjectEvent<?>>>() {
+            @Override
+            public EventList<ProjectEvent<?>> call() throws Exception {
+                return eventManager.getEventsFromTag(fromTag, maxWaitTime, TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+
+    @Test
+    public void shouldReturnPostedEventsWithoutWaiting() throws Exception {
+        EventTag fromTag = eventManager.getCurrentTag().next();
+        eventManager.postEvent(event);
+        EventList<ProjectEvent<?>> eventList = poll(fromTag, TimeUnit.MINUTES.toMillis(1)).get(5, TimeUnit.SECONDS);
+        assertThat(eventList.getEvents(), contains((Object) event));
+    }
+
+    @Test
+    public void shouldBlockPollUntilEventIsPosted() throws Exception {
+        EventTag fromTag = eventManager.getCurrentTag().next();
+        Future<EventList<ProjectEvent<?>>> pendingPoll = poll(fromTag, TimeUnit.MINUTES.toMillis(1));
+        // Give the poll the chance to start waiting
+        Thread.sleep(200);
+        assertThat(pendingPoll.isDone(), is(false));
+        eventManager.postEvent(event);
+        EventList<ProjectEvent<?>> eventList = pendingPoll.get(5, TimeUnit.SECONDS);
+        assertThat(eventList.getEvents(), contains((Object) event));
+    }
+
+    @Test
+    public void shouldReturnEmptyEventListWhenPollTimesOut() throws Exception {
+        EventTag fromTag = eventManager.getCurrentTag().next();
+        long startTime = System.nanoTime();
+        EventList<ProjectEvent<?>> eventList = poll(fromTag, 200).get(5, TimeUnit.SECONDS);
+        long elapsedTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        assertThat(eventList.isEmpty(), is(true));
+        assertThat(elapsedTime, is(greaterThanOrEqualTo(150L)));
+    }
+
+    @Test
+    public void shouldReleaseWaitingPollOnDispose() throws Exception {
+        EventTag fromTag = eventManager.getCurrentTag().next();
+        Future<EventList<ProjectEvent<?>>> pendingPoll = poll(fromTag, TimeUnit.MINUTES.toMillis(1));
+        Thread.sleep(200);
+        eventManager.dispose();
+        assertThat(pendingPoll.get(5, TimeUnit.SECONDS).isEmpty(), is(true));
+    }
+}
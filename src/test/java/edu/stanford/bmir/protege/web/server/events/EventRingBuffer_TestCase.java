@@ -0,0 +1,83 @@
+package edu.stanford.bmir.protege.web.server.events;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class EventRingBuffer_TestCase {
+
+    private EventRingBuffer<String> buffer;
+
+    @Before
+    public void setUp() throws Exception {
+        buffer = new EventRingBuffer<>(3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowIllegalArgumentExceptionForZeroCapacity() {
+        new EventRingBuffer<String>(0);
+    }
+
+    @Test
+    public void shouldHaveZeroLastOrdinalWhenEmpty() {
+        assertThat(buffer.getLastOrdinal(), is(0));
+    }
+
+    @Test
+    public void shouldAssignConsecutiveOrdinals() {
+        assertThat(buffer.append(0, Arrays.asList("A")), is(1));
+        assertThat(buffer.append(0, Arrays.asList("B")), is(2));
+        assertThat(buffer.getLastOrdinal(), is(2));
+    }
+
+    @Test
+    public void shouldGetEventsFromOrdinal() {
+        buffer.append(0, Arrays.asList("A"));
+        buffer.append(0, Arrays.asList("B", "C"));
+        buffer.append(0, Arrays.asList("D"));
+        assertThat(buffer.getEventsFrom(2), contains("B", "C", "D"));
+    }
+
+    @Test
+    public void shouldGetEventsInRange() {
+        buffer.append(0, Arrays.asList("A"));
+        buffer.append(0, Arrays.asList("B"));
+        buffer.append(0, Arrays.asList("C"));
+        assertThat(buffer.getEventsFrom(1, 2), contains("A", "B"));
+    }
+
+    @Test
+    public void shouldGetAllEventsFromOrdinalZero() {
+        buffer.append(0, Arrays.asList("A"));
+        assertThat(buffer.getEventsFrom(0), contains("A"));
+    }
+
+    @Test
+    public void shouldOverwriteOldestBucketsWhenFull() {
+        buffer.append(0, Arrays.asList("A"));
+        buffer.append(0, Arrays.asList("B"));
+        buffer.append(0, Arrays.asList("C"));
+        buffer.append(0, Arrays.asList("D"));
+        assertThat(buffer.getEventsFrom(1), contains("B", "C", "D"));
+    }
+
+    @Test
+    public void shouldPurgeBucketsOlderThanTimestamp() {
+        buffer.append(1, Arrays.asList("A"));
+        buffer.append(2, Arrays.asList("B"));
+        buffer.append(3, Arrays.asList("C"));
+        buffer.purge(2);
+        assertThat(buffer.getEventsFrom(1), contains("B", "C"));
+        assertThat(buffer.getLastOrdinal(), is(3));
+    }
+
+    @Test
+    public void shouldReturnEmptyListForFutureOrdinal() {
+        buffer.append(0, Arrays.asList("A"));
+        assertThat(buffer.getEventsFrom(2), is(empty()));
+    }
+}
@@ -0,0 +1,146 @@
+package edu.stanford.bmir.protege.web.server.events;
+
+import com.google.common.base.Optional;
+import edu.stanford.bmir.protege.web.server.dispatch.ExecutionContext;
+import edu.stanford.bmir.protege.web.server.logging.WebProtegeLogger;
+import edu.stanford.bmir.protege.web.server.owlapi.OWLAPIProject;
+import edu.stanford.bmir.protege.web.server.owlapi.OWLAPIProjectManager;
+import edu.stanford.bmir.protege.web.shared.event.GetProjectEventsAction;
+import edu.stanford.bmir.protege.web.shared.event.ProjectEvent;
+import edu.stanford.bmir.protege.web.shared.events.EventList;
+import edu.stanford.bmir.protege.web.shared.events.EventTag;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class GetProjectEventsActionHandler_TestCase {
+
+    private static final int MAX_WAIT_TIME_IN_MS = 10 * 1000;
+
+    @Mock
+    private OWLAPIProjectManager projectManager;
+
+    @Mock
+    private OWLAPIProject project;
+
+    @Mock
+    private EventManager<ProjectEvent<?>> eventManager;
+
+    @Mock
+    private WebProtegeLogger logger;
+
+    @Mock
+    private ExecutionContext executionContext;
+
+    private Semaphore waitingRequestPermits;
+
+    private GetProjectEventsActionHandler handler;
+
+    private GetProjectEventsAction action;
+
+    private EventTag sinceTag = EventTag.get(3);
+
+    private EventList<ProjectEvent<?>> emptyEventList = new EventList<>(sinceTag, sinceTag);
+
+    @Before
+    public void setUp() throws Exception {
+        ProjectId projectId = ProjectId.get(UUID.randomUUID().toString());
+        action = new GetProjectEventsAction(sinceTag, projectId, UserId.getUserId("bob"), MAX_WAIT_TIME_IN_MS);
+        when(projectManager.isActive(projectId)).thenReturn(true);
+        when(projectManager.getProjectIfActive(projectId)).thenReturn(Optional.of(project));
+        when(project.getEventManager()).thenReturn(eventManager);
+        when(eventManager.getEventsFromTag(sinceTag)).thenReturn(emptyEventList);
+        when(eventManager.getEventsFromTag(any(EventTag.class), anyLong(), any(TimeUnit.class))).thenReturn(emptyEventList);
+        waitingRequestPermits = new Semaphore(1);
+        handler = new GetProjectEventsActionHandler(projectManager, logger, waitingRequestPermits);
+    }
+
+    @Test
+    public void shouldWaitForEventsWhenPermitIsAvailable() throws Exception {
+        handler.execute(action, executionContext);
+        verify(eventManager, times(1)).getEventsFromTag(sinceTag, MAX_WAIT_TIME_IN_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void shouldNotWaitForEventsWhenNoPermitIsAvailable() throws Exception {
+        final CountDownLatch waitStarted = new CountDownLatch(1);
+        final CountDownLatch releaseWait = new CountDownLatch(1);
+        when(eventManager.getEventsFromTag(any(EventTag.class), anyLong(), any(TimeUnit.class))).thenAnswer(new Answer<EventList<ProjectEvent<?>>>() {
+            @Override
+            public EventList<ProjectEvent<?>> answer(InvocationOnMock invocation) throws Throwable {
+                waitStarted.countDown();
+                releaseWait.await();
+                return emptyEventList;
+            }
+        });
+        ExecutorService requestExecutor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> waitingRequest = requestExecutor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    handler.execute(action, executionContext);
+                }
+            });
+            waitStarted.await();
+            // The only permit is held by the waiting request, so this request is answered immediately
+            handler.execute(action, executionContext);
+            verify(eventManager, times(1)).getEventsFromTag(sinceTag);
+            releaseWait.countDown();
+            waitingRequest.get(5, TimeUnit.SECONDS);
+            verify(eventManager, times(1)).getEventsFromTag(any(EventTag.class), anyLong(), any(TimeUnit.class));
+        } finally {
+            requestExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldReleasePermitWhenWaitTimesOut() throws Exception {
+        handler.execute(action, executionContext);
+        assertThat(waitingRequestPermits.availablePermits(), is(1));
+    }
+
+    @Test
+    public void shouldReleasePermitWhenWaitIsInterrupted() throws Exception {
+        when(eventManager.getEventsFromTag(any(EventTag.class), anyLong(), any(TimeUnit.class))).thenThrow(new InterruptedException());
+        handler.execute(action, executionContext);
+        // Clear the interrupt that the handler restores
+        assertThat(Thread.interrupted(), is(true));
+        assertThat(waitingRequestPermits.availablePermits(), is(1));
+    }
+
+    @Test
+    public void shouldReleasePermitWhenWaitFails() throws Exception {
+        when(eventManager.getEventsFromTag(any(EventTag.class), anyLong(), any(TimeUnit.class))).thenThrow(new RuntimeException());
+        try {
+            handler.execute(action, executionContext);
+        } catch (RuntimeException e) {
+            // Expected
+        }
+        assertThat(waitingRequestPermits.availablePermits(), is(1));
+    }
+
+    @Test
+    public void shouldNotTakePermitWhenRequestDoesNotWait() throws Exception {
+        GetProjectEventsAction pollingAction = new GetProjectEventsAction(sinceTag, action.getProjectId(), UserId.getUserId("bob"));
+        waitingRequestPermits.acquireUninterruptibly();
+        handler.execute(pollingAction, executionContext);
+        verify(eventManager, never()).getEventsFromTag(any(EventTag.class), anyLong(), any(TimeUnit.class));
+        assertThat(waitingRequestPermits.availablePermits(), is(0));
+    }
+}
@@ -0,0 +1,60 @@
+package edu.stanford.bmir.protege.web.server.filedownload;
+
+import com.google.common.base.Optional;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class ByteRangeTestCase {
+
+    private static final long CONTENT_LENGTH = 100;
+
+    @Test
+    public void shouldParseClosedRange() {
+        Optional<ByteRange> range = ByteRange.parse("bytes=10-19", CONTENT_LENGTH);
+        assertThat(range, is(Optional.of(new ByteRange(10, 19))));
+        assertThat(range.get().getLength(), is(10L));
+    }
+
+    @Test
+    public void shouldParseOpenRangeToEndOfContent() {
+        Optional<ByteRange> range = ByteRange.parse("bytes=90-", CONTENT_LENGTH);
+        assertThat(range, is(Optional.of(new ByteRange(90, 99))));
+    }
+
+    @Test
+    public void shouldParseSuffixRange() {
+        Optional<ByteRange> range = ByteRange.parse("bytes=-5", CONTENT_LENGTH);
+        assertThat(range, is(Optional.of(new ByteRange(95, 99))));
+    }
+
+    @Test
+    public void shouldTruncateRangeToContentLength() {
+        Optional<ByteRange> range = ByteRange.parse("bytes=50-500", CONTENT_LENGTH);
+        assertThat(range, is(Optional.of(new ByteRange(50, 99))));
+    }
+
+    @Test
+    public void shouldNotParseRangeThatStartsBeyondContent() {
+        Optional<ByteRange> range = ByteRange.parse("bytes=100-", CONTENT_LENGTH);
+        assertThat(range.isPresent(), is(false));
+    }
+
+    @Test
+    public void shouldNotParseMultipleRanges() {
+        Optional<ByteRange> range = ByteRange.parse("bytes=0-9,20-29", CONTENT_LENGTH);
+        assertThat(range.isPresent(), is(false));
+    }
+
+    @Test
+    public void shouldNotParseMalformedRange() {
+        Optional<ByteRange> range = ByteRange.parse("items=0-9", CONTENT_LENGTH);
+        assertThat(range.isPresent(), is(false));
+    }
+
+    @Test
+    public void shouldFormatContentRange() {
+        assertThat(new ByteRange(10, 19).toContentRange(CONTENT_LENGTH), is("bytes 10-19/100"));
+    }
+}
@@ -0,0 +1,175 @@
+package edu.stanford.bmir.protege.web.server.filedownload;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import edu.stanford.bmir.protege.web.server.logging.WebProtegeLogger;
+import edu.stanford.bmir.protege.web.server.metaproject.ProjectDetailsManager;
+import edu.stanford.bmir.protege.web.server.owlapi.OWLAPIProject;
+import edu.stanford.bmir.protege.web.server.owlapi.change.RevisionManager;
+import edu.stanford.bmir.protege.web.shared.project.ProjectDetails;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+
+import javax.inject.Provider;
+import java.io.File;
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ProjectDownloadCacheTestCase {
+
+    private static final RevisionNumber CURRENT_REVISION = RevisionNumber.getRevisionNumber(3);
+
+    private static final DownloadFormat FORMAT = DownloadFormat.getDefaultFormat();
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    private Provider<OWLAPIProject> projectProvider;
+
+    @Mock
+    private OWLAPIProject project;
+
+    @Mock
+    private RevisionManager revisionManager;
+
+    @Mock
+    private ProjectDetailsManager projectDetailsManager;
+
+    @Mock
+    private WebProtegeLogger logger;
+
+    @Mock
+    private ScheduledExecutorService buildExecutor;
+
+    private OWLOntologyManager revisionOntologyManager;
+
+    private File cacheDirectory;
+
+    private ProjectDownloadCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        ProjectId projectId = ProjectId.get(UUID.randomUUID().toString());
+        cacheDirectory = temporaryFolder.newFolder("download-cache");
+        revisionOntologyManager = OWLManager.createOWLOntologyManager();
+        OWLOntology rootOntology = revisionOntologyManager.createOntology(IRI.create("http://stuff.com/ont"));
+        when(projectProvider.get()).thenReturn(project);
+        when(project.getChangeManager()).thenReturn(revisionManager);
+        when(project.getRootOntology()).thenReturn(rootOntology);
+        when(revisionManager.getCurrentRevision()).thenReturn(CURRENT_REVISION);
+        when(revisionManager.getOntologyManagerForRevision(any(RevisionNumber.class))).thenReturn(revisionOntologyManager);
+        when(projectDetailsManager.getProjectDetails(projectId)).thenReturn(
+                new ProjectDetails(projectId, "My Project", "", UserId.getUserId("bob"), false));
+        cache = new ProjectDownloadCache(projectId,
+                projectProvider,
+                projectDetailsManager,
+                cacheDirectory,
+                logger,
+                buildExecutor,
+                MoreExecutors.newDirectExecutorService());
+    }
+
+    @Test
+    public void shouldResolveHeadRevisionToCurrentRevision() {
+        assertThat(cache.resolveRevision(RevisionNumber.getHeadRevisionNumber()), is(CURRENT_REVISION));
+    }
+
+    @Test
+    public void shouldNotResolveSpecificRevision() {
+        RevisionNumber revision = RevisionNumber.getRevisionNumber(2);
+        assertThat(cache.resolveRevision(revision), is(revision));
+    }
+
+    @Test
+    public void shouldBuildArtefactOnce() throws IOException {
+        File artefact = cache.getArtefact(CURRENT_REVISION, FORMAT);
+        File cachedArtefact = cache.getArtefact(CURRENT_REVISION, FORMAT);
+        assertThat(artefact.exists(), is(true));
+        assertThat(cachedArtefact, is(artefact));
+        verify(revisionManager, times(1)).getOntologyManagerForRevision(CURRENT_REVISION);
+    }
+
+    @Test
+    public void shouldShareInFlightBuild() throws Exception {
+        final CountDownLatch buildStarted = new CountDownLatch(1);
+        final CountDownLatch releaseBuild = new CountDownLatch(1);
+        when(revisionManager.getOntologyManagerForRevision(CURRENT_REVISION)).thenAnswer(new Answer<OWLOntologyManager>() {
+            @Override
+            public OWLOntologyManager answer(InvocationOnMock invocation) throws Throwable {
+                buildStarted.countDown();
+                releaseBuild.await();
+                return revisionOntologyManager;
+            }
+        });
+        ExecutorService requestExecutor = Executors.newFixedThreadPool(2);
+        try {
+            Callable<File> request = new Callable<File>() {
+                @Override
+                public File call() throws Exception {
+                    return cache.getArtefact(CURRENT_REVISION, FORMAT);
+                }
+            };
+            Future<File> firstRequest = requestExecutor.submit(request);
+            buildStarted.await();
+            Future<File> secondRequest = requestExecutor.submit(request);
+            // Give the second request the chance to find the in-flight build
+            Thread.sleep(200);
+            releaseBuild.countDown();
+            assertThat(firstRequest.get(), is(secondRequest.get()));
+            verify(revisionManager, times(1)).getOntologyManagerForRevision(CURRENT_REVISION);
+        } finally {
+            requestExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedArtefacts() throws IOException {
+        File oldestArtefact = new File(cacheDirectory, "oldest.zip");
+        oldestArtefact.createNewFile();
+        oldestArtefact.setLastModified(1000);
+        for(int i = 1; i < ProjectDownloadCache.MAX_CACHED_ARTEFACTS; i++) {
+            File artefact = new File(cacheDirectory, "artefact-" + i + ".zip");
+            artefact.createNewFile();
+            artefact.setLastModified(1000 + i * 1000);
+        }
+        File builtArtefact = cache.getArtefact(CURRENT_REVISION, FORMAT);
+        assertThat(builtArtefact.exists(), is(true));
+        assertThat(oldestArtefact.exists(), is(false));
+        assertThat(cacheDirectory.listFiles().length, is(ProjectDownloadCache.MAX_CACHED_ARTEFACTS));
+    }
+
+    @Test
+    public void shouldNotScheduleBuildForProjectThatHasNotBeenDownloaded() {
+        cache.handleRevisionCommitted();
+        verify(buildExecutor, never()).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    public void shouldScheduleBuildForProjectThatHasBeenDownloaded() throws IOException {
+        cache.getArtefact(CURRENT_REVISION, FORMAT);
+        cache.handleRevisionCommitted();
+        verify(buildExecutor, times(1)).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+    }
+}
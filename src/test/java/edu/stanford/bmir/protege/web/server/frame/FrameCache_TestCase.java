@@ -0,0 +1,144 @@
+package edu.stanford.bmir.protege.web.server.frame;
+
+import com.google.common.base.Supplier;
+import edu.stanford.bmir.protege.web.server.hierarchy.AssertedClassHierarchyProvider;
+import edu.stanford.bmir.protege.web.server.hierarchy.OWLDataPropertyHierarchyProvider;
+import edu.stanford.bmir.protege.web.server.hierarchy.OWLObjectPropertyHierarchyProvider;
+import edu.stanford.bmir.protege.web.shared.HasGetChangeSubjects;
+import edu.stanford.bmir.protege.web.shared.frame.ClassFrame;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.*;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class FrameCache_TestCase {
+
+    @Mock
+    private HasGetChangeSubjects changeSubjectProvider;
+
+    @Mock
+    private AssertedClassHierarchyProvider classHierarchyProvider;
+
+    @Mock
+    private OWLObjectPropertyHierarchyProvider objectPropertyHierarchyProvider;
+
+    @Mock
+    private OWLDataPropertyHierarchyProvider dataPropertyHierarchyProvider;
+
+    @Mock
+    private ClassFrame frameA;
+
+    @Mock
+    private ClassFrame frameB;
+
+    @Mock
+    private Supplier<ClassFrame> supplierA;
+
+    @Mock
+    private Supplier<ClassFrame> supplierB;
+
+    private OWLDataFactory dataFactory;
+
+    private OWLOntology ontology;
+
+    private OWLClass clsA;
+
+    private OWLClass clsB;
+
+    private OWLClass clsC;
+
+    private FrameCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+        dataFactory = manager.getOWLDataFactory();
+        ontology = manager.createOntology();
+        clsA = dataFactory.getOWLClass(IRI.create("http://stuff.com/A"));
+        clsB = dataFactory.getOWLClass(IRI.create("http://stuff.com/B"));
+        clsC = dataFactory.getOWLClass(IRI.create("http://stuff.com/C"));
+        when(frameA.getSignature()).thenReturn(Collections.<OWLEntity>singleton(clsA));
+        when(frameB.getSignature()).thenReturn(Collections.<OWLEntity>singleton(clsB));
+        when(supplierA.get()).thenReturn(frameA);
+        when(supplierB.get()).thenReturn(frameB);
+        when(changeSubjectProvider.getChangeSubjects(any(OWLOntologyChange.class)))
+                .thenReturn(Collections.<OWLEntity>emptySet());
+        when(classHierarchyProvider.getDescendants(any(OWLClass.class)))
+                .thenReturn(Collections.<OWLClass>emptySet());
+        cache = new FrameCache(changeSubjectProvider,
+                classHierarchyProvider,
+                objectPropertyHierarchyProvider,
+                dataPropertyHierarchyProvider);
+    }
+
+    @Test
+    public void shouldComputeFrameOnce() {
+        cache.getFrame(clsA, ClassFrame.class, supplierA);
+        ClassFrame frame = cache.getFrame(clsA, ClassFrame.class, supplierA);
+        assertThat(frame, is(sameInstance(frameA)));
+        verify(supplierA, times(1)).get();
+    }
+
+    @Test
+    public void shouldInvalidateFrameOfChangeSubject() {
+        cache.getFrame(clsA, ClassFrame.class, supplierA);
+        cache.handleChanges(changeWithSubject(clsA));
+        cache.getFrame(clsA, ClassFrame.class, supplierA);
+        verify(supplierA, times(2)).get();
+    }
+
+    @Test
+    public void shouldNotInvalidateUnaffectedFrame() {
+        cache.getFrame(clsA, ClassFrame.class, supplierA);
+        cache.getFrame(clsB, ClassFrame.class, supplierB);
+        cache.handleChanges(changeWithSubject(clsB));
+        cache.getFrame(clsA, ClassFrame.class, supplierA);
+        verify(supplierA, times(1)).get();
+    }
+
+    @Test
+    public void shouldInvalidateFramesOfDescendantsOfChangeSubject() {
+        when(classHierarchyProvider.getDescendants(clsC)).thenReturn(Collections.singleton(clsA));
+        cache.getFrame(clsA, ClassFrame.class, supplierA);
+        cache.handleChanges(changeWithSubject(clsC));
+        cache.getFrame(clsA, ClassFrame.class, supplierA);
+        verify(supplierA, times(2)).get();
+    }
+
+    @Test
+    public void shouldInvalidateFramesThatReferenceChangeSubject() {
+        when(frameA.getSignature()).thenReturn(Collections.<OWLEntity>singleton(clsB));
+        cache.getFrame(clsA, ClassFrame.class, supplierA);
+        cache.handleChanges(changeWithSubject(clsB));
+        cache.getFrame(clsA, ClassFrame.class, supplierA);
+        verify(supplierA, times(2)).get();
+    }
+
+    @Test
+    public void shouldInvalidateAllFramesOnImportChange() {
+        cache.getFrame(clsA, ClassFrame.class, supplierA);
+        OWLImportsDeclaration importsDeclaration = dataFactory.getOWLImportsDeclaration(IRI.create("http://stuff.com/other"));
+        cache.handleChanges(Collections.singletonList(new AddImport(ontology, importsDeclaration)));
+        cache.getFrame(clsA, ClassFrame.class, supplierA);
+        verify(supplierA, times(2)).get();
+    }
+
+    private List<OWLOntologyChange> changeWithSubject(OWLClass subject) {
+        OWLOntologyChange change = new AddAxiom(ontology, dataFactory.getOWLDeclarationAxiom(subject));
+        when(changeSubjectProvider.getChangeSubjects(change)).thenReturn(Collections.<OWLEntity>singleton(subject));
+        return Collections.singletonList(change);
+    }
+}
@@ -0,0 +1,124 @@
+package edu.stanford.bmir.protege.web.server.hierarchy;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.*;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class AssertedClassHierarchyProvider_TestCase {
+
+    private OWLOntologyManager manager;
+
+    private OWLOntology ontology;
+
+    private OWLDataFactory dataFactory;
+
+    private OWLClass thing;
+
+    private OWLClass clsA;
+
+    private OWLClass clsB;
+
+    private OWLClass clsC;
+
+    private OWLAxiom subClassOfBC;
+
+    private AssertedClassHierarchyProvider provider;
+
+    @Before
+    public void setUp() throws Exception {
+        manager = OWLManager.createOWLOntologyManager();
+        dataFactory = manager.getOWLDataFactory();
+        ontology = manager.createOntology();
+        thing = dataFactory.getOWLThing();
+        clsA = dataFactory.getOWLClass(IRI.create("http://stuff.com/A"));
+        clsB = dataFactory.getOWLClass(IRI.create("http://stuff.com/B"));
+        clsC = dataFactory.getOWLClass(IRI.create("http://stuff.com/C"));
+        subClassOfBC = dataFactory.getOWLSubClassOfAxiom(clsB, clsC);
+        manager.addAxiom(ontology, dataFactory.getOWLSubClassOfAxiom(clsA, clsB));
+        manager.addAxiom(ontology, subClassOfBC);
+        provider = new AssertedClassHierarchyProvider(ontology, thing);
+    }
+
+    @Test
+    public void shouldGetAncestors() {
+        assertThat(provider.getAncestors(clsA), containsInAnyOrder(clsB, clsC, thing));
+    }
+
+    @Test
+    public void shouldGetPathsToRoot() {
+        assertThat(provider.getPathsToRoot(clsA), contains(contains(thing, clsC, clsB, clsA)));
+    }
+
+    @Test
+    public void shouldUpdateCachedAncestorsOfDescendantsWhenParentIsRemoved() {
+        provider.getAncestors(clsA);
+        List<OWLOntologyChange> changes = manager.removeAxiom(ontology, subClassOfBC);
+        provider.handleChanges(changes);
+        assertThat(provider.getAncestors(clsA), containsInAnyOrder(clsB, thing));
+    }
+
+    @Test
+    public void shouldUpdateCachedAncestorsOfDescendantsWhenParentIsAdded() {
+        provider.getAncestors(clsA);
+        OWLClass clsD = dataFactory.getOWLClass(IRI.create("http://stuff.com/D"));
+        List<OWLOntologyChange> changes = manager.addAxiom(ontology, dataFactory.getOWLSubClassOfAxiom(clsC, clsD));
+        provider.handleChanges(changes);
+        assertThat(provider.getAncestors(clsA), containsInAnyOrder(clsB, clsC, clsD, thing));
+    }
+
+    @Test
+    public void shouldUpdateRecachedAncestorsOfDescendantsWhenParentIsChangedAgain() {
+        provider.getAncestors(clsA);
+        provider.handleChanges(manager.removeAxiom(ontology, subClassOfBC));
+        assertThat(provider.getAncestors(clsA), containsInAnyOrder(clsB, thing));
+        provider.handleChanges(manager.addAxiom(ontology, subClassOfBC));
+        assertThat(provider.getAncestors(clsA), containsInAnyOrder(clsB, clsC, thing));
+    }
+
+    @Test
+    public void shouldKeepCachedAncestorsOfOtherBranches() {
+        OWLClass clsD = dataFactory.getOWLClass(IRI.create("http://stuff.com/D"));
+        OWLClass clsE = dataFactory.getOWLClass(IRI.create("http://stuff.com/E"));
+        provider.handleChanges(manager.addAxiom(ontology, dataFactory.getOWLSubClassOfAxiom(clsD, clsE)));
+        assertThat(provider.getAncestors(clsD), containsInAnyOrder(clsE, thing));
+        provider.getAncestors(clsA);
+        provider.handleChanges(manager.removeAxiom(ontology, subClassOfBC));
+        assertThat(provider.getAncestors(clsD), containsInAnyOrder(clsE, thing));
+        assertThat(provider.getAncestors(clsA), containsInAnyOrder(clsB, thing));
+    }
+
+    @Test
+    public void shouldIncludeNodeInItsOwnAncestorsIfCyclic() {
+        List<OWLOntologyChange> changes = manager.addAxiom(ontology, dataFactory.getOWLSubClassOfAxiom(clsC, clsA));
+        provider.handleChanges(changes);
+        assertThat(provider.getAncestors(clsA), hasItem(clsA));
+    }
+
+    @Test
+    public void shouldGetChildCount() {
+        assertThat(provider.getChildCount(clsB), is(1));
+    }
+
+    @Test
+    public void shouldUpdateCachedChildCountWhenChildIsAdded() {
+        provider.getChildCount(clsB);
+        OWLClass clsD = dataFactory.getOWLClass(IRI.create("http://stuff.com/D"));
+        List<OWLOntologyChange> changes = manager.addAxiom(ontology, dataFactory.getOWLSubClassOfAxiom(clsD, clsB));
+        provider.handleChanges(changes);
+        assertThat(provider.getChildCount(clsB), is(2));
+    }
+
+    @Test
+    public void shouldUpdateCachedChildCountWhenChildIsRemoved() {
+        provider.getChildCount(clsC);
+        List<OWLOntologyChange> changes = manager.removeAxiom(ontology, subClassOfBC);
+        provider.handleChanges(changes);
+        assertThat(provider.getChildCount(clsC), is(0));
+    }
+}
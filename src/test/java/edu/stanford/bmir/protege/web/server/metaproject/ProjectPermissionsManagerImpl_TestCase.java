@@ -0,0 +1,114 @@
+package edu.stanford.bmir.protege.web.server.metaproject;
+
+import edu.stanford.bmir.protege.web.shared.permissions.Permission;
+import edu.stanford.bmir.protege.web.shared.permissions.PermissionsSet;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import edu.stanford.smi.protege.server.metaproject.*;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Collection;
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ProjectPermissionsManagerImpl_TestCase {
+
+    private static final String PROJECT_NAME = "12345678-1234-1234-1234-123456789abc";
+
+    private static final String USER_NAME = "User";
+
+    @Mock
+    private MetaProject metaProject;
+
+    @Mock
+    private ProjectDetailsManager projectDetailsManager;
+
+    @Mock
+    private ProjectExistsFilter projectExistsFilter;
+
+    @Mock
+    private MetaProjectStore metaProjectStore;
+
+    @Mock
+    private ProjectInstance projectInstance;
+
+    @Mock
+    private User user;
+
+    @Mock
+    private Policy policy;
+
+    @Mock
+    private Operation operation;
+
+    private ProjectId projectId;
+
+    private UserId userId;
+
+    private ProjectPermissionsManagerImpl manager;
+
+    @Before
+    public void setUp() {
+        projectId = ProjectId.get(PROJECT_NAME);
+        userId = UserId.getUserId(USER_NAME);
+        when(metaProject.getProject(PROJECT_NAME)).thenReturn(projectInstance);
+        when(metaProject.getUser(USER_NAME)).thenReturn(user);
+        when(metaProject.getPolicy()).thenReturn(policy);
+        when(operation.getName()).thenReturn("Write");
+        when(policy.getAllowedOperations(user, projectInstance)).thenReturn(Collections.singleton(operation));
+        when(policy.getKnownOperations()).thenReturn(Collections.singleton(operation));
+        when(policy.isOperationAuthorized(user, operation, projectInstance)).thenReturn(true);
+        manager = new ProjectPermissionsManagerImpl(metaProject, projectDetailsManager, projectExistsFilter, metaProjectStore);
+    }
+
+    @Test
+    public void shouldGetPermissionsSet() {
+        PermissionsSet permissionsSet = manager.getPermissionsSet(projectId, userId);
+        assertThat(permissionsSet.contains(Permission.getPermission("Write")), is(true));
+    }
+
+    @Test
+    public void shouldTraversePolicyOnceForPermissionsSet() {
+        manager.getPermissionsSet(projectId, userId);
+        manager.getPermissionsSet(projectId, userId);
+        verify(policy, times(1)).getAllowedOperations(user, projectInstance);
+    }
+
+    @Test
+    public void shouldTraversePolicyAgainAfterMetaProjectIsModified() {
+        manager.getPermissionsSet(projectId, userId);
+        when(metaProjectStore.getModificationCount()).thenReturn(1L);
+        manager.getPermissionsSet(projectId, userId);
+        verify(policy, times(2)).getAllowedOperations(user, projectInstance);
+    }
+
+    @Test
+    public void shouldGetAllowedOperations() {
+        Collection<Operation> operations = manager.getAllowedOperations(PROJECT_NAME, USER_NAME);
+        assertThat(operations, contains(operation));
+    }
+
+    @Test
+    public void shouldCheckOperationsOnceForAllowedOperations() {
+        manager.getAllowedOperations(PROJECT_NAME, USER_NAME);
+        manager.getAllowedOperations(PROJECT_NAME, USER_NAME);
+        verify(policy, times(1)).isOperationAuthorized(user, operation, projectInstance);
+    }
+
+    @Test
+    public void shouldNotCacheValueComputedWhileMetaProjectIsModified() {
+        when(metaProjectStore.getModificationCount()).thenReturn(0L, 1L, 1L, 1L);
+        manager.getPermissionsSet(projectId, userId);
+        manager.getPermissionsSet(projectId, userId);
+        verify(policy, times(2)).getAllowedOperations(user, projectInstance);
+    }
+}
@@ -8,10 +8,17 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.semanticweb.owlapi.model.AxiomType;
+import org.semanticweb.owlapi.model.OWLAxiom;
 import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyChange;
+
+import java.util.Collections;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -25,6 +32,12 @@ public class AxiomTypeCountMetricCalculatorTestCase {
     @Mock
     protected OWLOntology ontology, importedOntology;
 
+    @Mock
+    protected OWLOntologyChange change;
+
+    @Mock
+    protected OWLAxiom axiom;
+
     private AxiomType axiomType;
 
     @Before
@@ -33,6 +46,9 @@ public class AxiomTypeCountMetricCalculatorTestCase {
         when(ontology.getImportsClosure()).thenReturn(Sets.newHashSet(ontology, importedOntology));
         when(ontology.getAxiomCount(axiomType)).thenReturn(AXIOM_COUNT - 5);
         when(importedOntology.getAxiomCount(axiomType)).thenReturn(5);
+        when(change.isAxiomChange()).thenReturn(true);
+        when(change.getAxiom()).thenReturn(axiom);
+        when(axiom.isOfType(axiomType)).thenReturn(true);
     }
 
     @Test
@@ -42,4 +58,43 @@ public class AxiomTypeCountMetricCalculatorTestCase {
         assertThat(value.getValue(), is(AXIOM_COUNT));
     }
 
+    @Test
+    public void shouldAddAddedAxiomsToCountWithoutRecounting() {
+        AxiomTypeCountMetricCalculator calculator = new AxiomTypeCountMetricCalculator(ontology, axiomType);
+        calculator.computeValue();
+        when(change.isAddAxiom()).thenReturn(true);
+        OWLAPIProjectMetricState state = calculator.getStateAfterChanges(Collections.singletonList(change));
+        assertThat(state, is(OWLAPIProjectMetricState.DIRTY));
+        assertThat(calculator.computeValue().getValue(), is(AXIOM_COUNT + 1));
+        verify(ontology, times(1)).getAxiomCount(axiomType);
+    }
+
+    @Test
+    public void shouldSubtractRemovedAxiomsFromCount() {
+        AxiomTypeCountMetricCalculator calculator = new AxiomTypeCountMetricCalculator(ontology, axiomType);
+        calculator.computeValue();
+        when(change.isRemoveAxiom()).thenReturn(true);
+        calculator.getStateAfterChanges(Collections.singletonList(change));
+        assertThat(calculator.computeValue().getValue(), is(AXIOM_COUNT - 1));
+    }
+
+    @Test
+    public void shouldBeCleanAfterChangesToOtherAxiomTypes() {
+        AxiomTypeCountMetricCalculator calculator = new AxiomTypeCountMetricCalculator(ontology, axiomType);
+        calculator.computeValue();
+        when(change.isAddAxiom()).thenReturn(true);
+        when(axiom.isOfType(axiomType)).thenReturn(false);
+        OWLAPIProjectMetricState state = calculator.getStateAfterChanges(Collections.singletonList(change));
+        assertThat(state, is(OWLAPIProjectMetricState.CLEAN));
+    }
+
+    @Test
+    public void shouldNotCountWhenHandlingChangesBeforeValueIsComputed() {
+        AxiomTypeCountMetricCalculator calculator = new AxiomTypeCountMetricCalculator(ontology, axiomType);
+        when(change.isAddAxiom()).thenReturn(true);
+        OWLAPIProjectMetricState state = calculator.getStateAfterChanges(Collections.singletonList(change));
+        assertThat(state, is(OWLAPIProjectMetricState.DIRTY));
+        verify(ontology, never()).getAxiomCount(axiomType);
+        assertThat(calculator.computeValue().getValue(), is(AXIOM_COUNT));
+    }
 }
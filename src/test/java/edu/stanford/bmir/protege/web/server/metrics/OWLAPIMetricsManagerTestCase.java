@@ -1,22 +1,30 @@
 package edu.stanford.bmir.protege.web.server.metrics;
 
 import com.beust.jcommander.internal.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
 import edu.stanford.bmir.protege.web.server.events.HasPostEvents;
 import edu.stanford.bmir.protege.web.server.logging.WebProtegeLogger;
+import edu.stanford.bmir.protege.web.server.owlapi.OWLAPIProject;
 import edu.stanford.bmir.protege.web.shared.event.ProjectEvent;
 import edu.stanford.bmir.protege.web.shared.metrics.MetricValue;
 import edu.stanford.bmir.protege.web.shared.project.ProjectId;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
 import org.semanticweb.owlapi.model.OWLOntologyChange;
 
+import javax.inject.Provider;
 import java.util.ArrayList;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import static org.hamcrest.CoreMatchers.hasItem;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -50,14 +58,30 @@ public class OWLAPIMetricsManagerTestCase {
     @Mock
     protected HasPostEvents<ProjectEvent<?>> eventBus;
 
+    @Mock
+    protected ExecutorService backgroundExecutor;
+
+    @Mock
+    protected Provider<OWLAPIProject> projectProvider;
+
+    @Mock
+    protected OWLAPIProject project;
+
+    private ReentrantReadWriteLock projectChangeLock = new ReentrantReadWriteLock();
+
+    private List<MetricCalculator> metricList;
+
     private OWLAPIProjectMetricsManager metricsManager;
 
 
     @Before
     public void setUp() throws Exception {
-        List<MetricCalculator> metricList = new ArrayList<>();
+        metricList = new ArrayList<>();
         metricList.add(metric);
-        metricsManager = new OWLAPIProjectMetricsManager(projectId, metricList, eventBus, logger);
+        when(projectProvider.get()).thenReturn(project);
+        when(project.getProjectChangeReadLock()).thenReturn(projectChangeLock.readLock());
+        metricsManager = new OWLAPIProjectMetricsManager(projectId, metricList, eventBus, logger, projectProvider,
+                MoreExecutors.newDirectExecutorService());
     }
 
     @Test
@@ -109,4 +133,107 @@ public class OWLAPIMetricsManagerTestCase {
         // Make sure that the exception is logged.
         verify(logger, times(1)).severe(exception);
     }
+
+    @Test
+    public void shouldNotComputeValueOnRequestThread() {
+        metricsManager = new OWLAPIProjectMetricsManager(projectId, metricList, eventBus, logger, projectProvider, backgroundExecutor);
+        when(metric.computeValue()).thenReturn(metricValue);
+        List<MetricValue> values = metricsManager.getMetrics();
+        assertThat(values.isEmpty(), is(true));
+        verify(metric, never()).computeValue();
+        verify(backgroundExecutor, times(1)).execute(any(Runnable.class));
+    }
+
+    @Test
+    public void shouldServeLastValueUntilRecomputed() {
+        metricsManager = new OWLAPIProjectMetricsManager(projectId, metricList, eventBus, logger, projectProvider, backgroundExecutor);
+        when(metric.computeValue()).thenReturn(metricValue).thenReturn(metricValue2);
+        when(metric.getStateAfterChanges(changes)).thenReturn(OWLAPIProjectMetricState.DIRTY);
+        metricsManager.getMetrics();
+        runScheduledRecomputation();
+        metricsManager.handleOntologyChanges(changes);
+        List<MetricValue> values = metricsManager.getMetrics();
+        assertThat(values, hasItem(metricValue));
+        runScheduledRecomputation();
+        List<MetricValue> values2 = metricsManager.getMetrics();
+        assertThat(values2, hasItem(metricValue2));
+    }
+
+    @Test
+    public void shouldNotRecomputeWhenHandlingChanges() {
+        metricsManager = new OWLAPIProjectMetricsManager(projectId, metricList, eventBus, logger, projectProvider, backgroundExecutor);
+        when(metric.getStateAfterChanges(changes)).thenReturn(OWLAPIProjectMetricState.DIRTY);
+        metricsManager.handleOntologyChanges(changes);
+        metricsManager.handleOntologyChanges(changes);
+        verify(backgroundExecutor, never()).execute(any(Runnable.class));
+        verify(metric, never()).computeValue();
+    }
+
+    @Test
+    public void shouldScheduleOneRecomputationForSeveralReads() {
+        metricsManager = new OWLAPIProjectMetricsManager(projectId, metricList, eventBus, logger, projectProvider, backgroundExecutor);
+        metricsManager.getMetrics();
+        metricsManager.getMetrics();
+        verify(backgroundExecutor, times(1)).execute(any(Runnable.class));
+    }
+
+    @Test
+    public void shouldComputeValueUnderProjectReadLock() {
+        when(metric.computeValue()).thenAnswer(new Answer<MetricValue>() {
+            @Override
+            public MetricValue answer(InvocationOnMock invocation) throws Throwable {
+                assertThat(projectChangeLock.getReadHoldCount(), is(1));
+                return metricValue;
+            }
+        });
+        List<MetricValue> values = metricsManager.getMetrics();
+        assertThat(values, hasItem(metricValue));
+        assertThat(projectChangeLock.getReadHoldCount(), is(0));
+    }
+
+    @Test
+    public void shouldKeepLastValueIfRecomputationFails() {
+        when(metric.computeValue()).thenReturn(metricValue).thenThrow(new RuntimeException());
+        when(metric.getStateAfterChanges(changes)).thenReturn(OWLAPIProjectMetricState.DIRTY);
+        metricsManager.getMetrics();
+        metricsManager.handleOntologyChanges(changes);
+        List<MetricValue> values = metricsManager.getMetrics();
+        assertThat(values, hasItem(metricValue));
+    }
+
+    @Test
+    public void shouldComputeOptimisticValueWithoutProjectReadLock() {
+        when(metric.isComputedOptimistically()).thenReturn(true);
+        when(metric.computeValue()).thenAnswer(new Answer<MetricValue>() {
+            @Override
+            public MetricValue answer(InvocationOnMock invocation) throws Throwable {
+                assertThat(projectChangeLock.getReadHoldCount(), is(0));
+                return metricValue;
+            }
+        });
+        List<MetricValue> values = metricsManager.getMetrics();
+        assertThat(values, hasItem(metricValue));
+    }
+
+    @Test
+    public void shouldDiscardOptimisticValueIfChangesWereHandledDuringComputation() {
+        when(metric.isComputedOptimistically()).thenReturn(true);
+        when(metric.getStateAfterChanges(changes)).thenReturn(OWLAPIProjectMetricState.DIRTY);
+        when(metric.computeValue()).thenAnswer(new Answer<MetricValue>() {
+            @Override
+            public MetricValue answer(InvocationOnMock invocation) throws Throwable {
+                metricsManager.handleOntologyChanges(changes);
+                return metricValue;
+            }
+        }).thenReturn(metricValue2);
+        List<MetricValue> values = metricsManager.getMetrics();
+        assertThat(values, hasItem(metricValue2));
+        verify(metric, times(2)).computeValue();
+    }
+
+    private void runScheduledRecomputation() {
+        ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(backgroundExecutor, atLeastOnce()).execute(runnableCaptor.capture());
+        runnableCaptor.getValue().run();
+    }
 }
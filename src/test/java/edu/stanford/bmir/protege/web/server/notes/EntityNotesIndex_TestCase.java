@@ -0,0 +1,107 @@
+package edu.stanford.bmir.protege.web.server.notes;
+
+import com.google.common.base.Function;
+import com.google.common.base.Optional;
+import com.google.common.collect.Sets;
+import edu.stanford.bmir.protege.web.shared.notes.*;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.*;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EntityNotesIndex_TestCase {
+
+    private static final String NOTE_IRI = "http://stuff.com/notes/Note";
+
+    private static final String REPLY_IRI = "http://stuff.com/notes/Reply";
+
+    @Mock
+    private Function<OWLEntity, DiscussionThread> discussionThreadProvider;
+
+    private OWLDataFactory dataFactory;
+
+    private OWLOntology notesOntology;
+
+    private OWLClass clsA;
+
+    private EntityNotesIndex index;
+
+    @Before
+    public void setUp() throws Exception {
+        OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+        dataFactory = manager.getOWLDataFactory();
+        notesOntology = manager.createOntology();
+        clsA = dataFactory.getOWLClass(IRI.create("http://stuff.com/A"));
+        Note note = createNote(NOTE_IRI, Optional.<NoteId>absent());
+        Note reply = createNote(REPLY_IRI, Optional.of(note.getNoteId()));
+        when(discussionThreadProvider.apply(clsA)).thenReturn(new DiscussionThread(Sets.newHashSet(note, reply)));
+        index = new EntityNotesIndex(discussionThreadProvider);
+    }
+
+    @Test
+    public void shouldGetDirectNotesCount() {
+        assertThat(index.getDirectNotesCount(clsA), is(1));
+    }
+
+    @Test
+    public void shouldGetIndirectNotesCount() {
+        assertThat(index.getIndirectNotesCount(clsA), is(2));
+    }
+
+    @Test
+    public void shouldGetDiscussionThreadOnce() {
+        index.getDirectNotesCount(clsA);
+        index.getIndirectNotesCount(clsA);
+        verify(discussionThreadProvider, times(1)).apply(clsA);
+    }
+
+    @Test
+    public void shouldInvalidateCountsWhenEntityIsMentioned() {
+        index.getDirectNotesCount(clsA);
+        index.handleChanges(changeMentioning(IRI.create(NOTE_IRI + "2"), clsA.getIRI()));
+        index.getDirectNotesCount(clsA);
+        verify(discussionThreadProvider, times(2)).apply(clsA);
+    }
+
+    @Test
+    public void shouldInvalidateCountsWhenNoteInThreadIsMentioned() {
+        index.getDirectNotesCount(clsA);
+        index.handleChanges(changeMentioning(IRI.create(REPLY_IRI + "2"), IRI.create(REPLY_IRI)));
+        index.getDirectNotesCount(clsA);
+        verify(discussionThreadProvider, times(2)).apply(clsA);
+    }
+
+    @Test
+    public void shouldNotInvalidateUnrelatedCounts() {
+        index.getDirectNotesCount(clsA);
+        index.handleChanges(changeMentioning(IRI.create(NOTE_IRI + "2"), IRI.create("http://stuff.com/B")));
+        index.getDirectNotesCount(clsA);
+        verify(discussionThreadProvider, times(1)).apply(clsA);
+    }
+
+    private List<OWLOntologyChange> changeMentioning(IRI subject, IRI object) {
+        OWLAxiom axiom = dataFactory.getOWLObjectPropertyAssertionAxiom(
+                dataFactory.getOWLObjectProperty(IRI.create("http://stuff.com/annotates")),
+                dataFactory.getOWLNamedIndividual(subject),
+                dataFactory.getOWLNamedIndividual(object));
+        return Collections.<OWLOntologyChange>singletonList(new AddAxiom(notesOntology, axiom));
+    }
+
+    private static Note createNote(String iri, Optional<NoteId> inReplyTo) {
+        NoteHeader header = new NoteHeader(NoteId.createNoteIdFromLexicalForm(iri), inReplyTo, UserId.getUserId("Matthew"), 0);
+        NoteContent content = NoteContent.builder().setBody("Body").build();
+        return Note.createNote(header, content);
+    }
+}
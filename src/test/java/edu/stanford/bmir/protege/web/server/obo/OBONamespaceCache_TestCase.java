@@ -0,0 +1,73 @@
+package edu.stanford.bmir.protege.web.server.obo;
+
+import edu.stanford.bmir.protege.web.shared.obo.OBONamespace;
+import org.junit.Before;
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.*;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+public class OBONamespaceCache_TestCase {
+
+    private static final String NAMESPACE = "biological_process";
+
+    private OWLOntologyManager manager;
+
+    private OWLDataFactory dataFactory;
+
+    private OWLOntology ontology;
+
+    @Before
+    public void setUp() throws Exception {
+        manager = OWLManager.createOWLOntologyManager();
+        dataFactory = manager.getOWLDataFactory();
+        ontology = manager.createOntology();
+    }
+
+    @Test
+    public void shouldFindNamespacesInOntology() {
+        manager.addAxiom(ontology, createNamespaceAxiom("http://stuff.com/A"));
+        OBONamespaceCache cache = new OBONamespaceCache(ontology);
+        assertThat(cache.getNamespaces(), contains(new OBONamespace(NAMESPACE)));
+    }
+
+    @Test
+    public void shouldAddNamespaceOfAddedAnnotation() {
+        OBONamespaceCache cache = new OBONamespaceCache(ontology);
+        cache.handleChanges(manager.addAxiom(ontology, createNamespaceAxiom("http://stuff.com/A")));
+        assertThat(cache.getNamespaces(), contains(new OBONamespace(NAMESPACE)));
+    }
+
+    @Test
+    public void shouldRemoveNamespaceWhenLastAnnotationIsRemoved() {
+        OWLAxiom axiom = createNamespaceAxiom("http://stuff.com/A");
+        manager.addAxiom(ontology, axiom);
+        OBONamespaceCache cache = new OBONamespaceCache(ontology);
+        cache.handleChanges(manager.removeAxiom(ontology, axiom));
+        assertThat(cache.getNamespaces(), is(empty()));
+    }
+
+    @Test
+    public void shouldKeepNamespaceWhileAnotherAnnotationUsesIt() {
+        OWLAxiom axiomA = createNamespaceAxiom("http://stuff.com/A");
+        manager.addAxiom(ontology, axiomA);
+        manager.addAxiom(ontology, createNamespaceAxiom("http://stuff.com/B"));
+        OBONamespaceCache cache = new OBONamespaceCache(ontology);
+        List<OWLOntologyChange> changes = manager.removeAxiom(ontology, axiomA);
+        cache.handleChanges(changes);
+        assertThat(cache.getNamespaces(), contains(new OBONamespace(NAMESPACE)));
+    }
+
+    private OWLAxiom createNamespaceAxiom(String subject) {
+        return dataFactory.getOWLAnnotationAssertionAxiom(
+                dataFactory.getOWLAnnotationProperty(OBONamespaceCache.OBO_NAMESPACE_IRI),
+                IRI.create(subject),
+                dataFactory.getOWLLiteral(NAMESPACE));
+    }
+}
@@ -0,0 +1,132 @@
+package edu.stanford.bmir.protege.web.server.owlapi;
+
+import com.google.common.base.Function;
+import com.google.inject.Injector;
+import edu.stanford.bmir.protege.web.server.logging.WebProtegeLogger;
+import edu.stanford.bmir.protege.web.server.owlapi.change.RevisionManager;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.semanticweb.owlapi.model.OWLOntology;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class OWLAPIProjectCache_TestCase {
+
+    /**
+     * The weight of an empty project is a little over 4MB, so the budget is exceeded once two projects are loaded.
+     */
+    private static final long MAX_WEIGHT = 6 * 1024 * 1024;
+
+    @Mock
+    private WebProtegeLogger logger;
+
+    @Mock
+    private OWLOntology rootOntology;
+
+    @Mock
+    private RevisionManager revisionManager;
+
+    private ProjectId projectIdA;
+
+    private ProjectId projectIdB;
+
+    private OWLAPIProject projectA;
+
+    private OWLAPIProject projectB;
+
+    private Map<ProjectId, Runnable> loadActions = new HashMap<>();
+
+    private OWLAPIProjectCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        when(rootOntology.getImportsClosure()).thenReturn(Collections.<OWLOntology>emptySet());
+        when(revisionManager.getCurrentRevision()).thenReturn(RevisionNumber.getRevisionNumber(0));
+        projectIdA = ProjectId.get(UUID.randomUUID().toString());
+        projectIdB = ProjectId.get(UUID.randomUUID().toString());
+        projectA = createProject();
+        projectB = createProject();
+        final Map<ProjectId, OWLAPIProject> projects = new HashMap<>();
+        projects.put(projectIdA, projectA);
+        projects.put(projectIdB, projectB);
+        cache = new OWLAPIProjectCache(logger,
+                new WeightedProjectCacheEvictionPolicy(),
+                MAX_WEIGHT,
+                Collections.<ProjectId>emptySet(),
+                new Function<ProjectId, Injector>() {
+                    @Override
+                    public Injector apply(ProjectId projectId) {
+                        Runnable loadAction = loadActions.get(projectId);
+                        if (loadAction != null) {
+                            loadAction.run();
+                        }
+                        Injector injector = mock(Injector.class);
+                        when(injector.getInstance(OWLAPIProject.class)).thenReturn(projects.get(projectId));
+                        return injector;
+                    }
+                });
+    }
+
+    private OWLAPIProject createProject() {
+        OWLAPIProject project = mock(OWLAPIProject.class);
+        when(project.getRootOntology()).thenReturn(rootOntology);
+        when(project.getChangeManager()).thenReturn(revisionManager);
+        return project;
+    }
+
+    @Test
+    public void shouldNotEvictProjectThatHasJustBeenLoaded() {
+        cache.getProject(projectIdA);
+        OWLAPIProject loadedProject = cache.getProject(projectIdB);
+        assertThat(loadedProject, is(projectB));
+        assertThat(cache.isActive(projectIdB), is(true));
+        verify(projectB, never()).dispose();
+        assertThat(cache.isActive(projectIdA), is(false));
+        verify(projectA, times(1)).dispose();
+    }
+
+    @Test
+    public void shouldNotEvictProjectThatHasJustBeenLoadedWhenOtherProjectIsAccessedDuringLoad() throws Exception {
+        cache.getProject(projectIdA);
+        loadActions.put(projectIdB, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    // Make sure that the access of project A is more recent than the start of the load of B
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                cache.getProject(projectIdA);
+            }
+        });
+        OWLAPIProject loadedProject = cache.getProject(projectIdB);
+        assertThat(loadedProject, is(projectB));
+        assertThat(cache.isActive(projectIdB), is(true));
+        verify(projectB, never()).dispose();
+    }
+
+    @Test
+    public void shouldRecordAccessOfActiveProject() throws Exception {
+        cache.getProject(projectIdA);
+        long lastAccessTime = cache.getLastAccessTime(projectIdA);
+        Thread.sleep(10);
+        long timeBeforeAccess = System.currentTimeMillis();
+        cache.getProjectIfActive(projectIdA);
+        assertThat(cache.getLastAccessTime(projectIdA) > lastAccessTime, is(true));
+        assertThat(cache.getLastAccessTime(projectIdA) >= timeBeforeAccess, is(true));
+    }
+}
@@ -0,0 +1,87 @@
+package edu.stanford.bmir.protege.web.server.owlapi;
+
+import edu.stanford.bmir.protege.web.server.ProjectIdFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class WeightedProjectCacheEvictionPolicy_TestCase {
+
+    private static final long NOW = 10 * 60 * 60 * 1000;
+
+    private WeightedProjectCacheEvictionPolicy policy;
+
+    @Before
+    public void setUp() throws Exception {
+        policy = new WeightedProjectCacheEvictionPolicy();
+    }
+
+    @Test
+    public void shouldNotEvictAnythingWhenWithinBudget() {
+        ProjectCacheEntry entryA = createEntry(false, 100, NOW - 1000, 1);
+        ProjectCacheEntry entryB = createEntry(false, 100, NOW, 1);
+        List<ProjectCacheEntry> result = policy.selectEntriesToEvict(Arrays.asList(entryA, entryB), 200, NOW);
+        assertThat(result, is(empty()));
+    }
+
+    @Test
+    public void shouldEvictLeastFrequentlyUsedPerByteFirst() {
+        ProjectCacheEntry frequentlyUsed = createEntry(false, 100, NOW - 1000, 10);
+        ProjectCacheEntry rarelyUsed = createEntry(false, 100, NOW - 1000, 1);
+        ProjectCacheEntry mostRecent = createEntry(false, 100, NOW, 1);
+        List<ProjectCacheEntry> result = policy.selectEntriesToEvict(
+                Arrays.asList(frequentlyUsed, rarelyUsed, mostRecent), 200, NOW);
+        assertThat(result, contains(rarelyUsed));
+    }
+
+    @Test
+    public void shouldEvictLargeProjectBeforeSmallProjectWithSameFrequency() {
+        ProjectCacheEntry large = createEntry(false, 1000, NOW - 1000, 2);
+        ProjectCacheEntry small = createEntry(false, 100, NOW - 1000, 2);
+        ProjectCacheEntry mostRecent = createEntry(false, 100, NOW, 1);
+        List<ProjectCacheEntry> result = policy.selectEntriesToEvict(
+                Arrays.asList(small, large, mostRecent), 1100, NOW);
+        assertThat(result, contains(large));
+    }
+
+    @Test
+    public void shouldNotEvictPinnedEntries() {
+        ProjectCacheEntry pinned = createEntry(true, 100, NOW - 1000, 1);
+        ProjectCacheEntry unpinned = createEntry(false, 100, NOW - 1000, 5);
+        ProjectCacheEntry mostRecent = createEntry(false, 100, NOW, 1);
+        List<ProjectCacheEntry> result = policy.selectEntriesToEvict(
+                Arrays.asList(pinned, unpinned, mostRecent), 200, NOW);
+        assertThat(result, contains(unpinned));
+    }
+
+    @Test
+    public void shouldNotEvictMostRecentlyUsedEntry() {
+        ProjectCacheEntry mostRecent = createEntry(false, 1000, NOW, 1);
+        List<ProjectCacheEntry> result = policy.selectEntriesToEvict(Arrays.asList(mostRecent), 100, NOW);
+        assertThat(result, is(empty()));
+    }
+
+    @Test
+    public void shouldDecayFrequencyOfOldAccesses() {
+        ProjectCacheEntry usedHeavilyLongAgo = createEntry(false, 100, NOW - 10 * ProjectCacheEntry.FREQUENCY_HALF_LIFE_MS, 100);
+        ProjectCacheEntry usedRecently = createEntry(false, 100, NOW - 1000, 2);
+        ProjectCacheEntry mostRecent = createEntry(false, 100, NOW, 1);
+        List<ProjectCacheEntry> result = policy.selectEntriesToEvict(
+                Arrays.asList(usedRecently, usedHeavilyLongAgo, mostRecent), 200, NOW);
+        assertThat(result, contains(usedHeavilyLongAgo));
+    }
+
+    private static ProjectCacheEntry createEntry(boolean pinned, long weight, long lastAccessTime, int accessCount) {
+        ProjectCacheEntry entry = new ProjectCacheEntry(ProjectIdFactory.getFreshProjectId(), pinned, lastAccessTime);
+        entry.setWeight(weight);
+        for (int i = 0; i < accessCount; i++) {
+            entry.recordAccess(lastAccessTime);
+        }
+        return entry;
+    }
+}
@@ -0,0 +1,69 @@
+package edu.stanford.bmir.protege.web.server.owlapi.change;
+
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class ChunkedRevisionList_TestCase {
+
+    private ChunkedRevisionList list;
+
+    @Before
+    public void setUp() throws Exception {
+        list = new ChunkedRevisionList();
+    }
+
+    @Test
+    public void shouldBeEmpty() {
+        assertThat(list.asList().isEmpty(), is(true));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void shouldThrowNullPointerExceptionIfRevisionIsNull() {
+        list.add(null);
+    }
+
+    @Test
+    public void shouldAddRevisionsAcrossChunks() {
+        int count = 3000;
+        for(int i = 1; i <= count; i++) {
+            list.add(createRevision(i));
+        }
+        List<Revision> revisions = list.asList();
+        assertThat(revisions.size(), is(count));
+        for(int i = 0; i < count; i++) {
+            assertThat(revisions.get(i).getRevisionNumber(), is(RevisionNumber.getRevisionNumber(i + 1)));
+        }
+    }
+
+    @Test
+    public void shouldNotChangeSnapshotAfterAdd() {
+        list.add(createRevision(1));
+        List<Revision> snapshot = list.asList();
+        list.add(createRevision(2));
+        assertThat(snapshot.size(), is(1));
+        assertThat(list.asList().size(), is(2));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldNotAllowModificationOfSnapshot() {
+        list.asList().add(createRevision(1));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void shouldThrowIndexOutOfBoundsExceptionForIndexBeyondSnapshot() {
+        list.add(createRevision(1));
+        List<Revision> snapshot = list.asList();
+        list.add(createRevision(2));
+        snapshot.get(1);
+    }
+
+    private static Revision createRevision(long revisionNumber) {
+        return Revision.createEmptyRevisionWithRevisionNumber(RevisionNumber.getRevisionNumber(revisionNumber));
+    }
+}
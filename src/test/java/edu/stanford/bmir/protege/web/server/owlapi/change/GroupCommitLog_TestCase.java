@@ -0,0 +1,148 @@
+package edu.stanford.bmir.protege.web.server.owlapi.change;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import edu.stanford.bmir.protege.web.server.logging.WebProtegeLogger;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class GroupCommitLog_TestCase {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    private WebProtegeLogger logger;
+
+    @Mock
+    private ExecutorService writerExecutor;
+
+    private File file;
+
+    private List<String> writtenTasks = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        file = temporaryFolder.newFile("change-data.binary");
+    }
+
+    private GroupCommitTask createTask(final String name, final File writtenFile) {
+        return new GroupCommitTask() {
+            @Override
+            public Collection<File> write() throws IOException {
+                writtenTasks.add(name);
+                Files.append(name, file, Charsets.UTF_8);
+                return Collections.singleton(writtenFile);
+            }
+        };
+    }
+
+    private Runnable getScheduledBatch() {
+        ArgumentCaptor<Runnable> batchCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(writerExecutor, times(1)).submit(batchCaptor.capture());
+        return batchCaptor.getValue();
+    }
+
+    @Test
+    public void shouldWriteTasksOfSeveralSubmittersInOneBatch() {
+        GroupCommitLog log = new GroupCommitLog(logger, writerExecutor);
+        Future<Void> first = log.submit(createTask("A", file));
+        Future<Void> second = log.submit(createTask("B", file));
+        Future<Void> third = log.submit(createTask("C", file));
+        getScheduledBatch().run();
+        assertThat(writtenTasks, contains("A", "B", "C"));
+        assertThat(log.awaitDurability(first), is(true));
+        assertThat(log.awaitDurability(second), is(true));
+        assertThat(log.awaitDurability(third), is(true));
+    }
+
+    @Test
+    public void shouldFailEveryTaskInBatchIfFilesCannotBeForced() throws IOException {
+        GroupCommitLog log = new GroupCommitLog(logger, writerExecutor);
+        // A directory cannot be opened for writing, so forcing it fails
+        File directory = temporaryFolder.newFolder();
+        Future<Void> first = log.submit(createTask("A", file));
+        Future<Void> second = log.submit(createTask("B", directory));
+        getScheduledBatch().run();
+        assertThat(log.awaitDurability(first), is(false));
+        assertThat(log.awaitDurability(second), is(false));
+    }
+
+    private GroupCommitTask createFailingTask() {
+        return new GroupCommitTask() {
+            @Override
+            public Collection<File> write() throws IOException {
+                throw new IOException("Disk full");
+            }
+        };
+    }
+
+    @Test
+    public void shouldFailTasksAfterTaskThatCouldNotBeWritten() {
+        GroupCommitLog log = new GroupCommitLog(logger, writerExecutor);
+        Future<Void> first = log.submit(createTask("A", file));
+        Future<Void> second = log.submit(createFailingTask());
+        Future<Void> third = log.submit(createTask("C", file));
+        getScheduledBatch().run();
+        assertThat(log.awaitDurability(first), is(true));
+        assertThat(log.awaitDurability(second), is(false));
+        assertThat(log.awaitDurability(third), is(false));
+        assertThat(writtenTasks, contains("A"));
+    }
+
+    @Test
+    public void shouldFailTasksSubmittedAfterTaskThatCouldNotBeWritten() {
+        GroupCommitLog log = new GroupCommitLog(logger, writerExecutor);
+        Future<Void> failed = log.submit(createFailingTask());
+        getScheduledBatch().run();
+        assertThat(log.awaitDurability(failed), is(false));
+        Future<Void> later = log.submit(createTask("B", file));
+        assertThat(log.awaitDurability(later), is(false));
+        assertThat(writtenTasks.isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldWritePendingTasksOnDispose() throws IOException {
+        GroupCommitLog log = new GroupCommitLog(logger);
+        List<Future<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(log.submit(createTask(Integer.toString(i), file)));
+        }
+        log.dispose();
+        for (Future<Void> future : futures) {
+            assertThat(future.isDone(), is(true));
+        }
+        assertThat(Files.toString(file, Charsets.UTF_8), is("0123456789"));
+    }
+
+    @Test
+    public void shouldFailTaskSubmittedAfterDispose() {
+        GroupCommitLog log = new GroupCommitLog(logger);
+        log.dispose();
+        Future<Void> future = log.submit(createTask("A", file));
+        assertThat(log.awaitDurability(future), is(false));
+    }
+}
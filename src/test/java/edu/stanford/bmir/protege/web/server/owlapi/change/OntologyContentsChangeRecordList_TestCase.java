@@ -0,0 +1,74 @@
+package edu.stanford.bmir.protege.web.server.owlapi.change;
+
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.change.AddAxiomData;
+import org.semanticweb.owlapi.change.AddImportData;
+import org.semanticweb.owlapi.change.AddOntologyAnnotationData;
+import org.semanticweb.owlapi.change.OWLOntologyChangeRecord;
+import org.semanticweb.owlapi.model.*;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.*;
+
+public class OntologyContentsChangeRecordList_TestCase {
+
+    private OWLOntology ontology;
+
+    private OWLAxiom axiom;
+
+    private OWLAnnotation annotation;
+
+    private OWLImportsDeclaration importsDeclaration;
+
+    @Before
+    public void setUp() throws Exception {
+        OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+        OWLDataFactory dataFactory = manager.getOWLDataFactory();
+        ontology = manager.createOntology(IRI.create("http://stuff.com/ont"));
+        axiom = dataFactory.getOWLDeclarationAxiom(dataFactory.getOWLClass(IRI.create("http://stuff.com/A")));
+        annotation = dataFactory.getOWLAnnotation(dataFactory.getRDFSComment(), dataFactory.getOWLLiteral("Comment"));
+        importsDeclaration = dataFactory.getOWLImportsDeclaration(IRI.create("http://stuff.com/imported"));
+        manager.addAxiom(ontology, axiom);
+        manager.applyChange(new AddOntologyAnnotation(ontology, annotation));
+        manager.applyChange(new AddImport(ontology, importsDeclaration));
+    }
+
+    @Test
+    public void shouldHaveOneRecordForEachAxiomAnnotationAndImport() {
+        OntologyContentsChangeRecordList list = new OntologyContentsChangeRecordList(Collections.singleton(ontology));
+        assertThat(list.size(), is(3));
+    }
+
+    @Test
+    public void shouldGenerateRecordsThatAddOntologyContents() {
+        OntologyContentsChangeRecordList list = new OntologyContentsChangeRecordList(Collections.singleton(ontology));
+        List<OWLOntologyChangeRecord> records = Lists.newArrayList(list.iterator());
+        OWLOntologyID id = ontology.getOntologyID();
+        assertThat(records, containsInAnyOrder(
+                new OWLOntologyChangeRecord(id, new AddAxiomData(axiom)),
+                new OWLOntologyChangeRecord(id, new AddOntologyAnnotationData(annotation)),
+                new OWLOntologyChangeRecord(id, new AddImportData(importsDeclaration))));
+    }
+
+    @Test
+    public void shouldGetRecordByPosition() {
+        OntologyContentsChangeRecordList list = new OntologyContentsChangeRecordList(Collections.singleton(ontology));
+        assertThat(list.get(2), is(Lists.newArrayList(list.iterator()).get(2)));
+    }
+
+    @Test
+    public void shouldReportProgressWhenIterationEnds() {
+        OntologyContentsChangeRecordList.ProgressListener listener = mock(OntologyContentsChangeRecordList.ProgressListener.class);
+        OntologyContentsChangeRecordList list = new OntologyContentsChangeRecordList(Collections.singleton(ontology), listener);
+        Lists.newArrayList(list.iterator());
+        verify(listener).handleProgress(3, 3);
+    }
+}
@@ -0,0 +1,158 @@
+package edu.stanford.bmir.protege.web.server.owlapi.change;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
+import edu.stanford.bmir.protege.web.server.logging.WebProtegeLogger;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.change.*;
+import org.semanticweb.owlapi.model.*;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.Executor;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RevisionCheckpointStore_TestCase {
+
+    private static final int REVISION_COUNT = 20;
+
+    private static final RevisionNumber CHECKPOINT_REVISION = RevisionNumber.getRevisionNumber(8);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    private RevisionStore revisionStore;
+
+    @Mock
+    private WebProtegeLogger logger;
+
+    private OWLDataFactory dataFactory;
+
+    private List<Revision> revisions = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        dataFactory = OWLManager.getOWLDataFactory();
+        OWLOntologyID ontologyId = new OWLOntologyID(IRI.create("http://stuff.com/ont"));
+        OWLAnnotationProperty label = dataFactory.getRDFSLabel();
+        UserId userId = UserId.getUserId("bob");
+        for (int i = 1; i <= REVISION_COUNT; i++) {
+            List<OWLOntologyChangeRecord> records = new ArrayList<>();
+            OWLClass cls = getClass(i);
+            records.add(new OWLOntologyChangeRecord(ontologyId, new AddAxiomData(dataFactory.getOWLDeclarationAxiom(cls))));
+            records.add(new OWLOntologyChangeRecord(ontologyId, new AddAxiomData(
+                    dataFactory.getOWLAnnotationAssertionAxiom(label, cls.getIRI(), dataFactory.getOWLLiteral("C" + i)))));
+            if (i > 1) {
+                records.add(new OWLOntologyChangeRecord(ontologyId, new AddAxiomData(
+                        dataFactory.getOWLSubClassOfAxiom(cls, getClass(i - 1)))));
+            }
+            if (i % 3 == 0) {
+                // Removes an axiom that was added in an earlier revision, possibly one before the checkpoint
+                records.add(new OWLOntologyChangeRecord(ontologyId, new RemoveAxiomData(
+                        dataFactory.getOWLSubClassOfAxiom(getClass(i - 1), getClass(i - 2)))));
+            }
+            if (i % 5 == 0) {
+                records.add(new OWLOntologyChangeRecord(ontologyId, new AddOntologyAnnotationData(
+                        dataFactory.getOWLAnnotation(label, dataFactory.getOWLLiteral("Revision " + i)))));
+                records.add(new OWLOntologyChangeRecord(ontologyId, new AddImportData(
+                        dataFactory.getOWLImportsDeclaration(IRI.create("http://stuff.com/imported" + i)))));
+            }
+            if (i % 7 == 0) {
+                records.add(new OWLOntologyChangeRecord(ontologyId, new RemoveImportData(
+                        dataFactory.getOWLImportsDeclaration(IRI.create("http://stuff.com/imported5")))));
+            }
+            revisions.add(new Revision(userId, RevisionNumber.getRevisionNumber(i),
+                    ImmutableList.copyOf(records), i, "Revision " + i));
+        }
+        when(revisionStore.getRevisions()).thenReturn(revisions);
+    }
+
+    private OWLClass getClass(int i) {
+        return dataFactory.getOWLClass(IRI.create("http://stuff.com/ont#C" + i));
+    }
+
+    private RevisionCheckpointStore createCheckpointStore(Executor writeExecutor) {
+        return new RevisionCheckpointStore(temporaryFolder.getRoot(), dataFactory, logger, writeExecutor);
+    }
+
+    private static Map<OWLOntologyID, Set<Object>> getContent(OWLOntologyManager manager) {
+        Map<OWLOntologyID, Set<Object>> content = new HashMap<>();
+        for (OWLOntology ontology : manager.getOntologies()) {
+            Set<Object> ontologyContent = new HashSet<>();
+            ontologyContent.addAll(ontology.getAxioms());
+            ontologyContent.addAll(ontology.getAnnotations());
+            ontologyContent.addAll(ontology.getImportsDeclarations());
+            content.put(ontology.getOntologyID(), ontologyContent);
+        }
+        return content;
+    }
+
+    @Test
+    public void shouldRestoreCheckpointAndReplayToSameStateAsFullReplay() {
+        RevisionCheckpointStore checkpointStore = createCheckpointStore(MoreExecutors.directExecutor());
+        RevisionManagerImpl revisionManager = new RevisionManagerImpl(revisionStore, checkpointStore);
+        OWLOntologyManager checkpointManager = revisionManager.getOntologyManagerForRevision(CHECKPOINT_REVISION);
+        checkpointStore.writeCheckpoint(CHECKPOINT_REVISION, checkpointManager);
+        assertThat(checkpointStore.getLatestCheckpoint(RevisionNumber.getRevisionNumber(REVISION_COUNT)),
+                is(Optional.of(CHECKPOINT_REVISION)));
+        // A revision manager whose checkpoint store is empty, and so always replays the full change history
+        RevisionManagerImpl fullReplayManager = new RevisionManagerImpl(revisionStore,
+                new RevisionCheckpointStore(new File(temporaryFolder.getRoot(), "empty"), dataFactory, logger,
+                        MoreExecutors.directExecutor()));
+        for (int i = 1; i <= REVISION_COUNT; i++) {
+            RevisionNumber revision = RevisionNumber.getRevisionNumber(i);
+            OWLOntologyManager restoredManager = revisionManager.getOntologyManagerForRevision(revision);
+            OWLOntologyManager replayedManager = fullReplayManager.getOntologyManagerForRevision(revision);
+            assertThat(getContent(restoredManager), is(getContent(replayedManager)));
+        }
+    }
+
+    @Test
+    public void shouldWriteCheckpointInBackground() {
+        Executor writeExecutor = mock(Executor.class);
+        RevisionCheckpointStore checkpointStore = createCheckpointStore(writeExecutor);
+        RevisionManagerImpl revisionManager = new RevisionManagerImpl(revisionStore, checkpointStore);
+        OWLOntologyManager manager = revisionManager.getOntologyManagerForRevision(CHECKPOINT_REVISION);
+        checkpointStore.writeCheckpoint(CHECKPOINT_REVISION, manager);
+        assertThat(checkpointStore.getLatestCheckpoint(CHECKPOINT_REVISION).isPresent(), is(false));
+        ArgumentCaptor<Runnable> writeCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(writeExecutor, times(1)).execute(writeCaptor.capture());
+        writeCaptor.getValue().run();
+        assertThat(checkpointStore.getLatestCheckpoint(CHECKPOINT_REVISION), is(Optional.of(CHECKPOINT_REVISION)));
+    }
+
+    @Test
+    public void shouldSkipCheckpointWhileAnotherCheckpointIsPending() {
+        Executor writeExecutor = mock(Executor.class);
+        RevisionCheckpointStore checkpointStore = createCheckpointStore(writeExecutor);
+        RevisionManagerImpl revisionManager = new RevisionManagerImpl(revisionStore, checkpointStore);
+        RevisionNumber laterRevision = RevisionNumber.getRevisionNumber(REVISION_COUNT);
+        checkpointStore.writeCheckpoint(CHECKPOINT_REVISION,
+                revisionManager.getOntologyManagerForRevision(CHECKPOINT_REVISION));
+        checkpointStore.writeCheckpoint(laterRevision,
+                revisionManager.getOntologyManagerForRevision(laterRevision));
+        ArgumentCaptor<Runnable> writeCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(writeExecutor, times(1)).execute(writeCaptor.capture());
+        writeCaptor.getValue().run();
+        assertThat(checkpointStore.getLatestCheckpoint(laterRevision), is(Optional.of(CHECKPOINT_REVISION)));
+        checkpointStore.writeCheckpoint(laterRevision,
+                revisionManager.getOntologyManagerForRevision(laterRevision));
+        verify(writeExecutor, times(2)).execute(any(Runnable.class));
+    }
+}
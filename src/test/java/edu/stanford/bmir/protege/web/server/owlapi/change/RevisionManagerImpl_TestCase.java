@@ -36,6 +36,9 @@ public class RevisionManagerImpl_TestCase {
     @Mock
     private RevisionStore revisionStore;
 
+    @Mock
+    private RevisionCheckpointStore checkpointStore;
+
     @Mock
     private UserId userId;
 
@@ -50,7 +53,7 @@ public class RevisionManagerImpl_TestCase {
 
     @Before
     public void setUp() throws Exception {
-        manager = new RevisionManagerImpl(revisionStore);
+        manager = new RevisionManagerImpl(revisionStore, checkpointStore);
         when(revisionStore.getCurrentRevisionNumber()).thenReturn(revisionNumber);
         when(revisionStore.getRevision(revisionNumber)).thenReturn(Optional.of(revision));
         when(revisionStore.getRevisions()).thenReturn(ImmutableList.of(revision));
@@ -65,7 +68,12 @@ public class RevisionManagerImpl_TestCase {
 
     @Test(expected = java.lang.NullPointerException.class)
     public void shouldThrowNullPointerExceptionIf_revisionStore_IsNull() {
-        new RevisionManagerImpl(null);
+        new RevisionManagerImpl(null, checkpointStore);
+    }
+
+    @Test(expected = java.lang.NullPointerException.class)
+    public void shouldThrowNullPointerExceptionIf_checkpointStore_IsNull() {
+        new RevisionManagerImpl(revisionStore, null);
     }
 
     @Test
@@ -0,0 +1,178 @@
+package edu.stanford.bmir.protege.web.server.owlapi.change;
+
+import com.google.common.collect.ImmutableList;
+import edu.stanford.bmir.protege.web.server.logging.WebProtegeLogger;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.change.AddAxiomData;
+import org.semanticweb.owlapi.change.OWLOntologyChangeRecord;
+import org.semanticweb.owlapi.change.RemoveAxiomData;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLOntologyID;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+
+public class RevisionStoreImpl_TestCase {
+
+    private static final int REVISION_COUNT = 3;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private ProjectId projectId;
+
+    private OWLDataFactory dataFactory;
+
+    private WebProtegeLogger logger;
+
+    private GroupCommitLog groupCommitLog;
+
+    private File changeHistoryFile;
+
+    private File indexFile;
+
+    private List<Revision> writtenRevisions = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        projectId = ProjectId.get(UUID.randomUUID().toString());
+        dataFactory = OWLManager.getOWLDataFactory();
+        logger = mock(WebProtegeLogger.class);
+        groupCommitLog = new GroupCommitLog(logger);
+        changeHistoryFile = new File(temporaryFolder.getRoot(), "change-data.binary");
+        indexFile = new File(temporaryFolder.getRoot(), "change-data.binary.index");
+        RevisionStoreImpl store = createStore();
+        store.load();
+        OWLOntologyID ontologyId = new OWLOntologyID(IRI.create("http://stuff.com/ont"));
+        UserId userId = UserId.getUserId("bob");
+        for (int i = 1; i <= REVISION_COUNT; i++) {
+            OWLClass cls = dataFactory.getOWLClass(IRI.create("http://stuff.com/ont#A" + i));
+            OWLClass superCls = dataFactory.getOWLClass(IRI.create("http://stuff.com/ont#B" + i));
+            ImmutableList<OWLOntologyChangeRecord> records = ImmutableList.of(
+                    new OWLOntologyChangeRecord(ontologyId, new AddAxiomData(dataFactory.getOWLDeclarationAxiom(cls))),
+                    new OWLOntologyChangeRecord(ontologyId, new AddAxiomData(dataFactory.getOWLSubClassOfAxiom(cls, superCls))),
+                    new OWLOntologyChangeRecord(ontologyId, new RemoveAxiomData(dataFactory.getOWLDeclarationAxiom(superCls))));
+            Revision revision = new Revision(userId, RevisionNumber.getRevisionNumber(i), records, 1000L * i, "Revision " + i);
+            store.addRevision(revision);
+            writtenRevisions.add(revision);
+        }
+        assertThat(store.awaitLastWrite(), is(true));
+    }
+
+    @After
+    public void tearDown() {
+        groupCommitLog.dispose();
+    }
+
+    private RevisionStoreImpl createStore() {
+        return new RevisionStoreImpl(projectId, dataFactory, changeHistoryFile, groupCommitLog, logger);
+    }
+
+    private RevisionStoreImpl loadStore() {
+        RevisionStoreImpl store = createStore();
+        store.load();
+        return store;
+    }
+
+    private void assertContainsWrittenRevisions(RevisionStoreImpl store) {
+        List<Revision> revisions = store.getRevisions();
+        assertThat(revisions.size(), is(writtenRevisions.size()));
+        for (int i = 0; i < revisions.size(); i++) {
+            Revision loaded = revisions.get(i);
+            Revision written = writtenRevisions.get(i);
+            assertThat(loaded.getRevisionNumber(), is(written.getRevisionNumber()));
+            assertThat(loaded.getUserId(), is(written.getUserId()));
+            assertThat(loaded.getTimestamp(), is(written.getTimestamp()));
+            assertThat(loaded.getHighLevelDescription(), is(written.getHighLevelDescription()));
+            assertThat(loaded.getSize(), is(written.getSize()));
+            assertThat(loaded.getChanges(), is(written.getChanges()));
+        }
+    }
+
+    @Test
+    public void shouldWriteIndex() {
+        assertThat(indexFile.exists(), is(true));
+    }
+
+    @Test
+    public void shouldLoadRevisionsFromIndex() {
+        RevisionStoreImpl store = loadStore();
+        assertContainsWrittenRevisions(store);
+    }
+
+    @Test
+    public void shouldRebuildDeletedIndexWithoutModifyingChangeLog() throws IOException {
+        byte[] changeLogBytes = Files.readAllBytes(changeHistoryFile.toPath());
+        Files.delete(indexFile.toPath());
+        RevisionStoreImpl store = loadStore();
+        assertContainsWrittenRevisions(store);
+        assertThat(Arrays.equals(Files.readAllBytes(changeHistoryFile.toPath()), changeLogBytes), is(true));
+        assertThat(indexFile.exists(), is(true));
+        assertContainsWrittenRevisions(loadStore());
+    }
+
+    @Test
+    public void shouldRebuildCorruptIndexWithoutModifyingChangeLog() throws IOException {
+        byte[] changeLogBytes = Files.readAllBytes(changeHistoryFile.toPath());
+        Files.write(indexFile.toPath(), new byte[]{0, 0, 0, 7, 1, 2, 3});
+        RevisionStoreImpl store = loadStore();
+        assertContainsWrittenRevisions(store);
+        assertThat(Arrays.equals(Files.readAllBytes(changeHistoryFile.toPath()), changeLogBytes), is(true));
+        assertContainsWrittenRevisions(loadStore());
+    }
+
+    @Test
+    public void shouldRebuildIndexWithInconsistentBoundaryBetweenRevisions() throws IOException {
+        RevisionIndex revisionIndex = new RevisionIndex(indexFile);
+        List<RevisionIndexEntry> entries = revisionIndex.read();
+        List<RevisionIndexEntry> shiftedEntries = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            RevisionIndexEntry entry = entries.get(i);
+            // Moves the boundary between the first and the second revision, leaving the end of the log unchanged
+            long startOffset = i == 1 ? entry.getStartOffset() - 1 : entry.getStartOffset();
+            long endOffset = i == 0 ? entry.getEndOffset() - 1 : entry.getEndOffset();
+            shiftedEntries.add(new RevisionIndexEntry(entry.getRevisionNumber(),
+                    entry.getUserId(),
+                    entry.getTimestamp(),
+                    entry.getDescription(),
+                    entry.getChangeCount(),
+                    startOffset,
+                    endOffset));
+        }
+        revisionIndex.write(shiftedEntries);
+        RevisionStoreImpl store = loadStore();
+        assertContainsWrittenRevisions(store);
+        assertThat(revisionIndex.read(), is(entries));
+    }
+
+    @Test
+    public void shouldNotModifyTruncatedChangeLog() throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(changeHistoryFile, "rw")) {
+            file.setLength(file.length() - 5);
+        }
+        byte[] changeLogBytes = Files.readAllBytes(changeHistoryFile.toPath());
+        loadStore();
+        assertThat(Arrays.equals(Files.readAllBytes(changeHistoryFile.toPath()), changeLogBytes), is(true));
+        assertThat(indexFile.exists(), is(false));
+    }
+}
@@ -1,6 +1,7 @@
 
 package edu.stanford.bmir.protege.web.server.owlapi.change;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -115,6 +116,24 @@ public class Revision_TestCase {
         MatcherAssert.assertThat(revision, Matchers.is(Matchers.not(new Revision(userId, revisionNumber, mock(ImmutableList.class), timestamp, highLevelDescription))));
     }
 
+    @Test
+    public void shouldNotReadLazilyLoadedChangesWhenComparing() throws IOException {
+        ChangeLogSegmentReader reader = mock(ChangeLogSegmentReader.class);
+        Revision lazyRevision = new Revision(userId, revisionNumber, 3, new LazyRevisionChanges(reader, 10, 20), timestamp, highLevelDescription);
+        Revision otherLazyRevision = new Revision(userId, revisionNumber, 3, new LazyRevisionChanges(reader, 10, 20), timestamp, highLevelDescription);
+        MatcherAssert.assertThat(lazyRevision, Matchers.is(otherLazyRevision));
+        MatcherAssert.assertThat(lazyRevision.hashCode(), Matchers.is(otherLazyRevision.hashCode()));
+        Mockito.verify(reader, Mockito.never()).readChanges(Mockito.anyLong(), Mockito.anyLong());
+    }
+
+    @Test
+    public void shouldNotBeEqualToLazilyLoadedRevisionAtDifferentPositionInChangeLog() {
+        ChangeLogSegmentReader reader = mock(ChangeLogSegmentReader.class);
+        Revision lazyRevision = new Revision(userId, revisionNumber, 3, new LazyRevisionChanges(reader, 10, 20), timestamp, highLevelDescription);
+        Revision otherLazyRevision = new Revision(userId, revisionNumber, 3, new LazyRevisionChanges(reader, 20, 30), timestamp, highLevelDescription);
+        MatcherAssert.assertThat(lazyRevision, Matchers.is(Matchers.not(otherLazyRevision)));
+    }
+
     @Test
     public void shouldNotBeEqualToOtherThatHasDifferent_timestamp() {
         MatcherAssert.assertThat(revision, Matchers.is(Matchers.not(new Revision(userId, revisionNumber, changes, 2L, highLevelDescription))));
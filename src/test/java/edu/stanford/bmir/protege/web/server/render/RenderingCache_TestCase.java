@@ -0,0 +1,124 @@
+package edu.stanford.bmir.protege.web.server.render;
+
+import com.google.common.base.Supplier;
+import edu.stanford.bmir.protege.web.server.render.RenderingCache.RenderingStyle;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.*;
+import org.semanticweb.owlapi.util.ShortFormProvider;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RenderingCache_TestCase {
+
+    private static final String RENDERING = "A SubClassOf B";
+
+    @Mock
+    private ShortFormProvider shortFormProvider;
+
+    @Mock
+    private EntityIRIChecker entityIRIChecker;
+
+    @Mock
+    private DeprecatedEntityChecker deprecatedEntityChecker;
+
+    @Mock
+    private Supplier<String> renderer;
+
+    private OWLDataFactory dataFactory;
+
+    private OWLOntology ontology;
+
+    private OWLClass clsA;
+
+    private OWLClass clsB;
+
+    private OWLAxiom axiom;
+
+    private RenderingCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+        dataFactory = manager.getOWLDataFactory();
+        ontology = manager.createOntology();
+        clsA = dataFactory.getOWLClass(IRI.create("http://stuff.com/A"));
+        clsB = dataFactory.getOWLClass(IRI.create("http://stuff.com/B"));
+        axiom = dataFactory.getOWLSubClassOfAxiom(clsA, clsB);
+        when(entityIRIChecker.getEntitiesWithIRI(clsA.getIRI())).thenReturn(Collections.<OWLEntity>singleton(clsA));
+        when(entityIRIChecker.getEntitiesWithIRI(clsB.getIRI())).thenReturn(Collections.<OWLEntity>singleton(clsB));
+        when(shortFormProvider.getShortForm(clsA)).thenReturn("A");
+        when(shortFormProvider.getShortForm(clsB)).thenReturn("B");
+        when(renderer.get()).thenReturn(RENDERING);
+        cache = new RenderingCache(shortFormProvider, entityIRIChecker, deprecatedEntityChecker, 100);
+    }
+
+    @Test
+    public void shouldReturnRendering() {
+        assertThat(cache.getRendering(axiom, RenderingStyle.BROWSER_TEXT, renderer), is(RENDERING));
+    }
+
+    @Test
+    public void shouldRenderObjectOnce() {
+        cache.getRendering(axiom, RenderingStyle.BROWSER_TEXT, renderer);
+        cache.getRendering(axiom, RenderingStyle.BROWSER_TEXT, renderer);
+        verify(renderer, times(1)).get();
+    }
+
+    @Test
+    public void shouldRenderEachStyleSeparately() {
+        cache.getRendering(axiom, RenderingStyle.BROWSER_TEXT, renderer);
+        cache.getRendering(axiom, RenderingStyle.HTML, renderer);
+        verify(renderer, times(2)).get();
+    }
+
+    @Test
+    public void shouldRenderAgainWhenShortFormChanges() {
+        cache.getRendering(axiom, RenderingStyle.BROWSER_TEXT, renderer);
+        when(shortFormProvider.getShortForm(clsB)).thenReturn("C");
+        cache.handleChanges(changeMentioning(clsB));
+        cache.getRendering(axiom, RenderingStyle.BROWSER_TEXT, renderer);
+        verify(renderer, times(2)).get();
+    }
+
+    @Test
+    public void shouldRenderAgainWhenDeprecationChanges() {
+        cache.getRendering(axiom, RenderingStyle.HTML, renderer);
+        when(deprecatedEntityChecker.isDeprecated(clsA)).thenReturn(true);
+        cache.handleChanges(changeMentioning(clsA));
+        cache.getRendering(axiom, RenderingStyle.HTML, renderer);
+        verify(renderer, times(2)).get();
+    }
+
+    @Test
+    public void shouldNotRenderAgainWhenShortFormDoesNotChange() {
+        cache.getRendering(axiom, RenderingStyle.BROWSER_TEXT, renderer);
+        cache.handleChanges(changeMentioning(clsB));
+        cache.getRendering(axiom, RenderingStyle.BROWSER_TEXT, renderer);
+        verify(renderer, times(1)).get();
+    }
+
+    @Test
+    public void shouldRenderAgainAfterImportsChange() {
+        cache.getRendering(axiom, RenderingStyle.BROWSER_TEXT, renderer);
+        OWLImportsDeclaration importsDeclaration = dataFactory.getOWLImportsDeclaration(IRI.create("http://stuff.com/imported"));
+        cache.handleChanges(Collections.<OWLOntologyChange>singletonList(new AddImport(ontology, importsDeclaration)));
+        cache.getRendering(axiom, RenderingStyle.BROWSER_TEXT, renderer);
+        verify(renderer, times(2)).get();
+    }
+
+    private List<OWLOntologyChange> changeMentioning(OWLEntity entity) {
+        OWLAxiom declaration = dataFactory.getOWLDeclarationAxiom(entity);
+        return Collections.<OWLOntologyChange>singletonList(new AddAxiom(ontology, declaration));
+    }
+}
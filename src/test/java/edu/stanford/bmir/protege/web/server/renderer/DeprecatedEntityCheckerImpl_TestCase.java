@@ -0,0 +1,79 @@
+package edu.stanford.bmir.protege.web.server.renderer;
+
+import edu.stanford.bmir.protege.web.server.render.DeprecatedEntityCheckerImpl;
+import org.junit.Before;
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.*;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class DeprecatedEntityCheckerImpl_TestCase {
+
+    private OWLOntologyManager manager;
+
+    private OWLOntology ontology;
+
+    private OWLDataFactory dataFactory;
+
+    private OWLClass clsA;
+
+    private OWLAxiom deprecatedA;
+
+    private DeprecatedEntityCheckerImpl checker;
+
+    @Before
+    public void setUp() throws Exception {
+        manager = OWLManager.createOWLOntologyManager();
+        dataFactory = manager.getOWLDataFactory();
+        ontology = manager.createOntology();
+        clsA = dataFactory.getOWLClass(IRI.create("http://stuff.com/A"));
+        deprecatedA = dataFactory.getDeprecatedOWLAnnotationAssertionAxiom(clsA.getIRI());
+    }
+
+    @Test
+    public void shouldIndexDeprecatedEntitiesWhenCreated() {
+        manager.addAxiom(ontology, deprecatedA);
+        checker = new DeprecatedEntityCheckerImpl(ontology);
+        assertThat(checker.isDeprecated(clsA), is(true));
+    }
+
+    @Test
+    public void shouldNotReportEntityThatIsNotDeprecated() {
+        checker = new DeprecatedEntityCheckerImpl(ontology);
+        assertThat(checker.isDeprecated(clsA), is(false));
+    }
+
+    @Test
+    public void shouldIndexAddedDeprecation() {
+        checker = new DeprecatedEntityCheckerImpl(ontology);
+        List<OWLOntologyChange> changes = manager.addAxiom(ontology, deprecatedA);
+        checker.handleChanges(changes);
+        assertThat(checker.isDeprecated(clsA), is(true));
+    }
+
+    @Test
+    public void shouldUnindexRemovedDeprecation() {
+        manager.addAxiom(ontology, deprecatedA);
+        checker = new DeprecatedEntityCheckerImpl(ontology);
+        List<OWLOntologyChange> changes = manager.removeAxiom(ontology, deprecatedA);
+        checker.handleChanges(changes);
+        assertThat(checker.isDeprecated(clsA), is(false));
+    }
+
+    @Test
+    public void shouldRemainDeprecatedIfAnotherDeprecationRemains() {
+        OWLAnnotation comment = dataFactory.getOWLAnnotation(dataFactory.getRDFSComment(), dataFactory.getOWLLiteral("Obsolete"));
+        OWLAxiom annotatedDeprecatedA = deprecatedA.getAnnotatedAxiom(Collections.singleton(comment));
+        manager.addAxiom(ontology, deprecatedA);
+        manager.addAxiom(ontology, annotatedDeprecatedA);
+        checker = new DeprecatedEntityCheckerImpl(ontology);
+        List<OWLOntologyChange> changes = manager.removeAxiom(ontology, deprecatedA);
+        checker.handleChanges(changes);
+        assertThat(checker.isDeprecated(clsA), is(true));
+    }
+}
@@ -0,0 +1,104 @@
+package edu.stanford.bmir.protege.web.server.shortform;
+
+import edu.stanford.bmir.protege.web.shared.search.EntityNameMatchType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ShortFormIndex_TestCase {
+
+    private ShortFormIndex index;
+
+    @Before
+    public void setUp() throws Exception {
+        index = new ShortFormIndex();
+        index.add("Heart");
+        index.add("'heart valve'");
+        index.add("HeartAttack");
+        index.add("Sweetheart");
+        index.add("Lung");
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void shouldThrowNullPointerExceptionIfSearchStringIsNull() {
+        index.getMatches(null, 10);
+    }
+
+    @Test
+    public void shouldFindAllKindsOfMatchForLongSearchString() {
+        List<String> shortForms = getShortForms(index.getMatches("heart", 10));
+        assertThat(shortForms, containsInAnyOrder("Heart", "'heart valve'", "HeartAttack", "Sweetheart"));
+    }
+
+    @Test
+    public void shouldRankExactMatchFirst() {
+        List<ShortFormMatch> matches = index.getMatches("HEART", 10);
+        assertThat(matches.get(0).getShortForm(), is("Heart"));
+        assertThat(matches.get(0).getMatchResult().getMatchType(), is(EntityNameMatchType.EXACT_MATCH));
+    }
+
+    @Test
+    public void shouldFindWordPrefixMatchForShortSearchString() {
+        List<String> shortForms = getShortForms(index.getMatches("at", 10));
+        assertThat(shortForms, contains("HeartAttack"));
+    }
+
+    @Test
+    public void shouldFindSubStringMatchForShortSearchStringWhenFewerThanLimit() {
+        List<String> shortForms = getShortForms(index.getMatches("un", 10));
+        assertThat(shortForms, contains("Lung"));
+    }
+
+    @Test
+    public void shouldNotScanForSubStringMatchesForShortSearchStringWhenLimitReached() {
+        List<String> shortForms = getShortForms(index.getMatches("he", 3));
+        assertThat(shortForms, containsInAnyOrder("Heart", "'heart valve'", "HeartAttack"));
+    }
+
+    @Test
+    public void shouldFindSubStringMatchesForSingleCharacterSearchString() {
+        index.add("Xu");
+        List<String> shortForms = getShortForms(index.getMatches("u", 10));
+        assertThat(shortForms, containsInAnyOrder("Lung", "Xu"));
+    }
+
+    @Test
+    public void shouldRankAllMatchesWhenLimitIsLessThanNumberOfMatches() {
+        List<ShortFormMatch> matches = index.getMatches("heart", 2);
+        List<ShortFormMatch> sortedMatches = new ArrayList<>(matches);
+        Collections.sort(sortedMatches);
+        assertThat(matches, hasSize(4));
+        assertThat(matches, is(sortedMatches));
+        assertThat(matches.get(0).getShortForm(), is("Heart"));
+    }
+
+    @Test
+    public void shouldMatchEverythingForEmptySearchString() {
+        assertThat(index.getMatches("", 10), hasSize(5));
+    }
+
+    @Test
+    public void shouldNotFindRemovedShortForm() {
+        index.remove("Sweetheart");
+        assertThat(getShortForms(index.getMatches("heart", 10)), not(hasItem("Sweetheart")));
+    }
+
+    @Test
+    public void shouldNotFindAnythingForMissingTrigram() {
+        assertThat(index.getMatches("xyz", 10), is(empty()));
+    }
+
+    private static List<String> getShortForms(List<ShortFormMatch> matches) {
+        List<String> result = new ArrayList<>();
+        for (ShortFormMatch match : matches) {
+            result.add(match.getShortForm());
+        }
+        return result;
+    }
+}
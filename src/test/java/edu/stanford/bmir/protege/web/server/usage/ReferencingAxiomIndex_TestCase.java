@@ -0,0 +1,78 @@
+package edu.stanford.bmir.protege.web.server.usage;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.*;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ReferencingAxiomIndex_TestCase {
+
+    private OWLOntologyManager manager;
+
+    private OWLOntology ontology;
+
+    private OWLDataFactory dataFactory;
+
+    private IRI subjectIRI;
+
+    private IRI valueIRI;
+
+    private OWLAxiom annotationAssertionAxiom;
+
+    private ReferencingAxiomIndex index;
+
+    @Before
+    public void setUp() throws Exception {
+        manager = OWLManager.createOWLOntologyManager();
+        dataFactory = manager.getOWLDataFactory();
+        ontology = manager.createOntology();
+        subjectIRI = IRI.create("http://stuff.com/A");
+        valueIRI = IRI.create("http://stuff.com/B");
+        annotationAssertionAxiom = dataFactory.getOWLAnnotationAssertionAxiom(dataFactory.getRDFSSeeAlso(), subjectIRI, valueIRI);
+        manager.addAxiom(ontology, annotationAssertionAxiom);
+        index = new ReferencingAxiomIndex(ontology);
+    }
+
+    @Test
+    public void shouldIndexAnnotationSubject() {
+        assertThat(index.getReferencingAxioms(subjectIRI), contains(annotationAssertionAxiom));
+    }
+
+    @Test
+    public void shouldIndexAnnotationValue() {
+        assertThat(index.getReferencingAxioms(valueIRI), contains(annotationAssertionAxiom));
+    }
+
+    @Test
+    public void shouldIndexAddedAnnotationPropertyRange() {
+        OWLAxiom rangeAxiom = dataFactory.getOWLAnnotationPropertyRangeAxiom(dataFactory.getRDFSComment(), valueIRI);
+        manager.addAxiom(ontology, rangeAxiom);
+        assertThat(index.getReferencingAxioms(valueIRI), containsInAnyOrder(annotationAssertionAxiom, rangeAxiom));
+    }
+
+    @Test
+    public void shouldIndexAddedAnnotationPropertyDomain() {
+        OWLAxiom domainAxiom = dataFactory.getOWLAnnotationPropertyDomainAxiom(dataFactory.getRDFSComment(), subjectIRI);
+        manager.addAxiom(ontology, domainAxiom);
+        assertThat(index.getReferencingAxioms(subjectIRI), containsInAnyOrder(annotationAssertionAxiom, domainAxiom));
+    }
+
+    @Test
+    public void shouldRemoveRemovedAxiom() {
+        manager.removeAxiom(ontology, annotationAssertionAxiom);
+        assertThat(index.getReferencingAxioms(subjectIRI), is(empty()));
+    }
+
+    @Test
+    public void shouldReturnEmptyCollectionForUnreferencedIRI() {
+        assertThat(index.getReferencingAxioms(IRI.create("http://stuff.com/C")), is(empty()));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void shouldThrowNullPointerExceptionForNullIRI() {
+        index.getReferencingAxioms(null);
+    }
+}
@@ -0,0 +1,68 @@
+package edu.stanford.bmir.protege.web.server.watches;
+
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import edu.stanford.bmir.protege.web.shared.watches.EntityFrameWatch;
+import edu.stanford.bmir.protege.web.shared.watches.HierarchyBranchWatch;
+import edu.stanford.bmir.protege.web.shared.watches.Watch;
+import org.hamcrest.Matchers;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.semanticweb.owlapi.model.OWLEntity;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+@RunWith(MockitoJUnitRunner.class)
+public class WatchIndex_TestCase {
+
+    @Mock
+    private OWLEntity entity;
+
+    private UserId userA;
+
+    private UserId userB;
+
+    private WatchIndex index;
+
+    @Before
+    public void setUp() {
+        userA = UserId.getUserId("UserA");
+        userB = UserId.getUserId("UserB");
+        index = new WatchIndex();
+    }
+
+    @Test
+    public void shouldIndexBranchRootOfHierarchyBranchWatch() {
+        index.addWatch(new HierarchyBranchWatch(entity), userA);
+        assertThat(index.getWatchedBranchRoots(), contains(entity));
+    }
+
+    @Test
+    public void shouldNotIndexBranchRootOfEntityFrameWatch() {
+        index.addWatch(new EntityFrameWatch(entity), userA);
+        assertThat(index.getWatchedBranchRoots(), is(empty()));
+    }
+
+    @Test
+    public void shouldRemoveBranchRootWhenLastWatchIsRemoved() {
+        HierarchyBranchWatch watch = new HierarchyBranchWatch(entity);
+        index.addWatch(watch, userA);
+        index.removeWatch(watch, userA);
+        assertThat(index.getWatchedBranchRoots(), is(empty()));
+    }
+
+    @Test
+    public void shouldKeepWatchOnEntityWhileAnotherUserHasIt() {
+        HierarchyBranchWatch watch = new HierarchyBranchWatch(entity);
+        index.addWatch(watch, userA);
+        index.addWatch(watch, userB);
+        index.removeWatch(watch, userA);
+        assertThat(index.getWatchesOnEntity(entity), Matchers.<Watch<?>>contains(watch));
+        assertThat(index.getWatchedBranchRoots(), contains(entity));
+    }
+}
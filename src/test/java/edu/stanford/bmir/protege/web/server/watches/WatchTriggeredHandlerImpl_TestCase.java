@@ -0,0 +1,161 @@
+package edu.stanford.bmir.protege.web.server.watches;
+
+import com.google.common.base.Optional;
+import edu.stanford.bmir.protege.web.server.logging.WebProtegeLogger;
+import edu.stanford.bmir.protege.web.server.mail.SendMail;
+import edu.stanford.bmir.protege.web.server.metaproject.UserDetailsManager;
+import edu.stanford.bmir.protege.web.shared.BrowserTextProvider;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.user.UserDetails;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import edu.stanford.bmir.protege.web.shared.watches.HierarchyBranchWatch;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLEntity;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class WatchTriggeredHandlerImpl_TestCase {
+
+    private static final long WINDOW_SECONDS = 60;
+
+    private static final String EMAIL_ADDRESS = "user@stuff.com";
+
+    @Mock
+    private BrowserTextProvider browserTextProvider;
+
+    @Mock
+    private SendMail sendMail;
+
+    @Mock
+    private UserDetailsManager userDetailsManager;
+
+    @Mock
+    private UserDetails userDetails;
+
+    @Mock
+    private WebProtegeLogger logger;
+
+    @Mock
+    private ScheduledExecutorService executor;
+
+    @Mock
+    private HierarchyBranchWatch watch;
+
+    private UserId userId;
+
+    private OWLClass clsA;
+
+    private OWLClass clsB;
+
+    private WatchTriggeredHandlerImpl handler;
+
+    @Before
+    public void setUp() {
+        OWLDataFactory dataFactory = OWLManager.getOWLDataFactory();
+        clsA = dataFactory.getOWLClass(IRI.create("http://stuff.com/A"));
+        clsB = dataFactory.getOWLClass(IRI.create("http://stuff.com/B"));
+        userId = UserId.getUserId("User");
+        when(browserTextProvider.getOWLEntityBrowserText(any(OWLEntity.class))).thenReturn(Optional.<String>absent());
+        when(userDetailsManager.getUserDetails(userId)).thenReturn(Optional.of(userDetails));
+        when(userDetails.getEmailAddress()).thenReturn(Optional.of(EMAIL_ADDRESS));
+        handler = new WatchTriggeredHandlerImpl(ProjectId.get("12345678-1234-1234-1234-123456789abc"),
+                browserTextProvider,
+                "webprotege.stanford.edu",
+                sendMail,
+                userDetailsManager,
+                logger,
+                executor,
+                WINDOW_SECONDS);
+    }
+
+    @Test
+    public void shouldScheduleOneNotificationPerUserPerWindow() {
+        handler.handleWatchTriggered(watch, userId, clsA);
+        handler.handleWatchTriggered(watch, userId, clsB);
+        verify(executor, times(1)).schedule(any(Runnable.class), eq(WINDOW_SECONDS), eq(TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldNotSendMailBeforeWindowEnds() {
+        handler.handleWatchTriggered(watch, userId, clsA);
+        verify(sendMail, never()).sendMail(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void shouldSendOneMailListingAllChangedEntities() {
+        handler.handleWatchTriggered(watch, userId, clsA);
+        handler.handleWatchTriggered(watch, userId, clsB);
+        handler.handleWatchTriggered(watch, userId, clsA);
+        runScheduledNotification();
+        ArgumentCaptor<String> textCaptor = ArgumentCaptor.forClass(String.class);
+        verify(sendMail, times(1)).sendMail(eq(EMAIL_ADDRESS), anyString(), textCaptor.capture());
+        assertThat(textCaptor.getValue(), containsString(clsA.getIRI().toQuotedString()));
+        assertThat(textCaptor.getValue(), containsString(clsB.getIRI().toQuotedString()));
+    }
+
+    @Test
+    public void shouldStartNewWindowAfterNotificationIsSent() {
+        handler.handleWatchTriggered(watch, userId, clsA);
+        runScheduledNotification();
+        handler.handleWatchTriggered(watch, userId, clsB);
+        verify(executor, times(2)).schedule(any(Runnable.class), eq(WINDOW_SECONDS), eq(TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldSendPendingNotificationsWhenDisposed() {
+        handler.handleWatchTriggered(watch, userId, clsA);
+        handler.dispose();
+        ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor.forClass(Runnable.class);
+        InOrder inOrder = inOrder(executor);
+        inOrder.verify(executor).execute(runnableCaptor.capture());
+        inOrder.verify(executor).shutdown();
+        runnableCaptor.getValue().run();
+        verify(sendMail, times(1)).sendMail(eq(EMAIL_ADDRESS), anyString(), anyString());
+    }
+
+    @Test
+    public void shouldNotSendMailOnDisposingThread() {
+        handler.handleWatchTriggered(watch, userId, clsA);
+        handler.dispose();
+        verify(sendMail, never()).sendMail(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void shouldCountChangesToEntitiesBeyondListLimit() {
+        OWLDataFactory dataFactory = OWLManager.getOWLDataFactory();
+        for (int i = 0; i < 102; i++) {
+            handler.handleWatchTriggered(watch, userId, dataFactory.getOWLClass(IRI.create("http://stuff.com/C" + i)));
+        }
+        runScheduledNotification();
+        ArgumentCaptor<String> textCaptor = ArgumentCaptor.forClass(String.class);
+        verify(sendMail, times(1)).sendMail(eq(EMAIL_ADDRESS), anyString(), textCaptor.capture());
+        assertThat(textCaptor.getValue(), containsString("2 further changes were made to other watched entities"));
+        assertThat(textCaptor.getValue(), not(containsString("http://stuff.com/C101")));
+    }
+
+    private void runScheduledNotification() {
+        ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(executor, atLeastOnce()).schedule(runnableCaptor.capture(), eq(WINDOW_SECONDS), eq(TimeUnit.SECONDS));
+        runnableCaptor.getValue().run();
+    }
+}